@@ -90,6 +90,7 @@ import gov.nasa.pds.label.object.DataObject;
 import gov.nasa.pds.label.object.DataObjectLocation;
 import gov.nasa.pds.label.object.GenericObject;
 import gov.nasa.pds.label.object.TableObject;
+import gov.nasa.pds.objectAccess.DataFilePool;
 import gov.nasa.pds.objectAccess.ObjectAccess;
 import gov.nasa.pds.objectAccess.ParseException;
 
@@ -127,6 +128,8 @@ public class Label {
   private URL parentDir;
   private Product genericProduct;
   private LabelStandard standard;
+  // Shares open data files and mappings among the readers of this label's objects.
+  private final DataFilePool dataFilePool = new DataFilePool();
 
   private Label(File labelFile) throws ParseException, MalformedURLException {
     this(labelFile.toURI().toURL());
@@ -244,6 +247,7 @@ public class Label {
 
     for (DataObject object : getDataObjects(genericProduct)) {
       if (clazz.isAssignableFrom(object.getClass())) {
+        object.setDataFilePool(dataFilePool);
         subset.add(object);
       }
     }
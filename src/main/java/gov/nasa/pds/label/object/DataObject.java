@@ -40,73 +40,27 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
-import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.SeekableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import org.apache.commons.compress.utils.BoundedInputStream;
 import org.apache.commons.compress.utils.SeekableInMemoryByteChannel;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import gov.nasa.pds.objectAccess.DataFilePool;
+import gov.nasa.pds.objectAccess.storage.StorageObject;
+import gov.nasa.pds.objectAccess.storage.StorageObjectChannel;
+import gov.nasa.pds.objectAccess.storage.StorageProviderRegistry;
 import gov.nasa.pds.objectAccess.utility.Utility;
 
 /**
  * Defines a base type for objects within a label.
  */
 public abstract class DataObject {
-  private class CappedSeekable implements SeekableByteChannel {
-    private final long cap;
-    private final long offset;
-    private final SeekableByteChannel parent;
-    CappedSeekable (SeekableByteChannel parent, long offset, long cap) throws IOException {
-      this.cap = cap;
-      this.offset = offset;
-      this.parent = parent;
-      this.parent.position(this.offset);
-    }
-    @Override
-    public void close() throws IOException {
-      this.parent.close();
-    }
-    @Override
-    public boolean isOpen() {
-      return this.parent.isOpen();
-    }
-    @Override
-    public long position() throws IOException {
-      return this.parent.position() - this.offset;
-    }
-    @Override
-    public SeekableByteChannel position(long newPosition) throws IOException {
-      this.parent.position(newPosition + offset);
-      return this;
-    }
-    @Override
-    public int read(ByteBuffer dst) throws IOException {
-      long remaining =this.cap - this.position(); 
-      dst.limit(dst.limit() < remaining ? dst.limit() : (int)remaining);
-      return this.parent.read(dst);
-    }
-    @Override
-    public long size() throws IOException {
-      return this.cap;
-    }
-    @Override
-    public SeekableByteChannel truncate(long size) throws IOException {
-      this.parent.truncate(size + offset);
-      return this;
-    }
-    @Override
-    public int write(ByteBuffer src) throws IOException {
-      return this.parent.write(src);
-    }
-  }
-
   protected URL parentDir;
   protected gov.nasa.arc.pds.xml.generated.File fileObject;
   protected long offset;
@@ -115,6 +69,7 @@ public abstract class DataObject {
   protected String localIdentifier;
   protected SeekableByteChannel channel;
   protected DataObjectLocation dataObjectLocation;
+  protected DataFilePool dataFilePool;
 
   protected DataObject(File parentDir, long offset, long size) throws IOException {
     this(parentDir.toURI().toURL(), null, offset, size, null, null);
@@ -228,17 +183,10 @@ public abstract class DataObject {
     }
 
     URL u = getDataFile();
-    long datasize = getDataSize(u);
     try {
-      if ("file".equalsIgnoreCase(u.getProtocol())) {
-        channel = new CappedSeekable(Files.newByteChannel(Paths.get(u.toURI()), StandardOpenOption.READ), offset, datasize);
-      } else {
-        channel = createChannel(u, offset, datasize);
-      }
+      channel = createChannel(u, offset);
     } catch (IOException io) {
       throw new IOException("Error reading data file '" + u.toString() + "': " + io.getMessage());
-    } catch (URISyntaxException use) {
-      throw new IOException("Error could not translaate '" + u.toString() + "' to a valid file path: " + use.getMessage());
     }
     return channel;
   }
@@ -259,20 +207,74 @@ public abstract class DataObject {
   }
 
   /**
-   * Creates a FileChannel that represents the portion of the data within the file. This is done by
-   * creating a temp file in the OS default temp area.
+   * Creates a channel that represents the portion of the data within the file. The bytes are read
+   * on demand through the storage provider for the URL; a remote data file is read with range
+   * requests for only the blocks that are touched, through a small block cache that reads ahead on
+   * sequential access, and through the persistent {@link gov.nasa.pds.objectAccess.storage.DiskCache}
+   * when one is configured. Only if no provider supports the URL, or the provider cannot open it,
+   * is the data copied up front.
    * 
    * The closeChannel() method will need to be called once reading of the data is finished.
    * 
    * @param url The data file.
    * @param offset The offset to the start of the data.
+   * 
+   * @return An SeekableByteChannel of the data.
+   * 
+   * @throws IOException If an error occurred creating this channel.
+   */
+  private SeekableByteChannel createChannel(URL url, long offset) throws IOException {
+    if (dataFilePool != null && DataFilePool.supports(url)) {
+      return storageChannel(dataFilePool.acquire(url).asStorageObject(), offset);
+    }
+    if (StorageProviderRegistry.INSTANCE.getProvider(url) == null) {
+      return copyChannel(url, offset, getDataSize(url));
+    }
+    StorageObject storage;
+    try {
+      storage = StorageProviderRegistry.INSTANCE.openCached(url);
+    } catch (FileNotFoundException ex) {
+      throw ex;
+    } catch (IOException ex) {
+      // The provider cannot read the file in place, for example from a server that answers
+      // neither HEAD nor range requests, so copy the data as before.
+      return copyChannel(url, offset, getDataSize(url));
+    }
+    return storageChannel(storage, offset);
+  }
+
+  /**
+   * Creates a channel over the data within a storage object, closing the storage object if the
+   * channel cannot be created.
+   */
+  private SeekableByteChannel storageChannel(StorageObject storage, long offset)
+      throws IOException {
+    try {
+      long datasize = size >= 0 ? size : storage.size() - offset;
+      return new StorageObjectChannel(storage, offset, datasize);
+    } catch (IOException | RuntimeException ex) {
+      try {
+        storage.close();
+      } catch (IOException closeEx) {
+        ex.addSuppressed(closeEx);
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Creates a FileChannel that represents the portion of the data within the file. This is done by
+   * creating a temp file in the OS default temp area.
+   * 
+   * @param url The data file.
+   * @param offset The offset to the start of the data.
    * @param size The size of the data.
    * 
    * @return An SeekableByteChannel of the data.
    * 
    * @throws IOException If an error occurred creating this FileChannel.
    */
-  private SeekableByteChannel createChannel(URL url, long offset, long size) throws IOException {
+  private SeekableByteChannel copyChannel(URL url, long offset, long size) throws IOException {
     FileOutputStream fileStream = null;
     Path temp = null;
     /** Indicates how large the buffer is. */
@@ -335,6 +337,24 @@ public abstract class DataObject {
     this.dataObjectLocation = dataObjectLocation;
   }
 
+  /**
+   * Gets the pool of open data files shared with the other objects of the label.
+   *
+   * @return the pool, or null if the data file is opened by this object alone
+   */
+  public DataFilePool getDataFilePool() {
+    return dataFilePool;
+  }
+
+  /**
+   * Sets the pool of open data files shared with the other objects of the label.
+   *
+   * @param dataFilePool the pool, or null to open the data file for this object alone
+   */
+  public void setDataFilePool(DataFilePool dataFilePool) {
+    this.dataFilePool = dataFilePool;
+  }
+
   public String getLocalIdentifier() {
     return localIdentifier;
   }
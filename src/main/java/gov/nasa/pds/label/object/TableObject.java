@@ -32,12 +32,16 @@ package gov.nasa.pds.label.object;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URL;
+import java.util.stream.Stream;
 import com.opencsv.exceptions.CsvValidationException;
 import gov.nasa.arc.pds.xml.generated.ByteStream;
 import gov.nasa.pds.objectAccess.ExporterFactory;
 import gov.nasa.pds.objectAccess.RawTableReader;
+import gov.nasa.pds.objectAccess.TableFilter;
 import gov.nasa.pds.objectAccess.TableReader;
+import gov.nasa.pds.objectAccess.ZoneMap;
 
 
 /**
@@ -48,6 +52,7 @@ public class TableObject extends DataObject {
 
   private Object tableObject;
   private TableReader tableReader;
+  private ZoneMap zoneMap;
 
   /**
    * Creates a new instance of the table object.
@@ -103,13 +108,107 @@ public class TableObject extends DataObject {
   }
 
   /**
-   * Returns a table reader for this table.
+   * Returns a table reader for this table. The reader uses the zone map built by
+   * {@link #buildZoneMap(int, String...)}, if any, in filtered reads.
    *
    * @return a table reader
    * @throws Exception if there is an error creating the table reader
    */
   public TableReader getTableReader() throws Exception {
-    return ExporterFactory.getTableReader(tableObject, getDataFile());
+    TableReader reader;
+    if (dataFilePool != null) {
+      reader = new TableReader(tableObject, getDataFile(), true, dataFilePool);
+    } else {
+      reader = ExporterFactory.getTableReader(tableObject, getDataFile());
+    }
+    if (zoneMap != null) {
+      reader.setZoneMap(zoneMap);
+    }
+    return reader;
+  }
+
+  /**
+   * Streams the records of this table, read by a table reader of their own. The stream should be
+   * closed when done, which closes the reader, for example with a try-with-resources statement. See
+   * {@link TableReader#stream()} for how the stream splits and reuses its records.
+   *
+   * @return a stream of table records
+   * @throws Exception if there is an error creating the table reader
+   */
+  public Stream<TableRecord> records() throws Exception {
+    TableReader reader = getTableReader();
+    return reader.stream().onClose(() -> {
+      try {
+        reader.close();
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    });
+  }
+
+  /**
+   * Streams the records of this table that match a filter, read by a table reader of their own.
+   * The stream should be closed when done, which closes the reader. See
+   * {@link TableReader#stream(TableFilter)} for how the stream reuses its records.
+   *
+   * @param filter the conditions on field values
+   * @return a stream of matching table records
+   * @throws Exception if there is an error creating the table reader
+   */
+  public Stream<TableRecord> records(TableFilter filter) throws Exception {
+    TableReader reader = getTableReader();
+    return reader.stream(filter).onClose(() -> {
+      try {
+        reader.close();
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    });
+  }
+
+  /**
+   * Reads the whole table once to compute the range of some fields over each block of records. The
+   * zone map is kept with this table object and used by its filtered reads, and by the readers
+   * created for it afterwards, to skip the blocks in which no record can match.
+   *
+   * @param blockSize the number of records in a block
+   * @param fields the names of the fields, typically sorted or clustered ones such as a time
+   * @return the zone map
+   * @throws Exception if there is an error reading the table
+   */
+  public ZoneMap buildZoneMap(int blockSize, String... fields) throws Exception {
+    if (tableReader == null) {
+      this.tableReader = getTableReader();
+    }
+    this.zoneMap = tableReader.buildZoneMap(blockSize, fields);
+    return zoneMap;
+  }
+
+  /**
+   * Reads the whole table once to compute the range of some fields over each block of
+   * {@link ZoneMap#DEFAULT_BLOCK_SIZE} records.
+   *
+   * @param fields the names of the fields
+   * @return the zone map
+   * @throws Exception if there is an error reading the table
+   * @see #buildZoneMap(int, String...)
+   */
+  public ZoneMap buildZoneMap(String... fields) throws Exception {
+    return buildZoneMap(ZoneMap.DEFAULT_BLOCK_SIZE, fields);
+  }
+
+  /**
+   * Gets the zone map used by filtered reads, either built by
+   * {@link #buildZoneMap(int, String...)} or taken from the persisted index of the table.
+   *
+   * @return the zone map, or null if there is none
+   * @throws Exception if there is an error creating the table reader
+   */
+  public ZoneMap getZoneMap() throws Exception {
+    if (tableReader == null) {
+      this.tableReader = getTableReader();
+    }
+    return tableReader.getZoneMap();
   }
 
   /**
@@ -150,6 +249,22 @@ public class TableObject extends DataObject {
     return tableReader.readNext();
   }
 
+  /**
+   * Reads the next record that matches a filter, skipping the blocks of records that the zone map
+   * excludes.
+   *
+   * @param filter the conditions on field values
+   * @return the next matching record, or null if no further record matches
+   * @throws Exception if there is an error reading from the data file
+   * @see TableReader#readNext(TableFilter)
+   */
+  public TableRecord readNext(TableFilter filter) throws Exception {
+    if (tableReader == null) {
+      this.tableReader = getTableReader();
+    }
+    return tableReader.readNext(filter);
+  }
+
   /**
    * Gets access to the table record given the index. The current row is set to this index, thus,
    * subsequent call to readNext() gets the next record from this position.
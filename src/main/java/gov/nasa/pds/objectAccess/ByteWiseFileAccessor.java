@@ -35,35 +35,108 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import gov.nasa.pds.objectAccess.storage.FileStorageObject;
+import gov.nasa.pds.objectAccess.storage.StorageObject;
+import gov.nasa.pds.objectAccess.storage.StorageProviderRegistry;
 
 /**
  * Class that provides common I/O functionality for PDS data objects.
+ *
+ * <p>
+ * By default the whole data object is mapped into memory when the accessor is constructed. In
+ * {@link MappingMode#LAZY} mode, windows of the data object are only mapped when first read, and
+ * the total size of the windows mapped by all lazy accessors in the JVM is bounded by
+ * {@link #setMaxMappedBytes(long)}. In {@link MappingMode#CHANNEL} mode nothing is mapped and
+ * bytes are read with positional channel reads. In {@link MappingMode#STREAMING} mode nothing is
+ * mapped either, and a background thread reads ahead of sequential scans in large buffers, see
+ * {@link #setPrefetchBufferSize(int)} and {@link #setPrefetchDepth(int)}. Data files that are not
+ * local, such as <code>http:</code> URLs, are read through the
+ * {@link gov.nasa.pds.objectAccess.storage.StorageProviderRegistry} in {@link MappingMode#CHANNEL}
+ * mode, or in {@link MappingMode#STREAMING} mode if that is requested. The default mode can be set
+ * with {@link #setDefaultMappingMode(MappingMode)} or the
+ * <code>gov.nasa.pds.objectAccess.mappingMode</code> system property.
+ * </p>
+ *
+ * <p>
+ * The positional read methods ({@link #readRecordBytes(long, int, int, byte[], int)},
+ * {@link #readBytesAt(long, byte[], int, int)} and {@link #readByteAt(long)}) are thread-safe. The
+ * sequential methods ({@link #readByte()} and {@link #readBytes(byte[], int, int)}) advance the
+ * accessor's current position and must not be shared between threads. Closing the accessor
+ * while other threads read from it is safe: a mapping is only released once no read uses it, and
+ * reads after {@link #close()} throw an {@link IllegalStateException}.
+ * </p>
  */
 public class ByteWiseFileAccessor implements Closeable {
   private static final Logger LOGGER = LoggerFactory.getLogger(ByteWiseFileAccessor.class);
+
+  /** The system property that sets the default mapping mode. */
+  public static final String MAPPING_MODE_PROPERTY = "gov.nasa.pds.objectAccess.mappingMode";
+
+  private static volatile MappingMode defaultMappingMode = initialMappingMode();
+
+  /** The system property that sets the size of each read-ahead buffer in streaming mode. */
+  public static final String PREFETCH_BUFFER_SIZE_PROPERTY =
+      "gov.nasa.pds.objectAccess.prefetchBufferSize";
+
+  /** The system property that sets the number of buffers read ahead in streaming mode. */
+  public static final String PREFETCH_DEPTH_PROPERTY = "gov.nasa.pds.objectAccess.prefetchDepth";
+
+  private static volatile int prefetchBufferSize =
+      Integer.getInteger(PREFETCH_BUFFER_SIZE_PROPERTY, 4 << 20);
+  private static volatile int prefetchDepth = Integer.getInteger(PREFETCH_DEPTH_PROPERTY, 4);
+
+  static MappingMode initialMappingMode() {
+    String name = System.getProperty(MAPPING_MODE_PROPERTY, MappingMode.EAGER.name());
+    try {
+      return MappingMode.fromName(name);
+    } catch (IllegalArgumentException ex) {
+      LOGGER.warn("Mapping mode '{}' ignored, using {}: {}", name, MappingMode.EAGER,
+          ex.getMessage());
+      return MappingMode.EAGER;
+    }
+  }
+
   private int recordLength;
   private RandomAccessFile raf = null;
   private FileChannel fileAccessChannel = null;
+  // The source of bytes in CHANNEL mode.
+  private StorageObject storage = null;
+  // Reads ahead in STREAMING mode; created on first read.
+  private SequentialPrefetcher prefetcher = null;
+  // The pooled file the accessor reads from, if any. The pool owns the file and its mappings.
+  private final DataFilePool.Lease lease;
   private long totalFileContentSize;
 
   // https://vanillajava.blogspot.com/2011/12/using-memory-mapped-file-for-huge.html
   private static final int MAPPING_SIZE = 1 << 30;
   // The below setting is used by developer to split small files into multiple chunks. Do not
   // remove.
-  // Having smaller chunks will force the function handleTooSmallMapping() to be called.
+  // Having smaller chunks will force the data object to be split into several windows.
   // If uncommented, do not run validate on large files as you will run out of memory.
   // private static final int MAPPING_SIZE = 317; // TODO: Uncomment by developer only to split
   // small files into multiple chunks.
-  private final List<ByteBuffer> mappings = new ArrayList<>();
+
+  // Windows are smaller in lazy mode so that the mapped footprint follows what is actually read.
+  private static final int LAZY_MAPPING_SIZE = 1 << 26;
+
+  private final MappingMode mappingMode;
+  // The size of each mapping, rounded down to a whole number of records so that no record spans
+  // two mappings.
+  private int mappingSize;
+  private AtomicReferenceArray<MappedWindow> windows = new AtomicReferenceArray<>(0);
+  // Set once a view of an eager mapping has been handed out, after which the mappings can no
+  // longer be released safely on close.
+  private volatile boolean viewsShared = false;
+  private volatile boolean closed = false;
+  private long dataOffset = 0;
   private long curPosition = 0;
   private long totalBytesRead = 0;
 
@@ -130,31 +203,195 @@ public class ByteWiseFileAccessor implements Closeable {
    */
   public ByteWiseFileAccessor(URL url, long offset, int length, long records, boolean checkSize,
       RandomAccessFile raf) throws FileNotFoundException, IOException, InvalidTableException {
+    this(url, offset, length, records, checkSize, raf, defaultMappingMode);
+  }
+
+  /**
+   * Constructs a <code>ByteWiseFileAccessor</code> object which maps a region of a data file into
+   * memory using a given mapping mode.
+   *
+   * @param url the data file
+   * @param offset the offset within the data file
+   * @param length the record length in bytes
+   * @param records the number of records
+   * @param checkSize check that the size of the data file is equal to the size of the table (length
+   *        * records) + offset.
+   * @param raf an already opened data file, or null to open <code>url</code>
+   * @param mappingMode how the data object is mapped into memory
+   * @throws FileNotFoundException If <code>file</code> does not exist, is a directory rather than a
+   *         regular file, or for some other reason cannot be opened for reading
+   * @throws IOException If an I/O error occurs
+   * @throws InvalidTableException
+   */
+  public ByteWiseFileAccessor(URL url, long offset, int length, long records, boolean checkSize,
+      RandomAccessFile raf, MappingMode mappingMode)
+      throws FileNotFoundException, IOException, InvalidTableException {
+    this(url, offset, length, records, checkSize, raf, null, mappingMode);
+  }
+
+  /**
+   * Constructs a <code>ByteWiseFileAccessor</code> object which reads a region of a data file
+   * leased from a {@link DataFilePool}. The file handle, and in {@link MappingMode#EAGER} mode the
+   * mappings, are shared with the other readers of the pool. Closing the accessor closes the lease.
+   *
+   * @param lease a lease on the data file
+   * @param url the data file
+   * @param offset the offset within the data file
+   * @param length the record length in bytes
+   * @param records the number of records
+   * @param checkSize check that the size of the data file is equal to the size of the table (length
+   *        * records) + offset.
+   * @param mappingMode how the data object is mapped into memory
+   * @throws IOException If an I/O error occurs
+   * @throws InvalidTableException
+   */
+  public ByteWiseFileAccessor(DataFilePool.Lease lease, URL url, long offset, int length,
+      long records, boolean checkSize, MappingMode mappingMode)
+      throws IOException, InvalidTableException {
+    this(url, offset, length, records, checkSize, lease.getRandomAccessFile(), lease, mappingMode);
+  }
+
+  private ByteWiseFileAccessor(URL url, long offset, int length, long records, boolean checkSize,
+      RandomAccessFile raf, DataFilePool.Lease lease, MappingMode mappingMode)
+      throws FileNotFoundException, IOException, InvalidTableException {
     this.raf = raf;
-    if (this.raf == null) {
-      try {
-        File dataFile = new File(url.toURI());
-        this.raf = new RandomAccessFile(dataFile, "r");
-      } catch (java.net.URISyntaxException ex) {
-        LOGGER.error("URI Syntax Error.", ex);
-        // ex.printStackTrace();
-        // throw ex;
+    this.lease = lease;
+    if (this.raf == null && !"file".equalsIgnoreCase(url.getProtocol())) {
+      // Only local files can be mapped. Other data files are read through their storage provider.
+      this.mappingMode =
+          mappingMode == MappingMode.STREAMING ? MappingMode.STREAMING : MappingMode.CHANNEL;
+      this.storage = StorageProviderRegistry.INSTANCE.openCached(url);
+    } else {
+      this.mappingMode = mappingMode;
+      if (this.raf == null) {
+        try {
+          File dataFile = new File(url.toURI());
+          this.raf = new RandomAccessFile(dataFile, "r");
+        } catch (java.net.URISyntaxException ex) {
+          LOGGER.error("URI Syntax Error.", ex);
+          // ex.printStackTrace();
+          // throw ex;
+        }
       }
-    }
 
-    this.fileAccessChannel = this.raf.getChannel();
+      this.fileAccessChannel = this.raf.getChannel();
+      if (isUnmapped()) {
+        this.storage = new FileStorageObject(this.fileAccessChannel);
+      }
+    }
     initializeAccessor(url, offset, length, records, checkSize);
   }
 
+  /**
+   * Gets the mapping mode used by accessors constructed without an explicit mode.
+   *
+   * @return the default mapping mode
+   */
+  public static MappingMode getDefaultMappingMode() {
+    return defaultMappingMode;
+  }
+
+  /**
+   * Sets the mapping mode used by accessors constructed without an explicit mode. Accessors that
+   * have already been constructed are not affected.
+   *
+   * @param mode the default mapping mode
+   */
+  public static void setDefaultMappingMode(MappingMode mode) {
+    defaultMappingMode = mode;
+  }
+
+  /**
+   * Gets the maximum number of bytes mapped at any time by all accessors in
+   * {@link MappingMode#LAZY} mode.
+   *
+   * @return the mapping limit, in bytes
+   */
+  public static long getMaxMappedBytes() {
+    return MappedWindowCache.INSTANCE.getMaxMappedBytes();
+  }
+
+  /**
+   * Sets the maximum number of bytes mapped at any time by all accessors in
+   * {@link MappingMode#LAZY} mode. The initial value is 4 GiB, or the value of the
+   * <code>gov.nasa.pds.objectAccess.maxMappedBytes</code> system property. Lowering the limit
+   * immediately unmaps the least recently used windows that are not being read.
+   *
+   * @param maxMappedBytes the mapping limit, in bytes
+   */
+  public static void setMaxMappedBytes(long maxMappedBytes) {
+    MappedWindowCache.INSTANCE.setMaxMappedBytes(maxMappedBytes);
+  }
+
+  /**
+   * Gets the size of each buffer read ahead by accessors in {@link MappingMode#STREAMING} mode.
+   *
+   * @return the buffer size, in bytes
+   */
+  public static int getPrefetchBufferSize() {
+    return prefetchBufferSize;
+  }
+
+  /**
+   * Sets the size of each buffer read ahead by accessors in {@link MappingMode#STREAMING} mode.
+   * The initial value is 4 MiB, or the value of the
+   * <code>gov.nasa.pds.objectAccess.prefetchBufferSize</code> system property. Accessors that have
+   * already started reading are not affected.
+   *
+   * @param size the buffer size, in bytes
+   */
+  public static void setPrefetchBufferSize(int size) {
+    if (size <= 0) {
+      throw new IllegalArgumentException("Prefetch buffer size must be positive (" + size + ")");
+    }
+    prefetchBufferSize = size;
+  }
+
+  /**
+   * Gets the number of buffers read ahead by accessors in {@link MappingMode#STREAMING} mode.
+   *
+   * @return the number of buffers
+   */
+  public static int getPrefetchDepth() {
+    return prefetchDepth;
+  }
+
+  /**
+   * Sets the number of buffers read ahead by accessors in {@link MappingMode#STREAMING} mode. The
+   * initial value is 4, or the value of the <code>gov.nasa.pds.objectAccess.prefetchDepth</code>
+   * system property. Accessors that have already started reading are not affected.
+   *
+   * @param depth the number of buffers
+   */
+  public static void setPrefetchDepth(int depth) {
+    if (depth <= 0) {
+      throw new IllegalArgumentException("Prefetch depth must be positive (" + depth + ")");
+    }
+    prefetchDepth = depth;
+  }
+
+  /**
+   * Gets the number of bytes currently mapped by all accessors in {@link MappingMode#LAZY} mode.
+   *
+   * @return the mapped size, in bytes
+   */
+  public static long getMappedBytes() {
+    return MappedWindowCache.INSTANCE.getMappedBytes();
+  }
+
   private void initializeAccessor(URL url, long offset, int length, long records, boolean checkSize)
       throws FileNotFoundException, IOException, InvalidTableException {
     this.recordLength = length;
     this.totalBytesRead = 0;
+    this.dataOffset = offset;
+    this.mappingSize = alignedMappingSize(
+        this.mappingMode == MappingMode.LAZY ? LAZY_MAPPING_SIZE : MAPPING_SIZE, length);
 
     try {
       // issue_189: handle the buffer size > 2GB to read a huge file
 
-      this.totalFileContentSize = this.fileAccessChannel.size();
+      this.totalFileContentSize =
+          this.storage != null ? this.storage.size() : this.fileAccessChannel.size();
 
       long expectedBytesToRead, actualBytesToRead;
       expectedBytesToRead = length * records;
@@ -166,24 +403,34 @@ public class ByteWiseFileAccessor implements Closeable {
         actualBytesToRead = fileSizeMinusOffset;
       }
 
-      // https://stackoverflow.com/questions/55300976/memory-mapping-huge-files-in-java
-      long tmpSize = actualBytesToRead;
-      for (long offset2 = 0; offset2 < actualBytesToRead; offset2 += MAPPING_SIZE) {
-        long size2 = Math.min(tmpSize, MAPPING_SIZE);
-        mappings.add(
-            this.fileAccessChannel.map(FileChannel.MapMode.READ_ONLY, (offset2 + offset), size2));
-        tmpSize -= size2;
-        LOGGER.debug("ByteWiseFileAccessor: mappings.add: offset2,offset {},{}", offset2, offset);
-        LOGGER.debug("ByteWiseFileAccessor: mappings.add: size2,mappings.size {},{}", size2,
-            mappings.size());
-      }
-
-      int bytesRead = 0;
-      for (int i = 0; i < mappings.size(); i++) {
-        bytesRead = mappings.get(i).capacity();
-        totalBytesRead += bytesRead;
-        LOGGER.debug("ByteWiseFileAccessor: i,bytesRead,totalBytesRead " + Integer.toString(i) + ","
-            + Long.toString(bytesRead) + "," + Long.toString(totalBytesRead));
+      int windowCount = isUnmapped() ? 0
+          : (int) ((actualBytesToRead + this.mappingSize - 1) / this.mappingSize);
+      this.windows = new AtomicReferenceArray<>(windowCount);
+      if (this.mappingMode == MappingMode.EAGER) {
+        // https://stackoverflow.com/questions/55300976/memory-mapping-huge-files-in-java
+        long tmpSize = actualBytesToRead;
+        for (int i = 0; i < windowCount; i++) {
+          long offset2 = (long) i * this.mappingSize;
+          long size2 = Math.min(tmpSize, this.mappingSize);
+          ByteBuffer mapping;
+          if (this.lease != null) {
+            // Readers of the same region of a pooled file share one mapping.
+            mapping = this.lease.map(offset2 + offset, size2);
+          } else {
+            mapping = this.fileAccessChannel.map(FileChannel.MapMode.READ_ONLY, (offset2 + offset),
+                size2);
+          }
+          this.windows.set(i, new MappedWindow(this, i, mapping));
+          tmpSize -= size2;
+          totalBytesRead += size2;
+          LOGGER.debug("ByteWiseFileAccessor: mappings.add: offset2,offset {},{}", offset2,
+              offset);
+          LOGGER.debug("ByteWiseFileAccessor: mappings.add: size2,totalBytesRead {},{}", size2,
+              totalBytesRead);
+        }
+      } else {
+        // Windows are mapped on first use, see acquireWindow(), or never in CHANNEL mode.
+        this.totalBytesRead = actualBytesToRead;
       }
       this.curPosition = 0;
 
@@ -214,7 +461,7 @@ public class ByteWiseFileAccessor implements Closeable {
       LOGGER.debug("ByteWiseFileAccessor: url {}", url);
       LOGGER.debug("ByteWiseFileAccessor: fileSize,sizeToRead {},{}", url, expectedBytesToRead);
       LOGGER.debug("ByteWiseFileAccessor: totalBytesRead {}", this.totalBytesRead);
-      LOGGER.debug("ByteWiseFileAccessor: mappings.size() {}", mappings.size());
+      LOGGER.debug("ByteWiseFileAccessor: mappingMode,windows {},{}", mappingMode, windowCount);
     } catch (java.nio.channels.NonWritableChannelException ex) {
       // don't do anything
       // ex.printStackTrace();
@@ -227,68 +474,121 @@ public class ByteWiseFileAccessor implements Closeable {
     }
   }
 
-  private byte[] handleTooSmallMapping(long recordNum, int offset, int length, ByteBuffer aBuf,
-      int mapN, int offN, long fileOffset, byte[] buf) {
-    // This function handle a special case when the remaining content of a chunk (mapping) is
-    // smaller than the requested length to read.
-    // Because large files are splitted into multiple chunks (called mappings), some records may
-    // span over two chunks.
-    // If a record span over two chunks, the first part of the record is extracted from the 1st
-    // chunk and the
-    // part of the record is extracted from the 2nd chunk.
-    // Special note: buf is the input and output (will be modified)
-
-    LOGGER.debug("handleTooSmallBuffer:recordNum,buf.length {},{}", recordNum, buf.length);
-    LOGGER.debug("handleTooSmallBuffer: aBuf.remaining(),aBuf.hasRemaining() {},{}",
-        aBuf.remaining(), aBuf.hasRemaining());
-    LOGGER.debug("handleTooSmallBuffer: aBuf.isDirect() {}", aBuf.isDirect());
-    LOGGER.debug("handleTooSmallBuffer: length,fileOffset {},{}", length, fileOffset);
-    LOGGER.debug("handleTooSmallBuffer: mapN,offN {},{}", mapN, offN);
-    LOGGER.debug("handleTooSmallBuffer: this.recordLength {}", this.recordLength);
-    LOGGER.debug(
-        "handleTooSmallBuffer:Record number {} spanning over two mappings.  Will perform an extra read.",
-        recordNum);
-
-    LOGGER.info("Record number {} spanning over two mappings.  Will perform an extra read.",
-        recordNum);
-
-    // Do a sanity check if there are actually another mapping to get.
-    if ((mapN + 1) >= this.mappings.size()) {
-      LOGGER.error("Expecting another mapping of file content while reading record " + recordNum);
-      // System.exit(1);
-      return (buf);
-    }
-
-    // Get the first part of the record from aBuf.remaining() bytes and
-    // get the second part of the record in this.mappings.get(mapN+1).
-    byte[] bufPortion1 = new byte[aBuf.remaining()];
-    aBuf.get(bufPortion1);
-    aBuf = this.mappings.get(mapN + 1); // Get the next mapping.
-    ((Buffer) aBuf).position(0); // Point the position to the beginning.
-    byte[] bufPortion2 = new byte[this.recordLength - bufPortion1.length]; // The second portion
-                                                                           // size is the
-                                                                           // difference.
-    aBuf.get(bufPortion2); // Get the 2nd portion of record from next mapping.
-
-    LOGGER.debug("handleTooSmallBuffer:bufPortion1 {}", bufPortion1);
-    LOGGER.debug("handleTooSmallBuffer:bufPortion2 {}", bufPortion2);
-    LOGGER.debug("handleTooSmallBuffer:bufPortion1 + bufPortion2 {}{}", new String(bufPortion1),
-        new String(bufPortion2));
-    LOGGER.debug("handleTooSmallBuffer: bufPortion1.length,bufPortion2.length {},{}",
-        bufPortion1.length, bufPortion2.length);
-    LOGGER.debug("handleTooSmallBuffer: this.recordLength {}", this.recordLength);
-
-    // Copy bufPortion1 and bufPortion2 to buf so it can be returned.
-    System.arraycopy(bufPortion1, 0, buf, 0, bufPortion1.length);
-    System.arraycopy(bufPortion2, 0, buf, bufPortion1.length, bufPortion2.length);
-
-    LOGGER.debug("handleTooSmallBuffer: buf [{}]", new String(buf));
-    LOGGER.debug("handleTooSmallBuffer: buf.length [{}]", buf.length);
-
-    // Because the original input value of length does not know that the record span over two
-    // mappings,
-    // reset it to the default length of the record.
-    return (buf); // Variable buf is both input and output.
+  /**
+   * Gets a mapped window, pinning it so that it is not unmapped while in use, not even by a
+   * concurrent {@link #close()}. Every call must be paired with a call to
+   * {@link #releaseWindow(MappedWindow)}.
+   *
+   * @throws IllegalStateException if the accessor has been closed
+   */
+  private MappedWindow acquireWindow(int mapN) {
+    checkOpen();
+    MappedWindow window = this.windows.get(mapN);
+    if (this.mappingMode == MappingMode.EAGER) {
+      if (window == null || !window.acquire()) {
+        throw new IllegalStateException("The data object accessor has been closed");
+      }
+      return window;
+    }
+    while (window == null || !window.acquire()) {
+      window = mapWindow(mapN);
+    }
+    window.touch(MappedWindowCache.INSTANCE.tick());
+    return window;
+  }
+
+  private void releaseWindow(MappedWindow window) {
+    window.release();
+  }
+
+  private void checkOpen() {
+    if (this.closed) {
+      throw new IllegalStateException("The data object accessor has been closed");
+    }
+  }
+
+  private synchronized MappedWindow mapWindow(int mapN) {
+    checkOpen();
+    MappedWindow window = this.windows.get(mapN);
+    if (window != null) {
+      return window;
+    }
+    long start = (long) mapN * this.mappingSize;
+    long size = Math.min(this.mappingSize, this.totalBytesRead - start);
+    try {
+      window = new MappedWindow(this, mapN,
+          this.fileAccessChannel.map(FileChannel.MapMode.READ_ONLY, this.dataOffset + start, size));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(
+          "Cannot map bytes " + start + " to " + (start + size) + " of the data object", ex);
+    }
+    LOGGER.debug("mapWindow: mapN,start,size {},{},{}", mapN, start, size);
+    this.windows.set(mapN, window);
+    MappedWindowCache.INSTANCE.add(window);
+    return window;
+  }
+
+  /**
+   * Called by the window cache when one of this accessor's windows is evicted.
+   *
+   * @param window the evicted window
+   */
+  void windowEvicted(MappedWindow window) {
+    this.windows.compareAndSet(window.getIndex(), window, null);
+  }
+
+  private boolean isUnmapped() {
+    return this.mappingMode == MappingMode.CHANNEL || this.mappingMode == MappingMode.STREAMING;
+  }
+
+  /**
+   * Copies bytes of the data object straight from the storage object, as used in
+   * {@link MappingMode#CHANNEL} and {@link MappingMode#STREAMING} modes. In CHANNEL mode the reads
+   * do not change any shared position and may be issued concurrently; in STREAMING mode they are
+   * served from the read-ahead buffers, one reader at a time.
+   */
+  private void readFromChannel(long position, byte[] dst, int dstOffset, int length) {
+    readFromChannel(position, dst, dstOffset, length,
+        this.mappingMode == MappingMode.STREAMING);
+  }
+
+  private void readFromChannel(long position, byte[] dst, int dstOffset, int length,
+      boolean prefetch) {
+    checkOpen();
+    try {
+      if (prefetch) {
+        getPrefetcher().read(position, dst, dstOffset, length);
+      } else {
+        this.storage.readFully(this.dataOffset + position,
+            ByteBuffer.wrap(dst, dstOffset, length));
+      }
+    } catch (IOException ex) {
+      if (this.closed) {
+        throw new IllegalStateException("The data object accessor has been closed", ex);
+      }
+      throw new UncheckedIOException(
+          "Cannot read bytes " + position + " to " + (position + length) + " of the data object",
+          ex);
+    }
+  }
+
+  private synchronized SequentialPrefetcher getPrefetcher() {
+    if (this.prefetcher == null) {
+      this.prefetcher = new SequentialPrefetcher(this.storage, this.dataOffset, this.totalBytesRead,
+          prefetchBufferSize, prefetchDepth);
+    }
+    return this.prefetcher;
+  }
+
+  /**
+   * Rounds a mapping size down to a whole number of records, so that every record lies within a
+   * single mapping. A mapping holds at least one record.
+   */
+  static int alignedMappingSize(int mappingSize, int recordLength) {
+    if (recordLength <= 0) {
+      return mappingSize;
+    }
+    return Math.max(recordLength, mappingSize - mappingSize % recordLength);
   }
 
   /**
@@ -301,56 +601,107 @@ public class ByteWiseFileAccessor implements Closeable {
    */
   public byte[] readRecordBytes(long recordNum, int offset, int length) {
     assert recordNum > 0;
-    // The offset within the mapped buffer
-    long fileOffset = (recordNum - 1) * this.recordLength;
-    byte[] buf = new byte[this.recordLength];
-    // CHECK this again with big file
-    int mapN = (int) (fileOffset / MAPPING_SIZE);
-    int offN = (int) (fileOffset % MAPPING_SIZE);
-
-    if (fileOffset < 0 || mapN < 0) {
+    if (recordNum < 1) {
       LOGGER.error("Negative fileOffset or index of mappings list.");
       return null;
     }
+    byte[] bytesToReturn = new byte[length];
+    readRecordBytes(recordNum, offset, length, bytesToReturn, 0);
+    return bytesToReturn;
+  }
 
-    ByteBuffer aBuf = mappings.get(mapN);
-    ((Buffer) aBuf).position(offN); // need to check this
-
-    // It is possible to read pass the buffer in variable 'buf'. Perform a check before the get()
-    // function.
-    // If not enough bytes left in the buffer, that means that the record we are reading is spanning
-    // the boundary of two
-    // mappings. So that means the first part of the record is in mappings.get(mapN) and 2nd part of
-    // the record is in
-    // mappings.get(mapN+1).
-    //
-    // The value of MAPPING_SIZE on linux is 1073741824
-
-    LOGGER.debug("readRecordBytes:recordNum,offset {},{}", recordNum, offset);
-    LOGGER.debug("readRecordBytes:recordNum,length {},{}", recordNum, length);
-    LOGGER.debug("readRecordBytes:aBuf.remaining(),buf.length {},{}", aBuf.remaining(), buf.length);
-
-    if (aBuf.remaining() >= buf.length) {
-      aBuf.get(buf);
-    } else {
-      buf =
-          this.handleTooSmallMapping(recordNum, offset, length, aBuf, mapN, offN, fileOffset, buf);
+  /**
+   * Copies <code>length</code> bytes of data from a specified record at the given offset into a
+   * caller-supplied array. Unlike {@link #readRecordBytes(long, int, int)} no array is allocated,
+   * so a scan that reuses one destination array makes no per-record heap allocation.
+   *
+   * @param recordNum the record number to read bytes from (1-relative)
+   * @param offset an offset within the record
+   * @param length the number of bytes to read from the record
+   * @param dst the array to copy the bytes into
+   * @param dstOffset the offset within <code>dst</code> of the first byte copied
+   * @throws IllegalArgumentException if the record number is not positive
+   * @throws IndexOutOfBoundsException if <code>dst</code> is too small
+   */
+  public void readRecordBytes(long recordNum, int offset, int length, byte[] dst, int dstOffset) {
+    if (recordNum < 1) {
+      throw new IllegalArgumentException("Record number must be positive (" + recordNum + ")");
     }
+    // The offset within the mapped buffer
+    long fileOffset = (recordNum - 1) * this.recordLength;
+    if (isUnmapped()) {
+      readFromChannel(fileOffset + offset, dst, dstOffset, length);
+      return;
+    }
+    int mapN = (int) (fileOffset / this.mappingSize);
+    int offN = (int) (fileOffset % this.mappingSize);
+    // Mappings hold whole records, so the record is always within mapping mapN.
+    MappedWindow window = acquireWindow(mapN);
+    try {
+      // Absolute bulk get: leaves the position of the shared mapping untouched.
+      window.getBuffer().get(offN + offset, dst, dstOffset, length);
+    } finally {
+      releaseWindow(window);
+    }
+  }
 
-    // need to check the offset of the bytes?
-    byte[] bytesToReturn = Arrays.copyOfRange(buf, offset, (offset + length));
+  /**
+   * Copies bytes of a record like {@link #readRecordBytes(long, int, int, byte[], int)}, except that
+   * in {@link MappingMode#STREAMING} mode the bytes are read straight from the storage object. The
+   * read-ahead buffers serve one sequential reader, so the partitions of a parallel scan bypass
+   * them rather than restart the prefetch of one another.
+   */
+  void readRecordBytesDirect(long recordNum, int offset, int length, byte[] dst, int dstOffset) {
+    if (this.mappingMode != MappingMode.STREAMING) {
+      readRecordBytes(recordNum, offset, length, dst, dstOffset);
+      return;
+    }
+    if (recordNum < 1) {
+      throw new IllegalArgumentException("Record number must be positive (" + recordNum + ")");
+    }
+    readFromChannel((recordNum - 1) * this.recordLength + offset, dst, dstOffset, length, false);
+  }
 
-    LOGGER.debug("readRecordBytes:recordNum,buf.length {},{}", recordNum, buf.length);
-    LOGGER.debug("readRecordBytes: aBuf.remaining(),aBuf.hasRemaining() {},{}", aBuf.remaining(),
-        aBuf.hasRemaining());
-    LOGGER.debug("readRecordBytes: aBuf.isDirect() {}", aBuf.isDirect());
-    LOGGER.debug("readRecordBytes: length,fileOffset {},{}", length, fileOffset);
-    LOGGER.debug("readRecordBytes: mapN,offN {},{}", mapN, offN);
-    LOGGER.debug("readRecordBytes: this.recordLength {}", this.recordLength);
-    LOGGER.debug("readRecordBytes: bytesToReturn.length {}", bytesToReturn.length);
-    LOGGER.debug("readRecordBytes: bytesToReturn '{}'", new String(bytesToReturn));
+  /**
+   * Gets a read-only view of a record. When the record lies within a single mapping, the returned
+   * buffer shares its content with the memory-mapped data object and no bytes are copied. The
+   * returned buffer's position is zero and its limit is the record length.
+   *
+   * <p>
+   * In {@link MappingMode#EAGER} mode the returned buffer keeps the mappings of the data object
+   * alive until the accessor is garbage collected. In the other modes the record is always copied.
+   * </p>
+   *
+   * @param recordNum the record number (1-relative)
+   * @return a read-only buffer holding the record
+   * @throws IllegalArgumentException if the record number is not positive
+   */
+  public ByteBuffer getRecordBuffer(long recordNum) {
+    if (recordNum < 1) {
+      throw new IllegalArgumentException("Record number must be positive (" + recordNum + ")");
+    }
+    long fileOffset = (recordNum - 1) * this.recordLength;
+    int mapN = (int) (fileOffset / this.mappingSize);
+    int offN = (int) (fileOffset % this.mappingSize);
 
-    return bytesToReturn;
+    if (this.mappingMode == MappingMode.EAGER) {
+      this.viewsShared = true;
+      if (this.lease != null) {
+        this.lease.markViewsShared();
+      }
+      checkOpen();
+      MappedWindow window = this.windows.get(mapN);
+      if (window == null) {
+        throw new IllegalStateException("The data object accessor has been closed");
+      }
+      ByteBuffer view = window.getBuffer().duplicate();
+      ((Buffer) view).limit(offN + this.recordLength);
+      ((Buffer) view).position(offN);
+      return view.slice().asReadOnlyBuffer();
+    }
+    byte[] copy = new byte[this.recordLength];
+    readRecordBytes(recordNum, 0, this.recordLength, copy, 0);
+    return ByteBuffer.wrap(copy).asReadOnlyBuffer();
   }
 
   /**
@@ -359,10 +710,35 @@ public class ByteWiseFileAccessor implements Closeable {
    * @return A byte.
    */
   public byte readByte() {
-    int mapN = (int) (this.curPosition / MAPPING_SIZE);
-    int offN = (int) (this.curPosition % MAPPING_SIZE);
-    this.curPosition++;
-    return mappings.get(mapN).get(offN);
+    return readByteAt(this.curPosition++);
+  }
+
+  /**
+   * Reads the byte at a given position of the data object, without changing the current position.
+   * This method may be called concurrently from several threads.
+   *
+   * @param position the position within the data object (0-relative)
+   * @return the byte at that position
+   * @throws IndexOutOfBoundsException if the position is outside the data object
+   */
+  public byte readByteAt(long position) {
+    if (position < 0 || position >= this.totalBytesRead) {
+      throw new IndexOutOfBoundsException(
+          "Position " + position + " is outside the data object (size " + this.totalBytesRead + ")");
+    }
+    if (isUnmapped()) {
+      byte[] value = new byte[1];
+      readFromChannel(position, value, 0, 1);
+      return value[0];
+    }
+    int mapN = (int) (position / this.mappingSize);
+    int offN = (int) (position % this.mappingSize);
+    MappedWindow window = acquireWindow(mapN);
+    try {
+      return window.getBuffer().get(offN);
+    } finally {
+      releaseWindow(window);
+    }
   }
 
   /**
@@ -375,25 +751,62 @@ public class ByteWiseFileAccessor implements Closeable {
    * @return the number of bytes actually read, or -1 if at end of data
    */
   public int readBytes(byte[] buf, int off, int len) {
-    if (this.curPosition >= this.totalBytesRead) {
+    int bytesRead = readBytesAt(this.curPosition, buf, off, len);
+    if (bytesRead > 0) {
+      this.curPosition += bytesRead;
+    }
+    return bytesRead;
+  }
+
+  /**
+   * Reads up to len bytes starting from a given position of the data object into the provided
+   * buffer, without changing the current position. Returns the number of bytes actually read, or -1
+   * if the position is at or past the end of data.
+   *
+   * <p>
+   * Neither this method nor {@link #readRecordBytes(long, int, int, byte[], int)} changes any state
+   * shared between readers, so several threads may read from one accessor, and one set of mappings,
+   * at the same time.
+   * </p>
+   *
+   * @param position the position within the data object to start reading at (0-relative)
+   * @param buf the buffer to read bytes into
+   * @param off the offset within buf to start writing at
+   * @param len the maximum number of bytes to read
+   * @return the number of bytes actually read, or -1 if at end of data
+   */
+  public int readBytesAt(long position, byte[] buf, int off, int len) {
+    if (position < 0) {
+      throw new IndexOutOfBoundsException("Negative position " + position);
+    }
+    if (position >= this.totalBytesRead) {
       return -1;
     }
+    if (isUnmapped()) {
+      int toRead = (int) Math.min(len, this.totalBytesRead - position);
+      readFromChannel(position, buf, off, toRead);
+      return toRead > 0 ? toRead : -1;
+    }
     int bytesRead = 0;
-    while (bytesRead < len && this.curPosition < this.totalBytesRead) {
-      int mapN = (int) (this.curPosition / MAPPING_SIZE);
-      int offN = (int) (this.curPosition % MAPPING_SIZE);
-      ByteBuffer mapping = mappings.get(mapN);
-      // Calculate how many bytes we can read from this mapping in one go
-      int remainingInMapping = mapping.capacity() - offN;
-      int remainingToRead = len - bytesRead;
-      int remainingInFile = (int) Math.min(this.totalBytesRead - this.curPosition, Integer.MAX_VALUE);
-      int toRead = Math.min(Math.min(remainingInMapping, remainingToRead), remainingInFile);
-      // Bulk get from the ByteBuffer - use a duplicate to avoid mutating the shared position
-      ByteBuffer dup = mapping.duplicate();
-      ((Buffer) dup).position(offN);
-      dup.get(buf, off + bytesRead, toRead);
-      this.curPosition += toRead;
-      bytesRead += toRead;
+    long pos = position;
+    while (bytesRead < len && pos < this.totalBytesRead) {
+      int mapN = (int) (pos / this.mappingSize);
+      int offN = (int) (pos % this.mappingSize);
+      MappedWindow window = acquireWindow(mapN);
+      try {
+        ByteBuffer mapping = window.getBuffer();
+        // Calculate how many bytes we can read from this mapping in one go
+        int remainingInMapping = mapping.capacity() - offN;
+        int remainingToRead = len - bytesRead;
+        int remainingInFile = (int) Math.min(this.totalBytesRead - pos, Integer.MAX_VALUE);
+        int toRead = Math.min(Math.min(remainingInMapping, remainingToRead), remainingInFile);
+        // Absolute bulk get from the ByteBuffer to avoid mutating the shared position
+        mapping.get(offN, buf, off + bytesRead, toRead);
+        pos += toRead;
+        bytesRead += toRead;
+      } finally {
+        releaseWindow(window);
+      }
     }
     return bytesRead > 0 ? bytesRead : -1;
   }
@@ -403,8 +816,16 @@ public class ByteWiseFileAccessor implements Closeable {
    * 
    */
   public void mark() {
-    int mapN = (int) (this.curPosition / MAPPING_SIZE);
-    ((Buffer) mappings.get(mapN)).mark();
+    if (this.windows.length() == 0) {
+      return;
+    }
+    int mapN = (int) (this.curPosition / this.mappingSize);
+    MappedWindow window = acquireWindow(mapN);
+    try {
+      ((Buffer) window.getBuffer()).mark();
+    } finally {
+      releaseWindow(window);
+    }
   }
 
   /**
@@ -413,8 +834,11 @@ public class ByteWiseFileAccessor implements Closeable {
    */
   public void reset() {
     // reset all buffer??
-    for (ByteBuffer mapping : mappings) {
-      ((Buffer) mapping).reset();
+    for (int i = 0; i < this.windows.length(); i++) {
+      MappedWindow window = this.windows.get(i);
+      if (window != null) {
+        ((Buffer) window.getBuffer()).reset();
+      }
     }
   }
 
@@ -443,10 +867,51 @@ public class ByteWiseFileAccessor implements Closeable {
     return this.totalBytesRead;
   }
 
+  /**
+   * Gets the mapping mode of this accessor.
+   *
+   * @return the mapping mode
+   */
+  public MappingMode getMappingMode() {
+    return this.mappingMode;
+  }
+
   @Override
   public void close() throws IOException {
     LOGGER.debug("Closing ByteWiseFileAccessor");
-    this.raf.close();
+    synchronized (this) {
+      // Taken under the lock of mapWindow(), so that no window is mapped after this point.
+      this.closed = true;
+      if (this.prefetcher != null) {
+        this.prefetcher.stop();
+      }
+    }
+    // Release the mappings now rather than whenever the garbage collector gets to them, so that
+    // jobs opening many data objects do not accumulate mapped address space. A window still
+    // pinned by a reader on another thread is unmapped when that reader releases it. Mappings
+    // owned by a pool, or shared through getRecordBuffer(), are left to the pool and the garbage
+    // collector.
+    boolean unmap = this.mappingMode == MappingMode.LAZY
+        || (this.mappingMode == MappingMode.EAGER && !this.viewsShared && this.lease == null);
+    for (int i = 0; i < this.windows.length(); i++) {
+      MappedWindow window = this.windows.getAndSet(i, null);
+      if (window == null) {
+        continue;
+      }
+      if (this.mappingMode == MappingMode.LAZY) {
+        MappedWindowCache.INSTANCE.remove(window);
+      }
+      if (unmap) {
+        window.evict();
+      }
+    }
+    if (this.lease != null) {
+      this.lease.close();
+    } else if (this.raf != null) {
+      this.raf.close();
+    } else if (this.storage != null) {
+      this.storage.close();
+    }
   }
 
   public RandomAccessFile getRandomAccessFile() {
@@ -0,0 +1,721 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import gov.nasa.pds.label.object.FieldDescription;
+import gov.nasa.pds.label.object.FieldType;
+import gov.nasa.pds.label.object.TableRecord;
+import gov.nasa.pds.objectAccess.table.AsciiIntegerParser;
+import gov.nasa.pds.objectAccess.table.AsciiRealParser;
+import gov.nasa.pds.objectAccess.table.BinaryDecoder;
+import gov.nasa.pds.objectAccess.table.FieldAdapter;
+import gov.nasa.pds.objectAccess.table.PackedBitFieldExtractor;
+
+/**
+ * Holds a block of table records decoded into one primitive array per field. A batch is filled by
+ * {@link TableReader#readBatch(ColumnBatch)} and may be reused for the following blocks, so a scan
+ * through batches allocates no object per record, except for the values of string columns.
+ *
+ * <p>
+ * Columns are addressed by their 1-relative field index, or by field name, as in
+ * {@link gov.nasa.pds.label.object.TableRecord}. The element type of a column follows from the
+ * field type, see {@link ColumnType#of(FieldType)}. Only the first {@link #getRowCount()} elements
+ * of each column array are valid.
+ *
+ * <p>
+ * An empty field of a delimited table has no value. It is stored as 0 in an INT or LONG column and
+ * as NaN in a DOUBLE column, and flagged in the array returned by {@link #getNulls(int)}.
+ */
+public class ColumnBatch {
+
+  /**
+   * Defines the element types of the column arrays.
+   */
+  public enum ColumnType {
+    /** Values are stored in an <code>int[]</code>. */
+    INT,
+    /** Values are stored in a <code>long[]</code>. */
+    LONG,
+    /** Values are stored in a <code>double[]</code>. */
+    DOUBLE,
+    /** Values are stored in a <code>String[]</code>. */
+    STRING;
+
+    /**
+     * Gets the column type used for fields of a given type. Integers that always fit an
+     * <code>int</code> are stored as INT, other integers and bit strings as LONG, and reals as
+     * DOUBLE. All other fields are kept as strings.
+     *
+     * @param type the field type
+     * @return the column type
+     */
+    public static ColumnType of(FieldType type) {
+      switch (type) {
+        case SIGNEDBYTE:
+        case UNSIGNEDBYTE:
+        case SIGNEDLSB2:
+        case SIGNEDMSB2:
+        case UNSIGNEDLSB2:
+        case UNSIGNEDMSB2:
+        case SIGNEDLSB4:
+        case SIGNEDMSB4:
+          return INT;
+        case UNSIGNEDLSB4:
+        case UNSIGNEDMSB4:
+        case SIGNEDLSB8:
+        case SIGNEDMSB8:
+        case UNSIGNEDLSB8:
+        case UNSIGNEDMSB8:
+        case SIGNEDBITSTRING:
+        case UNSIGNEDBITSTRING:
+        case ASCII_INTEGER:
+        case ASCII_NONNEGATIVE_INTEGER:
+        case ASCII_NUMERIC_BASE2:
+        case ASCII_NUMERIC_BASE8:
+        case ASCII_NUMERIC_BASE16:
+          return LONG;
+        case IEEE754LSBSINGLE:
+        case IEEE754MSBSINGLE:
+        case IEEE754LSBDOUBLE:
+        case IEEE754MSBDOUBLE:
+        case ASCII_REAL:
+          return DOUBLE;
+        default:
+          return STRING;
+      }
+    }
+  }
+
+  private final FieldDescription[] fields;
+  private final Map<String, Integer> fieldMap;
+  private final int capacity;
+  private final ColumnType[] types;
+  private final FieldAdapter[] adapters;
+  /** The decoders of the binary columns that are decoded a column at a time, or null. */
+  private final BinaryDecoder[] decoders;
+  /** Whether each field is a bit field extracted a column at a time with its packed field. */
+  private final boolean[] packed;
+  /** The decoded bit fields, grouped by packed field. */
+  private final List<PackedColumns> packedColumns = new ArrayList<>();
+  private final int[] radixes;
+  private final Object[] columns;
+  private final boolean[][] nulls;
+  /** The 0-relative indexes of the decoded columns. */
+  private final int[] decoded;
+  private int rowCount = 0;
+  private long firstRow = 0;
+  private byte[] recordBuffer = null;
+
+  /**
+   * Creates a new, empty batch.
+   *
+   * @param fields the field descriptions of the table
+   * @param fieldMap a map from field name to 1-relative field index
+   * @param capacity the maximum number of rows in the batch
+   * @throws IllegalArgumentException if the capacity is not positive
+   */
+  public ColumnBatch(FieldDescription[] fields, Map<String, Integer> fieldMap, int capacity) {
+    this(fields, fieldMap, capacity, null);
+  }
+
+  /**
+   * Creates a new, empty batch holding the columns of the projected fields only.
+   *
+   * @param fields the field descriptions of the table
+   * @param fieldMap a map from field name to 1-relative field index
+   * @param capacity the maximum number of rows in the batch
+   * @param projection the projected fields, or null for all fields
+   */
+  ColumnBatch(FieldDescription[] fields, Map<String, Integer> fieldMap, int capacity,
+      FieldProjection projection) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("Batch capacity must be positive: " + capacity);
+    }
+    this.fields = fields;
+    this.fieldMap = fieldMap;
+    this.capacity = capacity;
+    this.types = new ColumnType[fields.length];
+    this.adapters = new FieldAdapter[fields.length];
+    this.decoders = new BinaryDecoder[fields.length];
+    this.packed = new boolean[fields.length];
+    this.radixes = new int[fields.length];
+    this.columns = new Object[fields.length];
+    this.nulls = new boolean[fields.length][];
+    this.decoded = new int[projection != null ? projection.size() : fields.length];
+    int count = 0;
+    for (int i = 0; i < fields.length; i++) {
+      types[i] = ColumnType.of(fields[i].getType());
+      adapters[i] = fields[i].getType().getAdapter();
+      radixes[i] = radix(fields[i].getType());
+      BinaryDecoder decoder = BinaryDecoder.of(fields[i].getType());
+      if (decoder != null && decoder.getLength() == fields[i].getLength()) {
+        decoders[i] = decoder;
+      }
+      if (projection != null && !projection.contains(i + 1)) {
+        continue;
+      }
+      decoded[count++] = i;
+      switch (types[i]) {
+        case INT:
+          columns[i] = new int[capacity];
+          break;
+        case LONG:
+          columns[i] = new long[capacity];
+          break;
+        case DOUBLE:
+          columns[i] = new double[capacity];
+          break;
+        default:
+          columns[i] = new String[capacity];
+          break;
+      }
+      if (types[i] != ColumnType.STRING) {
+        nulls[i] = new boolean[capacity];
+      }
+    }
+    for (int i : decoded) {
+      if (!packed[i] && isPackable(fields[i])) {
+        addPackedColumns(i);
+      }
+    }
+  }
+
+  private static boolean isPackable(FieldDescription field) {
+    return (field.getType() == FieldType.SIGNEDBITSTRING
+        || field.getType() == FieldType.UNSIGNEDBITSTRING)
+        && PackedBitFieldExtractor.supports(field.getLength(), field.getStartBit(),
+            field.getStopBit());
+  }
+
+  /**
+   * Groups the decoded bit fields in the same packed field as the given one, so that they are
+   * extracted together.
+   */
+  private void addPackedColumns(int first) {
+    List<Integer> members = new ArrayList<>();
+    for (int i : decoded) {
+      if (i >= first && isPackable(fields[i])
+          && fields[i].getOffset() == fields[first].getOffset()
+          && fields[i].getLength() == fields[first].getLength()) {
+        members.add(i);
+        packed[i] = true;
+      }
+    }
+    FieldDescription[] bitFields = new FieldDescription[members.size()];
+    long[][] bitColumns = new long[members.size()][];
+    int[] indexes = new int[members.size()];
+    for (int n = 0; n < indexes.length; n++) {
+      indexes[n] = members.get(n);
+      bitFields[n] = fields[indexes[n]];
+      bitColumns[n] = (long[]) columns[indexes[n]];
+    }
+    packedColumns.add(
+        new PackedColumns(new PackedBitFieldExtractor(bitFields), indexes, bitColumns));
+  }
+
+  /**
+   * Gets the radix of the digits of a field type: 2, 8 or 16 for the ASCII numeric bases, and 10
+   * for all other types.
+   */
+  static int radix(FieldType type) {
+    switch (type) {
+      case ASCII_NUMERIC_BASE2:
+        return 2;
+      case ASCII_NUMERIC_BASE8:
+        return 8;
+      case ASCII_NUMERIC_BASE16:
+        return 16;
+      default:
+        return 10;
+    }
+  }
+
+  /**
+   * Parses the numeric value of a text field: a real number in radix 10, or an integer in the
+   * other radixes.
+   *
+   * @param buf the buffer holding the field
+   * @param offset the offset of the field
+   * @param length the length of the field
+   * @param radix the radix of the field type, see {@link #radix(FieldType)}
+   * @return the value
+   * @throws NumberFormatException if the field is not a number of the radix
+   */
+  static double parseDouble(byte[] buf, int offset, int length, int radix) {
+    if (radix == 10) {
+      return AsciiRealParser.parseDouble(buf, offset, length);
+    }
+    long value = AsciiIntegerParser.parse(buf, offset, length, radix);
+    if (value != AsciiIntegerParser.NOT_PARSED) {
+      return value;
+    }
+    return parseDouble(new String(buf, offset, length, StandardCharsets.US_ASCII), radix);
+  }
+
+  /**
+   * Parses the numeric value of a text field: a real number in radix 10, or an integer in the
+   * other radixes. Leading and trailing spaces are ignored.
+   *
+   * @param value the field value
+   * @param radix the radix of the field type, see {@link #radix(FieldType)}
+   * @return the value
+   * @throws NumberFormatException if the value is not a number of the radix
+   */
+  static double parseDouble(String value, int radix) {
+    if (radix == 10) {
+      return Double.parseDouble(value.trim());
+    }
+    return new BigInteger(value.trim(), radix).doubleValue();
+  }
+
+  /**
+   * Gets the numeric value of a record field in the radix of its type.
+   *
+   * @param record the record
+   * @param index the field index (1-relative)
+   * @param radix the radix of the field type, see {@link #radix(FieldType)}
+   * @return the value
+   * @throws NumberFormatException if the field is not a number of the radix
+   */
+  static double getDouble(TableRecord record, int index, int radix) {
+    if (radix == 10) {
+      return record.getDouble(index);
+    }
+    return parseDouble(record.getString(index), radix);
+  }
+
+  /**
+   * Gets the maximum number of rows in the batch.
+   *
+   * @return the capacity
+   */
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Gets the number of valid rows in the batch.
+   *
+   * @return the row count, 0 if the end of the table was reached
+   */
+  public int getRowCount() {
+    return rowCount;
+  }
+
+  /**
+   * Gets the table index of the first row in the batch.
+   *
+   * @return the 1-relative record index of row 0 of the batch
+   */
+  public long getFirstRow() {
+    return firstRow;
+  }
+
+  /**
+   * Gets the number of columns in the batch.
+   *
+   * @return the number of fields of the table
+   */
+  public int getColumnCount() {
+    return fields.length;
+  }
+
+  /**
+   * Gets the field description of a column.
+   *
+   * @param index the field index (1-relative)
+   * @return the field description
+   */
+  public FieldDescription getField(int index) {
+    checkIndexRange(index);
+    return fields[index - 1];
+  }
+
+  /**
+   * Finds the index of a column given its field name.
+   *
+   * @param name the field name
+   * @return the field index (1-relative)
+   * @throws IllegalArgumentException if no field has the given name
+   */
+  public int findColumn(String name) {
+    Integer index = fieldMap.get(name);
+    if (index == null) {
+      throw new IllegalArgumentException("Invalid field name: " + name);
+    }
+    return index;
+  }
+
+  /**
+   * Gets the element type of a column.
+   *
+   * @param index the field index (1-relative)
+   * @return the column type
+   */
+  public ColumnType getColumnType(int index) {
+    checkIndexRange(index);
+    return types[index - 1];
+  }
+
+  /**
+   * Gets the values of an INT column.
+   *
+   * @param index the field index (1-relative)
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type INT
+   */
+  public int[] getInts(int index) {
+    return (int[]) getColumn(index, ColumnType.INT);
+  }
+
+  /**
+   * Gets the values of an INT column.
+   *
+   * @param name the field name
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type INT
+   */
+  public int[] getInts(String name) {
+    return getInts(findColumn(name));
+  }
+
+  /**
+   * Gets the values of a LONG column.
+   *
+   * @param index the field index (1-relative)
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type LONG
+   */
+  public long[] getLongs(int index) {
+    return (long[]) getColumn(index, ColumnType.LONG);
+  }
+
+  /**
+   * Gets the values of a LONG column.
+   *
+   * @param name the field name
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type LONG
+   */
+  public long[] getLongs(String name) {
+    return getLongs(findColumn(name));
+  }
+
+  /**
+   * Gets the values of a DOUBLE column.
+   *
+   * @param index the field index (1-relative)
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type DOUBLE
+   */
+  public double[] getDoubles(int index) {
+    return (double[]) getColumn(index, ColumnType.DOUBLE);
+  }
+
+  /**
+   * Gets the values of a DOUBLE column.
+   *
+   * @param name the field name
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type DOUBLE
+   */
+  public double[] getDoubles(String name) {
+    return getDoubles(findColumn(name));
+  }
+
+  /**
+   * Gets the values of a STRING column.
+   *
+   * @param index the field index (1-relative)
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type STRING
+   */
+  public String[] getStrings(int index) {
+    return (String[]) getColumn(index, ColumnType.STRING);
+  }
+
+  /**
+   * Gets the values of a STRING column.
+   *
+   * @param name the field name
+   * @return the column values
+   * @throws IllegalArgumentException if the column is not of type STRING
+   */
+  public String[] getStrings(String name) {
+    return getStrings(findColumn(name));
+  }
+
+  /**
+   * Gets the flags marking the rows of a numeric column that have no value.
+   *
+   * @param index the field index (1-relative)
+   * @return the flags, true for rows without a value
+   * @throws IllegalArgumentException if the column is of type STRING
+   */
+  public boolean[] getNulls(int index) {
+    checkIndexRange(index);
+    checkDecoded(index);
+    if (nulls[index - 1] == null) {
+      throw new IllegalArgumentException(
+          "Field " + fields[index - 1].getName() + " is stored as " + ColumnType.STRING);
+    }
+    return nulls[index - 1];
+  }
+
+  /**
+   * Gets the flags marking the rows of a numeric column that have no value.
+   *
+   * @param name the field name
+   * @return the flags, true for rows without a value
+   * @throws IllegalArgumentException if the column is of type STRING
+   */
+  public boolean[] getNulls(String name) {
+    return getNulls(findColumn(name));
+  }
+
+  private Object getColumn(int index, ColumnType type) {
+    checkIndexRange(index);
+    checkDecoded(index);
+    if (types[index - 1] != type) {
+      throw new IllegalArgumentException("Field " + fields[index - 1].getName() + " is stored as "
+          + types[index - 1] + ", not " + type);
+    }
+    return columns[index - 1];
+  }
+
+  private void checkIndexRange(int index) {
+    if (index < 1 || index > fields.length) {
+      throw new ArrayIndexOutOfBoundsException(
+          "Invalid field index: " + index + " (range 1-" + fields.length + ")");
+    }
+  }
+
+  private void checkDecoded(int index) {
+    if (columns[index - 1] == null) {
+      throw new IllegalArgumentException(
+          "Field " + fields[index - 1].getName() + " is not in the projection");
+    }
+  }
+
+  /**
+   * Empties the batch before it is filled with the rows starting at the given record.
+   */
+  void reset(long firstRow) {
+    this.firstRow = firstRow;
+    this.rowCount = 0;
+  }
+
+  /**
+   * Gets a buffer for the bytes of fixed-width records, reused across batches.
+   */
+  byte[] getRecordBuffer(int length) {
+    if (recordBuffer == null || recordBuffer.length != length) {
+      recordBuffer = new byte[length];
+    }
+    return recordBuffer;
+  }
+
+  /**
+   * Decodes the fields of consecutive fixed-width records into the next rows of the batch. Binary
+   * integer and real columns, and the bit fields of packed fields, are decoded a column at a time,
+   * other columns record by record.
+   *
+   * @param records the buffer holding the records, one after the other
+   * @param count the number of records
+   * @param recordLength the record length, in bytes
+   */
+  void addRecords(byte[] records, int count, int recordLength) {
+    int firstIndex = rowCount;
+    for (int i : decoded) {
+      BinaryDecoder decoder = decoders[i];
+      int offset = fields[i].getOffset();
+      if (decoder == null || !isByColumn(i, recordLength)) {
+        continue;
+      }
+      switch (types[i]) {
+        case INT:
+          decoder.decode(records, offset, recordLength, count, (int[]) columns[i], firstIndex);
+          break;
+        case LONG:
+          decoder.decode(records, offset, recordLength, count, (long[]) columns[i], firstIndex);
+          break;
+        default:
+          decoder.decode(records, offset, recordLength, count, (double[]) columns[i],
+              firstIndex);
+          break;
+      }
+      Arrays.fill(nulls[i], firstIndex, firstIndex + count, false);
+    }
+    for (PackedColumns group : packedColumns) {
+      if (!isByColumn(group.indexes[0], recordLength)) {
+        continue;
+      }
+      group.extractor.extract(records, 0, recordLength, count, group.columns, firstIndex);
+      for (int i : group.indexes) {
+        Arrays.fill(nulls[i], firstIndex, firstIndex + count, false);
+      }
+    }
+    for (int n = 0; n < count; n++) {
+      addRecord(records, n * recordLength, recordLength);
+    }
+  }
+
+  /**
+   * Tests whether a field of fixed-width records is decoded a column at a time.
+   */
+  private boolean isByColumn(int i, int recordLength) {
+    int offset = fields[i].getOffset();
+    return (decoders[i] != null || packed[i]) && offset >= 0
+        && offset + fields[i].getLength() <= recordLength;
+  }
+
+  /**
+   * Decodes the fields of a fixed-width record that are not decoded by column into the next row of
+   * the batch.
+   */
+  private void addRecord(byte[] records, int recordOffset, int recordLength) {
+    int row = rowCount++;
+    for (int i : decoded) {
+      if (isByColumn(i, recordLength)) {
+        continue;
+      }
+      FieldDescription field = fields[i];
+      FieldAdapter adapter = adapters[i];
+      int offset = recordOffset + field.getOffset();
+      int length = field.getLength();
+      if (nulls[i] != null) {
+        nulls[i][row] = false;
+      }
+      switch (types[i]) {
+        case INT:
+          ((int[]) columns[i])[row] =
+              adapter.getInt(records, offset, length, field.getStartBit(), field.getStopBit());
+          break;
+        case LONG:
+          ((long[]) columns[i])[row] =
+              adapter.getLong(records, offset, length, field.getStartBit(), field.getStopBit());
+          break;
+        case DOUBLE:
+          ((double[]) columns[i])[row] =
+              adapter.getDouble(records, offset, length, field.getStartBit(), field.getStopBit());
+          break;
+        default:
+          ((String[]) columns[i])[row] =
+              adapter.getString(records, offset, length, field.getStartBit(), field.getStopBit());
+          break;
+      }
+    }
+  }
+
+  /**
+   * Parses the field values of the current record of a delimited tokenizer into the next row of the
+   * batch. Only the values of the decoded columns are read from the tokenizer.
+   */
+  void addRecord(DelimitedRecordTokenizer tokenizer) {
+    int row = rowCount++;
+    for (int i : decoded) {
+      if (types[i] == ColumnType.STRING) {
+        ((String[]) columns[i])[row] = tokenizer.getString(i);
+        continue;
+      }
+      if (types[i] == ColumnType.DOUBLE && tokenizer.isSimple()) {
+        byte[] buf = tokenizer.getBuffer();
+        int start = tokenizer.getFieldStart(i);
+        int end = tokenizer.getFieldEnd(i);
+        boolean empty = isBlank(buf, start, end);
+        nulls[i][row] = empty;
+        ((double[]) columns[i])[row] =
+            empty ? Double.NaN : AsciiRealParser.parseDouble(buf, start, end - start);
+        continue;
+      }
+      if (types[i] != ColumnType.DOUBLE && tokenizer.isSimple()) {
+        int start = tokenizer.getFieldStart(i);
+        long value = AsciiIntegerParser.parse(tokenizer.getBuffer(), start,
+            tokenizer.getFieldEnd(i) - start, radixes[i]);
+        // Empty values, values out of range and malformed values are left to the string path.
+        if (value != AsciiIntegerParser.NOT_PARSED
+            && (types[i] == ColumnType.LONG || value == (int) value)) {
+          nulls[i][row] = false;
+          if (types[i] == ColumnType.INT) {
+            ((int[]) columns[i])[row] = (int) value;
+          } else {
+            ((long[]) columns[i])[row] = value;
+          }
+          continue;
+        }
+      }
+      String value = tokenizer.getString(i).trim();
+      nulls[i][row] = value.isEmpty();
+      switch (types[i]) {
+        case INT:
+          ((int[]) columns[i])[row] = value.isEmpty() ? 0 : Integer.parseInt(value, radixes[i]);
+          break;
+        case LONG:
+          ((long[]) columns[i])[row] = value.isEmpty() ? 0 : Long.parseLong(value, radixes[i]);
+          break;
+        default:
+          ((double[]) columns[i])[row] = value.isEmpty() ? Double.NaN : Double.parseDouble(value);
+          break;
+      }
+    }
+  }
+
+  /**
+   * Holds the extractor of a packed field and the columns of its decoded bit fields.
+   */
+  private static final class PackedColumns {
+    private final PackedBitFieldExtractor extractor;
+    /** The 0-relative indexes of the bit fields. */
+    private final int[] indexes;
+    private final long[][] columns;
+
+    PackedColumns(PackedBitFieldExtractor extractor, int[] indexes, long[][] columns) {
+      this.extractor = extractor;
+      this.indexes = indexes;
+      this.columns = columns;
+    }
+  }
+
+  private static boolean isBlank(byte[] buf, int start, int end) {
+    for (int i = start; i < end; i++) {
+      if ((buf[i] & 0xFF) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
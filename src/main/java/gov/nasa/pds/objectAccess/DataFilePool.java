@@ -0,0 +1,219 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import gov.nasa.pds.objectAccess.storage.StorageObject;
+import gov.nasa.pds.objectAccess.utility.BufferUnmapper;
+
+/**
+ * A reference-counted pool of open data files, shared by the readers of the objects in one label.
+ * Readers of tables in the same data file share one file handle, and readers mapping the same
+ * region of the file share one mapping. The file is closed, and its mappings released, when the
+ * last lease on it is closed.
+ */
+public class DataFilePool {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataFilePool.class);
+
+  private final Map<String, SharedFile> files = new HashMap<>();
+
+  /**
+   * Tests whether a data file can be pooled. Only local files can be pooled.
+   *
+   * @param url the data file
+   * @return true, if {@link #acquire(URL)} can be called for the URL
+   */
+  public static boolean supports(URL url) {
+    return "file".equalsIgnoreCase(url.getProtocol());
+  }
+
+  /**
+   * Leases a data file, opening it if no other reader holds it.
+   *
+   * @param url the data file
+   * @return a lease on the open file, which the caller must close
+   * @throws IOException if the file cannot be opened
+   */
+  public synchronized Lease acquire(URL url) throws IOException {
+    String key = url.toString();
+    SharedFile file = files.get(key);
+    if (file == null) {
+      try {
+        file = new SharedFile(key, new RandomAccessFile(new File(url.toURI()), "r"));
+      } catch (URISyntaxException ex) {
+        throw new IOException("Cannot translate '" + url + "' to a file path: " + ex.getMessage(),
+            ex);
+      }
+      files.put(key, file);
+      LOGGER.debug("Opened pooled data file {}", key);
+    }
+    file.refs++;
+    return new Lease(file);
+  }
+
+  /**
+   * Gets the number of data files currently open in the pool.
+   *
+   * @return the number of open files
+   */
+  public synchronized int getOpenFileCount() {
+    return files.size();
+  }
+
+  private synchronized void release(SharedFile file) throws IOException {
+    if (--file.refs > 0) {
+      return;
+    }
+    files.remove(file.key);
+    LOGGER.debug("Closing pooled data file {}", file.key);
+    if (!file.viewsShared) {
+      for (ByteBuffer mapping : file.mappings.values()) {
+        BufferUnmapper.unmap(mapping);
+      }
+    }
+    file.mappings.clear();
+    file.raf.close();
+  }
+
+  private static class SharedFile {
+    private final String key;
+    private final RandomAccessFile raf;
+    private final Map<String, MappedByteBuffer> mappings = new HashMap<>();
+    private int refs = 0;
+    private boolean viewsShared = false;
+
+    SharedFile(String key, RandomAccessFile raf) {
+      this.key = key;
+      this.raf = raf;
+    }
+  }
+
+  /**
+   * A reader's hold on a pooled data file. Closing the lease releases the reader's reference.
+   */
+  public final class Lease implements Closeable {
+    private final SharedFile file;
+    private boolean closed = false;
+
+    private Lease(SharedFile file) {
+      this.file = file;
+    }
+
+    /**
+     * Gets the shared file handle. The caller must not close it.
+     *
+     * @return the file handle
+     */
+    public RandomAccessFile getRandomAccessFile() {
+      return file.raf;
+    }
+
+    /**
+     * Maps a region of the data file read-only, reusing the mapping of an identical region if
+     * another reader already holds one. The caller must not unmap it.
+     *
+     * @param position the position of the region within the file
+     * @param size the size of the region, in bytes
+     * @return the mapping
+     * @throws IOException if the region cannot be mapped
+     */
+    public MappedByteBuffer map(long position, long size) throws IOException {
+      String region = position + ":" + size;
+      synchronized (DataFilePool.this) {
+        MappedByteBuffer mapping = file.mappings.get(region);
+        if (mapping == null) {
+          mapping = file.raf.getChannel().map(FileChannel.MapMode.READ_ONLY, position, size);
+          file.mappings.put(region, mapping);
+        }
+        return mapping;
+      }
+    }
+
+    /**
+     * Records that a view of a mapping has been handed out beyond the reader, so the mappings
+     * must be left to the garbage collector rather than released when the file is closed.
+     */
+    public void markViewsShared() {
+      synchronized (DataFilePool.this) {
+        file.viewsShared = true;
+      }
+    }
+
+    /**
+     * Gets a storage object reading from the shared file handle. Closing the storage object
+     * closes this lease.
+     *
+     * @return a storage object over the data file
+     */
+    public StorageObject asStorageObject() {
+      final FileChannel channel = file.raf.getChannel();
+      return new StorageObject() {
+        @Override
+        public long size() throws IOException {
+          return channel.size();
+        }
+
+        @Override
+        public int read(long position, ByteBuffer dst) throws IOException {
+          return channel.read(dst, position);
+        }
+
+        @Override
+        public void close() throws IOException {
+          Lease.this.close();
+        }
+      };
+    }
+
+    @Override
+    public void close() throws IOException {
+      synchronized (DataFilePool.this) {
+        if (closed) {
+          return;
+        }
+        closed = true;
+      }
+      release(file);
+    }
+  }
+}
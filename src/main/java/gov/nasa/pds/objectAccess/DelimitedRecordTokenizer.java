@@ -0,0 +1,441 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.exceptions.CsvMalformedLineException;
+
+/**
+ * Splits the records of a delimited table into fields, working on the bytes of the data object.
+ * The bytes are read from the accessor in large blocks, and the start and end offset of each field
+ * of the current record are kept in reusable arrays. Strings are only decoded when a field value
+ * is asked for.
+ *
+ * <p>
+ * A record without quote or escape characters, which is by far the most common case, is split at
+ * the field delimiters of its line. Any other record is parsed line by line by an opencsv parser
+ * set up as for a <code>CSVReader</code>, so quoted fields, escapes and fields spanning lines give
+ * exactly the same values as before. Lines end, as for <code>BufferedReader.readLine()</code>, at
+ * LF, CR or CRLF, and bytes are decoded as US-ASCII.
+ * </p>
+ */
+final class DelimitedRecordTokenizer {
+
+  private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+  private static final byte QUOTE = '"';
+  private static final byte ESCAPE = '\\';
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+
+  private final ByteWiseFileAccessor accessor;
+  private final long size;
+  private final char separator;
+  private boolean keepQuotations;
+  private CSVParser parser = null;
+
+  private byte[] buffer;
+  /** The position within the data object of buffer[0]. */
+  private long bufferStart = 0;
+  /** The number of valid bytes in the buffer. */
+  private int bufferLimit = 0;
+  /** The buffer index of the next record. */
+  private int pos = 0;
+
+  /** The buffer index of the current record, to which the field offsets are relative. */
+  private int recordIndex = 0;
+  private long recordStart = -1;
+  private int fieldCount = 0;
+  /** The number of leading fields whose offsets are kept. */
+  private int fieldLimit = Integer.MAX_VALUE;
+  private int[] fieldStarts = new int[16];
+  private int[] fieldEnds = new int[16];
+  private boolean simple;
+  /** The length of the line of a simple record, without the line terminator. */
+  private int lineLength = 0;
+  private String[] values = null;
+
+  /**
+   * Creates a tokenizer positioned at the start of a data object.
+   *
+   * @param accessor the accessor of the delimited data object
+   * @param separator the field delimiter
+   * @param keepQuotations whether to keep the quotes around quoted fields
+   */
+  DelimitedRecordTokenizer(ByteWiseFileAccessor accessor, char separator, boolean keepQuotations) {
+    this(accessor, separator, keepQuotations, DEFAULT_BUFFER_SIZE);
+  }
+
+  DelimitedRecordTokenizer(ByteWiseFileAccessor accessor, char separator, boolean keepQuotations,
+      int bufferSize) {
+    this.accessor = accessor;
+    this.size = accessor.getTotalBytesRead();
+    this.separator = separator;
+    this.keepQuotations = keepQuotations;
+    this.buffer = new byte[Math.max(16, bufferSize)];
+  }
+
+  /**
+   * Sets whether to keep the quotes around quoted fields, for the following records.
+   */
+  void setKeepQuotations(boolean keepQuotations) {
+    if (this.keepQuotations != keepQuotations) {
+      this.keepQuotations = keepQuotations;
+      this.parser = null;
+    }
+  }
+
+  /**
+   * Sets the number of leading fields of a record that can be read. The delimiters of the later
+   * fields are only counted, as needed by {@link #getFieldCount()}.
+   *
+   * @param limit the number of fields to keep
+   */
+  void setFieldLimit(int limit) {
+    this.fieldLimit = limit;
+  }
+
+  /**
+   * Moves to a position of the data object where a record starts. The next call to {@link #next()}
+   * reads that record.
+   *
+   * @param position the position within the data object (0-relative)
+   */
+  void seek(long position) {
+    if (position >= bufferStart && position <= bufferStart + bufferLimit) {
+      pos = (int) (position - bufferStart);
+    } else {
+      bufferStart = position;
+      bufferLimit = 0;
+      pos = 0;
+    }
+    recordStart = -1;
+    fieldCount = 0;
+    values = null;
+  }
+
+  /**
+   * Gets the position within the data object of the record that the next call to
+   * {@link #next()} reads.
+   */
+  long getPosition() {
+    return bufferStart + pos;
+  }
+
+  /**
+   * Reads the next record.
+   *
+   * @return true if a record was read, false at the end of the data object
+   * @throws IOException if the data object cannot be read, or ends within a quoted field
+   */
+  boolean next() throws IOException {
+    values = null;
+    fieldCount = 0;
+    if (pos >= bufferLimit && !fill()) {
+      recordStart = -1;
+      return false;
+    }
+    recordStart = bufferStart + pos;
+    int lineEnd;
+    while ((lineEnd = splitLine(false)) < 0) {
+      if (!fill()) {
+        lineEnd = splitLine(true);
+        break;
+      }
+    }
+    lineLength = lineEnd;
+    int next = lineEnd + terminatorLength(lineEnd);
+    if (!simple) {
+      next = parseRecord(lineEnd, next);
+    }
+    recordIndex = pos;
+    pos += next;
+    return true;
+  }
+
+  /**
+   * Splits the line at the current position at the field delimiters, and checks whether it holds
+   * any quote or escape character.
+   *
+   * @param atEnd whether the buffer holds the end of the data object, which then ends the line
+   * @return the offset of the line terminator relative to the current position, or -1 if the
+   *         buffer ends before the line does
+   */
+  private int splitLine(boolean atEnd) {
+    byte sep = (byte) separator;
+    fieldCount = 0;
+    simple = true;
+    int fieldStart = 0;
+    for (int i = pos; i < bufferLimit; i++) {
+      byte b = buffer[i];
+      if (b == sep) {
+        addField(fieldStart, i - pos);
+        fieldStart = i - pos + 1;
+      } else if (b == LF || b == CR) {
+        addField(fieldStart, i - pos);
+        return i - pos;
+      } else if (b == QUOTE || b == ESCAPE) {
+        simple = false;
+      }
+    }
+    if (atEnd) {
+      addField(fieldStart, bufferLimit - pos);
+      return bufferLimit - pos;
+    }
+    return -1;
+  }
+
+  private void addField(int start, int end) {
+    if (fieldCount >= fieldLimit) {
+      fieldCount++;
+      return;
+    }
+    if (fieldCount == fieldStarts.length) {
+      fieldStarts = Arrays.copyOf(fieldStarts, fieldCount * 2);
+      fieldEnds = Arrays.copyOf(fieldEnds, fieldCount * 2);
+    }
+    fieldStarts[fieldCount] = start;
+    fieldEnds[fieldCount] = end;
+    fieldCount++;
+  }
+
+  /**
+   * Gets the length of the line terminator at an offset relative to the current position.
+   */
+  private int terminatorLength(int offset) throws IOException {
+    if (pos + offset >= bufferLimit) {
+      return 0;
+    }
+    if (buffer[pos + offset] == LF) {
+      return 1;
+    }
+    if (pos + offset + 1 >= bufferLimit && !fill()) {
+      return 1;
+    }
+    return pos + offset + 1 < bufferLimit && buffer[pos + offset + 1] == LF ? 2 : 1;
+  }
+
+  /**
+   * Parses the record at the current position with opencsv, reading further lines while a quoted
+   * field is still open, as <code>CSVReader</code> does.
+   *
+   * @return the offset of the next record relative to the current position
+   */
+  private int parseRecord(int lineEnd, int next) throws IOException {
+    if (parser == null) {
+      parser = new CSVParserBuilder().withSeparator(separator).withKeepQuotations(keepQuotations)
+          .build();
+    }
+    String[] result = parser.parseLineMulti(decode(0, lineEnd));
+    while (parser.isPending()) {
+      if (pos + next >= bufferLimit && !fill()) {
+        String pending = parser.getPendingText();
+        parser = null;
+        throw new CsvMalformedLineException(
+            "Unterminated quoted field at end of CSV line. Beginning of lost text: ["
+                + (pending.length() > 100 ? pending.substring(0, 97) + "..." : pending) + "]",
+            0, pending);
+      }
+      int end;
+      while ((end = findTerminator(next)) < 0) {
+        if (!fill()) {
+          end = bufferLimit - pos;
+          break;
+        }
+      }
+      String[] more = parser.parseLineMulti(decode(next, end));
+      if (more.length > 0) {
+        String[] combined = Arrays.copyOf(result, result.length + more.length);
+        System.arraycopy(more, 0, combined, result.length, more.length);
+        result = combined;
+      }
+      next = end + terminatorLength(end);
+    }
+    values = result;
+    fieldCount = result.length;
+    return next;
+  }
+
+  private int findTerminator(int from) {
+    for (int i = pos + from; i < bufferLimit; i++) {
+      if (buffer[i] == LF || buffer[i] == CR) {
+        return i - pos;
+      }
+    }
+    return -1;
+  }
+
+  private String decode(int start, int end) {
+    return new String(buffer, pos + start, end - start, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Reads more of the data object into the buffer. The bytes from the current position on are kept,
+   * at the start of the buffer, which grows if they fill it.
+   *
+   * @return false if the end of the data object was reached
+   */
+  private boolean fill() throws IOException {
+    if (bufferStart + bufferLimit >= size) {
+      return false;
+    }
+    if (pos > 0) {
+      System.arraycopy(buffer, pos, buffer, 0, bufferLimit - pos);
+      bufferStart += pos;
+      bufferLimit -= pos;
+      pos = 0;
+    }
+    if (bufferLimit == buffer.length) {
+      buffer = Arrays.copyOf(buffer, buffer.length * 2);
+    }
+    int n = accessor.readBytesAt(bufferStart + bufferLimit, buffer, bufferLimit,
+        buffer.length - bufferLimit);
+    if (n <= 0) {
+      return false;
+    }
+    bufferLimit += n;
+    return true;
+  }
+
+  /**
+   * Gets the position within the data object of the current record.
+   *
+   * @return the record position, or -1 if there is no current record
+   */
+  long getRecordStart() {
+    return recordStart;
+  }
+
+  /**
+   * Gets the number of fields of the current record.
+   */
+  int getFieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * Gets the value of a field of the current record.
+   *
+   * @param index the field index (0-relative)
+   * @return the field value
+   */
+  String getString(int index) {
+    if (values != null) {
+      return values[index];
+    }
+    if (index < 0 || index >= Math.min(fieldCount, fieldLimit)) {
+      throw new ArrayIndexOutOfBoundsException(index);
+    }
+    return new String(buffer, recordIndex + fieldStarts[index],
+        fieldEnds[index] - fieldStarts[index], StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Gets the length of the value of a field of the current record.
+   *
+   * @param index the field index (0-relative)
+   * @return the number of characters of the field value
+   */
+  int getLength(int index) {
+    if (values != null) {
+      return values[index].length();
+    }
+    return fieldEnds[index] - fieldStarts[index];
+  }
+
+  /**
+   * Gets the total length of the values of all fields of the current record.
+   *
+   * @return the number of characters of the field values
+   */
+  int getValuesLength() {
+    if (values != null) {
+      int length = 0;
+      for (String value : values) {
+        length += value.length();
+      }
+      return length;
+    }
+    // The fields of a simple record are separated by one delimiter each.
+    return lineLength - (fieldCount - 1);
+  }
+
+  /**
+   * Gets the values of all fields of the current record. The values of fields beyond the field
+   * limit are null.
+   *
+   * @return a new array of field values
+   */
+  String[] getValues() {
+    if (values != null) {
+      return values.clone();
+    }
+    String[] result = new String[fieldCount];
+    for (int i = 0; i < Math.min(fieldCount, fieldLimit); i++) {
+      result[i] = getString(i);
+    }
+    return result;
+  }
+
+  /**
+   * Tells whether the fields of the current record are plain byte ranges of the buffer, as given by
+   * {@link #getBuffer()}, {@link #getFieldStart(int)} and {@link #getFieldEnd(int)}. Otherwise the
+   * values must be read with {@link #getString(int)}.
+   */
+  boolean isSimple() {
+    return values == null;
+  }
+
+  /**
+   * Gets the buffer holding the bytes of the current record, valid until the next call to
+   * {@link #next()}.
+   */
+  byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Gets the buffer index of the first byte of a field of a simple record.
+   */
+  int getFieldStart(int index) {
+    return recordIndex + fieldStarts[index];
+  }
+
+  /**
+   * Gets the buffer index after the last byte of a field of a simple record.
+   */
+  int getFieldEnd(int index) {
+    return recordIndex + fieldEnds[index];
+  }
+}
@@ -0,0 +1,398 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.io.SequenceInputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import com.opencsv.CSVParser;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import com.opencsv.exceptions.CsvValidationException;
+
+/**
+ * Parses the records of a delimited table on several threads. The data object is read in waves of
+ * chunks; the chunks of a wave are parsed concurrently with the same opencsv parser settings as
+ * {@link TableReader}, and returned in record order.
+ *
+ * <p>
+ * A chunk boundary must fall between records, not within a quoted field that spans lines. The
+ * quote state at each nominal chunk start is found by chaining the effect of every chunk on the
+ * quote state, which is computed concurrently for both possible escape states at the chunk start.
+ * Each chunk then starts after the first record delimiter outside quotes, and ends where the next
+ * chunk starts. A wave always ends on a record boundary, so the next wave starts outside quotes.
+ * Record delimiters are LF, CR or CRLF, as in {@link DelimitedRecordTokenizer}.
+ * </p>
+ *
+ * <p>
+ * The data object may be followed by other bytes of the file, so parsing stops once the records of
+ * the table have been read. Since the chunks of a wave are parsed concurrently, a chunk past the
+ * last record may still be parsed, but an error in it is only reported if its records are needed.
+ * </p>
+ */
+final class DelimitedTableParser {
+
+  /** The default number of bytes in a chunk. */
+  static final int DEFAULT_CHUNK_SIZE = 4 * 1024 * 1024;
+
+  private static final int TAIL_BLOCK_SIZE = 64 * 1024;
+  private static final byte QUOTE = '"';
+  private static final byte ESCAPE = '\\';
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+
+  private final ByteWiseFileAccessor accessor;
+  private final long size;
+  private final char separator;
+  private final boolean keepQuotations;
+  private final int chunkSize;
+  private final int chunksPerWave;
+  private final ExecutorService executor;
+  private long position = 0;
+
+  /**
+   * Creates a parser for the data object of an accessor.
+   *
+   * @param accessor the accessor of the delimited data object
+   * @param separator the field delimiter
+   * @param keepQuotations whether to keep the quotes around quoted fields
+   * @param chunkSize the nominal number of bytes in a chunk
+   * @param chunksPerWave the number of chunks parsed at the same time
+   * @param executor the executor to parse the chunks on
+   */
+  DelimitedTableParser(ByteWiseFileAccessor accessor, char separator, boolean keepQuotations,
+      int chunkSize, int chunksPerWave, ExecutorService executor) {
+    this.accessor = accessor;
+    this.size = accessor.getTotalBytesRead();
+    this.separator = separator;
+    this.keepQuotations = keepQuotations;
+    this.chunkSize = chunkSize;
+    this.chunksPerWave = Math.max(1, chunksPerWave);
+    this.executor = executor;
+  }
+
+  /**
+   * Parses the next wave of chunks.
+   *
+   * @param maxRecords the number of records still to be read
+   * @return the field values of the records of each chunk, in record order, at most
+   *         <code>maxRecords</code> records in all, or null if the end of the data object was
+   *         reached
+   * @throws IOException if the data object cannot be read or a needed record cannot be parsed
+   */
+  List<List<String[]>> nextWave(long maxRecords) throws IOException {
+    if (position >= size || maxRecords <= 0) {
+      return null;
+    }
+    long waveStart = position;
+    int chunkCount =
+        (int) Math.min(chunksPerWave, (size - waveStart + chunkSize - 1) / chunkSize);
+    long[] starts = new long[chunkCount + 1];
+    for (int i = 0; i <= chunkCount; i++) {
+      starts[i] = Math.min(size, waveStart + (long) i * chunkSize);
+    }
+
+    // Read the chunks and find how each of them changes the quote state.
+    List<Callable<Chunk>> readTasks = new ArrayList<>(chunkCount);
+    for (int i = 0; i < chunkCount; i++) {
+      long start = starts[i];
+      int length = (int) (starts[i + 1] - start);
+      readTasks.add(() -> new Chunk(start, read(start, length)));
+    }
+    List<Chunk> chunks = invokeAll(readTasks);
+
+    // Chain the transitions to get the quote state at each nominal chunk start.
+    int[] states = new int[chunkCount + 1];
+    for (int i = 0; i < chunkCount; i++) {
+      states[i + 1] = chunks.get(i).transition(states[i]);
+    }
+
+    // Each chunk starts after the first record delimiter outside quotes, if any.
+    List<Long> boundaries = new ArrayList<>();
+    boundaries.add(waveStart);
+    for (int i = 1; i < chunkCount; i++) {
+      Chunk chunk = chunks.get(i);
+      int end = findBoundary(chunk.bytes, 0, chunk.bytes.length, states[i]);
+      if (end >= 0) {
+        boundaries.add(chunk.start + end);
+      }
+    }
+    long waveEnd = starts[chunkCount];
+    if (waveEnd < size) {
+      Chunk tail = readTail(waveEnd, states[chunkCount]);
+      chunks.add(tail);
+      waveEnd = tail.start + tail.bytes.length;
+    }
+    boundaries.add(waveEnd);
+    this.position = waveEnd;
+
+    List<Callable<ParsedChunk>> parseTasks = new ArrayList<>(boundaries.size() - 1);
+    for (int i = 0; i + 1 < boundaries.size(); i++) {
+      long start = boundaries.get(i);
+      long end = boundaries.get(i + 1);
+      parseTasks.add(() -> parse(chunks, start, end, maxRecords));
+    }
+
+    // Keep the records still needed, and fail only if a needed record cannot be parsed.
+    List<List<String[]>> wave = new ArrayList<>(parseTasks.size());
+    long remaining = maxRecords;
+    for (ParsedChunk parsed : invokeAll(parseTasks)) {
+      if (remaining == 0) {
+        break;
+      }
+      if (parsed.error != null && parsed.records.size() < remaining) {
+        throw parsed.error;
+      }
+      List<String[]> records = parsed.records;
+      if (records.size() > remaining) {
+        records = records.subList(0, (int) remaining);
+      }
+      wave.add(records);
+      remaining -= records.size();
+    }
+    if (remaining == 0) {
+      this.position = size;
+    }
+    return wave;
+  }
+
+  private byte[] read(long start, int length) {
+    byte[] bytes = new byte[length];
+    int done = 0;
+    while (done < length) {
+      int n = accessor.readBytesAt(start + done, bytes, done, length - done);
+      if (n < 0) {
+        throw new UncheckedIOException(
+            new IOException("Unexpected end of data at byte " + (start + done)));
+      }
+      done += n;
+    }
+    return bytes;
+  }
+
+  /**
+   * Reads from a nominal wave end up to and including the next record delimiter outside quotes, or
+   * up to the end of the data object.
+   */
+  private Chunk readTail(long start, int state) {
+    ByteArrayOutputStream tail = new ByteArrayOutputStream();
+    long pos = start;
+    while (pos < size) {
+      byte[] block = read(pos, (int) Math.min(TAIL_BLOCK_SIZE, size - pos));
+      int end = findBoundary(block, 0, block.length, state);
+      if (end >= 0) {
+        tail.write(block, 0, end);
+        break;
+      }
+      tail.write(block, 0, block.length);
+      state = transition(block, 0, block.length, state);
+      pos += block.length;
+    }
+    return new Chunk(start, tail.toByteArray());
+  }
+
+  /**
+   * Parses at most <code>maxRecords</code> records of the bytes between two boundaries. A parse
+   * error is returned along with the records before it, rather than thrown.
+   */
+  private ParsedChunk parse(List<Chunk> chunks, long start, long end, long maxRecords) {
+    List<InputStream> segments = new ArrayList<>();
+    for (Chunk chunk : chunks) {
+      long from = Math.max(start, chunk.start);
+      long to = Math.min(end, chunk.start + chunk.bytes.length);
+      if (from < to) {
+        segments.add(
+            new ByteArrayInputStream(chunk.bytes, (int) (from - chunk.start), (int) (to - from)));
+      }
+    }
+    CSVParser parser = new CSVParserBuilder().withSeparator(this.separator)
+        .withKeepQuotations(this.keepQuotations).build();
+    List<String[]> records = new ArrayList<>();
+    try (CSVReader reader = new CSVReaderBuilder(new BufferedReader(new InputStreamReader(
+        new SequenceInputStream(Collections.enumeration(segments)), StandardCharsets.US_ASCII)))
+            .withCSVParser(parser).build()) {
+      String[] values;
+      while (records.size() < maxRecords && (values = reader.readNext()) != null) {
+        records.add(values);
+      }
+    } catch (IOException ex) {
+      return new ParsedChunk(records, ex);
+    } catch (CsvValidationException ex) {
+      return new ParsedChunk(records, new IOException(ex.getMessage(), ex));
+    }
+    return new ParsedChunk(records, null);
+  }
+
+  /**
+   * The records parsed from a chunk, and the error that stopped the parse, if any.
+   */
+  private static final class ParsedChunk {
+    private final List<String[]> records;
+    private final IOException error;
+
+    ParsedChunk(List<String[]> records, IOException error) {
+      this.records = records;
+      this.error = error;
+    }
+  }
+
+  private <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+    return invokeAll(executor, tasks);
+  }
+
+  /**
+   * Runs tasks on an executor and waits for their results. A failed task makes the whole call fail
+   * with the exception of the task, unwrapped.
+   *
+   * @param executor the executor to run the tasks on
+   * @param tasks the tasks
+   * @return the results of the tasks, in the order of the tasks
+   * @throws IOException if a task fails with an I/O error or the wait is interrupted
+   */
+  static <T> List<T> invokeAll(ExecutorService executor, List<Callable<T>> tasks)
+      throws IOException {
+    List<T> results = new ArrayList<>(tasks.size());
+    try {
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while parsing a delimited table");
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof UncheckedIOException) {
+        throw ((UncheckedIOException) cause).getCause();
+      }
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IOException(cause.getMessage(), cause);
+    }
+    return results;
+  }
+
+  // The scan state is a quote flag (bit 0) and a pending escape flag (bit 1). An escape character
+  // makes the following quote or escape character literal, as in the opencsv parser.
+
+  private static int transition(byte[] bytes, int from, int to, int state) {
+    boolean quoted = (state & 1) != 0;
+    boolean escaped = (state & 2) != 0;
+    for (int i = from; i < to; i++) {
+      byte b = bytes[i];
+      if (escaped) {
+        escaped = false;
+      } else if (b == ESCAPE) {
+        escaped = i + 1 >= to || bytes[i + 1] == QUOTE || bytes[i + 1] == ESCAPE;
+      } else if (b == QUOTE) {
+        quoted = !quoted;
+      }
+    }
+    return (quoted ? 1 : 0) | (escaped ? 2 : 0);
+  }
+
+  /**
+   * Finds the end of the first record delimiter outside quotes: LF, CRLF or a bare CR.
+   *
+   * @return the index after the delimiter, or -1 if there is none
+   */
+  private static int findBoundary(byte[] bytes, int from, int to, int state) {
+    boolean quoted = (state & 1) != 0;
+    boolean escaped = (state & 2) != 0;
+    for (int i = from; i < to; i++) {
+      byte b = bytes[i];
+      if (escaped) {
+        escaped = false;
+      } else if (b == ESCAPE) {
+        escaped = i + 1 >= to || bytes[i + 1] == QUOTE || bytes[i + 1] == ESCAPE;
+      } else if (b == QUOTE) {
+        quoted = !quoted;
+      } else if (b == LF && !quoted) {
+        return i + 1;
+      } else if (b == CR && !quoted) {
+        // A CR at the end of the range may be followed by the LF of a CRLF, so it is not a
+        // boundary until the next byte is known.
+        if (i + 1 < to) {
+          return bytes[i + 1] == LF ? i + 2 : i + 1;
+        }
+        return -1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * The bytes of a chunk, with the quote state at its end for each escape state at its start.
+   */
+  private static final class Chunk {
+    private final long start;
+    private final byte[] bytes;
+    private int unescapedEnd;
+    private int escapedEnd;
+
+    Chunk(long start, byte[] bytes) {
+      this.start = start;
+      this.bytes = bytes;
+      this.unescapedEnd = DelimitedTableParser.transition(bytes, 0, bytes.length, 0);
+      this.escapedEnd = DelimitedTableParser.transition(bytes, 0, bytes.length, 2);
+    }
+
+    /**
+     * Gets the state at the end of the chunk given the state at its start. The escape handling does
+     * not depend on the quote flag, so the quote flag at the start only flips the one at the end.
+     */
+    int transition(int state) {
+      int end = (state & 2) != 0 ? escapedEnd : unescapedEnd;
+      return end ^ (state & 1);
+    }
+  }
+}
@@ -40,6 +40,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import gov.nasa.pds.label.object.RecordLocation;
 import gov.nasa.pds.label.object.TableRecord;
+import gov.nasa.pds.objectAccess.table.AsciiIntegerParser;
+import gov.nasa.pds.objectAccess.table.AsciiRealParser;
 
 /**
  * Implements a delimited table record.
@@ -49,6 +51,8 @@ public class DelimitedTableRecord implements TableRecord {
   private int fieldCount;
   private List<String> items;
   private String[] recordValue = null;
+  private DelimitedRecordTokenizer tokens = null;
+  private FieldProjection projection = null;
   private Map<String, Integer> fieldMap = new HashMap<>();
   private RecordLocation location;
 
@@ -87,6 +91,7 @@ public class DelimitedTableRecord implements TableRecord {
 
   @Override
   public int length() {
+	if (this.tokens != null) return this.tokens.getValuesLength();
 	int len = 0;
 	for (String rv : this.recordValue) len += rv.length();
 	return len;
@@ -106,7 +111,7 @@ public class DelimitedTableRecord implements TableRecord {
   @Override
   public boolean getBoolean(int index) {
     checkIndexRange(index);
-    String value = recordValue[index - 1].trim();
+    String value = value(index).trim();
     if (value.equals("true") || value.equals("1")) {
       return true;
     }
@@ -120,7 +125,7 @@ public class DelimitedTableRecord implements TableRecord {
   @Override
   public short getShort(int index) {
     checkIndexRange(index);
-    int value = Integer.parseInt(recordValue[index - 1].trim());
+    int value = parseInt(index);
     if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
       throw new NumberFormatException("Value is out of range of a short (" + value + ")");
     }
@@ -137,7 +142,7 @@ public class DelimitedTableRecord implements TableRecord {
   @Override
   public byte getByte(int index) {
     checkIndexRange(index);
-    int value = Integer.parseInt(recordValue[index - 1].trim());
+    int value = parseInt(index);
     if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
       throw new NumberFormatException("Value is out of range of a byte (" + value + ")");
     }
@@ -154,7 +159,11 @@ public class DelimitedTableRecord implements TableRecord {
   @Override
   public long getLong(int index) {
     checkIndexRange(index);
-    return Long.parseLong(recordValue[index - 1].trim());
+    long value = parseTokenLong(index);
+    if (value != AsciiIntegerParser.NOT_PARSED) {
+      return value;
+    }
+    return Long.parseLong(value(index).trim());
 
   }
 
@@ -167,7 +176,7 @@ public class DelimitedTableRecord implements TableRecord {
   @Override
   public int getInt(int index) {
     checkIndexRange(index);
-    return Integer.parseInt(recordValue[index - 1].trim());
+    return parseInt(index);
   }
 
   @Override
@@ -176,10 +185,53 @@ public class DelimitedTableRecord implements TableRecord {
     return getInt(this.fieldMap.get(name));
   }
 
+  private int parseInt(int index) {
+    long value = parseTokenLong(index);
+    if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+      return (int) value;
+    }
+    // Not parsed, or out of range: Integer.parseInt reports the error.
+    return Integer.parseInt(value(index).trim());
+  }
+
+  /**
+   * Parses a decimal integer field from the bytes of a tokenized record without quotes or escapes.
+   *
+   * @return the value, or {@link AsciiIntegerParser#NOT_PARSED} if the value must be parsed from
+   *         its string
+   */
+  private long parseTokenLong(int index) {
+    if (!hasSimpleTokens(index)) {
+      return AsciiIntegerParser.NOT_PARSED;
+    }
+    int start = this.tokens.getFieldStart(index - 1);
+    return AsciiIntegerParser.parse(this.tokens.getBuffer(), start,
+        this.tokens.getFieldEnd(index - 1) - start, 10);
+  }
+
+  /**
+   * Tells whether a field can be parsed from the bytes of a tokenized record without quotes or
+   * escapes.
+   */
+  private boolean hasSimpleTokens(int index) {
+    if (this.tokens == null || !this.tokens.isSimple()) {
+      return false;
+    }
+    if (this.projection != null) {
+      this.projection.check(index);
+    }
+    return true;
+  }
+
   @Override
   public double getDouble(int index) {
     checkIndexRange(index);
-    return Double.parseDouble(recordValue[index - 1].trim());
+    if (hasSimpleTokens(index)) {
+      int start = this.tokens.getFieldStart(index - 1);
+      return AsciiRealParser.parseDouble(this.tokens.getBuffer(), start,
+          this.tokens.getFieldEnd(index - 1) - start);
+    }
+    return Double.parseDouble(value(index).trim());
   }
 
   @Override
@@ -191,7 +243,12 @@ public class DelimitedTableRecord implements TableRecord {
   @Override
   public float getFloat(int index) {
     checkIndexRange(index);
-    return Float.parseFloat(recordValue[index - 1].trim());
+    if (hasSimpleTokens(index)) {
+      int start = this.tokens.getFieldStart(index - 1);
+      return AsciiRealParser.parseFloat(this.tokens.getBuffer(), start,
+          this.tokens.getFieldEnd(index - 1) - start);
+    }
+    return Float.parseFloat(value(index).trim());
   }
 
   @Override
@@ -209,13 +266,13 @@ public class DelimitedTableRecord implements TableRecord {
   @Override
   public BigInteger getBigInteger(int index) {
     checkIndexRange(index);
-    return new BigInteger(recordValue[index - 1]);
+    return new BigInteger(value(index));
   }
 
   @Override
   public String getString(int index) {
     checkIndexRange(index);
-    return recordValue[index - 1];
+    return value(index);
   }
 
   @Override
@@ -344,6 +401,18 @@ public class DelimitedTableRecord implements TableRecord {
    */
   public void setRecordValue(String[] value) {
     this.recordValue = value;
+    this.tokens = null;
+  }
+
+  /**
+   * Sets the record value to the current record of a tokenizer. Field values are decoded from the
+   * tokenizer when they are read, so they are only valid until it moves to another record.
+   *
+   * @param tokenizer the tokenizer holding the record
+   */
+  void setRecordTokens(DelimitedRecordTokenizer tokenizer) {
+    this.recordValue = null;
+    this.tokens = tokenizer;
   }
 
   /**
@@ -355,6 +424,22 @@ public class DelimitedTableRecord implements TableRecord {
     return items.toArray(new String[items.size()]);
   }
 
+  /**
+   * Restricts the fields that can be read.
+   *
+   * @param projection the projected fields, or null for all fields
+   */
+  void setProjection(FieldProjection projection) {
+    this.projection = projection;
+  }
+
+  private String value(int index) {
+    if (this.projection != null) {
+      this.projection.check(index);
+    }
+    return this.tokens != null ? this.tokens.getString(index - 1) : this.recordValue[index - 1];
+  }
+
   private void checkIndexRange(int index) {
     if (index <= 0 || index > fieldCount) {
       String msg = "The index is out of range (1 to " + fieldCount + ").";
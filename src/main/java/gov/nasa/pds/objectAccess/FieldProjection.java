@@ -0,0 +1,187 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.util.Arrays;
+import gov.nasa.pds.label.object.FieldDescription;
+
+/**
+ * Holds the fields of a table that a reader decodes. Records keep the field indexes of the table,
+ * but reading a field outside the projection fails, and a fixed-width record only reads the byte
+ * ranges of the projected fields. Ranges that overlap or touch, such as adjacent fields or the bit
+ * fields of one packed field, are read as one.
+ */
+final class FieldProjection {
+
+  private final boolean[] projected;
+  private final int[] indexes;
+  private final int[] rangeStarts;
+  private final int[] rangeEnds;
+
+  /**
+   * Creates a projection of the fields of a table.
+   *
+   * @param fields the field descriptions of the table
+   * @param indexes the indexes of the projected fields (1-relative), in any order
+   * @throws IllegalArgumentException if a field index is out of range, or no field is given
+   */
+  FieldProjection(FieldDescription[] fields, int[] indexes) {
+    if (indexes.length == 0) {
+      throw new IllegalArgumentException("A projection needs at least one field");
+    }
+    this.projected = new boolean[fields.length];
+    for (int index : indexes) {
+      if (index < 1 || index > fields.length) {
+        throw new IllegalArgumentException(
+            "The field index " + index + " is out of range (1 to " + fields.length + ").");
+      }
+      projected[index - 1] = true;
+    }
+    int count = 0;
+    int[] sorted = new int[fields.length];
+    long[] ranges = new long[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      if (projected[i]) {
+        ranges[count] = (long) fields[i].getOffset() << 32 | fields[i].getLength();
+        sorted[count++] = i + 1;
+      }
+    }
+    this.indexes = Arrays.copyOf(sorted, count);
+
+    // Sort the field ranges by offset, packed as (offset, length) pairs, and merge those that
+    // overlap or touch.
+    Arrays.sort(ranges, 0, count);
+    int[] starts = new int[count];
+    int[] ends = new int[count];
+    int merged = 0;
+    for (int i = 0; i < count; i++) {
+      int start = (int) (ranges[i] >>> 32);
+      int end = start + (int) ranges[i];
+      if (merged > 0 && start <= ends[merged - 1]) {
+        ends[merged - 1] = Math.max(ends[merged - 1], end);
+      } else {
+        starts[merged] = start;
+        ends[merged++] = end;
+      }
+    }
+    this.rangeStarts = Arrays.copyOf(starts, merged);
+    this.rangeEnds = Arrays.copyOf(ends, merged);
+  }
+
+  /**
+   * Tells whether a field is in the projection.
+   *
+   * @param index the field index (1-relative)
+   */
+  boolean contains(int index) {
+    return index >= 1 && index <= projected.length && projected[index - 1];
+  }
+
+  /**
+   * Gets the indexes of the projected fields in field order.
+   *
+   * @return the field indexes (1-relative)
+   */
+  int[] getIndexes() {
+    return indexes.clone();
+  }
+
+  /**
+   * Gets the number of projected fields.
+   */
+  int size() {
+    return indexes.length;
+  }
+
+  /**
+   * Gets the index of the last projected field, after which a delimited record need not be split.
+   *
+   * @return the field index (1-relative)
+   */
+  int getLastIndex() {
+    return indexes[indexes.length - 1];
+  }
+
+  /**
+   * Gets the number of byte ranges of a fixed-width record read for the projected fields.
+   */
+  int getRangeCount() {
+    return rangeStarts.length;
+  }
+
+  /**
+   * Gets the total number of bytes of a fixed-width record read for the projected fields.
+   */
+  int getRangeBytes() {
+    int total = 0;
+    for (int i = 0; i < rangeStarts.length; i++) {
+      total += rangeEnds[i] - rangeStarts[i];
+    }
+    return total;
+  }
+
+  /**
+   * Reads the byte ranges of the projected fields of a fixed-width record into a record buffer.
+   * The other bytes of the buffer are left as they are.
+   *
+   * @param accessor the accessor of the table
+   * @param recordNum the record number (1-relative)
+   * @param buf the buffer to read into
+   * @param bufOffset the offset within <code>buf</code> of the first byte of the record
+   * @param direct true to read with
+   *        {@link ByteWiseFileAccessor#readRecordBytesDirect(long, int, int, byte[], int)}, as the
+   *        parts of a parallel scan do
+   */
+  void readRecordBytes(ByteWiseFileAccessor accessor, long recordNum, byte[] buf, int bufOffset,
+      boolean direct) {
+    for (int i = 0; i < rangeStarts.length; i++) {
+      int start = rangeStarts[i];
+      int length = rangeEnds[i] - start;
+      if (direct) {
+        accessor.readRecordBytesDirect(recordNum, start, length, buf, bufOffset + start);
+      } else {
+        accessor.readRecordBytes(recordNum, start, length, buf, bufOffset + start);
+      }
+    }
+  }
+
+  /**
+   * Checks that a field is in the projection.
+   *
+   * @param index the field index (1-relative)
+   * @throws IllegalArgumentException if the field is not in the projection
+   */
+  void check(int index) {
+    if (!contains(index)) {
+      throw new IllegalArgumentException("Field " + index + " is not in the projection");
+    }
+  }
+}
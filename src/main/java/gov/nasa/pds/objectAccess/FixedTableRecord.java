@@ -53,8 +53,10 @@ public class FixedTableRecord implements TableRecord {
   private Charset charset;
   private ByteBuffer buffer = null;
   private byte[] recordBytes = null;
+  private boolean ownsRecordBytes = false;
   private Map<String, Integer> fieldMap = new HashMap<>();
   private FieldDescription[] fields;
+  private FieldProjection projection = null;
   private RecordLocation location;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(FixedTableRecord.class);
@@ -369,6 +371,37 @@ public class FixedTableRecord implements TableRecord {
    */
   public void setRecordValue(byte[] value) {
     this.recordBytes = value;
+    this.ownsRecordBytes = false;
+  }
+
+  /**
+   * Reads the record value from a file accessor. The bytes are copied into an array owned by this
+   * record, which is allocated once and reused for every subsequent record of the same length.
+   *
+   * @param accessor the accessor to read the record from
+   * @param recordNum the record number (1-relative)
+   * @param length the record length in bytes
+   */
+  public void readRecordValue(ByteWiseFileAccessor accessor, long recordNum, int length) {
+    if (!this.ownsRecordBytes || this.recordBytes == null || this.recordBytes.length != length) {
+      this.recordBytes = new byte[length];
+      this.ownsRecordBytes = true;
+    }
+    if (this.projection != null) {
+      this.projection.readRecordBytes(accessor, recordNum, this.recordBytes, 0, false);
+    } else {
+      accessor.readRecordBytes(recordNum, 0, length, this.recordBytes, 0);
+    }
+  }
+
+  /**
+   * Restricts the fields that can be read. Only the bytes of the projected fields are read by
+   * {@link #readRecordValue(ByteWiseFileAccessor, long, int)}.
+   *
+   * @param projection the projected fields, or null for all fields
+   */
+  void setProjection(FieldProjection projection) {
+    this.projection = projection;
   }
 
   /**
@@ -386,6 +419,9 @@ public class FixedTableRecord implements TableRecord {
       LOGGER.error(msg);
       throw new ArrayIndexOutOfBoundsException(msg);
     }
+    if (projection != null) {
+      projection.check(index);
+    }
 
     return fields[index - 1];
   }
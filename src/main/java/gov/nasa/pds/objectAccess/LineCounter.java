@@ -0,0 +1,157 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import gov.nasa.pds.objectAccess.utility.BufferUnmapper;
+
+/**
+ * Counts the lines of a region of a file the way {@link java.io.BufferedReader#readLine()} would,
+ * where a line ends at a line feed, a carriage return, or a carriage return followed by a line
+ * feed, and a last line without a line ending also counts.
+ *
+ * <p>
+ * The region is split into segments that are mapped and counted concurrently, without decoding
+ * characters or building lines. A segment that ends with a carriage return and a segment that
+ * starts with a line feed make a single line ending where they meet.
+ * </p>
+ */
+final class LineCounter {
+
+  /** The default number of bytes in a segment. */
+  static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final byte CR = '\r';
+  private static final byte LF = '\n';
+
+  private LineCounter() {
+    // Not instantiated.
+  }
+
+  /**
+   * Counts the lines of a region of a file.
+   *
+   * @param channel the file channel
+   * @param start the offset of the region in the file
+   * @param end the offset of the end of the region, exclusive
+   * @param segmentSize the number of bytes in a segment
+   * @param executor the executor to count the segments on, or null to count them in the calling
+   *        thread
+   * @return the number of lines
+   * @throws IOException if the file cannot be read
+   */
+  static long countLines(FileChannel channel, long start, long end, int segmentSize,
+      ExecutorService executor) throws IOException {
+    if (segmentSize <= 0) {
+      throw new IllegalArgumentException("Segment size must be positive (" + segmentSize + ")");
+    }
+    if (end <= start) {
+      return 0;
+    }
+    List<Segment> segments;
+    if (executor == null || end - start <= segmentSize) {
+      segments = new ArrayList<>();
+      for (long position = start; position < end; position += segmentSize) {
+        segments.add(count(channel, position, (int) Math.min(segmentSize, end - position)));
+      }
+    } else {
+      List<Callable<Segment>> tasks = new ArrayList<>();
+      for (long position = start; position < end; position += segmentSize) {
+        long segmentStart = position;
+        int length = (int) Math.min(segmentSize, end - position);
+        tasks.add(() -> count(channel, segmentStart, length));
+      }
+      segments = DelimitedTableParser.invokeAll(executor, tasks);
+    }
+
+    long lines = 0;
+    Segment previous = null;
+    for (Segment segment : segments) {
+      lines += segment.lineEndings;
+      if (previous != null && previous.last == CR && segment.first == LF) {
+        lines--;
+      }
+      previous = segment;
+    }
+    if (previous.last != CR && previous.last != LF) {
+      lines++;
+    }
+    return lines;
+  }
+
+  /**
+   * Counts the line endings of a segment, taking every carriage return and line feed for one
+   * except a line feed just after a carriage return.
+   */
+  private static Segment count(FileChannel channel, long position, int length)
+      throws IOException {
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+    try {
+      byte[] block = new byte[Math.min(BLOCK_SIZE, length)];
+      long lineEndings = 0;
+      byte previous = 0;
+      for (int blockStart = 0; blockStart < length; blockStart += block.length) {
+        int blockLength = Math.min(block.length, length - blockStart);
+        buffer.get(blockStart, block, 0, blockLength);
+        for (int i = 0; i < blockLength; i++) {
+          byte b = block[i];
+          if (b == CR || (b == LF && previous != CR)) {
+            lineEndings++;
+          }
+          previous = b;
+        }
+      }
+      return new Segment(lineEndings, buffer.get(0), previous);
+    } finally {
+      // The segment is not used again; release its mapping now rather than when it is collected.
+      BufferUnmapper.unmap(buffer);
+    }
+  }
+
+  private static final class Segment {
+    private final long lineEndings;
+    private final byte first;
+    private final byte last;
+
+    Segment(long lineEndings, byte first, byte last) {
+      this.lineEndings = lineEndings;
+      this.first = first;
+      this.last = last;
+    }
+  }
+}
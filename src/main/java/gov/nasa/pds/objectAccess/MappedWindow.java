@@ -0,0 +1,132 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import gov.nasa.pds.objectAccess.utility.BufferUnmapper;
+
+/**
+ * A memory-mapped window of a data object, as used by a {@link ByteWiseFileAccessor} in
+ * {@link MappingMode#EAGER} and {@link MappingMode#LAZY} mode.
+ *
+ * <p>
+ * Readers pin the window with {@link #acquire()} for the duration of a read and unpin it with
+ * {@link #release()}. A window that is evicted while pinned is unmapped by the last reader to
+ * release it, so a mapping is never released while it is being read.
+ * </p>
+ */
+final class MappedWindow {
+  private final ByteWiseFileAccessor owner;
+  private final int index;
+  private final ByteBuffer buffer;
+  private final AtomicInteger pins = new AtomicInteger();
+  private final AtomicBoolean unmapped = new AtomicBoolean();
+  private volatile boolean evicted = false;
+  private volatile long lastUsed;
+
+  MappedWindow(ByteWiseFileAccessor owner, int index, ByteBuffer buffer) {
+    this.owner = owner;
+    this.index = index;
+    this.buffer = buffer;
+  }
+
+  ByteWiseFileAccessor getOwner() {
+    return owner;
+  }
+
+  int getIndex() {
+    return index;
+  }
+
+  ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  long getSize() {
+    return buffer.capacity();
+  }
+
+  long getLastUsed() {
+    return lastUsed;
+  }
+
+  void touch(long tick) {
+    if (lastUsed != tick) {
+      lastUsed = tick;
+    }
+  }
+
+  boolean isPinned() {
+    return pins.get() > 0;
+  }
+
+  /**
+   * Pins the window so that it is not unmapped while being read.
+   *
+   * @return true, if the window was pinned, false if it has already been evicted
+   */
+  boolean acquire() {
+    pins.incrementAndGet();
+    if (evicted) {
+      release();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Unpins the window, unmapping it if it has been evicted and this was the last reader.
+   */
+  void release() {
+    if (pins.decrementAndGet() == 0 && evicted) {
+      unmap();
+    }
+  }
+
+  /**
+   * Marks the window as evicted. It is unmapped now if no reader holds it, or else when the last
+   * reader releases it.
+   */
+  void evict() {
+    evicted = true;
+    if (pins.get() == 0) {
+      unmap();
+    }
+  }
+
+  private void unmap() {
+    if (unmapped.compareAndSet(false, true)) {
+      BufferUnmapper.unmap(buffer);
+    }
+  }
+}
@@ -0,0 +1,149 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Process-wide cache of the windows mapped by accessors in {@link MappingMode#LAZY} mode. The
+ * total size of the mapped windows is kept below a configurable limit by evicting the least
+ * recently used windows. Windows still being read are skipped, so the limit may be exceeded
+ * briefly when every window is in use.
+ */
+final class MappedWindowCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(MappedWindowCache.class);
+
+  /** The system property that sets the initial mapping limit, in bytes. */
+  static final String MAX_MAPPED_BYTES_PROPERTY = "gov.nasa.pds.objectAccess.maxMappedBytes";
+
+  /** The default mapping limit: 4 GiB. */
+  static final long DEFAULT_MAX_MAPPED_BYTES = 4L << 30;
+
+  static final MappedWindowCache INSTANCE = createDefault();
+
+  private final List<MappedWindow> windows = new ArrayList<>();
+  private long maxMappedBytes;
+  private long mappedBytes = 0;
+  private volatile long clock = 0;
+
+  MappedWindowCache(long maxMappedBytes) {
+    setMaxMappedBytes(maxMappedBytes);
+  }
+
+  static MappedWindowCache createDefault() {
+    long maxMappedBytes = Long.getLong(MAX_MAPPED_BYTES_PROPERTY, DEFAULT_MAX_MAPPED_BYTES);
+    try {
+      return new MappedWindowCache(maxMappedBytes);
+    } catch (IllegalArgumentException ex) {
+      LOGGER.warn("Mapping limit {} ignored, using {}: {}", maxMappedBytes,
+          DEFAULT_MAX_MAPPED_BYTES, ex.getMessage());
+      return new MappedWindowCache(DEFAULT_MAX_MAPPED_BYTES);
+    }
+  }
+
+  /**
+   * Gets the current tick of the LRU clock. The clock advances every time a window is mapped.
+   *
+   * @return the current tick
+   */
+  long tick() {
+    return clock;
+  }
+
+  synchronized long getMaxMappedBytes() {
+    return maxMappedBytes;
+  }
+
+  synchronized void setMaxMappedBytes(long maxMappedBytes) {
+    if (maxMappedBytes <= 0) {
+      throw new IllegalArgumentException(
+          "The mapping limit must be positive (" + maxMappedBytes + ")");
+    }
+    this.maxMappedBytes = maxMappedBytes;
+    evictOverLimit(null);
+  }
+
+  synchronized long getMappedBytes() {
+    return mappedBytes;
+  }
+
+  synchronized int getWindowCount() {
+    return windows.size();
+  }
+
+  /**
+   * Adds a newly mapped window, evicting other windows if the limit is exceeded.
+   *
+   * @param window the window
+   */
+  synchronized void add(MappedWindow window) {
+    clock++;
+    window.touch(clock);
+    windows.add(window);
+    mappedBytes += window.getSize();
+    evictOverLimit(window);
+  }
+
+  /**
+   * Removes a window without evicting it, as when its accessor is closed.
+   *
+   * @param window the window
+   */
+  synchronized void remove(MappedWindow window) {
+    if (windows.remove(window)) {
+      mappedBytes -= window.getSize();
+    }
+  }
+
+  private void evictOverLimit(MappedWindow keep) {
+    while (mappedBytes > maxMappedBytes) {
+      MappedWindow victim = null;
+      for (MappedWindow window : windows) {
+        if (window != keep && !window.isPinned()
+            && (victim == null || window.getLastUsed() < victim.getLastUsed())) {
+          victim = window;
+        }
+      }
+      if (victim == null) {
+        LOGGER.debug("All mapped windows are in use, mapped bytes {} exceed the limit {}",
+            mappedBytes, maxMappedBytes);
+        return;
+      }
+      windows.remove(victim);
+      mappedBytes -= victim.getSize();
+      victim.getOwner().windowEvicted(victim);
+      victim.evict();
+    }
+  }
+}
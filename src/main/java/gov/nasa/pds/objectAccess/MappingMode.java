@@ -0,0 +1,82 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+/**
+ * Defines how a {@link ByteWiseFileAccessor} maps a data object into memory.
+ */
+public enum MappingMode {
+
+  /**
+   * The whole data object is mapped when the accessor is constructed. The mappings are released
+   * when the accessor is closed, or, if a view of a mapping has been handed out by
+   * {@link ByteWiseFileAccessor#getRecordBuffer(long)}, when the accessor is garbage collected.
+   */
+  EAGER,
+
+  /**
+   * Windows of the data object are mapped when they are first read, and are kept in a
+   * process-wide, size-bounded LRU cache. Windows evicted from the cache, or belonging to a closed
+   * accessor, are unmapped right away. See {@link ByteWiseFileAccessor#setMaxMappedBytes(long)}.
+   */
+  LAZY,
+
+  /**
+   * Nothing is mapped. Bytes are copied from the data file with positional channel reads, which
+   * address the whole data object with <code>long</code> offsets and hold no resources beyond the
+   * open file once the accessor is closed. Suited to batch jobs that read many files once.
+   */
+  CHANNEL,
+
+  /**
+   * Nothing is mapped. A background thread reads the data object ahead of the reader in large
+   * sequential reads, so that full scans from network file systems do not stall on page faults.
+   * Reads are served one at a time. See {@link ByteWiseFileAccessor#setPrefetchBufferSize(int)} and
+   * {@link ByteWiseFileAccessor#setPrefetchDepth(int)}.
+   */
+  STREAMING;
+
+  /**
+   * Gets the mapping mode with a given name, ignoring case.
+   *
+   * @param name the mode name
+   * @return the mapping mode
+   * @throws IllegalArgumentException if there is no mode with the given name
+   */
+  public static MappingMode fromName(String name) {
+    for (MappingMode mode : values()) {
+      if (mode.name().equalsIgnoreCase(name.trim())) {
+        return mode;
+      }
+    }
+    throw new IllegalArgumentException("No mapping mode found for name (" + name + ")");
+  }
+}
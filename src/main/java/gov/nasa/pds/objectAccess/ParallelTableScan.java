@@ -0,0 +1,220 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import gov.nasa.pds.label.object.FieldDescription;
+import gov.nasa.pds.label.object.TableRecord;
+
+/**
+ * Scans the records of a table on several threads. The record range of a fixed-width table is
+ * divided into slices, and each slice is decoded into its own result container through its own
+ * record flyweight, so the slices share nothing but the thread-safe positional reads of the
+ * accessor. A delimited table is divided into chunks by a {@link DelimitedTableParser} instead.
+ *
+ * @param <A> the type of the result containers
+ */
+final class ParallelTableScan<A> {
+
+  /** The smallest number of records decoded by one fork-join task. */
+  static final long MIN_RECORDS_PER_TASK = 1024;
+
+  private final ByteWiseFileAccessor accessor;
+  private final FieldDescription[] fields;
+  private final Map<String, Integer> fieldMap;
+  private final int recordLength;
+  private final FieldProjection projection;
+  private final Supplier<A> supplier;
+  private final BiConsumer<A, ? super TableRecord> accumulator;
+
+  ParallelTableScan(ByteWiseFileAccessor accessor, FieldDescription[] fields,
+      Map<String, Integer> fieldMap, int recordLength, FieldProjection projection,
+      Supplier<A> supplier, BiConsumer<A, ? super TableRecord> accumulator) {
+    this.accessor = accessor;
+    this.fields = fields;
+    this.fieldMap = fieldMap;
+    this.recordLength = recordLength;
+    this.projection = projection;
+    this.supplier = supplier;
+    this.accumulator = accumulator;
+  }
+
+  /**
+   * Scans records <code>first</code> (inclusive) to <code>end</code> (exclusive) on the calling
+   * thread, into a new result container.
+   */
+  A scanRange(long first, long end) {
+    A result = supplier.get();
+    byte[] recordBytes = new byte[recordLength];
+    FixedTableRecord record = new FixedTableRecord(recordBytes, fieldMap, fields);
+    record.setProjection(projection);
+    for (long recordNum = first; recordNum < end; recordNum++) {
+      if (projection != null) {
+        projection.readRecordBytes(accessor, recordNum, recordBytes, 0, true);
+      } else {
+        accessor.readRecordBytesDirect(recordNum, 0, recordLength, recordBytes, 0);
+      }
+      accumulator.accept(result, record);
+    }
+    return result;
+  }
+
+  /**
+   * Scans all records with fork-join tasks in a pool and merges the slice results, in record order,
+   * with a combiner.
+   */
+  A reduce(ForkJoinPool pool, long recordCount, BinaryOperator<A> combiner) {
+    long leafSize = Math.max(MIN_RECORDS_PER_TASK, recordCount / (pool.getParallelism() * 4L));
+    return pool.invoke(new RangeTask(1, recordCount + 1, leafSize, combiner));
+  }
+
+  /**
+   * Scans all records of a delimited table, parsed in waves of chunks by a parser, and merges the
+   * chunk results, in record order, with a combiner. The records of each chunk are checked and
+   * accumulated in a task of their own, run in the pool.
+   */
+  A reduceDelimited(ForkJoinPool pool, DelimitedTableParser parser, long recordCount,
+      BinaryOperator<A> combiner) throws IOException {
+    A result = null;
+    long scanned = 0;
+    List<List<String[]>> wave;
+    while (scanned < recordCount && (wave = parser.nextWave(recordCount - scanned)) != null) {
+      List<Callable<A>> tasks = new ArrayList<>(wave.size());
+      for (List<String[]> chunk : wave) {
+        long first = scanned + 1;
+        int count = (int) Math.min(chunk.size(), recordCount - scanned);
+        tasks.add(() -> scanValues(chunk, first, count));
+        scanned += count;
+      }
+      for (A part : DelimitedTableParser.invokeAll(pool, tasks)) {
+        result = result == null ? part : combiner.apply(result, part);
+      }
+    }
+    return result == null ? supplier.get() : result;
+  }
+
+  /**
+   * Scans the field values of <code>count</code> delimited records, the first of which is record
+   * <code>first</code> of the table, on the calling thread, into a new result container.
+   */
+  private A scanValues(List<String[]> values, long first, int count) {
+    A result = supplier.get();
+    DelimitedTableRecord record = new DelimitedTableRecord(fieldMap, fields.length, null);
+    record.setProjection(projection);
+    for (int i = 0; i < count; i++) {
+      String[] recordValue = values.get(i);
+      if (recordValue.length != fields.length) {
+        throw new UncheckedIOException(new IOException("Record " + (first + i)
+            + " has wrong number of fields " + "(expected " + fields.length + ", got "
+            + recordValue.length + ")"));
+      }
+      record.setRecordValue(recordValue);
+      accumulator.accept(result, record);
+    }
+    return result;
+  }
+
+  /**
+   * Scans all records as a number of contiguous partitions of nearly equal size, each run as one
+   * task of an executor, and returns the partition results in record order.
+   */
+  List<A> partitions(Executor executor, long recordCount, int partitions) {
+    List<CompletableFuture<A>> futures = new ArrayList<>(partitions);
+    for (int i = 0; i < partitions; i++) {
+      long first = 1 + recordCount * i / partitions;
+      long end = 1 + recordCount * (i + 1) / partitions;
+      futures.add(CompletableFuture.supplyAsync(() -> scanRange(first, end), executor));
+    }
+    List<A> results = new ArrayList<>(partitions);
+    try {
+      for (CompletableFuture<A> future : futures) {
+        results.add(future.join());
+      }
+    } catch (CompletionException ex) {
+      for (CompletableFuture<A> future : futures) {
+        future.cancel(false);
+      }
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      if (ex.getCause() instanceof Error) {
+        throw (Error) ex.getCause();
+      }
+      throw ex;
+    }
+    return results;
+  }
+
+  /**
+   * A fork-join task that halves its record range until it is small enough to scan directly.
+   */
+  private class RangeTask extends RecursiveTask<A> {
+    private static final long serialVersionUID = 1L;
+
+    private final long first;
+    private final long end;
+    private final long leafSize;
+    private final BinaryOperator<A> combiner;
+
+    RangeTask(long first, long end, long leafSize, BinaryOperator<A> combiner) {
+      this.first = first;
+      this.end = end;
+      this.leafSize = leafSize;
+      this.combiner = combiner;
+    }
+
+    @Override
+    protected A compute() {
+      if (end - first <= leafSize) {
+        return scanRange(first, end);
+      }
+      long middle = first + (end - first) / 2;
+      RangeTask left = new RangeTask(first, middle, leafSize, combiner);
+      RangeTask right = new RangeTask(middle, end, leafSize, combiner);
+      right.fork();
+      A leftResult = left.compute();
+      return combiner.apply(leftResult, right.join());
+    }
+  }
+}
@@ -0,0 +1,138 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.util.Arrays;
+
+/**
+ * Holds the byte offset of every Nth record of a delimited table, so a record can be reached by
+ * moving to the nearest checkpoint before it and reading at most N - 1 records from there.
+ * Checkpoints are added in order as the records are read, so the index covers the part of the
+ * table read so far.
+ */
+final class RecordOffsetIndex {
+
+  private final int interval;
+  private long[] offsets = new long[64];
+  private int size = 0;
+
+  /**
+   * Creates an index holding only the checkpoint of the first record, at offset 0.
+   *
+   * @param interval the number of records between checkpoints
+   */
+  RecordOffsetIndex(int interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Index interval must be positive (" + interval + ")");
+    }
+    this.interval = interval;
+    add(1, 0);
+  }
+
+  /**
+   * Creates an index holding known checkpoints, such as those of a persisted index.
+   *
+   * @param interval the number of records between checkpoints
+   * @param offsets the offsets of the checkpoints, starting with the first record
+   */
+  RecordOffsetIndex(int interval, long[] offsets) {
+    this(interval);
+    for (int i = 1; i < offsets.length; i++) {
+      add((long) i * interval + 1, offsets[i]);
+    }
+  }
+
+  /**
+   * Gets the offsets of all checkpoints.
+   *
+   * @return a new array of offsets
+   */
+  long[] toArray() {
+    return Arrays.copyOf(offsets, size);
+  }
+
+  /**
+   * Records the offset of a record that has been read. Only the offset of the next missing
+   * checkpoint is kept.
+   *
+   * @param row the record index (1-relative)
+   * @param offset the position of the record within the data object
+   */
+  void add(long row, long offset) {
+    if ((row - 1) % interval == 0 && (row - 1) / interval == size) {
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+      }
+      offsets[size++] = offset;
+    }
+  }
+
+  /**
+   * Finds the last known checkpoint at or before a record.
+   *
+   * @param row the record index (1-relative)
+   * @return the checkpoint number
+   */
+  int checkpointFor(long row) {
+    return (int) Math.min((row - 1) / interval, size - 1);
+  }
+
+  /**
+   * Gets the number of records before a checkpoint.
+   *
+   * @param checkpoint the checkpoint number
+   * @return the number of records before the checkpoint record
+   */
+  long getRowsBefore(int checkpoint) {
+    return (long) checkpoint * interval;
+  }
+
+  /**
+   * Gets the position within the data object of a checkpoint record.
+   *
+   * @param checkpoint the checkpoint number
+   * @return the record position
+   */
+  long getOffset(int checkpoint) {
+    return offsets[checkpoint];
+  }
+
+  int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Gets the number of checkpoints.
+   */
+  int size() {
+    return size;
+  }
+}
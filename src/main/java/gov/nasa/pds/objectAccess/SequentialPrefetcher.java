@@ -0,0 +1,261 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import gov.nasa.pds.objectAccess.storage.StorageObject;
+
+/**
+ * Reads a region of a storage object ahead of a sequential reader, as used by a
+ * {@link ByteWiseFileAccessor} in {@link MappingMode#STREAMING} mode.
+ *
+ * <p>
+ * A background thread fills up to <code>depth</code> buffers of <code>bufferSize</code> bytes
+ * with large sequential reads, while the reader copies bytes out of the current buffer. Buffers
+ * are recycled, so a scan allocates only <code>depth + 2</code> buffers. A read behind the current
+ * buffer, or further ahead than the prefetched buffers, restarts the prefetch at the new position.
+ * </p>
+ */
+final class SequentialPrefetcher {
+  private static final Logger LOGGER = LoggerFactory.getLogger(SequentialPrefetcher.class);
+
+  private final StorageObject storage;
+  private final long offset;
+  private final long size;
+  private final int bufferSize;
+  private final int depth;
+  private final BlockingQueue<byte[]> free;
+  private BlockingQueue<Block> ready;
+  private Worker worker = null;
+  private Block current = null;
+
+  private static final class Block {
+    private final long position;
+    private final byte[] data;
+    private final int length;
+    private final IOException error;
+
+    Block(long position, byte[] data, int length, IOException error) {
+      this.position = position;
+      this.data = data;
+      this.length = length;
+      this.error = error;
+    }
+
+    boolean contains(long pos) {
+      return pos >= position && pos < position + length;
+    }
+  }
+
+  /**
+   * Creates a prefetcher. No thread is started until the first read.
+   *
+   * @param storage the storage object to read from
+   * @param offset the offset of the region within the storage object
+   * @param size the size of the region, in bytes
+   * @param bufferSize the size of each buffer, in bytes
+   * @param depth the number of buffers read ahead
+   */
+  SequentialPrefetcher(StorageObject storage, long offset, long size, int bufferSize, int depth) {
+    this.storage = storage;
+    this.offset = offset;
+    this.size = size;
+    this.bufferSize = bufferSize;
+    this.depth = depth;
+    this.free = new ArrayBlockingQueue<>(depth + 2);
+  }
+
+  /**
+   * Copies bytes of the region into an array, blocking until they have been prefetched.
+   *
+   * @param position the position within the region (0-relative)
+   * @param dst the array to copy into
+   * @param dstOffset the offset within <code>dst</code>
+   * @param length the number of bytes to copy
+   * @throws IOException if the bytes cannot be read
+   */
+  synchronized void read(long position, byte[] dst, int dstOffset, int length) throws IOException {
+    if (position < 0 || position + length > size) {
+      throw new IndexOutOfBoundsException("Bytes " + position + " to " + (position + length)
+          + " are outside the data object (size " + size + ")");
+    }
+    int copied = 0;
+    while (copied < length) {
+      long pos = position + copied;
+      Block block = blockFor(pos);
+      int from = (int) (pos - block.position);
+      int n = Math.min(length - copied, block.length - from);
+      System.arraycopy(block.data, from, dst, dstOffset + copied, n);
+      copied += n;
+    }
+  }
+
+  private Block blockFor(long pos) throws IOException {
+    if (current != null && current.contains(pos)) {
+      return current;
+    }
+    long end = current == null ? -1 : current.position + current.length;
+    if (current == null || worker == null || pos < end
+        || pos - end >= (long) bufferSize * depth) {
+      restart(pos);
+    }
+    do {
+      recycle(current);
+      // Cleared before waiting, so that a failed take() never leaves a recycled block current.
+      current = null;
+      current = take();
+    } while (!current.contains(pos));
+    return current;
+  }
+
+  private Block take() throws IOException {
+    Block block;
+    try {
+      block = ready.take();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for prefetched data");
+    }
+    if (block.error != null || block.length == 0) {
+      // The worker has exited, so the next read must start a new one.
+      worker = null;
+      ready = null;
+    }
+    if (block.error != null) {
+      throw new IOException("Error prefetching the data object: " + block.error.getMessage(),
+          block.error);
+    }
+    if (block.length == 0) {
+      throw new IOException("Unexpected end of the data object at byte " + block.position);
+    }
+    return block;
+  }
+
+  private void recycle(Block block) {
+    if (block != null && block.data != null) {
+      free.offer(block.data);
+    }
+  }
+
+  private void restart(long pos) {
+    stop();
+    LOGGER.debug("Starting prefetch at byte {}", pos);
+    // A new queue, so that blocks queued by the previous worker are never seen.
+    ready = new ArrayBlockingQueue<>(depth);
+    worker = new Worker(pos, ready);
+    worker.start();
+  }
+
+  /**
+   * The background reader. It is stopped with a flag rather than an interrupt, because
+   * interrupting a thread blocked in a file channel read closes the channel, which may be shared.
+   */
+  private final class Worker extends Thread {
+    private final long start;
+    private final BlockingQueue<Block> queue;
+    private volatile boolean stopped = false;
+
+    Worker(long start, BlockingQueue<Block> queue) {
+      super("pds4-prefetch");
+      setDaemon(true);
+      this.start = start;
+      this.queue = queue;
+    }
+
+    @Override
+    public void run() {
+      long pos = start;
+      while (!stopped) {
+        if (pos >= size) {
+          offer(new Block(pos, null, 0, null));
+          return;
+        }
+        byte[] data = free.poll();
+        if (data == null) {
+          data = new byte[bufferSize];
+        }
+        int length = (int) Math.min(bufferSize, size - pos);
+        try {
+          storage.readFully(offset + pos, ByteBuffer.wrap(data, 0, length));
+        } catch (IOException ex) {
+          offer(new Block(pos, null, 0, ex));
+          return;
+        }
+        offer(new Block(pos, data, length, null));
+        pos += length;
+      }
+    }
+
+    private void offer(Block block) {
+      try {
+        while (!stopped && !queue.offer(block, 50, TimeUnit.MILLISECONDS)) {
+          // Wait for the reader to consume a block, or to stop us.
+        }
+      } catch (InterruptedException ex) {
+        stopped = true;
+      }
+    }
+
+    void shutdown() {
+      stopped = true;
+      try {
+        join();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Stops the background thread. A later read restarts it.
+   */
+  synchronized void stop() {
+    if (worker != null) {
+      worker.shutdown();
+      worker = null;
+    }
+    if (ready != null) {
+      for (Block block : ready) {
+        recycle(block);
+      }
+      ready = null;
+    }
+    recycle(current);
+    current = null;
+  }
+}
@@ -68,6 +68,7 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
   private Charset decoder;
   private Charset encoder;
   private String exportType = "CSV";
+  private String[] selectedFields = null;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TableExporter.class);
   private static final String US_ASCII = "US-ASCII";
@@ -192,6 +193,61 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
     this.exportType = exportType;
   }
 
+  /**
+   * Sets the fields to export. Only the bytes of these fields are read from the records of a
+   * fixed-width table.
+   *
+   * @param fields the field names or numbers (1-relative), in output order, or none to export all
+   *        fields
+   */
+  public void setFields(String... fields) {
+    this.selectedFields = fields == null || fields.length == 0 ? null : fields.clone();
+  }
+
+  /**
+   * Gets the fields to export.
+   *
+   * @return the field names or numbers, or null if all fields are exported
+   */
+  public String[] getFields() {
+    return this.selectedFields == null ? null : this.selectedFields.clone();
+  }
+
+  /*
+   * Gets the 1-relative indexes of the fields to export, in output order.
+   */
+  private int[] getFieldIndexes(FieldDescription[] fields) {
+    if (selectedFields == null) {
+      int[] indexes = new int[fields.length];
+      for (int i = 0; i < fields.length; i++) {
+        indexes[i] = i + 1;
+      }
+      return indexes;
+    }
+    int[] indexes = new int[selectedFields.length];
+    for (int i = 0; i < selectedFields.length; i++) {
+      indexes[i] = findField(selectedFields[i].trim(), fields);
+    }
+    return indexes;
+  }
+
+  private int findField(String nameOrNumber, FieldDescription[] fields) {
+    for (int i = 0; i < fields.length; i++) {
+      if (nameOrNumber.equalsIgnoreCase(fields[i].getName())) {
+        return i + 1;
+      }
+    }
+    try {
+      int index = Integer.parseInt(nameOrNumber);
+      if (index >= 1 && index <= fields.length) {
+        return index;
+      }
+    } catch (NumberFormatException ex) {
+      // Not a field number either.
+    }
+    throw new IllegalArgumentException("'" + nameOrNumber + "' is not a valid field name.");
+  }
+
   /**
    * Sets a character set to use for decoding the bytes.
    * 
@@ -258,6 +314,8 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
       Charset decoder) throws IOException, InvalidTableException {
     TableAdapter adapter = AdapterFactory.INSTANCE.getTableAdapter(table);
     FieldDescription[] fields = adapter.getFields();
+    int[] indexes = getFieldIndexes(fields);
+    FieldProjection projection = new FieldProjection(fields, indexes);
 
     try {
       // Get csv writer
@@ -266,11 +324,14 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
           adapter.getRecordLength(), adapter.getRecordCount());
 
       // Read column headers
-      csvWriter.writeNext(getColumnHeaders(fields));
+      csvWriter.writeNext(getColumnHeaders(fields, indexes));
 
-      // Go through the records and read the value of each field.
+      // Go through the records and read the value of each field, reading only the bytes that
+      // hold the exported fields.
+      byte[] bytes = new byte[adapter.getRecordLength()];
       for (int i = 1; i <= adapter.getRecordCount(); i++) {
-        String[] data = readColumnData(fields, i, adapter.getRecordLength(), fileAccessor, decoder);
+        projection.readRecordBytes(fileAccessor, i, bytes, 0, false);
+        String[] data = readColumnData(fields, indexes, bytes, decoder);
         csvWriter.writeNext(data);
       }
 
@@ -305,7 +366,8 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
       CSVWriter csvWriter = new CSVWriter(writer);
 
       // Get column headers
-      csvWriter.writeNext(getColumnHeaders(adapter.getFields()));
+      int[] indexes = getFieldIndexes(adapter.getFields());
+      csvWriter.writeNext(getColumnHeaders(adapter.getFields(), indexes));
 
       // Read column data
       is = dataFile.openStream();
@@ -317,6 +379,13 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
 
       for (long i = 0; i < records; i++) {
         String[] line = reader.readNext();
+        if (line != null && selectedFields != null) {
+          String[] selected = new String[indexes.length];
+          for (int j = 0; j < indexes.length; j++) {
+            selected[j] = indexes[j] <= line.length ? line[indexes[j] - 1] : "";
+          }
+          line = selected;
+        }
         csvWriter.writeNext(line);
       }
 
@@ -339,11 +408,11 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
   /*
    * Gets column headers.
    */
-  private String[] getColumnHeaders(FieldDescription[] fields) {
+  private String[] getColumnHeaders(FieldDescription[] fields, int[] indexes) {
     List<String> headers = new ArrayList<>();
 
-    for (FieldDescription field : fields) {
-      headers.add(field.getName());
+    for (int index : indexes) {
+      headers.add(fields[index - 1].getName());
     }
 
     return headers.toArray(new String[headers.size()]);
@@ -352,18 +421,17 @@ public class TableExporter extends ObjectExporter implements Exporter<Object> {
   /*
    * Reads column data
    */
-  private String[] readColumnData(FieldDescription[] fields, long recordNum, int recordLength,
-      ByteWiseFileAccessor fileAccessor, Charset charset) {
+  private String[] readColumnData(FieldDescription[] fields, int[] indexes, byte[] bytes,
+      Charset charset) {
 
-    List<String> data = new ArrayList<>();
-    byte[] bytes = fileAccessor.readRecordBytes(recordNum, 0, recordLength);
+    String[] data = new String[indexes.length];
 
-    for (FieldDescription field : fields) {
-      String value = field.getType().getAdapter().getString(bytes, field.getOffset(),
+    for (int i = 0; i < indexes.length; i++) {
+      FieldDescription field = fields[indexes[i] - 1];
+      data[i] = field.getType().getAdapter().getString(bytes, field.getOffset(),
           field.getLength(), field.getStartBit(), field.getStopBit(), charset);
-      data.add(value);
     }
 
-    return data.toArray(new String[data.size()]);
+    return data;
   }
 }
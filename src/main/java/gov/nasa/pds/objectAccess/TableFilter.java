@@ -0,0 +1,381 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import gov.nasa.pds.label.object.FieldDescription;
+
+/**
+ * Selects the records of a table by simple conditions on field values, all of which must hold. The
+ * conditions are evaluated by {@link TableReader#readNext(TableFilter)} on the bytes of the record
+ * before any record is built, and a fixed-width record that fails only has the bytes of the fields
+ * tested so far read.
+ *
+ * <p>
+ * Text conditions compare the field value, without leading and trailing white space, character by
+ * character, so a range of ISO 8601 date-time values selects a time window.
+ * </p>
+ *
+ * <p>
+ * When the reader has a {@link ZoneMap}, the blocks of records whose value ranges cannot satisfy
+ * the conditions are skipped without being read.
+ * </p>
+ *
+ * <pre>
+ * TableFilter filter = new TableFilter().range("UTC", "2014-08-01T10:00", "2014-08-01T11:00")
+ *     .range("TEMPERATURE", -10.0, 40.0);
+ * while ((record = reader.readNext(filter)) != null) {
+ *   ...
+ * }
+ * </pre>
+ */
+public final class TableFilter {
+
+  private final List<Condition> conditions = new ArrayList<>();
+
+  /**
+   * Adds a condition that the numeric value of a field is within a range. A field without a valid
+   * numeric value does not match.
+   *
+   * @param field the field name
+   * @param min the smallest matching value
+   * @param max the largest matching value
+   * @return this filter
+   */
+  public TableFilter range(String field, double min, double max) {
+    conditions.add(new Condition(field, Kind.NUMERIC_RANGE, min, max, null, null));
+    return this;
+  }
+
+  /**
+   * Adds a condition that the text value of a field is within a range, compared character by
+   * character.
+   *
+   * @param field the field name
+   * @param min the smallest matching value, or null for no lower bound
+   * @param max the largest matching value, or null for no upper bound
+   * @return this filter
+   */
+  public TableFilter range(String field, String min, String max) {
+    conditions.add(new Condition(field, Kind.TEXT_RANGE, 0, 0, bytes(min), bytes(max)));
+    return this;
+  }
+
+  /**
+   * Adds a condition that the text value of a field is equal to a value.
+   *
+   * @param field the field name
+   * @param value the matching value
+   * @return this filter
+   */
+  public TableFilter equalTo(String field, String value) {
+    conditions.add(new Condition(field, Kind.EQUAL, 0, 0, bytes(value), null));
+    return this;
+  }
+
+  /**
+   * Adds a condition that the text value of a field starts with a prefix.
+   *
+   * @param field the field name
+   * @param prefix the prefix of matching values
+   * @return this filter
+   */
+  public TableFilter prefix(String field, String prefix) {
+    conditions.add(new Condition(field, Kind.PREFIX, 0, 0, bytes(prefix), null));
+    return this;
+  }
+
+  private static byte[] bytes(String value) {
+    return value == null ? null : value.trim().getBytes(StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Resolves the field names of the conditions for a table.
+   *
+   * @param fields the field descriptions of the table
+   * @param fieldMap a map from field name to 1-relative field index
+   * @return the conditions, ready to be evaluated
+   * @throws IllegalArgumentException if a field name is not in the table
+   */
+  Bound bind(FieldDescription[] fields, Map<String, Integer> fieldMap) {
+    return new Bound(fields, fieldMap);
+  }
+
+  private enum Kind {
+    NUMERIC_RANGE, TEXT_RANGE, EQUAL, PREFIX
+  }
+
+  private static final class Condition {
+    private final String field;
+    private final Kind kind;
+    private final double min;
+    private final double max;
+    private final byte[] text;
+    private final byte[] textMax;
+
+    Condition(String field, Kind kind, double min, double max, byte[] text, byte[] textMax) {
+      this.field = field;
+      this.kind = kind;
+      this.min = min;
+      this.max = max;
+      this.text = text;
+      this.textMax = textMax;
+    }
+
+    boolean testNumber(double value) {
+      return value >= min && value <= max;
+    }
+
+    /**
+     * Tests a text value, given by a byte range which is trimmed first.
+     */
+    boolean testText(byte[] buf, int start, int end) {
+      while (start < end && (buf[start] & 0xFF) <= ' ') {
+        start++;
+      }
+      while (end > start && (buf[end - 1] & 0xFF) <= ' ') {
+        end--;
+      }
+      switch (kind) {
+        case EQUAL:
+          return compare(buf, start, end, text) == 0;
+        case PREFIX:
+          return end - start >= text.length && compare(buf, start, start + text.length, text) == 0;
+        default:
+          return (text == null || compare(buf, start, end, text) >= 0)
+              && (textMax == null || compare(buf, start, end, textMax) <= 0);
+      }
+    }
+
+    boolean testText(String value) {
+      byte[] buf = value.getBytes(StandardCharsets.US_ASCII);
+      return testText(buf, 0, buf.length);
+    }
+
+    /**
+     * Tells whether a value within a numeric range could match, NaN bounds meaning no value.
+     */
+    boolean mightMatch(double low, double high) {
+      return !Double.isNaN(low) && high >= min && low <= max;
+    }
+
+    /**
+     * Tells whether a value within a text range could match, null bounds meaning no value.
+     */
+    boolean mightMatch(String low, String high) {
+      if (low == null || high == null) {
+        return false;
+      }
+      byte[] lo = low.getBytes(StandardCharsets.US_ASCII);
+      byte[] hi = high.getBytes(StandardCharsets.US_ASCII);
+      switch (kind) {
+        case EQUAL:
+          return compare(lo, 0, lo.length, text) <= 0 && compare(hi, 0, hi.length, text) >= 0;
+        case PREFIX:
+          return compare(hi, 0, hi.length, text) >= 0
+              && compare(lo, 0, Math.min(lo.length, text.length), text) <= 0;
+        default:
+          return (text == null || compare(hi, 0, hi.length, text) >= 0)
+              && (textMax == null || compare(lo, 0, lo.length, textMax) <= 0);
+      }
+    }
+
+    private static int compare(byte[] buf, int start, int end, byte[] value) {
+      int n = Math.min(end - start, value.length);
+      for (int i = 0; i < n; i++) {
+        int diff = (buf[start + i] & 0xFF) - (value[i] & 0xFF);
+        if (diff != 0) {
+          return diff;
+        }
+      }
+      return (end - start) - value.length;
+    }
+  }
+
+  /**
+   * The conditions of a filter, bound to the fields of a table.
+   */
+  final class Bound {
+    private final Condition[] bound;
+    private final FieldDescription[] fields;
+    private final int[] indexes;
+    private final int[] radixes;
+    private final boolean[] rawText;
+    private final int lastIndex;
+
+    private Bound(FieldDescription[] tableFields, Map<String, Integer> fieldMap) {
+      bound = conditions.toArray(new Condition[0]);
+      fields = new FieldDescription[bound.length];
+      indexes = new int[bound.length];
+      radixes = new int[bound.length];
+      rawText = new boolean[bound.length];
+      int last = 0;
+      for (int i = 0; i < bound.length; i++) {
+        Integer index = fieldMap.get(bound[i].field);
+        if (index == null) {
+          throw new IllegalArgumentException("'" + bound[i].field + "' is not a valid field name.");
+        }
+        indexes[i] = index;
+        fields[i] = tableFields[index - 1];
+        radixes[i] = ColumnBatch.radix(fields[i].getType());
+        // Text fields are compared on their bytes, other fields on their formatted value.
+        rawText[i] = ColumnBatch.ColumnType.of(fields[i].getType()) == ColumnBatch.ColumnType.STRING;
+        last = Math.max(last, index);
+      }
+      lastIndex = last;
+    }
+
+    /**
+     * Tells whether the bound conditions are still those of the filter. Conditions are only ever
+     * added, so the filter has changed if it has more conditions than were bound.
+     *
+     * @return true if no condition has been added to the filter since it was bound
+     */
+    boolean isCurrent() {
+      return bound.length == conditions.size();
+    }
+
+    /**
+     * Gets the index of the last field tested (1-relative), or 0 if there is no condition.
+     */
+    int getLastIndex() {
+      return lastIndex;
+    }
+
+    /**
+     * Tells whether a block of records could hold a match, given the ranges of its field values.
+     * Conditions on fields without a range of the same kind in the zone map are not checked.
+     *
+     * @param zones the zone map of the table
+     * @param block the block number (0-relative)
+     * @return false if no record of the block can match all conditions
+     */
+    boolean mightMatch(ZoneMap zones, int block) {
+      for (int i = 0; i < bound.length; i++) {
+        Condition condition = bound[i];
+        int index = indexes[i];
+        if (zones.isNumeric(index)) {
+          if (condition.kind == Kind.NUMERIC_RANGE
+              && !condition.mightMatch(zones.getMin(block, index), zones.getMax(block, index))) {
+            return false;
+          }
+        } else if (zones.contains(index) && condition.kind != Kind.NUMERIC_RANGE
+            && !condition.mightMatch(zones.getTextMin(block, index),
+                zones.getTextMax(block, index))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Tests a fixed-width record, reading the bytes of each tested field into a record buffer.
+     *
+     * @param accessor the accessor of the table
+     * @param recordNum the record number (1-relative)
+     * @param buf a buffer of the record length, into which the field bytes are read
+     * @return true if the record matches all conditions
+     */
+    boolean matches(ByteWiseFileAccessor accessor, long recordNum, byte[] buf) {
+      for (int i = 0; i < bound.length; i++) {
+        FieldDescription field = fields[i];
+        int offset = field.getOffset();
+        int length = field.getLength();
+        accessor.readRecordBytes(recordNum, offset, length, buf, offset);
+        if (!matches(i, field, buf)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean matches(int i, FieldDescription field, byte[] buf) {
+      Condition condition = bound[i];
+      int offset = field.getOffset();
+      int length = field.getLength();
+      if (condition.kind == Kind.NUMERIC_RANGE) {
+        try {
+          return condition.testNumber(field.getType().getAdapter().getDouble(buf, offset, length,
+              field.getStartBit(), field.getStopBit()));
+        } catch (NumberFormatException ex) {
+          return false;
+        }
+      }
+      if (rawText[i]) {
+        return condition.testText(buf, offset, offset + length);
+      }
+      return condition.testText(field.getType().getAdapter().getString(buf, offset, length,
+          field.getStartBit(), field.getStopBit()));
+    }
+
+    /**
+     * Tests the current record of a delimited tokenizer, whose field limit must include the tested
+     * fields.
+     *
+     * @param tokenizer the tokenizer holding the record
+     * @return true if the record matches all conditions
+     */
+    boolean matches(DelimitedRecordTokenizer tokenizer) {
+      for (int i = 0; i < bound.length; i++) {
+        Condition condition = bound[i];
+        int index = indexes[i] - 1;
+        boolean match;
+        if (condition.kind == Kind.NUMERIC_RANGE) {
+          try {
+            if (tokenizer.isSimple()) {
+              int start = tokenizer.getFieldStart(index);
+              match = condition.testNumber(ColumnBatch.parseDouble(tokenizer.getBuffer(), start,
+                  tokenizer.getFieldEnd(index) - start, radixes[i]));
+            } else {
+              String value = tokenizer.getString(index).trim();
+              match = !value.isEmpty()
+                  && condition.testNumber(ColumnBatch.parseDouble(value, radixes[i]));
+            }
+          } catch (NumberFormatException ex) {
+            match = false;
+          }
+        } else if (tokenizer.isSimple()) {
+          match = condition.testText(tokenizer.getBuffer(), tokenizer.getFieldStart(index),
+              tokenizer.getFieldEnd(index));
+        } else {
+          match = condition.testText(tokenizer.getString(index));
+        }
+        if (!match) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,396 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persisted index of a table, holding the byte offsets of every Nth record and the minimum and
+ * maximum value of each numeric field over each block of N records.
+ *
+ * <p>
+ * The index is stored in a sidecar file next to the data file, named after the data file and the
+ * table offset, or in the directory set by the <code>gov.nasa.pds.objectAccess.indexDir</code>
+ * system property or {@link #setIndexDirectory(File)}. It is keyed by the size, modification time
+ * and a checksum of the data file, so an index of a changed file is never used. The checksum covers
+ * the first and last 64 KiB of the file, so checking the key does not read a large file in full.
+ * </p>
+ *
+ * <p>
+ * {@link TableReader} loads a valid index automatically, and writes one with
+ * {@link TableReader#buildIndex()}.
+ * </p>
+ */
+public final class TableIndexFile {
+  private static final Logger LOGGER = LoggerFactory.getLogger(TableIndexFile.class);
+
+  /** The system property that sets the directory of index files. */
+  public static final String INDEX_DIR_PROPERTY = "gov.nasa.pds.objectAccess.indexDir";
+
+  private static final int MAGIC = 0x50344958;
+  private static final int VERSION = 1;
+  private static final String SUFFIX = ".idx";
+  private static final int CHECKSUM_SPAN = 64 * 1024;
+
+  private static volatile File indexDirectory = createDefaultDirectory();
+
+  private final long fileSize;
+  private final long lastModified;
+  private final long checksum;
+  private final long tableOffset;
+  private final long recordCount;
+  private final int fieldCount;
+  private final int interval;
+  private final long[] recordOffsets;
+  private final double[] blockMin;
+  private final double[] blockMax;
+
+  TableIndexFile(Key key, long recordCount, int fieldCount, int interval, long[] recordOffsets,
+      double[] blockMin, double[] blockMax) {
+    this.fileSize = key.fileSize;
+    this.lastModified = key.lastModified;
+    this.checksum = key.checksum;
+    this.tableOffset = key.tableOffset;
+    this.recordCount = recordCount;
+    this.fieldCount = fieldCount;
+    this.interval = interval;
+    this.recordOffsets = recordOffsets;
+    this.blockMin = blockMin;
+    this.blockMax = blockMax;
+  }
+
+  private static File createDefaultDirectory() {
+    String dir = System.getProperty(INDEX_DIR_PROPERTY);
+    return dir == null || dir.trim().isEmpty() ? null : new File(dir.trim());
+  }
+
+  /**
+   * Gets the directory of index files.
+   *
+   * @return the index directory, or null if index files are written next to the data files
+   */
+  public static File getIndexDirectory() {
+    return indexDirectory;
+  }
+
+  /**
+   * Sets the directory of index files.
+   *
+   * @param directory the index directory, or null to write index files next to the data files
+   */
+  public static void setIndexDirectory(File directory) {
+    indexDirectory = directory;
+  }
+
+  /**
+   * Gets the sidecar file of the index of a table.
+   *
+   * @param dataFile the data file
+   * @param tableOffset the offset of the table within the data file
+   * @return the index file
+   */
+  public static File getIndexFile(File dataFile, long tableOffset) {
+    File directory = indexDirectory;
+    if (directory == null) {
+      return new File(dataFile.getAbsoluteFile().getParentFile(),
+          dataFile.getName() + "." + tableOffset + SUFFIX);
+    }
+    String id = dataFile.getAbsolutePath() + "\n" + tableOffset;
+    return new File(directory, dataFile.getName() + "." + hash(id) + SUFFIX);
+  }
+
+  private static String hash(String id) {
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(id.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(16);
+      for (int i = 0; i < 8; i++) {
+        hex.append(Character.forDigit((digest[i] >> 4) & 0xF, 16))
+            .append(Character.forDigit(digest[i] & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Loads the index of a table, if a valid one exists.
+   *
+   * @param dataFile the data file
+   * @param tableOffset the offset of the table within the data file
+   * @param recordCount the number of records of the table
+   * @param fieldCount the number of fields of the table
+   * @return the index, or null if there is no index file, or it does not match the data file
+   */
+  public static TableIndexFile load(File dataFile, long tableOffset, long recordCount,
+      int fieldCount) {
+    File indexFile = getIndexFile(dataFile, tableOffset);
+    if (!indexFile.isFile()) {
+      return null;
+    }
+    try {
+      TableIndexFile index = read(indexFile);
+      Key key = Key.of(dataFile, tableOffset);
+      if (!index.matches(key) || index.recordCount != recordCount
+          || index.fieldCount != fieldCount) {
+        LOGGER.debug("Ignoring stale index {}", indexFile);
+        return null;
+      }
+      return index;
+    } catch (IOException ex) {
+      LOGGER.debug("Ignoring unreadable index {}: {}", indexFile, ex.getMessage());
+      return null;
+    }
+  }
+
+  private boolean matches(Key key) {
+    return fileSize == key.fileSize && lastModified == key.lastModified
+        && checksum == key.checksum && tableOffset == key.tableOffset;
+  }
+
+  static TableIndexFile read(File indexFile) throws IOException {
+    CRC32 crc = new CRC32();
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(indexFile.toPath()));
+        CheckedInputStream checked = new CheckedInputStream(in, crc)) {
+      DataInputStream data = new DataInputStream(checked);
+      if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+        throw new IOException("Not a table index file");
+      }
+      Key key = new Key(data.readLong(), data.readLong(), data.readLong(), data.readLong());
+      long recordCount = data.readLong();
+      int fieldCount = data.readInt();
+      int interval = data.readInt();
+      long[] offsets = new long[data.readInt()];
+      for (int i = 0; i < offsets.length; i++) {
+        offsets[i] = data.readLong();
+      }
+      int statCount = data.readInt();
+      double[] min = new double[statCount];
+      double[] max = new double[statCount];
+      for (int i = 0; i < statCount; i++) {
+        min[i] = data.readDouble();
+        max[i] = data.readDouble();
+      }
+      long expected = crc.getValue();
+      if (new DataInputStream(in).readLong() != expected) {
+        throw new IOException("Table index file is corrupt");
+      }
+      return new TableIndexFile(key, recordCount, fieldCount, interval, offsets, min, max);
+    } catch (EOFException | NegativeArraySizeException ex) {
+      throw new IOException("Table index file is truncated", ex);
+    }
+  }
+
+  /**
+   * Writes this index to its sidecar file, replacing any previous index.
+   *
+   * @param dataFile the data file
+   * @return the index file
+   * @throws IOException if the index file cannot be written
+   */
+  public File write(File dataFile) throws IOException {
+    File indexFile = getIndexFile(dataFile, tableOffset);
+    Path directory = indexFile.getAbsoluteFile().getParentFile().toPath();
+    Files.createDirectories(directory);
+    Path temp = Files.createTempFile(directory, "index", ".tmp");
+    try {
+      CRC32 crc = new CRC32();
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+        DataOutputStream data = new DataOutputStream(new CheckedOutputStream(out, crc));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(fileSize);
+        data.writeLong(lastModified);
+        data.writeLong(checksum);
+        data.writeLong(tableOffset);
+        data.writeLong(recordCount);
+        data.writeInt(fieldCount);
+        data.writeInt(interval);
+        data.writeInt(recordOffsets.length);
+        for (long offset : recordOffsets) {
+          data.writeLong(offset);
+        }
+        data.writeInt(blockMin.length);
+        for (int i = 0; i < blockMin.length; i++) {
+          data.writeDouble(blockMin[i]);
+          data.writeDouble(blockMax[i]);
+        }
+        data.flush();
+        new DataOutputStream(out).writeLong(crc.getValue());
+      }
+      try {
+        Files.move(temp, indexFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    return indexFile;
+  }
+
+  /**
+   * Gets the number of records of the table.
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Gets the number of records in each block, and between record offsets.
+   */
+  public int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Gets the number of blocks of the table.
+   */
+  public int getBlockCount() {
+    return fieldCount == 0 ? 0 : blockMin.length / fieldCount;
+  }
+
+  /**
+   * Gets the byte offsets, relative to the start of the table, of the first record of each block.
+   * The offsets are only kept for delimited tables.
+   *
+   * @return the record offsets, or an empty array for a fixed-width table
+   */
+  public long[] getRecordOffsets() {
+    return recordOffsets.clone();
+  }
+
+  /**
+   * Creates the record offset index of a delimited table from the record offsets.
+   */
+  RecordOffsetIndex toRecordOffsetIndex() {
+    return new RecordOffsetIndex(interval, recordOffsets);
+  }
+
+  /**
+   * Gets the minimum value of a numeric field over a block of records.
+   *
+   * @param block the block number (0-relative), covering the records from
+   *        <code>block * getInterval() + 1</code>
+   * @param index the field index (1-relative)
+   * @return the minimum value, or NaN if the field is not numeric or has no value in the block
+   */
+  public double getBlockMin(int block, int index) {
+    return blockMin[statIndex(block, index)];
+  }
+
+  /**
+   * Gets the maximum value of a numeric field over a block of records.
+   *
+   * @param block the block number (0-relative), covering the records from
+   *        <code>block * getInterval() + 1</code>
+   * @param index the field index (1-relative)
+   * @return the maximum value, or NaN if the field is not numeric or has no value in the block
+   */
+  public double getBlockMax(int block, int index) {
+    return blockMax[statIndex(block, index)];
+  }
+
+  private int statIndex(int block, int index) {
+    if (index < 1 || index > fieldCount) {
+      throw new ArrayIndexOutOfBoundsException(
+          "The index is out of range (1 to " + fieldCount + ").");
+    }
+    return block * fieldCount + index - 1;
+  }
+
+  /**
+   * Identifies a version of a table in a data file.
+   */
+  static final class Key {
+    private final long fileSize;
+    private final long lastModified;
+    private final long checksum;
+    private final long tableOffset;
+
+    Key(long fileSize, long lastModified, long checksum, long tableOffset) {
+      this.fileSize = fileSize;
+      this.lastModified = lastModified;
+      this.checksum = checksum;
+      this.tableOffset = tableOffset;
+    }
+
+    /**
+     * Computes the key of a table in a data file.
+     *
+     * @param dataFile the data file
+     * @param tableOffset the offset of the table within the data file
+     * @return the key
+     * @throws IOException if the data file cannot be read
+     */
+    static Key of(File dataFile, long tableOffset) throws IOException {
+      CRC32 crc = new CRC32();
+      long size;
+      try (RandomAccessFile raf = new RandomAccessFile(dataFile, "r")) {
+        size = raf.length();
+        byte[] buf = new byte[(int) Math.min(size, CHECKSUM_SPAN)];
+        raf.readFully(buf);
+        crc.update(buf);
+        if (size > CHECKSUM_SPAN) {
+          raf.seek(Math.max(CHECKSUM_SPAN, size - CHECKSUM_SPAN));
+          int n = (int) (size - raf.getFilePointer());
+          raf.readFully(buf, 0, n);
+          crc.update(buf, 0, n);
+        }
+      }
+      return new Key(size, dataFile.lastModified(), crc.getValue(), tableOffset);
+    }
+  }
+}
@@ -31,25 +31,34 @@
 package gov.nasa.pds.objectAccess;
 
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
 import java.net.URL;
-import java.nio.Buffer;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import com.opencsv.CSVParser;
-import com.opencsv.CSVParserBuilder;
-import com.opencsv.CSVReader;
-import com.opencsv.CSVReaderBuilder;
 import com.opencsv.exceptions.CsvValidationException;
 import gov.nasa.pds.label.object.DataObjectLocation;
 import gov.nasa.pds.label.object.FieldDescription;
@@ -67,17 +76,38 @@ import gov.nasa.pds.objectAccess.utility.Utility;
 public class TableReader implements Closeable {
   private static final Logger LOGGER = LoggerFactory.getLogger(TableReader.class);
 
+  /** The number of bytes of fixed-width records read at a time into a column batch. */
+  private static final int BATCH_CHUNK_SIZE = 256 * 1024;
+
+  /** The system property that sets the number of records between delimited index checkpoints. */
+  public static final String RECORD_INDEX_INTERVAL_PROPERTY =
+      "gov.nasa.pds.objectAccess.recordIndexInterval";
+
+  private static volatile int recordIndexInterval =
+      Integer.getInteger(RECORD_INDEX_INTERVAL_PROPERTY, 1024);
+
   private TableAdapter adapter;
   private long offset;
   private long currentRow = 0;
   private TableRecord record = null;
   protected ByteWiseFileAccessor accessor = null;
   private Map<String, Integer> map = new HashMap<>();
-  private CSVReader csvReader = null;
+  private DelimitedRecordTokenizer tokenizer = null;
+  private RecordOffsetIndex recordIndex = null;
+  /** The number of delimited records the tokenizer has read from the start of the table. */
+  private long tokenizedRow = 0;
   private BufferedReader bufferedReader = null;
   private InputStream inputStream = null;
+  private URL dataFile = null;
+  private TableIndexFile index = null;
+  private ZoneMap zoneMap = null;
+  private FieldProjection projection = null;
+  private TableFilter boundFilter = null;
+  private TableFilter.Bound filterConditions = null;
+  private byte[] filterBuffer = null;
   private long recordSize = 0;
   private char delimitedChar = ',';
+  private boolean keepQuotations = false;
   protected DataObjectLocation dataObjectLocation = null;
 
   public TableReader(Object table, File dataFile) throws Exception {
@@ -129,8 +159,47 @@ public class TableReader implements Closeable {
   public TableReader(Object table, URL dataFile, DataObjectLocation location, boolean checkSize,
       boolean readEntireFile, boolean keepQuotationsFlag, RandomAccessFile raf,
       InputStream inputStream) throws InvalidTableException, Exception {
+    this(table, dataFile, location, checkSize, keepQuotationsFlag, raf, inputStream, null);
+  }
+
+  /**
+   * Constructs a <code>TableReader</code> instance that reads the data file through a pool shared
+   * with the readers of other tables in the same data file. Data files that cannot be pooled are
+   * opened as usual.
+   *
+   * @param table a table object
+   * @param dataFile an input data file
+   * @param checkSize check that the size of the data file is equal to the size of the table (length
+   *        * records) + offset.
+   * @param pool the pool of open data files
+   * @throws InvalidTableException
+   * @throws Exception
+   */
+  public TableReader(Object table, URL dataFile, boolean checkSize, DataFilePool pool)
+      throws InvalidTableException, Exception {
+    this(table, dataFile, null, checkSize, false, null, null,
+        pool != null && DataFilePool.supports(dataFile) ? pool.acquire(dataFile) : null);
+  }
+
+  private TableReader(Object table, URL dataFile, DataObjectLocation location, boolean checkSize,
+      boolean keepQuotationsFlag, RandomAccessFile raf, InputStream inputStream,
+      DataFilePool.Lease lease) throws InvalidTableException, Exception {
+    try {
+      initialize(table, dataFile, location, checkSize, keepQuotationsFlag, raf, inputStream, lease);
+    } catch (Exception ex) {
+      if (lease != null) {
+        lease.close();
+      }
+      throw ex;
+    }
+  }
+
+  private void initialize(Object table, URL dataFile, DataObjectLocation location,
+      boolean checkSize, boolean keepQuotationsFlag, RandomAccessFile raf,
+      InputStream inputStream, DataFilePool.Lease lease) throws InvalidTableException, Exception {
     this.adapter = AdapterFactory.INSTANCE.getTableAdapter(table);
     this.dataObjectLocation = location;
+    this.dataFile = dataFile;
 
     LOGGER.debug("TableReader:dataFile {}, raf {}", dataFile, raf);
 
@@ -146,33 +215,271 @@ public class TableReader implements Closeable {
           adapter.getClass().getSimpleName());
       TableDelimitedAdapter tda = (TableDelimitedAdapter) adapter;
 
-      if (inputStream == null) {
-        this.inputStream = Utility.openConnection(dataFile.openConnection());
-      } else {
+      // Records are tokenized from the bytes of the accessor. A supplied stream is only positioned
+      // at the table, for callers of getInputStream().
+      if (inputStream != null) {
         this.inputStream = inputStream;
+        this.inputStream.skip(offset);
+        this.inputStream.mark(0);
       }
-
-      this.inputStream.skip(offset);
-      this.inputStream.mark(0);
-      this.bufferedReader = new BufferedReader(new InputStreamReader(this.inputStream, "US-ASCII"));
-      this.accessor =
-          new ByteWiseFileAccessor(dataFile, offset, -1, adapter.getRecordCount(), false, raf);
+      this.accessor = createAccessor(dataFile, -1, false, raf, lease);
       this.delimitedChar = tda.getFieldDelimiter();
+      this.keepQuotations = keepQuotationsFlag;
 
-      // Use the flag keepQuotationsFlag to tell the CSVParserBuilder that we wish to keep the
+      // Use the flag keepQuotationsFlag to tell the tokenizer that we wish to keep the
       // starting/ending quotes.
       LOGGER.debug("keepQuotationsFlag: {}", keepQuotationsFlag);
-      CSVParser parser = new CSVParserBuilder().withSeparator(this.delimitedChar)
-          .withKeepQuotations(keepQuotationsFlag).build();
-      this.csvReader = new CSVReaderBuilder(this.bufferedReader).withCSVParser(parser).build();
+      this.tokenizer =
+          new DelimitedRecordTokenizer(this.accessor, this.delimitedChar, keepQuotationsFlag);
+      this.recordIndex = new RecordOffsetIndex(recordIndexInterval);
     } else {
       LOGGER.debug("TableReader:NOT TableDelimitedAdapter: {},{}", dataFile,
           this.adapter.getClass().getSimpleName());
 
-      this.accessor = new ByteWiseFileAccessor(dataFile, this.offset,
-          this.adapter.getRecordLength(), this.adapter.getRecordCount(), true, raf);
+      this.accessor =
+          createAccessor(dataFile, this.adapter.getRecordLength(), true, raf, lease);
     }
     createFieldMap();
+    loadIndex();
+  }
+
+  /**
+   * Loads the persisted index of a table in a local data file, if a valid one exists.
+   */
+  private void loadIndex() {
+    File file = getLocalFile();
+    if (file == null) {
+      return;
+    }
+    this.index =
+        TableIndexFile.load(file, offset, adapter.getRecordCount(), adapter.getFieldCount());
+    if (this.index != null) {
+      this.zoneMap = ZoneMap.of(this.index, adapter.getFields());
+      if (this.tokenizer != null) {
+        LOGGER.debug("Using the record offsets of the persisted index of {}", file);
+        this.recordIndex = this.index.toRecordOffsetIndex();
+      }
+    }
+  }
+
+  private File getLocalFile() {
+    if (this.dataFile == null || !"file".equalsIgnoreCase(this.dataFile.getProtocol())) {
+      return null;
+    }
+    try {
+      return new File(this.dataFile.toURI());
+    } catch (URISyntaxException | IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Gets the persisted index of the table, loaded when the reader was created or written by
+   * {@link #buildIndex()}.
+   *
+   * @return the table index, or null if there is no valid index
+   */
+  public TableIndexFile getIndex() {
+    return this.index;
+  }
+
+  /**
+   * Reads all records of the table to build its index, and writes the index to its sidecar file,
+   * so that later readers of the same data file load it. The index holds the offset of every
+   * {@link #getRecordIndexInterval()}th record of a delimited table, and the range of each numeric
+   * field over each block of that many records. The current row is not changed.
+   *
+   * @return the new table index
+   * @throws IOException if the table or the index file cannot be read or written
+   * @throws UnsupportedOperationException if the data file is not a local file
+   */
+  public TableIndexFile buildIndex() throws IOException {
+    File file = getLocalFile();
+    if (file == null) {
+      throw new UnsupportedOperationException("Only tables in local files can be indexed");
+    }
+    TableIndexFile.Key key = TableIndexFile.Key.of(file, offset);
+    int interval = this.recordIndex != null ? this.recordIndex.getInterval() : recordIndexInterval;
+    FieldDescription[] fields = adapter.getFields();
+    int fieldCount = fields.length;
+    long recordCount = adapter.getRecordCount();
+    int blockCount = (int) ((recordCount + interval - 1) / interval);
+    double[] min = new double[blockCount * fieldCount];
+    double[] max = new double[blockCount * fieldCount];
+    Arrays.fill(min, Double.NaN);
+    Arrays.fill(max, Double.NaN);
+    boolean[] numeric = new boolean[fieldCount];
+    int[] radixes = new int[fieldCount];
+    for (int i = 0; i < fieldCount; i++) {
+      numeric[i] = ColumnBatch.ColumnType.of(fields[i].getType()) != ColumnBatch.ColumnType.STRING;
+      radixes[i] = ColumnBatch.radix(fields[i].getType());
+    }
+
+    RecordOffsetIndex offsets = scanRecords(interval, (current, row) -> {
+      int base = (int) ((row - 1) / interval) * fieldCount;
+      for (int i = 0; i < fieldCount; i++) {
+        if (numeric[i]) {
+          double value;
+          try {
+            value = ColumnBatch.getDouble(current, i + 1, radixes[i]);
+          } catch (NumberFormatException ex) {
+            // An empty or missing value does not widen the range.
+            continue;
+          }
+          if (Double.isNaN(value)) {
+            continue;
+          }
+          if (Double.isNaN(min[base + i]) || value < min[base + i]) {
+            min[base + i] = value;
+          }
+          if (Double.isNaN(max[base + i]) || value > max[base + i]) {
+            max[base + i] = value;
+          }
+        }
+      }
+    });
+    TableIndexFile newIndex = new TableIndexFile(key, recordCount, fieldCount, interval,
+        offsets != null ? offsets.toArray() : new long[0], min, max);
+    LOGGER.debug("Wrote table index {}", newIndex.write(file));
+    this.index = newIndex;
+    this.zoneMap = ZoneMap.of(newIndex, fields);
+    if (offsets != null) {
+      this.recordIndex = offsets;
+    }
+    return newIndex;
+  }
+
+  /**
+   * Reads all records of the table to compute the range of some fields over each block of records,
+   * and keeps the zone map in this reader so that {@link #readNext(TableFilter)} skips the blocks
+   * that cannot match. The offsets of the records of a delimited table are indexed on the way. The
+   * current row is not changed.
+   *
+   * @param blockSize the number of records in a block
+   * @param fields the names of the fields
+   * @return the new zone map
+   * @throws IllegalArgumentException if the block size is not positive or a field name is not in
+   *         the table
+   * @throws IOException if the table cannot be read
+   */
+  public ZoneMap buildZoneMap(int blockSize, String... fields) throws IOException {
+    int[] indexes = new int[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      Integer index = map.get(fields[i]);
+      if (index == null) {
+        throw new IllegalArgumentException("'" + fields[i] + "' is not a valid field name.");
+      }
+      indexes[i] = index;
+    }
+    ZoneMap.Builder builder =
+        new ZoneMap.Builder(adapter.getFields(), indexes, blockSize, adapter.getRecordCount());
+    int interval = this.recordIndex != null ? this.recordIndex.getInterval() : recordIndexInterval;
+    RecordOffsetIndex offsets = scanRecords(interval, builder::add);
+    if (offsets != null) {
+      this.recordIndex = offsets;
+    }
+    this.zoneMap = builder.build();
+    return this.zoneMap;
+  }
+
+  /**
+   * Gets the zone map used to skip blocks of records in filtered reads, set by
+   * {@link #buildZoneMap(int, String...)} or taken from the persisted index of the table.
+   *
+   * @return the zone map, or null if there is none
+   */
+  public ZoneMap getZoneMap() {
+    return this.zoneMap;
+  }
+
+  /**
+   * Sets the zone map used to skip blocks of records in filtered reads, such as one built by
+   * another reader of the same table.
+   *
+   * @param zoneMap the zone map, or null to read all blocks
+   * @throws IllegalArgumentException if the zone map is for a different number of records
+   */
+  public void setZoneMap(ZoneMap zoneMap) {
+    if (zoneMap != null && zoneMap.getRecordCount() != adapter.getRecordCount()) {
+      throw new IllegalArgumentException("The zone map is for " + zoneMap.getRecordCount()
+          + " records, but the table has " + adapter.getRecordCount());
+    }
+    this.zoneMap = zoneMap;
+  }
+
+  /**
+   * Reads all records of the table in order, with a private record and tokenizer so that the
+   * current row is not changed.
+   *
+   * @param interval the checkpoint interval of the record offset index of a delimited table
+   * @param action the action applied to each record and its index (1-relative)
+   * @return the record offset index of a delimited table, or null for a fixed-width table
+   * @throws IOException if the table cannot be read
+   */
+  private RecordOffsetIndex scanRecords(int interval, ObjLongConsumer<TableRecord> action)
+      throws IOException {
+    RecordOffsetIndex offsets = null;
+    DelimitedRecordTokenizer records = null;
+    TableRecord current;
+    if (this.tokenizer != null) {
+      offsets = new RecordOffsetIndex(interval);
+      records = new DelimitedRecordTokenizer(this.accessor, this.delimitedChar, keepQuotations);
+      current = new DelimitedTableRecord(map, adapter.getFieldCount(), null);
+    } else {
+      current = new FixedTableRecord(null, map, adapter.getFields());
+    }
+    long recordCount = adapter.getRecordCount();
+    for (long row = 1; row <= recordCount; row++) {
+      if (records != null) {
+        if (!records.next()) {
+          break;
+        }
+        checkFieldCount(row, records.getFieldCount());
+        offsets.add(row, records.getRecordStart());
+        ((DelimitedTableRecord) current).setRecordTokens(records);
+      } else {
+        ((FixedTableRecord) current).readRecordValue(this.accessor, row,
+            adapter.getRecordLength());
+      }
+      action.accept(current, row);
+    }
+    return offsets;
+  }
+
+  private ByteWiseFileAccessor createAccessor(URL dataFile, int length, boolean checkSize,
+      RandomAccessFile raf, DataFilePool.Lease lease) throws IOException, InvalidTableException {
+    if (lease != null) {
+      return new ByteWiseFileAccessor(lease, dataFile, this.offset, length,
+          this.adapter.getRecordCount(), checkSize, ByteWiseFileAccessor.getDefaultMappingMode());
+    }
+    return new ByteWiseFileAccessor(dataFile, this.offset, length, this.adapter.getRecordCount(),
+        checkSize, raf);
+  }
+
+  /**
+   * Gets the number of records between the checkpoints of the record offset index kept for random
+   * access into delimited tables.
+   *
+   * @return the index interval, in records
+   */
+  public static int getRecordIndexInterval() {
+    return recordIndexInterval;
+  }
+
+  /**
+   * Sets the number of records between the checkpoints of the record offset index kept for random
+   * access into delimited tables. {@link #getRecord(long, boolean)} reads at most this many
+   * records past a checkpoint. The initial value is 1024, or the value of the
+   * <code>gov.nasa.pds.objectAccess.recordIndexInterval</code> system property. Readers that have
+   * already been constructed are not affected.
+   *
+   * @param interval the index interval, in records
+   */
+  public static void setRecordIndexInterval(int interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Index interval must be positive (" + interval + ")");
+    }
+    recordIndexInterval = interval;
   }
 
   public TableAdapter getAdapter() {
@@ -196,6 +503,64 @@ public class TableReader implements Closeable {
     return map;
   }
 
+  /**
+   * Restricts the reader to some fields of the table, so the other fields are never decoded.
+   * Records and column batches keep the field indexes of the table, but reading a field outside
+   * the projection throws an <code>IllegalArgumentException</code>. Only the bytes of the
+   * projected fields are read from a fixed-width record, and a delimited record is only split up to
+   * the last projected field. The projection should be set before the first record is read.
+   *
+   * @param indexes the indexes of the projected fields (1-relative), or null for all fields
+   * @throws IllegalArgumentException if a field index is out of range
+   */
+  public void setProjection(int... indexes) {
+    FieldProjection newProjection = indexes == null || indexes.length == 0 ? null
+        : new FieldProjection(adapter.getFields(), indexes);
+    this.projection = newProjection;
+    if (this.tokenizer != null) {
+      this.tokenizer
+          .setFieldLimit(newProjection != null ? newProjection.getLastIndex() : Integer.MAX_VALUE);
+    }
+    if (record instanceof FixedTableRecord) {
+      ((FixedTableRecord) record).setProjection(newProjection);
+    } else if (record instanceof DelimitedTableRecord) {
+      ((DelimitedTableRecord) record).setProjection(newProjection);
+    }
+  }
+
+  /**
+   * Restricts the reader to some fields of the table, given by name.
+   *
+   * @param names the names of the projected fields, or null for all fields
+   * @throws IllegalArgumentException if a field name is not in the table
+   * @see #setProjection(int...)
+   */
+  public void setProjection(String... names) {
+    if (names == null) {
+      setProjection((int[]) null);
+      return;
+    }
+    int[] indexes = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      Integer index = map.get(names[i]);
+      if (index == null) {
+        throw new IllegalArgumentException("'" + names[i] + "' is not a valid field name.");
+      }
+      indexes[i] = index;
+    }
+    setProjection(indexes);
+  }
+
+  /**
+   * Gets the fields the reader is restricted to.
+   *
+   * @return the indexes of the projected fields (1-relative) in field order, or null if all fields
+   *         are read
+   */
+  public int[] getProjection() {
+    return this.projection != null ? this.projection.getIndexes() : null;
+  }
+
   /**
    * Reads the next record from the data file.
    *
@@ -211,6 +576,128 @@ public class TableReader implements Closeable {
     return getTableRecord();
   }
 
+  /**
+   * Reads the next record that matches a filter. The conditions of the filter are tested on the
+   * bytes of each record before a record is built, so a fixed-width record that does not match only
+   * has the bytes of the tested fields read, and the blocks of records that the zone map of the
+   * reader excludes are skipped. The current row is set to the matching record. Conditions added
+   * to the filter between calls apply from the next call.
+   *
+   * @param filter the conditions on field values
+   * @return the next matching record, or null if no further record matches
+   * @throws IllegalArgumentException if the filter refers to a field that is not in the table
+   * @throws CsvValidationException
+   */
+  public TableRecord readNext(TableFilter filter) throws IOException, CsvValidationException {
+    if (filter != this.boundFilter || !this.filterConditions.isCurrent()) {
+      this.filterConditions = filter.bind(adapter.getFields(), map);
+      this.boundFilter = filter;
+    }
+    TableFilter.Bound conditions = this.filterConditions;
+    long recordCount = adapter.getRecordCount();
+    if (adapter instanceof TableDelimitedAdapter) {
+      int projected = this.projection != null ? this.projection.getLastIndex() : Integer.MAX_VALUE;
+      this.tokenizer.setFieldLimit(Math.max(projected, conditions.getLastIndex()));
+      long candidates = Math.min(currentRow, recordCount);
+      while (currentRow < recordCount) {
+        if (currentRow == candidates) {
+          candidates = skipBlocks(conditions, recordCount);
+          moveTokenizer(currentRow);
+          if (currentRow >= recordCount) {
+            break;
+          }
+        }
+        currentRow++;
+        if (!nextDelimitedRecord()) {
+          break;
+        }
+        checkFieldCount(currentRow, this.tokenizer.getFieldCount());
+        if (conditions.matches(this.tokenizer)) {
+          if (record == null) {
+            record = new DelimitedTableRecord(map, adapter.getFieldCount(), null);
+            ((DelimitedTableRecord) record).setProjection(this.projection);
+          }
+          ((DelimitedTableRecord) record).setRecordTokens(this.tokenizer);
+          return record;
+        }
+      }
+    } else {
+      if (this.filterBuffer == null) {
+        this.filterBuffer = new byte[adapter.getRecordLength()];
+      }
+      long candidates = currentRow;
+      while (currentRow < recordCount) {
+        if (currentRow == candidates) {
+          candidates = skipBlocks(conditions, recordCount);
+          if (currentRow >= recordCount) {
+            break;
+          }
+        }
+        currentRow++;
+        if (conditions.matches(this.accessor, currentRow, this.filterBuffer)) {
+          return getTableRecord();
+        }
+      }
+    }
+    currentRow = recordCount + 1;
+    return null;
+  }
+
+  /**
+   * Moves the current row past the blocks in which the zone map shows that no record can match.
+   *
+   * @param conditions the bound filter conditions
+   * @param recordCount the number of records of the table
+   * @return the last row of the block holding the next record to test
+   */
+  private long skipBlocks(TableFilter.Bound conditions, long recordCount) {
+    ZoneMap zones = this.zoneMap;
+    if (zones == null) {
+      return recordCount;
+    }
+    while (currentRow < recordCount) {
+      int block = zones.getBlock(currentRow + 1);
+      long end = Math.min(recordCount, (long) (block + 1) * zones.getBlockSize());
+      if (conditions.mightMatch(zones, block)) {
+        return end;
+      }
+      currentRow = end;
+    }
+    return recordCount;
+  }
+
+  /**
+   * Streams the records after the current row that match a filter, read sequentially with
+   * {@link #readNext(TableFilter)}. The stream reuses the record returned by that method and
+   * advances the current row.
+   *
+   * @param filter the conditions on field values
+   * @return a stream of matching table records
+   * @throws UncheckedIOException if a record cannot be read
+   */
+  public Stream<TableRecord> stream(TableFilter filter) {
+    Spliterator<TableRecord> records = new Spliterators.AbstractSpliterator<TableRecord>(
+        Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override
+      public boolean tryAdvance(Consumer<? super TableRecord> action) {
+        TableRecord next;
+        try {
+          next = readNext(filter);
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        } catch (CsvValidationException ex) {
+          throw new UncheckedIOException(new IOException(ex.getMessage(), ex));
+        }
+        if (next == null) {
+          return false;
+        }
+        action.accept(next);
+        return true;
+      }
+    };
+    return StreamSupport.stream(records, false);
+  }
+
   /**
    * Gets access to the table record given the index. The current row is set to this index, thus,
    * subsequent call to readNext() gets the next record from this position.
@@ -229,8 +716,15 @@ public class TableReader implements Closeable {
    * Gets access to the table record given the index. The current row is set to this index, thus,
    * subsequent call to readNext() gets the next record from this position.
    *
+   * <p>
+   * A delimited table is read from the nearest checkpoint of its record offset index, so at most
+   * {@link #getRecordIndexInterval()} records are skipped once the part of the table before the
+   * record has been read.
+   * </p>
+   *
    * @param index the record index (1-relative)
-   * @param keepQuotationsFlag flag to keep the starting/ending quotes or not.
+   * @param keepQuotationsFlag flag to keep the starting/ending quotes or not, for this record
+   *        only. Later records keep the quotes as set when the reader was created.
    * @return an instance of <code>TableRecord</code>
    * @throws IllegalArgumentException if index is greater than the record number
    * @throws CsvValidationException
@@ -244,48 +738,337 @@ public class TableReader implements Closeable {
       throw new IllegalArgumentException(msg);
     }
     // issue 189 - to handle large delimited file
-    // instread of using the array list, re-position to the line after reset the inputstream
-    if (currentRow > index) {
-      this.inputStream.reset();
-      this.bufferedReader = new BufferedReader(new InputStreamReader(this.inputStream, "US-ASCII"));
-      // skip 'index-1' lines
-      // check this again
-      for (int i = 0; i < (index - 1); i++) {
-        this.bufferedReader.readLine();
+    // instead of using the array list, getTableRecord() re-positions to the record from the
+    // nearest checkpoint of the record offset index
+    currentRow = index;
+    if (this.tokenizer == null) {
+      return getTableRecord();
+    }
+    // The flag applies to this record only; the tokenizer splits it before the flag is restored.
+    this.tokenizer.setKeepQuotations(keepQuotationsFlag);
+    try {
+      return getTableRecord();
+    } finally {
+      this.tokenizer.setKeepQuotations(this.keepQuotations);
+    }
+  }
+
+  /**
+   * Moves the tokenizer of a delimited table past a number of records. Unless the records follow
+   * the current position, it first seeks to the nearest known checkpoint before them.
+   *
+   * @param row the number of records to be read
+   */
+  private void moveTokenizer(long row) throws IOException {
+    if (row == tokenizedRow) {
+      return;
+    }
+    int checkpoint = recordIndex.checkpointFor(row + 1);
+    long checkpointRow = recordIndex.getRowsBefore(checkpoint);
+    if (row < tokenizedRow || checkpointRow > tokenizedRow) {
+      this.tokenizer.seek(recordIndex.getOffset(checkpoint));
+      tokenizedRow = checkpointRow;
+    }
+    while (tokenizedRow < row && nextDelimitedRecord()) {
+      // skip the record
+    }
+  }
+
+  /**
+   * Reads the next record of a delimited table, recording its offset in the index.
+   *
+   * @return true if a record was read, false at the end of the data object
+   */
+  private boolean nextDelimitedRecord() throws IOException {
+    if (!this.tokenizer.next()) {
+      return false;
+    }
+    tokenizedRow++;
+    recordIndex.add(tokenizedRow, this.tokenizer.getRecordStart());
+    return true;
+  }
+
+  /**
+   * Reads the table record at the given index into a new record, without changing the current row.
+   * Unlike {@link #getRecord(int)}, this method may be called concurrently from several threads
+   * sharing one reader, and the returned record is not reused by later reads.
+   *
+   * @param index the record index (1-relative)
+   * @return a new instance of <code>TableRecord</code>
+   * @throws IllegalArgumentException if index is out of range
+   * @throws UnsupportedOperationException if the table is a delimited table
+   */
+  public TableRecord readRecordAt(long index) {
+    if (adapter instanceof TableDelimitedAdapter) {
+      throw new UnsupportedOperationException(
+          "Positional reads are not supported for delimited tables");
+    }
+    long recordCount = adapter.getRecordCount();
+    if (index < 1 || index > recordCount) {
+      throw new IllegalArgumentException("The index is out of range 1 - " + recordCount);
+    }
+    FixedTableRecord newRecord = new FixedTableRecord(null, map, adapter.getFields());
+    newRecord.setProjection(this.projection);
+    newRecord.readRecordValue(this.accessor, index, adapter.getRecordLength());
+    return newRecord;
+  }
+
+  /**
+   * Creates an empty column batch for the fields of this table, to be filled by
+   * {@link #readBatch(ColumnBatch)}.
+   *
+   * @param capacity the maximum number of rows in the batch
+   * @return a new column batch
+   */
+  public ColumnBatch newBatch(int capacity) {
+    return new ColumnBatch(adapter.getFields(), map, capacity, this.projection);
+  }
+
+  /**
+   * Reads up to <code>maxRows</code> records following the current row into a new column batch.
+   *
+   * @param maxRows the maximum number of records to read
+   * @return a column batch, with a row count of 0 if no further records
+   * @throws CsvValidationException
+   * @see #readBatch(ColumnBatch)
+   */
+  public ColumnBatch readBatch(int maxRows) throws IOException, CsvValidationException {
+    ColumnBatch batch = newBatch(maxRows);
+    readBatch(batch);
+    return batch;
+  }
+
+  /**
+   * Reads the records following the current row into a column batch, replacing its contents, until
+   * the batch is full or the end of the table is reached. Each field is decoded straight into the
+   * column array of the batch, so no record object is created. The current row is advanced past
+   * the last record read, thus, calls may be mixed with {@link #readNext()}.
+   *
+   * @param batch the batch to fill, created by {@link #newBatch(int)}
+   * @return the number of records read, 0 if no further records
+   * @throws CsvValidationException
+   */
+  public int readBatch(ColumnBatch batch) throws IOException, CsvValidationException {
+    if (batch.getColumnCount() != adapter.getFieldCount()) {
+      throw new IllegalArgumentException("The batch has " + batch.getColumnCount()
+          + " columns, but the table has " + adapter.getFieldCount() + " fields");
+    }
+    long recordCount = adapter.getRecordCount();
+    batch.reset(currentRow + 1);
+    if (adapter instanceof TableDelimitedAdapter) {
+      moveTokenizer(currentRow);
+      while (batch.getRowCount() < batch.getCapacity() && currentRow < recordCount) {
+        currentRow++;
+        if (!nextDelimitedRecord()) {
+          break;
+        }
+        checkFieldCount(currentRow, this.tokenizer.getFieldCount());
+        batch.addRecord(this.tokenizer);
       }
+    } else {
+      int recordLength = adapter.getRecordLength();
+      int chunkRecords =
+          Math.max(1, Math.min(batch.getCapacity(), BATCH_CHUNK_SIZE / recordLength));
+      byte[] recordBytes = batch.getRecordBuffer(chunkRecords * recordLength);
+      while (batch.getRowCount() < batch.getCapacity() && currentRow < recordCount) {
+        int count = (int) Math.min(Math.min(chunkRecords,
+            batch.getCapacity() - batch.getRowCount()), recordCount - currentRow);
+        for (int i = 0; i < count; i++) {
+          if (this.projection != null) {
+            this.projection.readRecordBytes(this.accessor, currentRow + 1 + i, recordBytes,
+                i * recordLength, false);
+          } else {
+            this.accessor.readRecordBytes(currentRow + 1 + i, 0, recordLength, recordBytes,
+                i * recordLength);
+          }
+        }
+        batch.addRecords(recordBytes, count, recordLength);
+        currentRow += count;
+      }
+    }
+    return batch.getRowCount();
+  }
+
+  /**
+   * Scans all records of the table in parallel in the common fork-join pool, and reduces them to a
+   * single result.
+   *
+   * @param <A> the type of the result containers
+   * @param supplier creates an empty result container for each slice of the table
+   * @param accumulator adds a record to a result container
+   * @param combiner merges the results of two adjacent slices, the earlier one first
+   * @return the merged result
+   * @throws UncheckedIOException if a record of a delimited table cannot be read or has the wrong
+   *         number of fields
+   * @see #scan(ForkJoinPool, Supplier, BiConsumer, BinaryOperator)
+   */
+  public <A> A scan(Supplier<A> supplier, BiConsumer<A, ? super TableRecord> accumulator,
+      BinaryOperator<A> combiner) {
+    return scan(ForkJoinPool.commonPool(), supplier, accumulator, combiner);
+  }
+
+  /**
+   * Scans all records of the table in parallel in a fork-join pool, and reduces them to a single
+   * result. The record range of a fixed-width table is split in halves until the slices are small
+   * enough, and each slice is decoded into a result container of its own. A delimited table is read
+   * in waves of chunks of a few megabytes, which are parsed concurrently after moving each chunk
+   * start to the next record boundary outside quotes; every chunk is then a slice. The slice results
+   * are combined in record order, so the combiner need not be commutative.
+   *
+   * <p>
+   * The record passed to the accumulator is a flyweight reused for every record of a slice, so it
+   * must not be retained. The current row of this reader is neither used nor changed.
+   * </p>
+   *
+   * @param <A> the type of the result containers
+   * @param pool the pool to run the scan in
+   * @param supplier creates an empty result container for each slice of the table
+   * @param accumulator adds a record to a result container
+   * @param combiner merges the results of two adjacent slices, the earlier one first
+   * @return the merged result
+   * @throws UncheckedIOException if a record of a delimited table cannot be read or has the wrong
+   *         number of fields
+   */
+  public <A> A scan(ForkJoinPool pool, Supplier<A> supplier,
+      BiConsumer<A, ? super TableRecord> accumulator, BinaryOperator<A> combiner) {
+    ParallelTableScan<A> scan = createScan(supplier, accumulator);
+    if (!(adapter instanceof TableDelimitedAdapter)) {
+      return scan.reduce(pool, adapter.getRecordCount(), combiner);
+    }
+    DelimitedTableParser parser = new DelimitedTableParser(this.accessor, this.delimitedChar,
+        this.keepQuotations, DelimitedTableParser.DEFAULT_CHUNK_SIZE, pool.getParallelism(), pool);
+    try {
+      return scan.reduceDelimited(pool, parser, adapter.getRecordCount(), combiner);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
 
-      CSVParser parser = new CSVParserBuilder().withSeparator(this.delimitedChar)
-          .withKeepQuotations(keepQuotationsFlag).build();
-      this.csvReader = new CSVReaderBuilder(bufferedReader).withCSVParser(parser).build();
+  /**
+   * Scans all records of a fixed-width table as a number of contiguous partitions of nearly equal
+   * size, each decoded by one task of an executor into a result container of its own.
+   *
+   * <p>
+   * The record passed to the accumulator is a flyweight reused for every record of a partition, so
+   * it must not be retained. The current row of this reader is neither used nor changed.
+   * </p>
+   *
+   * @param <A> the type of the result containers
+   * @param partitions the number of partitions
+   * @param executor the executor to run the partitions on
+   * @param supplier creates an empty result container for each partition
+   * @param accumulator adds a record to a result container
+   * @return the partition results, in record order
+   * @throws IllegalArgumentException if the number of partitions is not positive
+   * @throws UnsupportedOperationException if the table is a delimited table
+   */
+  public <A> List<A> scanPartitions(int partitions, Executor executor, Supplier<A> supplier,
+      BiConsumer<A, ? super TableRecord> accumulator) {
+    if (partitions <= 0) {
+      throw new IllegalArgumentException("Number of partitions must be positive: " + partitions);
     }
-    currentRow = index;
-    return getTableRecord();
+    if (adapter instanceof TableDelimitedAdapter) {
+      throw new UnsupportedOperationException(
+          "Partitioned scans are not supported for delimited tables");
+    }
+    return createScan(supplier, accumulator).partitions(executor, adapter.getRecordCount(),
+        partitions);
+  }
+
+  /**
+   * Streams the records following the current row.
+   *
+   * <p>
+   * For fixed-width tables the stream is backed by a spliterator that splits by record index, so a
+   * parallel stream decodes disjoint record ranges on several threads. The current row is neither
+   * used for later reads nor changed. Each part of the stream decodes into a record flyweight of its
+   * own, which is reused for every record of the part, so records must not be retained; map them to
+   * field values instead.
+   * </p>
+   *
+   * <p>
+   * Delimited tables are parsed sequentially, reusing the record returned by {@link #readNext()},
+   * and advance the current row. Their stream does not split.
+   * </p>
+   *
+   * @return a stream of table records
+   * @throws UncheckedIOException if a record of a delimited table cannot be read
+   */
+  public Stream<TableRecord> stream() {
+    long recordCount = adapter.getRecordCount();
+    long first = currentRow + 1;
+    if (!(adapter instanceof TableDelimitedAdapter)) {
+      return StreamSupport.stream(new TableRecordSpliterator(this.accessor, adapter.getFields(),
+          map, adapter.getRecordLength(), this.projection, first, recordCount + 1), false);
+    }
+    Spliterator<TableRecord> records = new Spliterators.AbstractSpliterator<TableRecord>(
+        Math.max(0, recordCount - currentRow), Spliterator.ORDERED | Spliterator.NONNULL) {
+      @Override
+      public boolean tryAdvance(Consumer<? super TableRecord> action) {
+        TableRecord next;
+        try {
+          next = readNext();
+        } catch (IOException ex) {
+          throw new UncheckedIOException(ex);
+        } catch (CsvValidationException ex) {
+          throw new UncheckedIOException(new IOException(ex.getMessage(), ex));
+        }
+        if (next == null) {
+          return false;
+        }
+        action.accept(next);
+        return true;
+      }
+
+      @Override
+      public Spliterator<TableRecord> trySplit() {
+        // Batching would buffer the same reused record several times.
+        return null;
+      }
+    };
+    return StreamSupport.stream(records, false);
+  }
+
+  private <A> ParallelTableScan<A> createScan(Supplier<A> supplier,
+      BiConsumer<A, ? super TableRecord> accumulator) {
+    return new ParallelTableScan<>(this.accessor, adapter.getFields(), map,
+        adapter.getRecordLength(), this.projection, supplier, accumulator);
   }
 
   private TableRecord getTableRecord() throws IOException, CsvValidationException {
     // DEBUG statements can be time consuming. Should be uncommented by developer only.
     if (adapter instanceof TableDelimitedAdapter) {
-      String[] recordValue = this.csvReader.readNext();
-      if (recordValue != null && (recordValue.length != adapter.getFieldCount())) {
-        throw new IOException("Record " + currentRow + " has wrong number of fields " + "(expected "
-            + adapter.getFieldCount() + ", got " + recordValue.length + ")");
+      if (record == null) {
+        record = new DelimitedTableRecord(map, adapter.getFieldCount(), null);
+        ((DelimitedTableRecord) record).setProjection(this.projection);
       }
-      if (record != null) {
-        ((DelimitedTableRecord) record).setRecordValue(recordValue);
+      // The record decodes its values from the tokenizer only when they are read.
+      moveTokenizer(currentRow - 1);
+      if (nextDelimitedRecord()) {
+        checkFieldCount(currentRow, this.tokenizer.getFieldCount());
+        ((DelimitedTableRecord) record).setRecordTokens(this.tokenizer);
       } else {
-        record = new DelimitedTableRecord(map, adapter.getFieldCount(), recordValue);
+        ((DelimitedTableRecord) record).setRecordValue(null);
       }
     } else {
-      byte[] recordValue = this.accessor.readRecordBytes(currentRow, 0, adapter.getRecordLength());
-      if (record != null) {
-        ((FixedTableRecord) record).setRecordValue(recordValue);
-      } else {
-        record = new FixedTableRecord(recordValue, map, adapter.getFields());
+      // The record reuses its byte array, so a full scan makes no per-record allocation.
+      if (record == null) {
+        record = new FixedTableRecord(null, map, adapter.getFields());
+        ((FixedTableRecord) record).setProjection(this.projection);
       }
+      ((FixedTableRecord) record).readRecordValue(this.accessor, currentRow,
+          adapter.getRecordLength());
     }
     return record;
   }
 
+  private void checkFieldCount(long row, int count) throws IOException {
+    if (count != adapter.getFieldCount()) {
+      throw new IOException("Record " + row + " has wrong number of fields " + "(expected "
+          + adapter.getFieldCount() + ", got " + count + ")");
+    }
+  }
+
   private void createFieldMap() {
     map = new HashMap<>();
     int fieldIndex = 1;
@@ -329,61 +1112,35 @@ public class TableReader implements Closeable {
     return this.accessor;
   }
 
+  /**
+   * Gets a stream positioned at the start of a delimited table. Records are not read from this
+   * stream, so unless one was supplied it is only opened on the first call.
+   *
+   * @return the input stream, or null for a fixed-width table
+   * @throws UncheckedIOException if the data file cannot be opened
+   */
   public InputStream getInputStream() {
-    return this.inputStream;
-  }
-
-  private long parseBufferForLineCount(URL dataFile, byte[] bufferAsBytes) throws Exception {
-    // Given a byte array, read through as if reading through a smaller file and count the lines.
-    InputStream inputStream = new ByteArrayInputStream(bufferAsBytes);
-    InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-    long linesInBuffer = 0;
-    try (BufferedReader reader = new BufferedReader(inputStreamReader)) {
-      while (reader.readLine() != null) {
-        linesInBuffer++;
+    if (this.inputStream == null && this.tokenizer != null) {
+      try {
+        this.inputStream = Utility.openConnection(this.dataFile.openConnection());
+        this.inputStream.skip(offset);
+        this.inputStream.mark(0);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
       }
-    } catch (IOException e) {
-      LOGGER.error("Cannot count lines from file {} in parseBufferForLineCount() function",
-          dataFile);
-      e.printStackTrace();
-      throw new Exception(e.getMessage());
     }
-    LOGGER.debug("parseBufferForLineCount:linesInBuffer {}", linesInBuffer);
-    return linesInBuffer;
+    return this.inputStream;
   }
 
   private long countRecordsForTextTable(URL dataFile) throws Exception {
-    // Count the number of records for a text file of any size. The traditional BufferReader cannot
-    // handle files larger than 2GB.
-    long numRecordsForTextTable = 0;
-
-    // Use RandomAccessFile to get filesize larger than 2gb
+    // Count the lines of a text file of any size on the mapped file, split across threads.
     File aFile = new File(dataFile.toURI());
-    RandomAccessFile raf = new RandomAccessFile(aFile, "r");
-    raf.seek(offset); // Move the pointer to the offset first.
-
-    FileChannel inChannel = raf.getChannel();
-    int bufferSize = 1024 * 128;
-    if (bufferSize > inChannel.size()) {
-      bufferSize = (int) inChannel.size();
-    }
-    ByteBuffer buff = ByteBuffer.allocate(bufferSize);
-
-    byte[] bufferAsBytes = null;
-    while (inChannel.read(buff) > 0) {
-      ((Buffer) buff).position(0); // Must point the pointer to the beginning of buff in order to
-                                   // access the elements in the array.
-      bufferAsBytes = buff.array(); // Get the underlying byte array in ByteBuffer.
-
-      // With the smaller buffer, we can safely read through the buffer for all lines and count
-      // them.
-      numRecordsForTextTable =
-          numRecordsForTextTable + this.parseBufferForLineCount(dataFile, bufferAsBytes);
-
-      ((Buffer) buff).clear();
+    try (FileChannel inChannel = FileChannel.open(aFile.toPath(), StandardOpenOption.READ)) {
+      long numRecordsForTextTable = LineCounter.countLines(inChannel, offset, inChannel.size(),
+          LineCounter.DEFAULT_SEGMENT_SIZE, ForkJoinPool.commonPool());
+      LOGGER.debug("countRecordsForTextTable:numRecordsForTextTable {}", numRecordsForTextTable);
+      return numRecordsForTextTable;
     }
-    raf.close();
-    return (numRecordsForTextTable);
   }
 
   private long countRecordsForTableAdapterType(URL dataFile, long offset) throws Exception {
@@ -0,0 +1,137 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import gov.nasa.pds.label.object.FieldDescription;
+import gov.nasa.pds.label.object.TableRecord;
+
+/**
+ * A spliterator over a range of records of a fixed-width table. It splits by record index, and every
+ * spliterator decodes into a record flyweight of its own, so the parts of a parallel stream share
+ * nothing but the thread-safe positional reads of the accessor.
+ */
+class TableRecordSpliterator implements Spliterator<TableRecord> {
+
+  private final ByteWiseFileAccessor accessor;
+  private final FieldDescription[] fields;
+  private final Map<String, Integer> fieldMap;
+  private final int recordLength;
+  private final FieldProjection projection;
+  private long next;
+  private final long end;
+  private boolean split;
+  private byte[] recordBytes = null;
+  private FixedTableRecord record = null;
+
+  /**
+   * Creates a spliterator over records <code>first</code> (inclusive) to <code>end</code>
+   * (exclusive), 1-relative.
+   */
+  TableRecordSpliterator(ByteWiseFileAccessor accessor, FieldDescription[] fields,
+      Map<String, Integer> fieldMap, int recordLength, FieldProjection projection, long first,
+      long end) {
+    this(accessor, fields, fieldMap, recordLength, projection, first, end, false);
+  }
+
+  private TableRecordSpliterator(ByteWiseFileAccessor accessor, FieldDescription[] fields,
+      Map<String, Integer> fieldMap, int recordLength, FieldProjection projection, long first,
+      long end, boolean split) {
+    this.accessor = accessor;
+    this.fields = fields;
+    this.fieldMap = fieldMap;
+    this.recordLength = recordLength;
+    this.projection = projection;
+    this.next = first;
+    this.end = end;
+    this.split = split;
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super TableRecord> action) {
+    if (next >= end) {
+      return false;
+    }
+    action.accept(readRecord(next++));
+    return true;
+  }
+
+  @Override
+  public void forEachRemaining(Consumer<? super TableRecord> action) {
+    while (next < end) {
+      action.accept(readRecord(next++));
+    }
+  }
+
+  private TableRecord readRecord(long recordNum) {
+    if (record == null) {
+      recordBytes = new byte[recordLength];
+      record = new FixedTableRecord(recordBytes, fieldMap, fields);
+      record.setProjection(projection);
+    }
+    // Parts of a split read concurrently, which would defeat a single read-ahead stream.
+    if (projection != null) {
+      projection.readRecordBytes(accessor, recordNum, recordBytes, 0, split);
+    } else if (split) {
+      accessor.readRecordBytesDirect(recordNum, 0, recordLength, recordBytes, 0);
+    } else {
+      accessor.readRecordBytes(recordNum, 0, recordLength, recordBytes, 0);
+    }
+    return record;
+  }
+
+  @Override
+  public Spliterator<TableRecord> trySplit() {
+    long remaining = end - next;
+    if (remaining < 2 * ParallelTableScan.MIN_RECORDS_PER_TASK) {
+      return null;
+    }
+    long middle = next + remaining / 2;
+    TableRecordSpliterator prefix =
+        new TableRecordSpliterator(accessor, fields, fieldMap, recordLength, projection, next,
+            middle, true);
+    next = middle;
+    split = true;
+    return prefix;
+  }
+
+  @Override
+  public long estimateSize() {
+    return end - next;
+  }
+
+  @Override
+  public int characteristics() {
+    return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+  }
+}
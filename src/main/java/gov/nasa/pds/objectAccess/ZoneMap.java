@@ -0,0 +1,294 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.util.Arrays;
+import gov.nasa.pds.label.object.FieldDescription;
+import gov.nasa.pds.label.object.TableRecord;
+
+/**
+ * Holds the minimum and maximum value of some fields of a table over each block of records. A
+ * filtered read skips the blocks whose ranges show that no record can match, which avoids reading
+ * most of a table sorted or clustered by the filtered field, such as a time or an orbit number.
+ *
+ * <p>
+ * Numeric fields keep their range as doubles, ignoring empty values. Other fields keep the range of
+ * their text values without leading and trailing white space, compared character by character.
+ * </p>
+ */
+public final class ZoneMap {
+
+  /** The default number of records in a block. */
+  public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+  private final int blockSize;
+  private final long recordCount;
+  private final double[][] numericMin;
+  private final double[][] numericMax;
+  private final String[][] textMin;
+  private final String[][] textMax;
+
+  private ZoneMap(int blockSize, long recordCount, int fieldCount) {
+    this.blockSize = blockSize;
+    this.recordCount = recordCount;
+    this.numericMin = new double[fieldCount][];
+    this.numericMax = new double[fieldCount][];
+    this.textMin = new String[fieldCount][];
+    this.textMax = new String[fieldCount][];
+  }
+
+  /**
+   * Gets the number of records in each block. The last block may be shorter.
+   */
+  public int getBlockSize() {
+    return blockSize;
+  }
+
+  /**
+   * Gets the number of records of the table.
+   */
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /**
+   * Gets the number of blocks.
+   */
+  public int getBlockCount() {
+    return (int) ((recordCount + blockSize - 1) / blockSize);
+  }
+
+  /**
+   * Gets the block holding a record.
+   *
+   * @param row the record index (1-relative)
+   * @return the block number (0-relative)
+   */
+  public int getBlock(long row) {
+    return (int) ((row - 1) / blockSize);
+  }
+
+  /**
+   * Tells whether the zone map holds the ranges of a field.
+   *
+   * @param index the field index (1-relative)
+   */
+  public boolean contains(int index) {
+    return index >= 1 && index <= numericMin.length
+        && (numericMin[index - 1] != null || textMin[index - 1] != null);
+  }
+
+  /**
+   * Tells whether the zone map holds numeric ranges for a field.
+   *
+   * @param index the field index (1-relative)
+   */
+  public boolean isNumeric(int index) {
+    return index >= 1 && index <= numericMin.length && numericMin[index - 1] != null;
+  }
+
+  /**
+   * Gets the minimum value of a numeric field over a block.
+   *
+   * @param block the block number (0-relative)
+   * @param index the field index (1-relative)
+   * @return the minimum value, or NaN if the field has no value in the block
+   * @throws IllegalArgumentException if the zone map has no numeric range for the field
+   */
+  public double getMin(int block, int index) {
+    return numeric(numericMin, index)[block];
+  }
+
+  /**
+   * Gets the maximum value of a numeric field over a block.
+   *
+   * @param block the block number (0-relative)
+   * @param index the field index (1-relative)
+   * @return the maximum value, or NaN if the field has no value in the block
+   * @throws IllegalArgumentException if the zone map has no numeric range for the field
+   */
+  public double getMax(int block, int index) {
+    return numeric(numericMax, index)[block];
+  }
+
+  /**
+   * Gets the smallest text value of a field over a block.
+   *
+   * @param block the block number (0-relative)
+   * @param index the field index (1-relative)
+   * @return the smallest value, or null if the block has no record
+   * @throws IllegalArgumentException if the zone map has no text range for the field
+   */
+  public String getTextMin(int block, int index) {
+    return text(textMin, index)[block];
+  }
+
+  /**
+   * Gets the largest text value of a field over a block.
+   *
+   * @param block the block number (0-relative)
+   * @param index the field index (1-relative)
+   * @return the largest value, or null if the block has no record
+   * @throws IllegalArgumentException if the zone map has no text range for the field
+   */
+  public String getTextMax(int block, int index) {
+    return text(textMax, index)[block];
+  }
+
+  private double[] numeric(double[][] values, int index) {
+    if (!isNumeric(index)) {
+      throw new IllegalArgumentException("The zone map has no numeric range for field " + index);
+    }
+    return values[index - 1];
+  }
+
+  private String[] text(String[][] values, int index) {
+    if (index < 1 || index > textMin.length || textMin[index - 1] == null) {
+      throw new IllegalArgumentException("The zone map has no text range for field " + index);
+    }
+    return values[index - 1];
+  }
+
+  /**
+   * Creates a zone map from the numeric block ranges of a persisted table index.
+   *
+   * @param index the table index
+   * @param fields the field descriptions of the table
+   * @return the zone map of all numeric fields
+   */
+  static ZoneMap of(TableIndexFile index, FieldDescription[] fields) {
+    ZoneMap map = new ZoneMap(index.getInterval(), index.getRecordCount(), fields.length);
+    int blocks = index.getBlockCount();
+    for (int i = 0; i < fields.length; i++) {
+      if (ColumnBatch.ColumnType.of(fields[i].getType()) == ColumnBatch.ColumnType.STRING) {
+        continue;
+      }
+      map.numericMin[i] = new double[blocks];
+      map.numericMax[i] = new double[blocks];
+      for (int block = 0; block < blocks; block++) {
+        map.numericMin[i][block] = index.getBlockMin(block, i + 1);
+        map.numericMax[i][block] = index.getBlockMax(block, i + 1);
+      }
+    }
+    return map;
+  }
+
+  /**
+   * Collects the block ranges of some fields, record by record, in record order.
+   */
+  static final class Builder {
+    private final ZoneMap map;
+    private final int[] indexes;
+    private final int[] radixes;
+
+    /**
+     * Creates a builder.
+     *
+     * @param fields the field descriptions of the table
+     * @param indexes the indexes of the fields to collect (1-relative)
+     * @param blockSize the number of records in a block
+     * @param recordCount the number of records of the table
+     */
+    Builder(FieldDescription[] fields, int[] indexes, int blockSize, long recordCount) {
+      if (blockSize <= 0) {
+        throw new IllegalArgumentException("Block size must be positive (" + blockSize + ")");
+      }
+      this.map = new ZoneMap(blockSize, recordCount, fields.length);
+      this.indexes = indexes.clone();
+      this.radixes = new int[indexes.length];
+      int blocks = map.getBlockCount();
+      for (int n = 0; n < indexes.length; n++) {
+        int index = indexes[n];
+        if (index < 1 || index > fields.length) {
+          throw new IllegalArgumentException(
+              "The field index " + index + " is out of range (1 to " + fields.length + ").");
+        }
+        int i = index - 1;
+        radixes[n] = ColumnBatch.radix(fields[i].getType());
+        if (ColumnBatch.ColumnType.of(fields[i].getType()) != ColumnBatch.ColumnType.STRING) {
+          map.numericMin[i] = new double[blocks];
+          map.numericMax[i] = new double[blocks];
+          Arrays.fill(map.numericMin[i], Double.NaN);
+          Arrays.fill(map.numericMax[i], Double.NaN);
+        } else {
+          map.textMin[i] = new String[blocks];
+          map.textMax[i] = new String[blocks];
+        }
+      }
+    }
+
+    /**
+     * Widens the block ranges by the values of a record.
+     *
+     * @param record the record
+     * @param row the record index (1-relative)
+     */
+    void add(TableRecord record, long row) {
+      int block = map.getBlock(row);
+      for (int n = 0; n < indexes.length; n++) {
+        int index = indexes[n];
+        int i = index - 1;
+        if (map.numericMin[i] != null) {
+          double value;
+          try {
+            value = ColumnBatch.getDouble(record, index, radixes[n]);
+          } catch (NumberFormatException ex) {
+            // An empty or missing value does not widen the range.
+            continue;
+          }
+          if (Double.isNaN(value)) {
+            continue;
+          }
+          if (Double.isNaN(map.numericMin[i][block]) || value < map.numericMin[i][block]) {
+            map.numericMin[i][block] = value;
+          }
+          if (Double.isNaN(map.numericMax[i][block]) || value > map.numericMax[i][block]) {
+            map.numericMax[i][block] = value;
+          }
+        } else {
+          String value = record.getString(index).trim();
+          String min = map.textMin[i][block];
+          if (min == null || value.compareTo(min) < 0) {
+            map.textMin[i][block] = value;
+          }
+          String max = map.textMax[i][block];
+          if (max == null || value.compareTo(max) > 0) {
+            map.textMax[i][block] = value;
+          }
+        }
+      }
+    }
+
+    ZoneMap build() {
+      return map;
+    }
+  }
+}
@@ -300,6 +300,14 @@ public class ExtractTable {
   private void extractTable(TableReader reader) throws CsvValidationException {
     FieldDescription[] fields = reader.getFields();
     int[] displayFields = getSelectedFields(fields);
+    if (requestedFields != null) {
+      // Only decode the displayed fields.
+      int[] projection = new int[displayFields.length];
+      for (int i = 0; i < displayFields.length; ++i) {
+        projection[i] = displayFields[i] + 1;
+      }
+      reader.setProjection(projection);
+    }
 
     int[] fieldLengths = getFieldLengths(fields, displayFields);
 
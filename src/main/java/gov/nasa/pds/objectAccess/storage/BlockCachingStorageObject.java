@@ -0,0 +1,177 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A storage object that reads another one in fixed-size blocks and keeps the most recently used
+ * blocks in memory. Sequential access is detected, and each miss in a sequential run fetches twice
+ * as many blocks as the previous one, up to a limit, in a single read of the underlying object. A
+ * random access resets the read-ahead to one block.
+ *
+ * <p>
+ * This makes a remote data object cheap to read through small buffered reads: only the touched
+ * blocks are fetched, and a sequential scan costs a logarithmic number of round trips to reach
+ * full read-ahead.
+ * </p>
+ */
+public class BlockCachingStorageObject implements StorageObject {
+  /** The default block size, in bytes. */
+  public static final int DEFAULT_BLOCK_SIZE = 256 * 1024;
+
+  /** The default number of blocks kept in memory. */
+  public static final int DEFAULT_CACHED_BLOCKS = 32;
+
+  private final StorageObject source;
+  private final int blockSize;
+  private final int maxReadAhead;
+  private final Map<Long, byte[]> blocks;
+  private long size = -1;
+  private long lastBlock = -2;
+  private int readAhead = 1;
+
+  /**
+   * Creates a block cache over a storage object, using the default block size and cache size.
+   *
+   * @param source the storage object to read from
+   */
+  public BlockCachingStorageObject(StorageObject source) {
+    this(source, DEFAULT_BLOCK_SIZE, DEFAULT_CACHED_BLOCKS);
+  }
+
+  /**
+   * Creates a block cache over a storage object.
+   *
+   * @param source the storage object to read from
+   * @param blockSize the block size, in bytes
+   * @param cachedBlocks the number of blocks kept in memory. The read-ahead is limited to half of
+   *        them, so that a read-ahead does not evict the blocks it has just fetched.
+   */
+  public BlockCachingStorageObject(StorageObject source, int blockSize, final int cachedBlocks) {
+    if (blockSize <= 0 || cachedBlocks <= 0) {
+      throw new IllegalArgumentException(
+          "Block size and block count must be positive (" + blockSize + ", " + cachedBlocks + ")");
+    }
+    this.source = source;
+    this.blockSize = blockSize;
+    this.maxReadAhead = Math.max(1, cachedBlocks / 2);
+    this.blocks = new LinkedHashMap<Long, byte[]>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+        return size() > cachedBlocks;
+      }
+    };
+  }
+
+  @Override
+  public synchronized long size() throws IOException {
+    if (size < 0) {
+      size = source.size();
+    }
+    return size;
+  }
+
+  @Override
+  public int read(long position, ByteBuffer dst) throws IOException {
+    long total = size();
+    if (position >= total) {
+      return -1;
+    }
+    long pos = position;
+    while (dst.hasRemaining() && pos < total) {
+      long index = pos / blockSize;
+      byte[] block = getBlock(index);
+      int offset = (int) (pos - index * blockSize);
+      int n = Math.min(dst.remaining(), block.length - offset);
+      dst.put(block, offset, n);
+      pos += n;
+    }
+    return (int) (pos - position);
+  }
+
+  private synchronized byte[] getBlock(long index) throws IOException {
+    boolean sequential = index == lastBlock + 1;
+    lastBlock = index;
+    byte[] block = blocks.get(index);
+    if (block != null) {
+      return block;
+    }
+    readAhead = sequential ? Math.min(readAhead * 2, maxReadAhead) : 1;
+
+    // Fetch a run of blocks in one read, stopping at the end of the data or at a cached block.
+    long lastIndex = (size() - 1) / blockSize;
+    int count = 1;
+    while (count < readAhead && index + count <= lastIndex
+        && !blocks.containsKey(index + count)) {
+      count++;
+    }
+    long start = index * blockSize;
+    int length = (int) (Math.min(size(), start + (long) count * blockSize) - start);
+    ByteBuffer run = ByteBuffer.allocate(length);
+    source.readFully(start, run);
+    byte[] bytes = run.array();
+    for (int i = 0; i < count; i++) {
+      int from = i * blockSize;
+      int to = Math.min(length, from + blockSize);
+      byte[] fetched = count == 1 ? bytes : Arrays.copyOfRange(bytes, from, to);
+      blocks.put(index + i, fetched);
+      if (i == 0) {
+        block = fetched;
+      }
+    }
+    return block;
+  }
+
+  @Override
+  public String getETag() {
+    return source.getETag();
+  }
+
+  @Override
+  public boolean isRemote() {
+    return source.isRemote();
+  }
+
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      blocks.clear();
+    }
+    source.close();
+  }
+}
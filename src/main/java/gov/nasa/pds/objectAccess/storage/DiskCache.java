@@ -0,0 +1,312 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A persistent cache of blocks of remote data files, shared by all JVMs that use the same cache
+ * directory.
+ *
+ * <p>
+ * Entries are keyed by a hash of the URL together with the entity tag, or the size if the server
+ * sends no entity tag, so a changed file is never served from a stale entry. The block size is part
+ * of the key, so that readers using different block sizes never see each other's blocks. Each
+ * block is stored in its own file, written to a temporary file and moved into place, so readers
+ * never see a partial block, and neither readers nor writers need a lock. Eviction holds an
+ * exclusive lock on a lock file in the cache directory. Blocks are evicted in least recently used
+ * order, by modification time, once the cache grows beyond its capacity.
+ * </p>
+ *
+ * <p>
+ * The default cache is enabled by setting the <code>gov.nasa.pds.objectAccess.cacheDir</code>
+ * system property. Its capacity is set by <code>gov.nasa.pds.objectAccess.cacheMaxBytes</code>
+ * (10 GiB by default).
+ * </p>
+ */
+public class DiskCache {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DiskCache.class);
+
+  /** The system property that sets the directory of the default cache. */
+  public static final String CACHE_DIR_PROPERTY = "gov.nasa.pds.objectAccess.cacheDir";
+
+  /** The system property that sets the capacity of the default cache, in bytes. */
+  public static final String CACHE_MAX_BYTES_PROPERTY = "gov.nasa.pds.objectAccess.cacheMaxBytes";
+
+  /** The default capacity, in bytes. */
+  public static final long DEFAULT_MAX_BYTES = 10L << 30;
+
+  private static final String LOCK_FILE = "cache.lock";
+  private static final String BLOCK_SUFFIX = ".blk";
+
+  private static volatile DiskCache defaultCache = createDefault();
+
+  private final Path directory;
+  private final long maxBytes;
+  private long cachedBytes;
+
+  /**
+   * Creates a cache in a directory, creating the directory if needed.
+   *
+   * @param directory the cache directory
+   * @param maxBytes the capacity, in bytes
+   * @throws IOException if the directory cannot be created or read
+   */
+  public DiskCache(File directory, long maxBytes) throws IOException {
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("Cache capacity must be positive (" + maxBytes + ")");
+    }
+    this.directory = directory.toPath();
+    this.maxBytes = maxBytes;
+    Files.createDirectories(this.directory);
+    this.cachedBytes = listBlocks().stream().mapToLong(b -> b.size).sum();
+  }
+
+  private static DiskCache createDefault() {
+    String dir = System.getProperty(CACHE_DIR_PROPERTY);
+    if (dir == null || dir.trim().isEmpty()) {
+      return null;
+    }
+    try {
+      long maxBytes = Long.getLong(CACHE_MAX_BYTES_PROPERTY, DEFAULT_MAX_BYTES);
+      return new DiskCache(new File(dir.trim()), maxBytes);
+    } catch (IOException | IllegalArgumentException ex) {
+      LOGGER.warn("Disk cache '{}' disabled: {}", dir, ex.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Gets the cache used for remote data files.
+   *
+   * @return the default cache, or null if caching is disabled
+   */
+  public static DiskCache getDefault() {
+    return defaultCache;
+  }
+
+  /**
+   * Sets the cache used for remote data files.
+   *
+   * @param cache the cache, or null to disable caching
+   */
+  public static void setDefault(DiskCache cache) {
+    defaultCache = cache;
+  }
+
+  /**
+   * Computes the key of a version of a data file.
+   *
+   * @param url the URL of the data file
+   * @param etag the entity tag of the data file, or null if unknown
+   * @param size the size of the data file
+   * @param blockSize the size of the cached blocks, in bytes
+   * @return the cache key
+   */
+  public static String key(String url, String etag, long size, int blockSize) {
+    String id = url + "\n" + (etag != null ? "etag:" + etag : "size:" + size) + "\nblock:"
+        + blockSize;
+    try {
+      byte[] digest =
+          MessageDigest.getInstance("SHA-256").digest(id.getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException ex) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Reads a cached block.
+   *
+   * @param key the cache key of the data file
+   * @param index the block index
+   * @return the block, or null if it is not cached
+   * @throws IOException if the block cannot be read
+   */
+  public byte[] get(String key, long index) throws IOException {
+    Path block = blockPath(key, index);
+    try {
+      byte[] bytes = Files.readAllBytes(block);
+      // The modification time records the last use, for LRU eviction.
+      Files.setLastModifiedTime(block, FileTime.fromMillis(System.currentTimeMillis()));
+      return bytes;
+    } catch (NoSuchFileException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Tests whether a block is cached, without reading it or marking it as used.
+   *
+   * @param key the cache key of the data file
+   * @param index the block index
+   * @return true, if the block is cached
+   */
+  public boolean contains(String key, long index) {
+    return Files.exists(blockPath(key, index));
+  }
+
+  /**
+   * Stores a block, evicting the least recently used blocks if the cache is over capacity.
+   *
+   * @param key the cache key of the data file
+   * @param index the block index
+   * @param bytes the block
+   * @throws IOException if the block cannot be stored
+   */
+  public void put(String key, long index, byte[] bytes) throws IOException {
+    Path block = blockPath(key, index);
+    Files.createDirectories(block.getParent());
+    Path temp = Files.createTempFile(block.getParent(), "block", ".tmp");
+    long replaced = 0;
+    try {
+      Files.write(temp, bytes);
+      try {
+        replaced = Files.size(block);
+      } catch (NoSuchFileException ex) {
+        replaced = 0;
+      }
+      try {
+        Files.move(temp, block, StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, block, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    boolean full;
+    synchronized (this) {
+      cachedBytes += bytes.length - replaced;
+      full = cachedBytes > maxBytes;
+    }
+    if (full) {
+      evict();
+    }
+  }
+
+  /**
+   * Evicts the least recently used blocks until the cache is below 90% of its capacity. Other
+   * JVMs may be filling the same directory, so the sizes are read from the directory while holding
+   * the cache lock.
+   *
+   * @throws IOException if the cache directory cannot be read
+   */
+  public void evict() throws IOException {
+    // FileLock is held per JVM, so threads of this JVM take turns before locking the file.
+    synchronized (DiskCache.class) {
+      // Closing the channel releases the lock.
+      try (FileChannel lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+          StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+        lockChannel.lock();
+        List<CachedBlock> blocks = listBlocks();
+        long total = blocks.stream().mapToLong(b -> b.size).sum();
+        long target = maxBytes - maxBytes / 10;
+        if (total > maxBytes) {
+          blocks.sort(Comparator.comparingLong(b -> b.lastUsed));
+          for (CachedBlock block : blocks) {
+            if (total <= target) {
+              break;
+            }
+            try {
+              Files.deleteIfExists(block.path);
+              total -= block.size;
+            } catch (IOException ex) {
+              // The block may be open in another process; try again on the next eviction.
+              LOGGER.debug("Cannot evict {}: {}", block.path, ex.getMessage());
+            }
+          }
+        }
+        synchronized (this) {
+          cachedBytes = total;
+        }
+      }
+    }
+  }
+
+  private Path blockPath(String key, long index) {
+    return directory.resolve(key).resolve(index + BLOCK_SUFFIX);
+  }
+
+  private List<CachedBlock> listBlocks() throws IOException {
+    List<CachedBlock> blocks = new ArrayList<>();
+    try (Stream<Path> paths = Files.walk(directory, 2)) {
+      paths.filter(p -> p.getFileName().toString().endsWith(BLOCK_SUFFIX)).forEach(p -> {
+        File f = p.toFile();
+        blocks.add(new CachedBlock(p, f.length(), f.lastModified()));
+      });
+    }
+    return blocks;
+  }
+
+  private static class CachedBlock {
+    private final Path path;
+    private final long size;
+    private final long lastUsed;
+
+    CachedBlock(Path path, long size, long lastUsed) {
+      this.path = path;
+      this.size = size;
+      this.lastUsed = lastUsed;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A storage object that keeps the blocks it reads from another one in a {@link DiskCache}. Runs of
+ * consecutive missing blocks are fetched from the source in a single read.
+ */
+public class DiskCachingStorageObject implements StorageObject {
+  private final StorageObject source;
+  private final DiskCache cache;
+  private final String key;
+  private final int blockSize;
+  private final long size;
+
+  /**
+   * Creates a disk-cached view of a storage object.
+   *
+   * @param source the storage object to read from
+   * @param cache the disk cache
+   * @param key the cache key of the source for this block size, see
+   *        {@link DiskCache#key(String, String, long, int)}
+   * @param blockSize the block size, in bytes
+   * @throws IOException if the size of the source cannot be determined
+   */
+  public DiskCachingStorageObject(StorageObject source, DiskCache cache, String key, int blockSize)
+      throws IOException {
+    this.source = source;
+    this.cache = cache;
+    this.key = key;
+    this.blockSize = blockSize;
+    this.size = source.size();
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public int read(long position, ByteBuffer dst) throws IOException {
+    if (position >= size) {
+      return -1;
+    }
+    long end = Math.min(size, position + dst.remaining());
+    long pos = position;
+    while (pos < end) {
+      long index = pos / blockSize;
+      byte[] block = cache.get(key, index);
+      if (block == null || block.length != blockLength(index)) {
+        // Fetch this block together with the missing blocks that follow it within the read.
+        long lastIndex = (end - 1) / blockSize;
+        long count = 1;
+        while (index + count <= lastIndex && !cache.contains(key, index + count)) {
+          count++;
+        }
+        block = fetch(index, count);
+      }
+      int offset = (int) (pos - index * blockSize);
+      int n = (int) Math.min(end - pos, block.length - offset);
+      dst.put(block, offset, n);
+      pos += n;
+    }
+    return (int) (pos - position);
+  }
+
+  /** Gets the length of a block, which is shorter than the block size only at the end. */
+  private int blockLength(long index) {
+    return (int) Math.min(blockSize, size - index * blockSize);
+  }
+
+  /** Fetches and caches a run of blocks, returning the first. */
+  private byte[] fetch(long index, long count) throws IOException {
+    long start = index * blockSize;
+    int length = (int) (Math.min(size, start + count * blockSize) - start);
+    ByteBuffer run = ByteBuffer.allocate(length);
+    source.readFully(start, run);
+    byte[] first = null;
+    for (long i = 0; i < count; i++) {
+      int from = (int) (i * blockSize);
+      byte[] block = new byte[Math.min(blockSize, length - from)];
+      System.arraycopy(run.array(), from, block, 0, block.length);
+      cache.put(key, index + i, block);
+      if (first == null) {
+        first = block;
+      }
+    }
+    return first;
+  }
+
+  @Override
+  public String getETag() {
+    return source.getETag();
+  }
+
+  @Override
+  public boolean isRemote() {
+    return source.isRemote();
+  }
+
+  @Override
+  public void close() throws IOException {
+    source.close();
+  }
+}
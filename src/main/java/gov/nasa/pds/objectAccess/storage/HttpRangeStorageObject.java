@@ -0,0 +1,259 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A remote data file read with HTTP range requests. Each call to {@link #read(long, ByteBuffer)}
+ * issues one request for the bytes that fit in the buffer, so readers should normally wrap it in a
+ * {@link BlockCachingStorageObject}.
+ *
+ * <p>
+ * If the server ignores the range of a request and sends the whole file, that response is saved to
+ * a temporary file, which serves all later reads. The file is then downloaded once, rather than
+ * once for every block read. The temporary file is deleted on {@link #close()}.
+ * </p>
+ *
+ * <p>
+ * Every request asks for the version of the file that was opened, by its entity tag. A response
+ * for another version fails with an <code>IOException</code>, so blocks of two versions are never
+ * mixed, nor cached under the key of the opened version.
+ * </p>
+ */
+public class HttpRangeStorageObject implements StorageObject {
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpRangeStorageObject.class);
+
+  private final URL url;
+  private final String etag;
+  private final AtomicLong requestCount = new AtomicLong();
+  private volatile long size;
+  // The whole file, once the server has ignored a range request.
+  private volatile StorageObject download = null;
+
+  HttpRangeStorageObject(URL url, long size, String etag) {
+    this.url = url;
+    this.size = size;
+    this.etag = etag;
+  }
+
+  /**
+   * Gets the URL the data file is read from, after any redirects.
+   *
+   * @return the URL
+   */
+  public URL getUrl() {
+    return url;
+  }
+
+  /**
+   * Gets the entity tag the server returned for the data file.
+   *
+   * @return the entity tag, or null if the server did not return one
+   */
+  @Override
+  public String getETag() {
+    return etag;
+  }
+
+  /**
+   * Gets the number of range requests issued so far.
+   *
+   * @return the request count
+   */
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  @Override
+  public long size() throws IOException {
+    if (size < 0) {
+      // The server did not send a length with the HEAD response; ask for the first byte instead and
+      // read the length from the Content-Range header.
+      HttpURLConnection conn = request(0, 0);
+      try {
+        size = parseInstanceLength(conn.getHeaderField("Content-Range"));
+        if (size < 0) {
+          throw new IOException("Cannot determine the size of '" + url + "'");
+        }
+      } finally {
+        conn.disconnect();
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public int read(long position, ByteBuffer dst) throws IOException {
+    long total = size();
+    if (position >= total) {
+      return -1;
+    }
+    int length = (int) Math.min(dst.remaining(), total - position);
+    if (length == 0) {
+      return 0;
+    }
+    StorageObject local = download;
+    if (local == null) {
+      HttpURLConnection conn = request(position, position + length - 1);
+      try (InputStream in = conn.getInputStream()) {
+        if (conn.getResponseCode() == HttpURLConnection.HTTP_PARTIAL) {
+          readFully(in, dst, length);
+          return length;
+        }
+        // The server ignored the range and is sending the whole file.
+        local = saveDownload(in);
+      } finally {
+        conn.disconnect();
+      }
+    }
+    ByteBuffer slice = dst.duplicate();
+    slice.limit(slice.position() + length);
+    local.readFully(position, slice);
+    dst.position(slice.position());
+    return length;
+  }
+
+  /**
+   * Saves the whole file, sent in response to a range request, to a temporary file.
+   */
+  private synchronized StorageObject saveDownload(InputStream in) throws IOException {
+    if (download != null) {
+      // Another thread has already saved the file.
+      return download;
+    }
+    LOGGER.debug("Range request ignored by server for '{}', downloading the whole file", url);
+    Path temp = Files.createTempFile("pds4-", ".dat");
+    try {
+      Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+      download = new FileStorageObject(
+          FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE));
+    } catch (IOException ex) {
+      Files.deleteIfExists(temp);
+      throw ex;
+    }
+    return download;
+  }
+
+  private HttpURLConnection request(long first, long last) throws IOException {
+    requestCount.incrementAndGet();
+    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+    conn.setInstanceFollowRedirects(false);
+    conn.setRequestProperty("Range", "bytes=" + first + "-" + last);
+    if (etag != null && !etag.startsWith("W/")) {
+      // A server holding another version sends it whole instead of the range.
+      conn.setRequestProperty("If-Range", etag);
+    }
+    int status = conn.getResponseCode();
+    if (status != HttpURLConnection.HTTP_PARTIAL && status != HttpURLConnection.HTTP_OK) {
+      conn.disconnect();
+      if (status == HttpURLConnection.HTTP_PRECON_FAILED) {
+        throw changed();
+      }
+      throw new IOException("Unexpected HTTP status " + status + " reading bytes " + first + "-"
+          + last + " of '" + url + "'");
+    }
+    // A server that ignores ranges also answers 200, but with the entity tag of the opened version.
+    String responseTag = conn.getHeaderField("ETag");
+    if (etag != null && (responseTag != null ? !etag.equals(responseTag)
+        : status == HttpURLConnection.HTTP_OK && !etag.startsWith("W/"))) {
+      conn.disconnect();
+      throw changed();
+    }
+    return conn;
+  }
+
+  private IOException changed() {
+    return new IOException("'" + url + "' has changed since it was opened (ETag " + etag + ")");
+  }
+
+  private static void readFully(InputStream in, ByteBuffer dst, int length) throws IOException {
+    if (dst.hasArray()) {
+      IOUtils.readFully(in, dst.array(), dst.arrayOffset() + dst.position(), length);
+      dst.position(dst.position() + length);
+      return;
+    }
+    byte[] chunk = new byte[Math.min(length, 8192)];
+    int remaining = length;
+    while (remaining > 0) {
+      int n = in.read(chunk, 0, Math.min(chunk.length, remaining));
+      if (n < 0) {
+        throw new EOFException("Unexpected end of response");
+      }
+      dst.put(chunk, 0, n);
+      remaining -= n;
+    }
+  }
+
+  static long parseInstanceLength(String contentRange) {
+    // Content-Range: bytes 0-0/12345
+    if (contentRange == null) {
+      return -1;
+    }
+    int slash = contentRange.lastIndexOf('/');
+    if (slash < 0 || "*".equals(contentRange.substring(slash + 1).trim())) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(contentRange.substring(slash + 1).trim());
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+  @Override
+  public boolean isRemote() {
+    return true;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    // Every request uses its own connection, so only a downloaded copy needs releasing.
+    if (download != null) {
+      download.close();
+      download = null;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import gov.nasa.pds.objectAccess.utility.Utility;
+
+/**
+ * A storage provider for <code>http:</code> and <code>https:</code> URLs, which fetches only the
+ * byte ranges that are read using HTTP range requests. Like {@link Utility#openConnection}, it
+ * upgrades HTTP URLs to HTTPS by default.
+ */
+public class HttpRangeStorageProvider implements StorageProvider {
+  private static final int MAX_REDIRECTS = 5;
+
+  private final boolean upgradeToHttps;
+
+  /**
+   * Creates a provider that upgrades HTTP URLs to HTTPS.
+   */
+  public HttpRangeStorageProvider() {
+    this(true);
+  }
+
+  /**
+   * Creates a provider.
+   *
+   * @param upgradeToHttps true, if HTTP URLs should be upgraded to HTTPS
+   */
+  public HttpRangeStorageProvider(boolean upgradeToHttps) {
+    this.upgradeToHttps = upgradeToHttps;
+  }
+
+  @Override
+  public boolean supports(URL url) {
+    return "http".equalsIgnoreCase(url.getProtocol())
+        || "https".equalsIgnoreCase(url.getProtocol());
+  }
+
+  @Override
+  public HttpRangeStorageObject open(URL url) throws IOException {
+    URL target = upgradeToHttps ? Utility.toHttpsUrl(url) : url;
+    // Some servers reject HEAD, such as presigned URLs that are only valid for GET. Those are asked
+    // for the first byte instead, and the length is read from the Content-Range header.
+    boolean head = true;
+    for (int redirects = 0;; redirects++) {
+      HttpURLConnection conn = (HttpURLConnection) target.openConnection();
+      try {
+        conn.setInstanceFollowRedirects(false);
+        if (head) {
+          conn.setRequestMethod("HEAD");
+        } else {
+          conn.setRequestProperty("Range", "bytes=0-0");
+        }
+        int status = conn.getResponseCode();
+        if (status >= 300 && status <= 307 && status != 306
+            && status != HttpURLConnection.HTTP_NOT_MODIFIED) {
+          target = redirectTarget(conn, redirects);
+          continue;
+        }
+        if (status == HttpURLConnection.HTTP_NOT_FOUND) {
+          throw new FileNotFoundException("The data file '" + target + "' is not found.");
+        }
+        if (status == HttpURLConnection.HTTP_PARTIAL) {
+          return new HttpRangeStorageObject(target,
+              HttpRangeStorageObject.parseInstanceLength(conn.getHeaderField("Content-Range")),
+              conn.getHeaderField("ETag"));
+        }
+        if (status == HttpURLConnection.HTTP_OK) {
+          return new HttpRangeStorageObject(target, conn.getContentLengthLong(),
+              conn.getHeaderField("ETag"));
+        }
+        if (!head) {
+          throw new IOException("Unexpected HTTP status " + status + " for '" + target + "'");
+        }
+        head = false;
+        redirects--;
+      } finally {
+        conn.disconnect();
+      }
+    }
+  }
+
+  private URL redirectTarget(HttpURLConnection conn, int redirects) throws IOException {
+    String location = conn.getHeaderField("Location");
+    URL target = location == null ? null : new URL(conn.getURL(), location);
+    // Redirection should be allowed only for HTTP and HTTPS
+    // and should be limited to 5 redirections at most.
+    if (target == null || !supports(target) || redirects >= MAX_REDIRECTS) {
+      throw new SecurityException("illegal URL redirect");
+    }
+    return upgradeToHttps ? Utility.toHttpsUrl(target) : target;
+  }
+}
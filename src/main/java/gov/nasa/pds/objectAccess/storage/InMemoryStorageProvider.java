@@ -0,0 +1,109 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A storage provider holding data files in memory, keyed by URL. Useful for products that have
+ * been generated or fetched in memory, and for tests. The provider only serves URLs that have been
+ * added with {@link #put(URL, byte[])}, so it may be registered ahead of other providers.
+ */
+public class InMemoryStorageProvider implements StorageProvider {
+  private final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+
+  /**
+   * Adds or replaces the content of a data file. The array is not copied and must not be changed
+   * afterwards.
+   *
+   * @param url the data file
+   * @param content the content of the data file
+   */
+  public void put(URL url, byte[] content) {
+    contents.put(url.toString(), content);
+  }
+
+  /**
+   * Removes a data file.
+   *
+   * @param url the data file
+   */
+  public void remove(URL url) {
+    contents.remove(url.toString());
+  }
+
+  @Override
+  public boolean supports(URL url) {
+    return contents.containsKey(url.toString());
+  }
+
+  @Override
+  public StorageObject open(URL url) throws IOException {
+    byte[] content = contents.get(url.toString());
+    if (content == null) {
+      throw new FileNotFoundException("No in-memory content for '" + url + "'");
+    }
+    return new ByteArrayStorageObject(content);
+  }
+
+  private static class ByteArrayStorageObject implements StorageObject {
+    private final byte[] content;
+
+    ByteArrayStorageObject(byte[] content) {
+      this.content = content;
+    }
+
+    @Override
+    public long size() {
+      return content.length;
+    }
+
+    @Override
+    public int read(long position, ByteBuffer dst) {
+      if (position >= content.length) {
+        return -1;
+      }
+      int n = (int) Math.min(dst.remaining(), content.length - position);
+      dst.put(content, (int) position, n);
+      return n;
+    }
+
+    @Override
+    public void close() {
+      // Nothing to release.
+    }
+  }
+}
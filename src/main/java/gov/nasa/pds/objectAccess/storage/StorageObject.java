@@ -0,0 +1,102 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * An open data file that can be read at arbitrary byte positions. Reads do not depend on any
+ * shared position, so implementations must allow concurrent calls to
+ * {@link #read(long, ByteBuffer)}.
+ */
+public interface StorageObject extends Closeable {
+
+  /**
+   * Gets the size of the data file.
+   *
+   * @return the size, in bytes
+   * @throws IOException if the size cannot be determined
+   */
+  long size() throws IOException;
+
+  /**
+   * Reads bytes starting at a given position of the data file into a buffer. At most
+   * <code>dst.remaining()</code> bytes are read, and at least one byte unless the position is at
+   * or past the end of the file.
+   *
+   * @param position the position within the data file (0-relative)
+   * @param dst the buffer to read into
+   * @return the number of bytes read, or -1 if the position is at or past the end of the file
+   * @throws IOException if an I/O error occurs
+   */
+  int read(long position, ByteBuffer dst) throws IOException;
+
+  /**
+   * Tells whether reads are served by a remote store, where each read is expensive and should be
+   * batched and cached.
+   *
+   * @return true, if the data file is remote
+   */
+  default boolean isRemote() {
+    return false;
+  }
+
+  /**
+   * Gets the entity tag identifying the version of the data file, if the store provides one.
+   *
+   * @return the entity tag, or null
+   */
+  default String getETag() {
+    return null;
+  }
+
+  /**
+   * Reads bytes starting at a given position of the data file until a buffer is full.
+   *
+   * @param position the position within the data file (0-relative)
+   * @param dst the buffer to fill
+   * @throws EOFException if the end of the file is reached before the buffer is full
+   * @throws IOException if an I/O error occurs
+   */
+  default void readFully(long position, ByteBuffer dst) throws IOException {
+    long pos = position;
+    while (dst.hasRemaining()) {
+      int n = read(pos, dst);
+      if (n < 0) {
+        throw new EOFException("Unexpected end of file at byte " + pos);
+      }
+      pos += n;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Looks up the storage provider for a data file. Providers registered with
+ * {@link #register(StorageProvider)} take precedence over those found by {@link ServiceLoader},
+ * which in turn take precedence over the built-in local-file and HTTP range providers.
+ */
+public enum StorageProviderRegistry {
+  INSTANCE;
+
+  private final List<StorageProvider> providers = new CopyOnWriteArrayList<>();
+
+  StorageProviderRegistry() {
+    for (StorageProvider provider : ServiceLoader.load(StorageProvider.class)) {
+      providers.add(provider);
+    }
+    providers.add(new LocalFileStorageProvider());
+    providers.add(new HttpRangeStorageProvider());
+  }
+
+  /**
+   * Registers a provider ahead of all others.
+   *
+   * @param provider the provider
+   */
+  public void register(StorageProvider provider) {
+    providers.add(0, provider);
+  }
+
+  /**
+   * Removes a provider.
+   *
+   * @param provider the provider
+   */
+  public void unregister(StorageProvider provider) {
+    providers.remove(provider);
+  }
+
+  /**
+   * Gets the provider for a data file.
+   *
+   * @param url the data file
+   * @return the first provider supporting the URL, or null if there is none
+   */
+  public StorageProvider getProvider(URL url) {
+    for (StorageProvider provider : providers) {
+      if (provider.supports(url)) {
+        return provider;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Opens a data file with the first provider supporting its URL.
+   *
+   * @param url the data file
+   * @return an open storage object, which the caller must close
+   * @throws IOException if no provider supports the URL, or the data file cannot be opened
+   */
+  public StorageObject open(URL url) throws IOException {
+    StorageProvider provider = getProvider(url);
+    if (provider == null) {
+      throw new IOException("No storage provider found for '" + url + "'");
+    }
+    return provider.open(url);
+  }
+
+  /**
+   * Opens a data file for reading by table and array readers. Remote data files are read through
+   * the default {@link DiskCache}, if one is configured, and an in-memory
+   * {@link BlockCachingStorageObject}.
+   *
+   * @param url the data file
+   * @return an open storage object, which the caller must close
+   * @throws IOException if no provider supports the URL, or the data file cannot be opened
+   */
+  public StorageObject openCached(URL url) throws IOException {
+    StorageObject storage = open(url);
+    if (!storage.isRemote()) {
+      return storage;
+    }
+    DiskCache cache = DiskCache.getDefault();
+    if (cache != null) {
+      String key = DiskCache.key(url.toString(), storage.getETag(), storage.size(),
+          BlockCachingStorageObject.DEFAULT_BLOCK_SIZE);
+      storage = new DiskCachingStorageObject(storage, cache, key,
+          BlockCachingStorageObject.DEFAULT_BLOCK_SIZE);
+    }
+    return new BlockCachingStorageObject(storage);
+  }
+}
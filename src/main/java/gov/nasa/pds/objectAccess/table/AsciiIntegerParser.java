@@ -0,0 +1,124 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import java.util.Arrays;
+
+/**
+ * Parses integers written in ASCII digits directly from the bytes of a field, without building a
+ * string. The accepted syntax is that of {@link java.math.BigInteger#BigInteger(String, int)}
+ * after trimming: an optional sign followed by digits of the radix, with leading and trailing
+ * white space and control characters ignored.
+ *
+ * <p>
+ * Text that is not such an integer, or whose value does not fit in a long, is left to the caller,
+ * which parses it the slower way and so reports errors or handles larger values as before.
+ * </p>
+ */
+public final class AsciiIntegerParser {
+
+  /**
+   * The value returned for text that was not parsed. A field holding {@link Long#MIN_VALUE} itself
+   * also returns this value, and is then parsed by the caller like any other unparsed text.
+   */
+  public static final long NOT_PARSED = Long.MIN_VALUE;
+
+  /** The value of each ASCII character as a digit, or 99 if it is not a digit in any radix. */
+  private static final byte[] DIGITS = new byte[128];
+
+  static {
+    Arrays.fill(DIGITS, (byte) 99);
+    for (int c = '0'; c <= '9'; c++) {
+      DIGITS[c] = (byte) (c - '0');
+    }
+    for (int c = 'a'; c <= 'z'; c++) {
+      DIGITS[c] = (byte) (c - 'a' + 10);
+      DIGITS[c - 'a' + 'A'] = (byte) (c - 'a' + 10);
+    }
+  }
+
+  private AsciiIntegerParser() {
+    // Not instantiated.
+  }
+
+  /**
+   * Parses an integer from a range of bytes.
+   *
+   * @param buf the buffer holding the text
+   * @param offset the offset of the text in the buffer
+   * @param length the length of the text, in bytes
+   * @param radix the radix of the digits, from 2 to 36
+   * @return the value, or {@link #NOT_PARSED} if the text is not an integer of the radix in ASCII
+   *         digits or its value does not fit in a long
+   */
+  public static long parse(byte[] buf, int offset, int length, int radix) {
+    int start = offset;
+    int end = offset + length;
+    while (start < end && (buf[start] & 0xFF) <= ' ') {
+      start++;
+    }
+    while (end > start && (buf[end - 1] & 0xFF) <= ' ') {
+      end--;
+    }
+    if (start == end) {
+      return NOT_PARSED;
+    }
+    boolean negative = false;
+    if (buf[start] == '-' || buf[start] == '+') {
+      negative = buf[start] == '-';
+      start++;
+      if (start == end) {
+        return NOT_PARSED;
+      }
+    }
+
+    // Accumulate negatively, as Long.parseLong does, so that Long.MIN_VALUE has a representation.
+    long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+    long multiplyLimit = limit / radix;
+    long result = 0;
+    for (int i = start; i < end; i++) {
+      int c = buf[i];
+      if (c < 0) {
+        return NOT_PARSED;
+      }
+      int digit = DIGITS[c];
+      if (digit >= radix || result < multiplyLimit) {
+        return NOT_PARSED;
+      }
+      result *= radix;
+      if (result < limit + digit) {
+        return NOT_PARSED;
+      }
+      result -= digit;
+    }
+    return negative ? result : -result;
+  }
+}
@@ -0,0 +1,232 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses real numbers written in ASCII directly from the bytes of a field, giving the same result
+ * as {@link Double#parseDouble(String)} and {@link Float#parseFloat(String)} on the field text.
+ *
+ * <p>
+ * Decimal values with at most 15 significant digits and a small power of ten, which is what most
+ * tables hold, are converted exactly with a single floating-point multiplication or division, as
+ * described by Clinger. Any other text, including hexadecimal values, <code>NaN</code>,
+ * <code>Infinity</code> and invalid values, is passed to the JDK parser.
+ * </p>
+ */
+public final class AsciiRealParser {
+
+  /** The largest integer below which every integer is exactly a double. */
+  private static final long DOUBLE_EXACT_LIMIT = 1L << 53;
+  private static final long FLOAT_EXACT_LIMIT = 1L << 24;
+  private static final int MAX_DIGITS = 15;
+
+  private static final double[] DOUBLE_POWERS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+      1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+  private static final float[] FLOAT_POWERS =
+      {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+  private static final long[] LONG_POWERS = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L,
+      10000000L, 100000000L, 1000000000L, 10000000000L, 100000000000L, 1000000000000L,
+      10000000000000L, 100000000000000L, 1000000000000000L};
+
+  /*
+   * A scanned decimal is packed in a long: the significand in the low 53 bits, the power of ten
+   * plus EXPONENT_BIAS in the next 6 bits, and the sign above them.
+   */
+  private static final long NOT_SCANNED = -1L;
+  private static final int EXPONENT_SHIFT = 53;
+  private static final int EXPONENT_BIAS = 22;
+  private static final int MAX_EXPONENT = 22 + MAX_DIGITS;
+  private static final long SIGNIFICAND_MASK = DOUBLE_EXACT_LIMIT - 1;
+  private static final long NEGATIVE = 1L << 59;
+
+  private AsciiRealParser() {
+    // Not instantiated.
+  }
+
+  /**
+   * Parses a double from a range of bytes.
+   *
+   * @param buf the buffer holding the text
+   * @param offset the offset of the text in the buffer
+   * @param length the length of the text, in bytes
+   * @return the value
+   * @throws NumberFormatException if the text is not a valid number
+   */
+  public static double parseDouble(byte[] buf, int offset, int length) {
+    long decimal = scan(buf, offset, offset + length);
+    if (decimal != NOT_SCANNED) {
+      long w = decimal & SIGNIFICAND_MASK;
+      int e10 = exponent(decimal);
+      double value = Double.NaN;
+      if (w == 0) {
+        value = 0.0;
+      } else if (e10 >= 0 && e10 <= 22) {
+        value = w * DOUBLE_POWERS[e10];
+      } else if (e10 < 0) {
+        value = w / DOUBLE_POWERS[-e10];
+      } else {
+        // Move the excess power of ten into the significand when it stays exact.
+        long scale = LONG_POWERS[e10 - 22];
+        if (w <= (DOUBLE_EXACT_LIMIT - 1) / scale) {
+          value = (w * scale) * DOUBLE_POWERS[22];
+        }
+      }
+      if (!Double.isNaN(value)) {
+        return (decimal & NEGATIVE) != 0 ? -value : value;
+      }
+    }
+    return Double.parseDouble(text(buf, offset, length));
+  }
+
+  /**
+   * Parses a float from a range of bytes.
+   *
+   * @param buf the buffer holding the text
+   * @param offset the offset of the text in the buffer
+   * @param length the length of the text, in bytes
+   * @return the value
+   * @throws NumberFormatException if the text is not a valid number
+   */
+  public static float parseFloat(byte[] buf, int offset, int length) {
+    long decimal = scan(buf, offset, offset + length);
+    if (decimal != NOT_SCANNED && (decimal & SIGNIFICAND_MASK) <= FLOAT_EXACT_LIMIT) {
+      long w = decimal & SIGNIFICAND_MASK;
+      int e10 = exponent(decimal);
+      float value = Float.NaN;
+      if (w == 0) {
+        value = 0.0f;
+      } else if (e10 >= 0 && e10 <= 10) {
+        value = w * FLOAT_POWERS[e10];
+      } else if (e10 < 0 && e10 >= -10) {
+        value = w / FLOAT_POWERS[-e10];
+      }
+      if (!Float.isNaN(value)) {
+        return (decimal & NEGATIVE) != 0 ? -value : value;
+      }
+    }
+    return Float.parseFloat(text(buf, offset, length));
+  }
+
+  private static int exponent(long decimal) {
+    return (int) ((decimal >>> EXPONENT_SHIFT) & 0x3F) - EXPONENT_BIAS;
+  }
+
+  /**
+   * Scans text of the form <code>[+-]digits[.digits][(e|E)[+-]digits]</code>, ignoring leading and
+   * trailing white space and control characters.
+   *
+   * @return the packed sign, significand and power of ten, or {@link #NOT_SCANNED} if the text
+   *         does not have that form with at most 15 significant digits, a significand that is an
+   *         exact double and a power of ten from -22 to 37
+   */
+  private static long scan(byte[] buf, int from, int to) {
+    int start = from;
+    int end = to;
+    while (start < end && (buf[start] & 0xFF) <= ' ') {
+      start++;
+    }
+    while (end > start && (buf[end - 1] & 0xFF) <= ' ') {
+      end--;
+    }
+    int i = start;
+    boolean negative = false;
+    if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+      negative = buf[i] == '-';
+      i++;
+    }
+    int digits = 0;
+    int significantDigits = 0;
+    int fractionDigits = 0;
+    long w = 0;
+    boolean point = false;
+    for (; i < end; i++) {
+      int c = buf[i];
+      if (c >= '0' && c <= '9') {
+        digits++;
+        if (point) {
+          fractionDigits++;
+        }
+        if (w != 0 || c != '0') {
+          if (++significantDigits > MAX_DIGITS) {
+            return NOT_SCANNED;
+          }
+          w = w * 10 + (c - '0');
+        }
+      } else if (c == '.' && !point) {
+        point = true;
+      } else {
+        break;
+      }
+    }
+    if (digits == 0) {
+      return NOT_SCANNED;
+    }
+    int e10 = 0;
+    if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+        negativeExponent = buf[i] == '-';
+        i++;
+      }
+      if (i == end) {
+        return NOT_SCANNED;
+      }
+      for (; i < end; i++) {
+        int c = buf[i];
+        if (c < '0' || c > '9' || e10 > 1000) {
+          // An exponent that large is far outside the fast path.
+          return NOT_SCANNED;
+        }
+        e10 = e10 * 10 + (c - '0');
+      }
+      if (negativeExponent) {
+        e10 = -e10;
+      }
+    }
+    // A zero significand is zero whatever its power of ten.
+    int exponent = w == 0 ? 0 : e10 - fractionDigits;
+    if (i != end || w >= DOUBLE_EXACT_LIMIT || exponent < -EXPONENT_BIAS
+        || exponent > MAX_EXPONENT) {
+      return NOT_SCANNED;
+    }
+    return w | ((long) (exponent + EXPONENT_BIAS) << EXPONENT_SHIFT) | (negative ? NEGATIVE : 0);
+  }
+
+  /**
+   * Gets the text of a range of bytes, for the JDK parser, which ignores the same white space.
+   */
+  private static String text(byte[] buf, int offset, int length) {
+    return new String(buf, offset, length, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,469 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import gov.nasa.pds.label.object.FieldType;
+
+/**
+ * Decodes the values of a fixed-width binary field type, reading each value with a single
+ * byte-array view access in the byte order of the type instead of assembling it byte by byte.
+ *
+ * <p>
+ * Besides single values, a decoder fills a column array with the values of a field in consecutive
+ * records of a buffer, given the record length as the stride. Each such loop is specialized for one
+ * type and byte order, so that the JIT compiles it to plain loads.
+ * </p>
+ */
+public abstract class BinaryDecoder {
+
+  private static final VarHandle SHORT_BE = view(short[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle SHORT_LE = view(short[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle INT_BE = view(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle INT_LE = view(int[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle LONG_BE = view(long[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG_LE = view(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle FLOAT_BE = view(float[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle FLOAT_LE = view(float[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final VarHandle DOUBLE_BE = view(double[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle DOUBLE_LE = view(double[].class, ByteOrder.LITTLE_ENDIAN);
+
+  private static VarHandle view(Class<?> arrayType, ByteOrder order) {
+    return MethodHandles.byteArrayViewVarHandle(arrayType, order);
+  }
+
+  // The view handles are only invoked through static final fields, which the JIT inlines.
+  static short readShort(byte[] buf, int offset, boolean bigEndian) {
+    return bigEndian ? (short) SHORT_BE.get(buf, offset) : (short) SHORT_LE.get(buf, offset);
+  }
+
+  static int readInt(byte[] buf, int offset, boolean bigEndian) {
+    return bigEndian ? (int) INT_BE.get(buf, offset) : (int) INT_LE.get(buf, offset);
+  }
+
+  static long readLong(byte[] buf, int offset, boolean bigEndian) {
+    return bigEndian ? (long) LONG_BE.get(buf, offset) : (long) LONG_LE.get(buf, offset);
+  }
+
+  private static float readFloat(byte[] buf, int offset, boolean bigEndian) {
+    return bigEndian ? (float) FLOAT_BE.get(buf, offset) : (float) FLOAT_LE.get(buf, offset);
+  }
+
+  private static double readDouble(byte[] buf, int offset, boolean bigEndian) {
+    return bigEndian ? (double) DOUBLE_BE.get(buf, offset) : (double) DOUBLE_LE.get(buf, offset);
+  }
+
+  private final int length;
+
+  private BinaryDecoder(int length) {
+    this.length = length;
+  }
+
+  /**
+   * Gets the decoder of a field type.
+   *
+   * @param type the field type
+   * @return the decoder, or null if the type is not a fixed-width binary integer or real
+   */
+  public static BinaryDecoder of(FieldType type) {
+    switch (type) {
+      case SIGNEDBYTE:
+        return forInteger(1, true, true);
+      case UNSIGNEDBYTE:
+        return forInteger(1, false, true);
+      case SIGNEDLSB2:
+        return forInteger(2, true, false);
+      case SIGNEDMSB2:
+        return forInteger(2, true, true);
+      case UNSIGNEDLSB2:
+        return forInteger(2, false, false);
+      case UNSIGNEDMSB2:
+        return forInteger(2, false, true);
+      case SIGNEDLSB4:
+        return forInteger(4, true, false);
+      case SIGNEDMSB4:
+        return forInteger(4, true, true);
+      case UNSIGNEDLSB4:
+        return forInteger(4, false, false);
+      case UNSIGNEDMSB4:
+        return forInteger(4, false, true);
+      case SIGNEDLSB8:
+      case UNSIGNEDLSB8:
+        return forInteger(8, true, false);
+      case SIGNEDMSB8:
+      case UNSIGNEDMSB8:
+        return forInteger(8, true, true);
+      case IEEE754LSBSINGLE:
+        return forReal(4, false);
+      case IEEE754MSBSINGLE:
+        return forReal(4, true);
+      case IEEE754LSBDOUBLE:
+        return forReal(8, false);
+      case IEEE754MSBDOUBLE:
+        return forReal(8, true);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Gets the decoder of a binary integer. An unsigned 8-byte integer is decoded to the long with
+   * the same bits.
+   *
+   * @param length the length of the integer, in bytes
+   * @param isSigned true if the integer is signed
+   * @param isBigEndian true if the most significant byte comes first
+   * @return the decoder, or null if the length is not 1, 2, 4 or 8
+   */
+  static BinaryDecoder forInteger(int length, boolean isSigned, boolean isBigEndian) {
+    switch (length) {
+      case 1:
+        return isSigned ? new SignedByte() : new UnsignedByte();
+      case 2:
+        return new Short16(isBigEndian, isSigned);
+      case 4:
+        return isSigned ? new SignedInt32(isBigEndian) : new UnsignedInt32(isBigEndian);
+      case 8:
+        return new Int64(isBigEndian);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Gets the decoder of an IEEE 754 real.
+   *
+   * @param length 4 for single precision, 8 for double precision
+   * @param isBigEndian true if the most significant byte comes first
+   * @return the decoder
+   */
+  static BinaryDecoder forReal(int length, boolean isBigEndian) {
+    if (length == 4) {
+      return new Float32(isBigEndian);
+    }
+    return new Float64(isBigEndian);
+  }
+
+  /**
+   * Gets the length of a value, in bytes.
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Decodes a value as a long. A real is truncated toward zero.
+   *
+   * @param buf the buffer
+   * @param offset the offset of the value in the buffer
+   * @return the value
+   */
+  public abstract long getLong(byte[] buf, int offset);
+
+  /**
+   * Decodes a value as a double.
+   *
+   * @param buf the buffer
+   * @param offset the offset of the value in the buffer
+   * @return the value
+   */
+  public abstract double getDouble(byte[] buf, int offset);
+
+  /**
+   * Decodes the values of a field in consecutive records into an int array.
+   *
+   * @param buf the buffer holding the records
+   * @param offset the offset of the value in the first record
+   * @param stride the record length, in bytes
+   * @param count the number of records
+   * @param dst the array to store the values into
+   * @param dstOffset the index of the first value in the array
+   * @throws NumberFormatException if a value does not fit an int
+   */
+  public void decode(byte[] buf, int offset, int stride, int count, int[] dst, int dstOffset) {
+    for (int i = 0; i < count; i++) {
+      long value = getLong(buf, offset + i * stride);
+      if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+        throw new NumberFormatException(
+            "Binary integer value out of range for int (" + value + ")");
+      }
+      dst[dstOffset + i] = (int) value;
+    }
+  }
+
+  /**
+   * Decodes the values of a field in consecutive records into a long array.
+   *
+   * @param buf the buffer holding the records
+   * @param offset the offset of the value in the first record
+   * @param stride the record length, in bytes
+   * @param count the number of records
+   * @param dst the array to store the values into
+   * @param dstOffset the index of the first value in the array
+   */
+  public void decode(byte[] buf, int offset, int stride, int count, long[] dst, int dstOffset) {
+    for (int i = 0; i < count; i++) {
+      dst[dstOffset + i] = getLong(buf, offset + i * stride);
+    }
+  }
+
+  /**
+   * Decodes the values of a field in consecutive records into a double array.
+   *
+   * @param buf the buffer holding the records
+   * @param offset the offset of the value in the first record
+   * @param stride the record length, in bytes
+   * @param count the number of records
+   * @param dst the array to store the values into
+   * @param dstOffset the index of the first value in the array
+   */
+  public void decode(byte[] buf, int offset, int stride, int count, double[] dst,
+      int dstOffset) {
+    for (int i = 0; i < count; i++) {
+      dst[dstOffset + i] = getDouble(buf, offset + i * stride);
+    }
+  }
+
+  private static final class SignedByte extends BinaryDecoder {
+    SignedByte() {
+      super(1);
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return buf[offset];
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return buf[offset];
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, int[] dst, int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = buf[offset + i * stride];
+      }
+    }
+  }
+
+  private static final class UnsignedByte extends BinaryDecoder {
+    UnsignedByte() {
+      super(1);
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return buf[offset] & 0xFF;
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return buf[offset] & 0xFF;
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, int[] dst, int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = buf[offset + i * stride] & 0xFF;
+      }
+    }
+  }
+
+  private static final class Short16 extends BinaryDecoder {
+    private final boolean bigEndian;
+    private final int mask;
+
+    Short16(boolean bigEndian, boolean isSigned) {
+      super(2);
+      this.bigEndian = bigEndian;
+      this.mask = isSigned ? -1 : 0xFFFF;
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return readShort(buf, offset, bigEndian) & mask;
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return getLong(buf, offset);
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, int[] dst, int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = readShort(buf, offset + i * stride, bigEndian) & mask;
+      }
+    }
+  }
+
+  private static final class SignedInt32 extends BinaryDecoder {
+    private final boolean bigEndian;
+
+    SignedInt32(boolean bigEndian) {
+      super(4);
+      this.bigEndian = bigEndian;
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return readInt(buf, offset, bigEndian);
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return readInt(buf, offset, bigEndian);
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, int[] dst, int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = readInt(buf, offset + i * stride, bigEndian);
+      }
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, long[] dst, int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = readInt(buf, offset + i * stride, bigEndian);
+      }
+    }
+  }
+
+  private static final class UnsignedInt32 extends BinaryDecoder {
+    private final boolean bigEndian;
+
+    UnsignedInt32(boolean bigEndian) {
+      super(4);
+      this.bigEndian = bigEndian;
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return readInt(buf, offset, bigEndian) & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return getLong(buf, offset);
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, long[] dst, int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = readInt(buf, offset + i * stride, bigEndian) & 0xFFFFFFFFL;
+      }
+    }
+  }
+
+  private static final class Int64 extends BinaryDecoder {
+    private final boolean bigEndian;
+
+    Int64(boolean bigEndian) {
+      super(8);
+      this.bigEndian = bigEndian;
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return readLong(buf, offset, bigEndian);
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return readLong(buf, offset, bigEndian);
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, long[] dst, int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = readLong(buf, offset + i * stride, bigEndian);
+      }
+    }
+  }
+
+  private static final class Float32 extends BinaryDecoder {
+    private final boolean bigEndian;
+
+    Float32(boolean bigEndian) {
+      super(4);
+      this.bigEndian = bigEndian;
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return (long) readFloat(buf, offset, bigEndian);
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return readFloat(buf, offset, bigEndian);
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, double[] dst,
+        int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = readFloat(buf, offset + i * stride, bigEndian);
+      }
+    }
+  }
+
+  private static final class Float64 extends BinaryDecoder {
+    private final boolean bigEndian;
+
+    Float64(boolean bigEndian) {
+      super(8);
+      this.bigEndian = bigEndian;
+    }
+
+    @Override
+    public long getLong(byte[] buf, int offset) {
+      return (long) readDouble(buf, offset, bigEndian);
+    }
+
+    @Override
+    public double getDouble(byte[] buf, int offset) {
+      return readDouble(buf, offset, bigEndian);
+    }
+
+    @Override
+    public void decode(byte[] buf, int offset, int stride, int count, double[] dst,
+        int dstOffset) {
+      for (int i = 0; i < count; i++) {
+        dst[dstOffset + i] = readDouble(buf, offset + i * stride, bigEndian);
+      }
+    }
+  }
+}
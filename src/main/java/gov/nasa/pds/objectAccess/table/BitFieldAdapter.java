@@ -187,6 +187,10 @@ public class BitFieldAdapter implements FieldAdapter {
       throw new IllegalArgumentException(msg);
     }
 
+    if (PackedBitFieldExtractor.supports(length, startBit, stopBit)) {
+      return PackedBitFieldExtractor.extract(b, offset, startBit, stopBit, isSigned);
+    }
+
     int startByte = startBit / Byte.SIZE;
 
     // hint: startBit & Byte.SIZE-1 == startBit & Byte.Size but can be faster
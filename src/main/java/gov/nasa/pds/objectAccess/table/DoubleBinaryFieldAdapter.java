@@ -40,9 +40,11 @@ import java.nio.charset.Charset;
 public class DoubleBinaryFieldAdapter implements FieldAdapter {
 
   FieldAdapter longAdapter;
+  private final BinaryDecoder decoder;
 
   public DoubleBinaryFieldAdapter(boolean isBigEndian) {
     longAdapter = new IntegerBinaryFieldAdapter(Double.SIZE / Byte.SIZE, false, isBigEndian);
+    decoder = BinaryDecoder.forReal(Double.SIZE / Byte.SIZE, isBigEndian);
   }
 
   @Override
@@ -83,6 +85,10 @@ public class DoubleBinaryFieldAdapter implements FieldAdapter {
 
   @Override
   public double getDouble(byte[] buf, int offset, int length, int startBit, int stopBit) {
+    if (length == decoder.getLength() && offset >= 0 && offset <= buf.length - length) {
+      return decoder.getDouble(buf, offset);
+    }
+    // The integer adapter reports the invalid length or offset.
     long bits = longAdapter.getLong(buf, offset, length, 0, 0);
     return Double.longBitsToDouble(bits);
   }
@@ -40,9 +40,11 @@ import java.nio.charset.Charset;
 public class FloatBinaryFieldAdapter implements FieldAdapter {
 
   FieldAdapter intAdapter;
+  private final BinaryDecoder decoder;
 
   public FloatBinaryFieldAdapter(boolean isBigEndian) {
     intAdapter = new IntegerBinaryFieldAdapter(Float.SIZE / Byte.SIZE, true, isBigEndian);
+    decoder = BinaryDecoder.forReal(Float.SIZE / Byte.SIZE, isBigEndian);
   }
 
   @Override
@@ -78,6 +80,10 @@ public class FloatBinaryFieldAdapter implements FieldAdapter {
 
   @Override
   public float getFloat(byte[] buf, int offset, int length, int startBit, int stopBit) {
+    if (length == decoder.getLength() && offset >= 0 && offset <= buf.length - length) {
+      return (float) decoder.getDouble(buf, offset);
+    }
+    // The integer adapter reports the invalid length or offset.
     int bits = intAdapter.getInt(buf, offset, length, 0, 0);
     return Float.intBitsToFloat(bits);
   }
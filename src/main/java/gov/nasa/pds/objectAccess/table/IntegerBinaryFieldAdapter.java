@@ -45,11 +45,13 @@ public class IntegerBinaryFieldAdapter implements FieldAdapter {
   private int dataLength;
   private boolean isSigned;
   private boolean isBigEndian;
+  private final BinaryDecoder decoder;
 
   public IntegerBinaryFieldAdapter(int length, boolean isSigned, boolean isBigEndian) {
     this.dataLength = length;
     this.isSigned = isSigned;
     this.isBigEndian = isBigEndian;
+    this.decoder = BinaryDecoder.forInteger(length, isSigned, isBigEndian);
   }
 
   @Override
@@ -184,6 +186,9 @@ public class IntegerBinaryFieldAdapter implements FieldAdapter {
           + "' exceeds the number of bytes in the record '" + b.length + "'");
     }
 
+    if (decoder != null) {
+      return decoder.getLong(b, offset);
+    }
     if (isBigEndian) {
       return getFieldValueBigEndian(b, offset, length);
     }
@@ -46,7 +46,7 @@ public class NumericTextFieldAdapter extends DefaultFieldAdapter {
 
 @Override
   public byte getByte(byte[] buf, int offset, int length, int startBit, int stopBit) {
-    int value = this.getBigInteger(buf, offset, length, startBit, stopBit).intValue();
+    int value = this.getInt(buf, offset, length, startBit, stopBit);
     if (value < Byte.MIN_VALUE || value > Byte.MAX_VALUE) {
       throw new NumberFormatException("Value is out of range of a byte (" + value + ")");
     }
@@ -56,7 +56,7 @@ public class NumericTextFieldAdapter extends DefaultFieldAdapter {
 
   @Override
   public short getShort(byte[] buf, int offset, int length, int startBit, int stopBit) {
-    int value = this.getBigInteger(buf, offset, length, startBit, stopBit).intValue();
+    int value = this.getInt(buf, offset, length, startBit, stopBit);
     if (value < Short.MIN_VALUE || value > Short.MAX_VALUE) {
       throw new NumberFormatException("Value is out of range of a short (" + value + ")");
     }
@@ -66,22 +66,39 @@ public class NumericTextFieldAdapter extends DefaultFieldAdapter {
 
   @Override
   public int getInt(byte[] buf, int offset, int length, int startBit, int stopBit) {
-    return this.getBigInteger(buf, offset, length, startBit, stopBit).intValue();
+    // Narrowed like BigInteger.intValue(), to the low-order 32 bits.
+    return (int) this.getLong(buf, offset, length, startBit, stopBit);
   }
 
   @Override
   public long getLong(byte[] buf, int offset, int length, int startBit, int stopBit) {
+    long value = AsciiIntegerParser.parse(buf, offset, length, this.radix);
+    if (value != AsciiIntegerParser.NOT_PARSED) {
+      return value;
+    }
+    // Not a plain ASCII integer within 64 bits: report the error, or narrow the larger value.
     return this.getBigInteger(buf, offset, length, startBit, stopBit).longValue();
   }
 
   @Override
   public float getFloat(byte[] buf, int offset, int length, int startBit, int stopBit) {
-    return Float.parseFloat(getString(buf, offset, length, startBit, stopBit).trim());
+    if (this.radix != 10) {
+      return (float) this.getDouble(buf, offset, length, startBit, stopBit);
+    }
+    return AsciiRealParser.parseFloat(buf, offset, length);
   }
 
   @Override
   public double getDouble(byte[] buf, int offset, int length, int startBit, int stopBit) {
-    return Double.parseDouble(getString(buf, offset, length, startBit, stopBit).trim());
+    if (this.radix != 10) {
+      // Only decimal fields hold reals; the other radixes hold integers.
+      long value = AsciiIntegerParser.parse(buf, offset, length, this.radix);
+      if (value != AsciiIntegerParser.NOT_PARSED) {
+        return value;
+      }
+      return this.getBigInteger(buf, offset, length, startBit, stopBit).doubleValue();
+    }
+    return AsciiRealParser.parseDouble(buf, offset, length);
   }
 
   @Override
@@ -0,0 +1,253 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import java.util.Arrays;
+import gov.nasa.pds.label.object.FieldDescription;
+import gov.nasa.pds.label.object.FieldType;
+
+/**
+ * Extracts all bit fields of a packed binary field at once. The bit fields of a
+ * <code>Packed_Data_Fields</code> element are expanded to field descriptions sharing the offset
+ * and length of the packed field, see {@link TableBinaryAdapter}. Instead of assembling each bit
+ * field on its own, the extractor loads the containing word of a record once, as a big-endian
+ * value of at most 8 bytes, and takes every bit field out of it with two shifts.
+ *
+ * <p>
+ * A packed field longer than 8 bytes is loaded as several words, each covering as many
+ * consecutive bit fields as fit into it. A bit field that spans 9 bytes, that is, one wider than
+ * 57 bits that does not start on a byte boundary, is not supported, see
+ * {@link #supports(int, int, int)}.
+ * </p>
+ */
+public final class PackedBitFieldExtractor {
+
+  private final int offset;
+  private final int length;
+  /** The byte offsets of the loaded words, relative to the packed field. */
+  private final int[] wordOffsets;
+  /** The lengths of the loaded words, in bytes. */
+  private final int[] wordLengths;
+  /** The index of the word holding each bit field. */
+  private final int[] words;
+  /** The left shift that moves the first bit of each bit field to the sign bit of a long. */
+  private final int[] leftShifts;
+  /** The right shift that moves each bit field to the rightmost bits of a long. */
+  private final int[] rightShifts;
+  private final boolean[] signed;
+
+  /**
+   * Creates a new extractor for the bit fields of a packed field.
+   *
+   * @param fields the descriptions of the bit fields, all with the offset and length of the
+   *        packed field
+   * @throws IllegalArgumentException if there are no fields, a field is not a bit string, the
+   *         fields are not in the same packed field, or a bit field is not supported
+   */
+  public PackedBitFieldExtractor(FieldDescription... fields) {
+    if (fields.length == 0) {
+      throw new IllegalArgumentException("No bit fields to extract");
+    }
+    this.offset = fields[0].getOffset();
+    this.length = fields[0].getLength();
+    this.words = new int[fields.length];
+    this.leftShifts = new int[fields.length];
+    this.rightShifts = new int[fields.length];
+    this.signed = new boolean[fields.length];
+    int[] offsets = new int[fields.length];
+    int[] lengths = new int[fields.length];
+    int wordCount = 0;
+    for (int i = 0; i < fields.length; i++) {
+      FieldDescription field = fields[i];
+      if (field.getType() != FieldType.SIGNEDBITSTRING
+          && field.getType() != FieldType.UNSIGNEDBITSTRING) {
+        throw new IllegalArgumentException("Field " + field.getName() + " is not a bit string");
+      }
+      if (field.getOffset() != offset || field.getLength() != length) {
+        throw new IllegalArgumentException(
+            "Field " + field.getName() + " is not in the same packed field");
+      }
+      int startBit = field.getStartBit();
+      int stopBit = field.getStopBit();
+      if (!supports(length, startBit, stopBit)) {
+        throw new IllegalArgumentException("Bit field " + field.getName()
+            + " is not supported (" + startBit + " to " + stopBit + ")");
+      }
+
+      // Reuse the last word if it holds the bit field, or else start a new one.
+      int word = wordCount - 1;
+      if (word < 0 || startBit < offsets[word] * Byte.SIZE
+          || stopBit >= (offsets[word] + lengths[word]) * Byte.SIZE) {
+        word = wordCount++;
+        offsets[word] = length <= Long.BYTES ? 0 : startBit / Byte.SIZE;
+        lengths[word] = Math.min(Long.BYTES, length - offsets[word]);
+      }
+      words[i] = word;
+      leftShifts[i] =
+          Long.SIZE - lengths[word] * Byte.SIZE + startBit - offsets[word] * Byte.SIZE;
+      rightShifts[i] = Long.SIZE - (stopBit - startBit + 1);
+      signed[i] = field.getType() == FieldType.SIGNEDBITSTRING;
+    }
+    this.wordOffsets = Arrays.copyOf(offsets, wordCount);
+    this.wordLengths = Arrays.copyOf(lengths, wordCount);
+  }
+
+  /**
+   * Tests whether a bit field can be extracted from a packed field.
+   *
+   * @param length the length of the packed field, in bytes
+   * @param startBit the 0-relative start bit
+   * @param stopBit the 0-relative stop bit, inclusive
+   * @return true, if the bit field lies within the packed field and spans at most 8 bytes
+   */
+  public static boolean supports(int length, int startBit, int stopBit) {
+    return startBit >= 0 && stopBit >= startBit && stopBit < length * Byte.SIZE
+        && (startBit & (Byte.SIZE - 1)) + (stopBit - startBit + 1) <= Long.SIZE;
+  }
+
+  /**
+   * Gets the offset of the packed field within a record.
+   *
+   * @return the offset, in bytes
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Gets the length of the packed field.
+   *
+   * @return the length, in bytes
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Gets the number of bit fields.
+   *
+   * @return the number of bit fields
+   */
+  public int getFieldCount() {
+    return words.length;
+  }
+
+  /**
+   * Extracts the bit fields of a record.
+   *
+   * @param buf the buffer holding the record
+   * @param recordOffset the offset of the record in the buffer
+   * @param values the array receiving the value of each bit field
+   */
+  public void extract(byte[] buf, int recordOffset, long[] values) {
+    long[] loaded = new long[wordOffsets.length];
+    loadWords(buf, recordOffset + offset, loaded);
+    for (int i = 0; i < words.length; i++) {
+      values[i] = getBits(loaded[words[i]], i);
+    }
+  }
+
+  /**
+   * Extracts the bit fields of consecutive records into one column array per bit field.
+   *
+   * @param buf the buffer holding the records
+   * @param recordOffset the offset of the first record in the buffer
+   * @param stride the distance between records, in bytes
+   * @param count the number of records
+   * @param columns the column arrays, one per bit field, in the order of the bit fields
+   * @param dstOffset the index in the column arrays receiving the value of the first record
+   */
+  public void extract(byte[] buf, int recordOffset, int stride, int count, long[][] columns,
+      int dstOffset) {
+    long[] loaded = new long[wordOffsets.length];
+    int pos = recordOffset + offset;
+    for (int n = 0; n < count; n++, pos += stride) {
+      loadWords(buf, pos, loaded);
+      for (int i = 0; i < words.length; i++) {
+        columns[i][dstOffset + n] = getBits(loaded[words[i]], i);
+      }
+    }
+  }
+
+  private void loadWords(byte[] buf, int pos, long[] loaded) {
+    for (int w = 0; w < wordOffsets.length; w++) {
+      loaded[w] = loadWord(buf, pos + wordOffsets[w], wordLengths[w]);
+    }
+  }
+
+  private long getBits(long word, int i) {
+    long value = word << leftShifts[i];
+    return signed[i] ? value >> rightShifts[i] : value >>> rightShifts[i];
+  }
+
+  /**
+   * Extracts a single bit field. The bit field must be supported, see
+   * {@link #supports(int, int, int)}.
+   *
+   * @param buf the buffer holding the packed field
+   * @param offset the offset of the packed field in the buffer
+   * @param startBit the 0-relative start bit
+   * @param stopBit the 0-relative stop bit, inclusive
+   * @param isSigned true, if the bit field is sign-extended
+   * @return the value of the bit field
+   */
+  static long extract(byte[] buf, int offset, int startBit, int stopBit, boolean isSigned) {
+    int startByte = startBit / Byte.SIZE;
+    int wordLength = stopBit / Byte.SIZE - startByte + 1;
+    long value = loadWord(buf, offset + startByte, wordLength)
+        << (Long.SIZE - wordLength * Byte.SIZE + (startBit & (Byte.SIZE - 1)));
+    int rightShift = Long.SIZE - (stopBit - startBit + 1);
+    return isSigned ? value >> rightShift : value >>> rightShift;
+  }
+
+  /**
+   * Loads a big-endian unsigned word of 1 to 8 bytes.
+   */
+  private static long loadWord(byte[] buf, int pos, int length) {
+    switch (length) {
+      case 8:
+        return BinaryDecoder.readLong(buf, pos, true);
+      case 4:
+        return BinaryDecoder.readInt(buf, pos, true) & 0xFFFFFFFFL;
+      case 2:
+        return BinaryDecoder.readShort(buf, pos, true) & 0xFFFFL;
+      case 1:
+        return buf[pos] & 0xFFL;
+      default:
+        long word = 0;
+        for (int i = 0; i < length; i++) {
+          word = (word << Byte.SIZE) | (buf[pos + i] & 0xFF);
+        }
+        return word;
+    }
+  }
+
+}
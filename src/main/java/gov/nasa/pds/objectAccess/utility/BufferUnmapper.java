@@ -0,0 +1,112 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.utility;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Releases memory-mapped buffers without waiting for them to be garbage collected.
+ *
+ * <p>
+ * The JDK offers no public way to unmap a {@link java.nio.MappedByteBuffer}. This class uses
+ * <code>sun.misc.Unsafe.invokeCleaner()</code>, which is available from the
+ * <code>jdk.unsupported</code> module. When that is not accessible, unmapping is left to the
+ * garbage collector and {@link #unmap(ByteBuffer)} returns false.
+ * </p>
+ *
+ * <p>
+ * A buffer must never be accessed after it has been unmapped; doing so may crash the JVM. Callers
+ * are responsible for making sure no other thread still uses the buffer or a view of it.
+ * </p>
+ */
+public final class BufferUnmapper {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BufferUnmapper.class);
+
+  private static final MethodHandle INVOKE_CLEANER = lookupInvokeCleaner();
+
+  // Utility class - avoid instantiation.
+  private BufferUnmapper() {
+    // never called
+  }
+
+  private static MethodHandle lookupInvokeCleaner() {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+      theUnsafe.setAccessible(true);
+      Object unsafe = theUnsafe.get(null);
+      MethodHandle handle = MethodHandles.lookup().findVirtual(unsafeClass, "invokeCleaner",
+          MethodType.methodType(void.class, ByteBuffer.class));
+      return handle.bindTo(unsafe);
+    } catch (Exception | LinkageError ex) {
+      LOGGER.debug("Unmapping of buffers is not supported, relying on garbage collection.", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Tests whether buffers can be unmapped deterministically in this JVM.
+   *
+   * @return true, if {@link #unmap(ByteBuffer)} is able to release mappings
+   */
+  public static boolean isSupported() {
+    return INVOKE_CLEANER != null;
+  }
+
+  /**
+   * Unmaps a direct buffer that was returned by {@link java.nio.channels.FileChannel#map}.
+   * Duplicates, slices and heap buffers are ignored.
+   *
+   * @param buffer the buffer to unmap
+   * @return true, if the mapping was released
+   */
+  public static boolean unmap(ByteBuffer buffer) {
+    if (INVOKE_CLEANER == null || buffer == null || !buffer.isDirect()) {
+      return false;
+    }
+    try {
+      INVOKE_CLEANER.invokeExact(buffer);
+      return true;
+    } catch (IllegalArgumentException ex) {
+      // A slice or duplicate of a mapping: only the original buffer may be unmapped.
+      return false;
+    } catch (Throwable ex) {
+      LOGGER.debug("Could not unmap buffer.", ex);
+      return false;
+    }
+  }
+}
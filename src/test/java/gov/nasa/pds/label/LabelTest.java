@@ -31,6 +31,7 @@
 package gov.nasa.pds.label;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import java.io.File;
@@ -39,7 +40,9 @@ import org.testng.annotations.Test;
 import gov.nasa.arc.pds.xml.generated.ProductObservational;
 import gov.nasa.pds.label.object.DataObject;
 import gov.nasa.pds.label.object.TableObject;
+import gov.nasa.pds.objectAccess.DataFilePool;
 import gov.nasa.pds.objectAccess.ParseException;
+import gov.nasa.pds.objectAccess.TableReader;
 
 public class LabelTest {
 
@@ -101,6 +104,26 @@ public class LabelTest {
     assertEquals(recordCount, 23);
   }
 
+  @Test
+  public void testTableReadersShareDataFile() throws Exception {
+    Label label = Label.open(new File(TABLE_CHARACTER_LABEL));
+    TableObject table = label.getObjects(TableObject.class).get(0);
+    DataFilePool pool = table.getDataFilePool();
+    assertNotNull(pool);
+
+    TableReader first = table.getTableReader();
+    TableReader second = table.getTableReader();
+    assertEquals(pool.getOpenFileCount(), 1);
+    assertSame(first.getAccessor().getRandomAccessFile(),
+        second.getAccessor().getRandomAccessFile());
+    assertEquals(second.readNext().getString(1), first.readNext().getString(1));
+
+    first.close();
+    assertEquals(pool.getOpenFileCount(), 1);
+    second.close();
+    assertEquals(pool.getOpenFileCount(), 0);
+  }
+
   @Test
   public void testReadBinaryTable() throws Exception {
     Label label = Label.open(new File("src/test/resources/1000/Binary_Table_Test.xml"));
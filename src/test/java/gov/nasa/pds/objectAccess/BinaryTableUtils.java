@@ -0,0 +1,98 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.math.BigInteger;
+import java.util.List;
+import gov.nasa.arc.pds.xml.generated.FieldBinary;
+import gov.nasa.arc.pds.xml.generated.FieldLength;
+import gov.nasa.arc.pds.xml.generated.FieldLocation;
+import gov.nasa.arc.pds.xml.generated.Offset;
+import gov.nasa.arc.pds.xml.generated.RecordBinary;
+import gov.nasa.arc.pds.xml.generated.RecordLength;
+import gov.nasa.arc.pds.xml.generated.TableBinary;
+
+/**
+ * Implements utilities for testing with binary tables.
+ */
+public class BinaryTableUtils {
+
+  /**
+   * Creates the label of a binary table at the start of its data file.
+   *
+   * @param records the number of records
+   * @param recordLength the record length, in bytes
+   * @param fields the fields of a record, in order
+   * @return the table
+   */
+  static TableBinary createTable(long records, int recordLength, FieldBinary... fields) {
+    RecordBinary record = new RecordBinary();
+    RecordLength recLength = new RecordLength();
+    recLength.setValue(BigInteger.valueOf(recordLength));
+    record.setRecordLength(recLength);
+    record.setFields(BigInteger.valueOf(fields.length));
+    record.setGroups(BigInteger.ZERO);
+    record.getFieldBinariesAndGroupFieldBinaries().addAll(List.of(fields));
+
+    Offset offset = new Offset();
+    offset.setValue(BigInteger.ZERO);
+    TableBinary table = new TableBinary();
+    table.setRecordBinary(record);
+    table.setRecords(BigInteger.valueOf(records));
+    table.setOffset(offset);
+    return table;
+  }
+
+  /**
+   * Creates a field of a binary table.
+   *
+   * @param name the field name
+   * @param type the field type
+   * @param location the location of the field in the record (1-relative)
+   * @param length the field length, in bytes
+   * @param number the field number (1-relative)
+   * @return the field
+   */
+  static FieldBinary createField(String name, String type, int location, int length,
+      int number) {
+    FieldBinary field = new FieldBinary();
+    field.setName(name);
+    field.setDataType(type);
+    FieldLocation loc = new FieldLocation();
+    loc.setValue(BigInteger.valueOf(location));
+    field.setFieldLocation(loc);
+    FieldLength len = new FieldLength();
+    len.setValue(BigInteger.valueOf(length));
+    field.setFieldLength(len);
+    field.setFieldNumber(BigInteger.valueOf(number));
+    return field;
+  }
+}
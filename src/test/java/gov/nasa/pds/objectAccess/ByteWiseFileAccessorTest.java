@@ -32,9 +32,17 @@ package gov.nasa.pds.objectAccess;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -91,4 +99,228 @@ public class ByteWiseFileAccessorTest {
     byte[] bytes = fileObject.readRecordBytes(3, 4, 2);
     assertEquals(bytes, new byte[] {0x04, (byte) 0xE4});
   }
+
+  @Test
+  public void testReadRecordBytesIntoBuffer() throws Exception {
+    ByteWiseFileAccessor fileObject = new ByteWiseFileAccessor(new File(BIN_DATA_FILE), 0, 96, 336);
+    byte[] buf = new byte[12];
+    fileObject.readRecordBytes(2, 4, 2, buf, 10);
+    fileObject.close();
+    assertEquals(buf[10], (byte) 0x04);
+    assertEquals(buf[11], (byte) 0xE8);
+  }
+
+  @Test
+  public void testGetRecordBuffer() throws Exception {
+    ByteWiseFileAccessor fileObject = new ByteWiseFileAccessor(new File(BIN_DATA_FILE), 0, 96, 336);
+    ByteBuffer record = fileObject.getRecordBuffer(1);
+    assertTrue(record.isReadOnly());
+    assertEquals(record.remaining(), 96);
+    assertEquals(record.get(8), (byte) 0x40);
+    assertEquals(record.get(15), (byte) 0x57);
+    assertEquals(fileObject.getRecordBuffer(2).get(5), (byte) 0xE8);
+    fileObject.close();
+  }
+
+  private ByteWiseFileAccessor openLazy() throws Exception {
+    return new ByteWiseFileAccessor(new File(BIN_DATA_FILE).toURI().toURL(), 0, 96, 336, true,
+        null, MappingMode.LAZY);
+  }
+
+  @Test
+  public void testLazyReadRecordBytes() throws Exception {
+    ByteWiseFileAccessor fileObject = openLazy();
+    assertEquals(fileObject.getMappingMode(), MappingMode.LAZY);
+    assertEquals(fileObject.getTotalBytesRead(), 96 * 336);
+    assertEquals(fileObject.readRecordBytes(1, 8, 8),
+        new byte[] {0x40, 0x1C, 0x7B, 0x73, (byte) 0xA5, (byte) 0xD9, 0x7F, 0x57});
+    assertEquals(fileObject.getRecordBuffer(2).get(5), (byte) 0xE8);
+    assertEquals(fileObject.readByte(), fileObject.readRecordBytes(1, 0, 1)[0]);
+    fileObject.close();
+  }
+
+  @Test
+  public void testLazyMappingLimit() throws Exception {
+    long oldLimit = ByteWiseFileAccessor.getMaxMappedBytes();
+    long before = ByteWiseFileAccessor.getMappedBytes();
+    ByteWiseFileAccessor first = openLazy();
+    ByteWiseFileAccessor second = openLazy();
+    try {
+      ByteWiseFileAccessor.setMaxMappedBytes(1);
+      first.readRecordBytes(1, 0, 96);
+      second.readRecordBytes(1, 0, 96);
+      // Only the most recently used window stays mapped.
+      assertTrue(ByteWiseFileAccessor.getMappedBytes() <= 96 * 336);
+      // An evicted window is mapped again when it is next read.
+      assertEquals(first.readRecordBytes(2, 4, 2), new byte[] {0x04, (byte) 0xE8});
+    } finally {
+      first.close();
+      second.close();
+      ByteWiseFileAccessor.setMaxMappedBytes(oldLimit);
+    }
+    assertEquals(ByteWiseFileAccessor.getMappedBytes(), before);
+  }
+
+  @Test
+  public void testBadDefaultProperties() {
+    try {
+      System.setProperty(ByteWiseFileAccessor.MAPPING_MODE_PROPERTY, "eagre");
+      System.setProperty(MappedWindowCache.MAX_MAPPED_BYTES_PROPERTY, "0");
+      // A bad setting is ignored rather than leaving the class unusable.
+      assertEquals(ByteWiseFileAccessor.initialMappingMode(), MappingMode.EAGER);
+      assertEquals(MappedWindowCache.createDefault().getMaxMappedBytes(),
+          MappedWindowCache.DEFAULT_MAX_MAPPED_BYTES);
+      System.setProperty(ByteWiseFileAccessor.MAPPING_MODE_PROPERTY, "lazy");
+      assertEquals(ByteWiseFileAccessor.initialMappingMode(), MappingMode.LAZY);
+    } finally {
+      System.clearProperty(ByteWiseFileAccessor.MAPPING_MODE_PROPERTY);
+      System.clearProperty(MappedWindowCache.MAX_MAPPED_BYTES_PROPERTY);
+    }
+  }
+
+  @Test
+  public void testAlignedMappingSize() {
+    assertEquals(ByteWiseFileAccessor.alignedMappingSize(1000, 96), 960);
+    assertEquals(ByteWiseFileAccessor.alignedMappingSize(1000, 100), 1000);
+    assertEquals(ByteWiseFileAccessor.alignedMappingSize(1000, 1500), 1500);
+    assertEquals(ByteWiseFileAccessor.alignedMappingSize(1000, -1), 1000);
+  }
+
+  @Test
+  public void testConcurrentPositionalReads() throws Exception {
+    ByteWiseFileAccessor fileObject = new ByteWiseFileAccessor(new File(BIN_DATA_FILE), 0, 96, 336);
+    byte[] expected = new byte[96 * 336];
+    assertEquals(fileObject.readBytesAt(0, expected, 0, expected.length), expected.length);
+    assertEquals(fileObject.getCurrentPosition(), 0);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        final int start = t;
+        results.add(executor.submit(() -> {
+          byte[] buf = new byte[96];
+          for (int recordNum = start + 1; recordNum <= 336; recordNum += 4) {
+            fileObject.readRecordBytes(recordNum, 0, 96, buf, 0);
+            if (!Arrays.equals(buf, 0, 96, expected, (recordNum - 1) * 96, recordNum * 96)) {
+              return false;
+            }
+          }
+          return true;
+        }));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+      assertEquals(fileObject.readByteAt(96), expected[96]);
+      assertEquals(fileObject.readBytesAt(expected.length, new byte[1], 0, 1), -1);
+    } finally {
+      executor.shutdown();
+      fileObject.close();
+    }
+  }
+
+  @Test
+  public void testChannelMode() throws Exception {
+    ByteWiseFileAccessor mapped = new ByteWiseFileAccessor(new File(BIN_DATA_FILE), 0, 96, 336);
+    ByteWiseFileAccessor channel = new ByteWiseFileAccessor(new File(BIN_DATA_FILE).toURI().toURL(),
+        0, 96, 336, true, null, MappingMode.fromName("channel"));
+    try {
+      assertEquals(channel.getMappingMode(), MappingMode.CHANNEL);
+      assertEquals(channel.getTotalBytesRead(), mapped.getTotalBytesRead());
+      assertEquals(channel.readRecordBytes(1, 8, 8), mapped.readRecordBytes(1, 8, 8));
+      assertEquals(channel.getRecordBuffer(336), mapped.getRecordBuffer(336));
+      assertEquals(channel.readByteAt(1000), mapped.readByteAt(1000));
+
+      byte[] expected = new byte[96 * 336];
+      byte[] actual = new byte[96 * 336 + 10];
+      mapped.readBytes(expected, 0, expected.length);
+      assertEquals(channel.readBytes(actual, 0, actual.length), expected.length);
+      assertEquals(Arrays.copyOf(actual, expected.length), expected);
+      assertEquals(channel.readBytes(actual, 0, actual.length), -1);
+    } finally {
+      mapped.close();
+      channel.close();
+    }
+  }
+
+  @Test
+  public void testStreamingMode() throws Exception {
+    int oldSize = ByteWiseFileAccessor.getPrefetchBufferSize();
+    int oldDepth = ByteWiseFileAccessor.getPrefetchDepth();
+    // Small buffers, so that records straddle buffers and the scan crosses many of them.
+    ByteWiseFileAccessor.setPrefetchBufferSize(1000);
+    ByteWiseFileAccessor.setPrefetchDepth(2);
+    ByteWiseFileAccessor mapped = new ByteWiseFileAccessor(new File(BIN_DATA_FILE), 0, 96, 336);
+    ByteWiseFileAccessor streaming = new ByteWiseFileAccessor(
+        new File(BIN_DATA_FILE).toURI().toURL(), 0, 96, 336, true, null, MappingMode.STREAMING);
+    try {
+      assertEquals(streaming.getMappingMode(), MappingMode.STREAMING);
+      byte[] expected = new byte[96];
+      byte[] actual = new byte[96];
+      for (int recordNum = 1; recordNum <= 336; recordNum++) {
+        mapped.readRecordBytes(recordNum, 0, 96, expected, 0);
+        streaming.readRecordBytes(recordNum, 0, 96, actual, 0);
+        assertEquals(actual, expected);
+      }
+      // Jumps backwards and far ahead restart the prefetch.
+      assertEquals(streaming.readRecordBytes(2, 4, 2), new byte[] {0x04, (byte) 0xE8});
+      assertEquals(streaming.readRecordBytes(300, 0, 96), mapped.readRecordBytes(300, 0, 96));
+      assertEquals(streaming.readRecordBytes(1, 8, 8), mapped.readRecordBytes(1, 8, 8));
+    } finally {
+      mapped.close();
+      streaming.close();
+      ByteWiseFileAccessor.setPrefetchBufferSize(oldSize);
+      ByteWiseFileAccessor.setPrefetchDepth(oldDepth);
+    }
+  }
+
+  @DataProvider(name = "mappingModes")
+  public Object[][] getMappingModes() {
+    return new Object[][] {{MappingMode.EAGER}, {MappingMode.LAZY}, {MappingMode.CHANNEL},
+        {MappingMode.STREAMING}};
+  }
+
+  @Test(dataProvider = "mappingModes", expectedExceptions = IllegalStateException.class)
+  public void testReadAfterClose(MappingMode mode) throws Exception {
+    ByteWiseFileAccessor fileObject = new ByteWiseFileAccessor(
+        new File(BIN_DATA_FILE).toURI().toURL(), 0, 96, 336, true, null, mode);
+    fileObject.readRecordBytes(1, 0, 96);
+    fileObject.close();
+    fileObject.readRecordBytes(2, 0, 96);
+  }
+
+  @Test(dataProvider = "mappingModes")
+  public void testCloseDuringReads(MappingMode mode) throws Exception {
+    ByteWiseFileAccessor fileObject = new ByteWiseFileAccessor(
+        new File(BIN_DATA_FILE).toURI().toURL(), 0, 96, 336, true, null, mode);
+    byte[] expected = fileObject.readRecordBytes(7, 0, 96);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        results.add(executor.submit(() -> {
+          byte[] buf = new byte[96];
+          try {
+            while (true) {
+              fileObject.readRecordBytesDirect(7, 0, 96, buf, 0);
+              if (!Arrays.equals(buf, expected)) {
+                return false;
+              }
+            }
+          } catch (IllegalStateException ex) {
+            // Reads after close fail cleanly.
+            return true;
+          }
+        }));
+      }
+      Thread.sleep(50);
+      fileObject.close();
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
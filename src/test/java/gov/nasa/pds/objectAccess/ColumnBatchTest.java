@@ -0,0 +1,241 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static gov.nasa.pds.objectAccess.BinaryTableUtils.createField;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.FieldBinary;
+import gov.nasa.arc.pds.xml.generated.FieldBit;
+import gov.nasa.arc.pds.xml.generated.PackedDataFields;
+import gov.nasa.arc.pds.xml.generated.TableBinary;
+import gov.nasa.pds.label.Label;
+import gov.nasa.pds.label.object.TableObject;
+import gov.nasa.pds.label.object.TableRecord;
+import gov.nasa.pds.objectAccess.ColumnBatch.ColumnType;
+
+public class ColumnBatchTest {
+
+  @DataProvider(name = "tables")
+  public Object[][] getTables() {
+    return new Object[][] {{"src/test/resources/1000/Binary_Table_Test.xml"},
+        {"src/test/resources/data_type_tests/BinaryIntegerTable.xml"},
+        {"src/test/resources/1000/Product_Table_Character.xml"},
+        {"src/test/resources/pds368/maven_events_20140801.xml"}};
+  }
+
+  @Test(dataProvider = "tables")
+  public void testBatchesMatchRecords(String labelPath) throws Exception {
+    Label label = Label.open(new File(labelPath));
+    TableObject table = label.getObjects(TableObject.class).get(0);
+    TableReader recordReader = table.getTableReader();
+    TableReader batchReader = table.getTableReader();
+    try {
+      ColumnBatch batch = batchReader.newBatch(7);
+      long row = 0;
+      while (batchReader.readBatch(batch) > 0) {
+        assertEquals(batch.getFirstRow(), row + 1);
+        for (int i = 0; i < batch.getRowCount(); i++) {
+          TableRecord record = recordReader.readNext();
+          assertNotNull(record);
+          for (int col = 1; col <= batch.getColumnCount(); col++) {
+            assertColumnValue(batch, col, i, record);
+          }
+        }
+        row += batch.getRowCount();
+      }
+      assertEquals(row, batchReader.getAdapter().getRecordCount());
+      assertNull(recordReader.readNext());
+      assertEquals(batchReader.readBatch(batch), 0);
+    } finally {
+      recordReader.close();
+      batchReader.close();
+      label.close();
+    }
+  }
+
+  private void assertColumnValue(ColumnBatch batch, int col, int row, TableRecord record) {
+    if (batch.getColumnType(col) != ColumnType.STRING && batch.getNulls(col)[row]) {
+      assertEquals(record.getString(col).trim(), "");
+      return;
+    }
+    switch (batch.getColumnType(col)) {
+      case INT:
+        assertEquals(batch.getInts(col)[row], record.getInt(col));
+        break;
+      case LONG:
+        assertEquals(batch.getLongs(col)[row], record.getLong(col));
+        break;
+      case DOUBLE:
+        assertEquals(Double.doubleToLongBits(batch.getDoubles(col)[row]),
+            Double.doubleToLongBits(record.getDouble(col)));
+        break;
+      default:
+        assertEquals(batch.getStrings(col)[row], record.getString(col));
+        break;
+    }
+  }
+
+  @Test
+  public void testMixedWithReadNext() throws Exception {
+    Label label = Label.open(new File("src/test/resources/pds368/maven_events_20140801.xml"));
+    TableObject table = label.getObjects(TableObject.class).get(0);
+    TableReader reader = table.getTableReader();
+    TableReader expected = table.getTableReader();
+    try {
+      reader.readNext();
+      ColumnBatch batch = reader.readBatch(2);
+      assertEquals(batch.getFirstRow(), 2);
+      assertEquals(batch.getRowCount(), 2);
+      assertEquals(batch.getColumnType(1), ColumnType.LONG);
+      assertEquals(batch.getColumnType(3), ColumnType.STRING);
+      TableRecord next = reader.readNext();
+      for (int i = 1; i <= 3; i++) {
+        TableRecord record = expected.readNext();
+        if (i > 1) {
+          assertEquals(batch.getLongs("Event ID")[i - 2], record.getLong(1));
+        }
+      }
+      assertEquals(next.getLong(1), expected.readNext().getLong(1));
+    } finally {
+      reader.close();
+      expected.close();
+      label.close();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongColumnType() throws Exception {
+    Label label = Label.open(new File("src/test/resources/1000/Product_Table_Character.xml"));
+    TableObject table = label.getObjects(TableObject.class).get(0);
+    try (TableReader reader = table.getTableReader()) {
+      ColumnBatch batch = reader.readBatch(1);
+      batch.getStrings(2);
+    } finally {
+      label.close();
+    }
+  }
+
+  @Test
+  public void testLargeBinaryBatch() throws Exception {
+    // More records than are read into the batch buffer at a time.
+    int records = 20000;
+    File dataFile = Files.createTempFile("column-batch", ".dat").toFile();
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(dataFile))) {
+      for (int i = 1; i <= records; i++) {
+        out.writeShort(i);
+        out.writeInt(Integer.reverseBytes(-i));
+        out.writeDouble(i / 8.0);
+        out.writeBytes(String.format("%4d", i % 1000));
+      }
+    }
+    try (TableReader reader = new TableReader(createBinaryTable(records), dataFile)) {
+      ColumnBatch batch = reader.readBatch(records + 1);
+      assertEquals(batch.getRowCount(), records);
+      assertEquals(batch.getColumnType(1), ColumnType.INT);
+      for (int i = 0; i < records; i++) {
+        assertEquals(batch.getInts(1)[i], (short) (i + 1));
+        assertEquals(batch.getInts(2)[i], -(i + 1));
+        assertEquals(batch.getDoubles(3)[i], (i + 1) / 8.0);
+        assertEquals(batch.getLongs(4)[i], (i + 1) % 1000);
+      }
+      assertEquals(reader.getCurrentRow(), records);
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  @Test
+  public void testPackedBitFields() throws Exception {
+    int records = 5000;
+    File dataFile = Files.createTempFile("column-batch", ".dat").toFile();
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(dataFile))) {
+      for (int i = 1; i <= records; i++) {
+        out.writeInt(i * 0x9E3779B1);
+        out.writeShort(-i);
+      }
+    }
+    try (TableReader batchReader = new TableReader(createPackedTable(records), dataFile);
+        TableReader recordReader = new TableReader(createPackedTable(records), dataFile)) {
+      ColumnBatch batch = batchReader.readBatch(records);
+      assertEquals(batch.getRowCount(), records);
+      assertEquals(batch.getColumnCount(), 4);
+      for (int i = 0; i < records; i++) {
+        TableRecord record = recordReader.readNext();
+        int word = (i + 1) * 0x9E3779B1;
+        assertEquals(batch.getLongs(1)[i], word >>> 29);
+        assertEquals(batch.getLongs(2)[i], (word << 3) >> 19);
+        assertEquals(batch.getLongs(3)[i], word & 0xFFFF);
+        assertEquals(batch.getInts(4)[i], -(i + 1));
+        for (int col = 1; col <= 3; col++) {
+          assertEquals(batch.getLongs(col)[i], record.getLong(col));
+        }
+      }
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  private TableBinary createPackedTable(int records) {
+    FieldBinary packed = createField("STATUS", "UnsignedMSB4", 1, 4, 1);
+    PackedDataFields bitFields = new PackedDataFields();
+    bitFields.getFieldBits().add(createBit("MODE", "UnsignedBitString", 1, 3));
+    bitFields.getFieldBits().add(createBit("OFFSET", "SignedBitString", 4, 16));
+    bitFields.getFieldBits().add(createBit("COUNTER", "UnsignedBitString", 17, 32));
+    packed.setPackedDataFields(bitFields);
+
+    return BinaryTableUtils.createTable(records, 6, packed,
+        createField("E", "SignedMSB2", 5, 2, 2));
+  }
+
+  private FieldBit createBit(String name, String type, int startBit, int stopBit) {
+    FieldBit bit = new FieldBit();
+    bit.setName(name);
+    bit.setDataType(type);
+    bit.setStartBit(BigInteger.valueOf(startBit));
+    bit.setStopBit(BigInteger.valueOf(stopBit));
+    return bit;
+  }
+
+  private TableBinary createBinaryTable(int records) {
+    return BinaryTableUtils.createTable(records, 18, createField("A", "SignedMSB2", 1, 2, 1),
+        createField("B", "SignedLSB4", 3, 4, 2), createField("C", "IEEE754MSBDouble", 7, 8, 3),
+        createField("D", "ASCII_Integer", 15, 4, 4));
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import java.io.File;
+import java.net.URL;
+import org.testng.annotations.Test;
+
+public class DataFilePoolTest {
+  private static final String BIN_DATA_FILE =
+      "./src/test/resources/dph_example_products/product_table_binary/2d234493326edratf3d2537n0m1.dat";
+
+  @Test
+  public void testSharedHandlesAndMappings() throws Exception {
+    DataFilePool pool = new DataFilePool();
+    URL url = new File(BIN_DATA_FILE).toURI().toURL();
+    DataFilePool.Lease first = pool.acquire(url);
+    DataFilePool.Lease second = pool.acquire(url);
+    assertEquals(pool.getOpenFileCount(), 1);
+    assertSame(first.getRandomAccessFile(), second.getRandomAccessFile());
+    assertSame(first.map(96, 960), second.map(96, 960));
+    assertNotSame(first.map(96, 960), second.map(0, 960));
+
+    first.close();
+    // Closing a lease twice releases only one reference.
+    first.close();
+    assertEquals(pool.getOpenFileCount(), 1);
+    second.close();
+    assertEquals(pool.getOpenFileCount(), 0);
+  }
+
+  @Test
+  public void testAccessorsShareLease() throws Exception {
+    DataFilePool pool = new DataFilePool();
+    URL url = new File(BIN_DATA_FILE).toURI().toURL();
+    ByteWiseFileAccessor first =
+        new ByteWiseFileAccessor(pool.acquire(url), url, 0, 96, 336, true, MappingMode.EAGER);
+    ByteWiseFileAccessor second =
+        new ByteWiseFileAccessor(pool.acquire(url), url, 96, 96, 335, true, MappingMode.CHANNEL);
+    assertEquals(second.readRecordBytes(1, 4, 2), first.readRecordBytes(2, 4, 2));
+    first.close();
+    assertEquals(second.readRecordBytes(1, 4, 2), new byte[] {0x04, (byte) 0xE8});
+    second.close();
+    assertEquals(pool.getOpenFileCount(), 0);
+  }
+}
@@ -0,0 +1,237 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static gov.nasa.pds.objectAccess.DelimitedTableUtils.createField;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import com.opencsv.CSVParserBuilder;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVReaderBuilder;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+import gov.nasa.pds.label.object.TableRecord;
+
+public class DelimitedRecordTokenizerTest {
+
+  private static final String DATA = "1,abc,2.5\r\n" + "2,,\r\n" + "\r\n" + "3, padded ,-1\n"
+      + "4,\"quoted, comma\",7\r" + "5,\"two\r\nlines\",8\r\n" + "6,\"doubled \"\"quote\"\"\",9\n"
+      + "7,\"escaped \\\" quote\",10\r\n" + "8,\"\",\"\"\r\n" + "9,x,\"three\nline\rvalue\"\r\n"
+      + "10,last,11";
+
+  @DataProvider(name = "bufferSizes")
+  public Object[][] getBufferSizes() {
+    return new Object[][] {{16}, {17}, {23}, {100}, {1 << 18}};
+  }
+
+  @Test(dataProvider = "bufferSizes")
+  public void testMatchesOpenCsv(int bufferSize) throws Exception {
+    for (boolean keepQuotations : new boolean[] {false, true}) {
+      for (String data : new String[] {DATA, DATA + "\r\n", DATA.replace(',', '\t')}) {
+        char separator = data.indexOf('\t') >= 0 ? '\t' : ',';
+        List<String[]> expected = parseWithOpenCsv(data, separator, keepQuotations);
+        File dataFile = writeData(data);
+        try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(dataFile, 0, -1, 1)) {
+          DelimitedRecordTokenizer tokenizer =
+              new DelimitedRecordTokenizer(accessor, separator, keepQuotations, bufferSize);
+          for (String[] values : expected) {
+            assertTrue(tokenizer.next());
+            assertEquals(tokenizer.getValues(), values);
+            assertEquals(tokenizer.getFieldCount(), values.length);
+            int length = 0;
+            for (int i = 0; i < values.length; i++) {
+              assertEquals(tokenizer.getString(i), values[i]);
+              assertEquals(tokenizer.getLength(i), values[i].length());
+              length += values[i].length();
+            }
+            assertEquals(tokenizer.getValuesLength(), length);
+          }
+          assertFalse(tokenizer.next());
+        } finally {
+          dataFile.delete();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testSimpleRecordOffsets() throws Exception {
+    File dataFile = writeData("ab,c\r\n,def\r\n");
+    try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(dataFile, 0, -1, 2)) {
+      DelimitedRecordTokenizer tokenizer = new DelimitedRecordTokenizer(accessor, ',', false);
+      assertTrue(tokenizer.next());
+      assertEquals(tokenizer.getRecordStart(), 0);
+      assertTrue(tokenizer.next());
+      assertEquals(tokenizer.getRecordStart(), 6);
+      assertTrue(tokenizer.isSimple());
+      byte[] buffer = tokenizer.getBuffer();
+      assertEquals(tokenizer.getFieldStart(0), tokenizer.getFieldEnd(0));
+      assertEquals(new String(buffer, tokenizer.getFieldStart(1),
+          tokenizer.getFieldEnd(1) - tokenizer.getFieldStart(1), StandardCharsets.US_ASCII), "def");
+      assertEquals(tokenizer.getPosition(), 12);
+      tokenizer.seek(6);
+      assertTrue(tokenizer.next());
+      assertEquals(tokenizer.getString(1), "def");
+      assertFalse(tokenizer.next());
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  @Test
+  public void testIntegerFields() throws Exception {
+    File dataFile = writeData(" 12 ,-300,3000000000,\"7\"\r\n");
+    try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(dataFile, 0, -1, 1)) {
+      DelimitedRecordTokenizer tokenizer = new DelimitedRecordTokenizer(accessor, ',', false);
+      assertTrue(tokenizer.next());
+      DelimitedTableRecord record = new DelimitedTableRecord(new HashMap<>(), 4, null);
+      record.setRecordTokens(tokenizer);
+      assertEquals(record.getInt(1), 12);
+      assertEquals(record.getShort(2), -300);
+      assertEquals(record.getLong(3), 3000000000L);
+      // A quoted value is parsed from its string.
+      assertEquals(record.getByte(4), 7);
+      assertThrows(NumberFormatException.class, () -> record.getInt(3));
+      assertThrows(NumberFormatException.class, () -> record.getByte(2));
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  @Test
+  public void testIntegerBatch() throws Exception {
+    File dataFile = writeData(" 12 ,ff\r\n-300,\"1A\"\r\n,\r\n3000000000, 7 \r\n");
+    TableDelimited table = DelimitedTableUtils.createTable(4,
+        createField("ID", FieldType.ASCII_INTEGER),
+        createField("HEX", FieldType.ASCII_NUMERIC_BASE16));
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      ColumnBatch batch = reader.readBatch(4);
+      assertEquals(batch.getLongs(1), new long[] {12, -300, 0, 3000000000L});
+      assertEquals(batch.getLongs(2), new long[] {255, 26, 0, 7});
+      assertEquals(batch.getNulls(1), new boolean[] {false, false, true, false});
+      assertEquals(batch.getNulls(2), new boolean[] {false, false, true, false});
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  @Test
+  public void testUnterminatedQuote() throws Exception {
+    File dataFile = writeData("1,ok\r\n2,\"open\r\nnever closed\r\n");
+    try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(dataFile, 0, -1, 2)) {
+      DelimitedRecordTokenizer tokenizer = new DelimitedRecordTokenizer(accessor, ',', false);
+      assertTrue(tokenizer.next());
+      tokenizer.next();
+      fail("An unterminated quoted field should be reported");
+    } catch (IOException ex) {
+      assertTrue(ex.getMessage().startsWith("Unterminated quoted field"), ex.getMessage());
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  @Test
+  public void testGetRecord() throws Exception {
+    List<String[]> expected = parseWithOpenCsv(DATA, ',', false);
+    File dataFile = writeData(DATA);
+    try (TableReader reader = new TableReader(createTable(expected.size()), dataFile)) {
+      // Record 3 is an empty line, which has a single field.
+      for (int index : new int[] {4, 9, 2, 2, 11, 1, 6, 7, 5}) {
+        TableRecord record = reader.getRecord(index);
+        assertEquals(record.getString(2), expected.get(index - 1)[1], "record " + index);
+        assertEquals(reader.getCurrentRow(), index);
+      }
+      TableRecord record = reader.readNext();
+      assertEquals(record.getInt(1), 5);
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  @Test
+  public void testGetRecordKeepsQuotations() throws Exception {
+    List<String[]> unquoted = parseWithOpenCsv(DATA, ',', false);
+    List<String[]> quoted = parseWithOpenCsv(DATA, ',', true);
+    File dataFile = writeData(DATA);
+    try (TableReader reader = new TableReader(createTable(quoted.size()),
+        dataFile.toURI().toURL(), null, false, false, true)) {
+      // The flag of getRecord applies to that record, and the reader keeps its own for the next.
+      assertEquals(reader.getRecord(5).getString(2), unquoted.get(4)[1]);
+      assertEquals(reader.readNext().getString(2), quoted.get(5)[1]);
+      assertEquals(reader.readNext().getString(2), quoted.get(6)[1]);
+      assertEquals(reader.getRecord(7, true).getString(2), quoted.get(6)[1]);
+      assertEquals(reader.getRecord(9).getString(2), unquoted.get(8)[1]);
+      assertEquals(reader.readNext().getString(3), quoted.get(9)[2]);
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  private List<String[]> parseWithOpenCsv(String data, char separator, boolean keepQuotations)
+      throws Exception {
+    List<String[]> records = new ArrayList<>();
+    try (CSVReader reader = new CSVReaderBuilder(new BufferedReader(new StringReader(data)))
+        .withCSVParser(new CSVParserBuilder().withSeparator(separator)
+            .withKeepQuotations(keepQuotations).build())
+        .build()) {
+      String[] values;
+      while ((values = reader.readNext()) != null) {
+        records.add(values);
+      }
+    }
+    return records;
+  }
+
+  private File writeData(String data) throws IOException {
+    File dataFile = Files.createTempFile("delimited-tokenizer", ".csv").toFile();
+    Files.write(dataFile.toPath(), data.getBytes(StandardCharsets.US_ASCII));
+    return dataFile;
+  }
+
+  private TableDelimited createTable(long records) {
+    return DelimitedTableUtils.createTable(records, createField("ID", FieldType.ASCII_INTEGER),
+        createField("TEXT", FieldType.ASCII_STRING), createField("VALUE", FieldType.ASCII_REAL));
+  }
+}
@@ -0,0 +1,224 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static gov.nasa.pds.objectAccess.DelimitedTableUtils.createField;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+import gov.nasa.pds.label.object.TableRecord;
+
+public class DelimitedTableParserTest {
+  private static final int RECORDS = 3000;
+
+  private File dataFile;
+  private ExecutorService executor;
+
+  @BeforeClass
+  public void createDataFile() throws Exception {
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= RECORDS; i++) {
+      data.append(i).append(',');
+      switch (i % 4) {
+        case 0:
+          data.append("\"line one\r\nline \"\"two\"\", with comma\"");
+          break;
+        case 1:
+          data.append("plain text");
+          break;
+        case 2:
+          data.append("\"quoted \\\" escape\"");
+          break;
+        default:
+          data.append("\"\"");
+          break;
+      }
+      data.append(',').append(i / 8.0).append("\r\n");
+    }
+    dataFile = Files.createTempFile("delimited-parser", ".csv").toFile();
+    Files.write(dataFile.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterClass
+  public void cleanUp() {
+    executor.shutdown();
+    dataFile.delete();
+  }
+
+  private TableDelimited createTable(long records) {
+    return DelimitedTableUtils.createTable(records, createField("ID", FieldType.ASCII_INTEGER),
+        createField("TEXT", FieldType.ASCII_STRING), createField("VALUE", FieldType.ASCII_REAL));
+  }
+
+  private List<String[]> readSequentially() throws Exception {
+    List<String[]> records = new ArrayList<>();
+    try (TableReader reader = new TableReader(createTable(RECORDS), dataFile)) {
+      TableRecord record;
+      while ((record = reader.readNext()) != null) {
+        records.add(new String[] {record.getString(1), record.getString(2), record.getString(3)});
+      }
+    }
+    return records;
+  }
+
+  @Test
+  public void testChunksMatchSequentialParse() throws Exception {
+    List<String[]> expected = readSequentially();
+    assertEquals(expected.size(), RECORDS);
+    try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(dataFile, 0, -1, RECORDS)) {
+      for (int chunkSize : new int[] {1, 7, 64, 1000, 1 << 20}) {
+        DelimitedTableParser parser =
+            new DelimitedTableParser(accessor, ',', false, chunkSize, 3, executor);
+        List<String[]> actual = new ArrayList<>();
+        List<List<String[]>> wave;
+        while ((wave = parser.nextWave(RECORDS)) != null) {
+          wave.forEach(actual::addAll);
+        }
+        assertEquals(actual.size(), expected.size(), "chunk size " + chunkSize);
+        for (int i = 0; i < actual.size(); i++) {
+          assertEquals(actual.get(i), expected.get(i), "record " + (i + 1));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testParallelScan() throws Exception {
+    List<String[]> expected = readSequentially();
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try (TableReader reader = new TableReader(createTable(RECORDS - 10), dataFile)) {
+      List<String> texts = reader.scan(pool, ArrayList::new,
+          (list, record) -> list.add(record.getInt("ID") + ":" + record.getString("TEXT")),
+          (left, right) -> {
+            left.addAll(right);
+            return left;
+          });
+      assertEquals(texts.size(), RECORDS - 10);
+      for (int i = 0; i < texts.size(); i++) {
+        assertEquals(texts.get(i), expected.get(i)[0] + ":" + expected.get(i)[1]);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testWrongFieldCount() throws Exception {
+    File badFile = Files.createTempFile("delimited-parser-bad", ".csv").toFile();
+    Files.write(badFile.toPath(),
+        "1,a,0.5\r\n2,b,1.5\r\n3,c\r\n4,d,2.5\r\n".getBytes(StandardCharsets.US_ASCII));
+    try (TableReader reader = new TableReader(createTable(4), badFile)) {
+      reader.scan(Object::new, (acc, record) -> {
+      }, (left, right) -> left);
+      fail("A record with a missing field should be reported");
+    } catch (UncheckedIOException ex) {
+      assertEquals(ex.getCause().getMessage(),
+          "Record 3 has wrong number of fields (expected 3, got 2)");
+    } finally {
+      badFile.delete();
+    }
+  }
+
+  @Test
+  public void testBytesAfterLastRecord() throws Exception {
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= 100; i++) {
+      data.append(i).append(",text ").append(i).append(',').append(i / 2.0).append("\r\n");
+    }
+    // Another object in the same file, which is not valid CSV.
+    data.append("\"unterminated, quote\r\nmore bytes");
+    File file = Files.createTempFile("delimited-parser-tail", ".csv").toFile();
+    Files.write(file.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+    try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(file, 0, -1, 100)) {
+      for (int chunkSize : new int[] {7, 64, 1 << 20}) {
+        DelimitedTableParser parser =
+            new DelimitedTableParser(accessor, ',', false, chunkSize, 3, executor);
+        long count = 0;
+        List<List<String[]>> wave;
+        while ((wave = parser.nextWave(100 - count)) != null) {
+          for (List<String[]> chunk : wave) {
+            count += chunk.size();
+          }
+        }
+        assertEquals(count, 100, "chunk size " + chunkSize);
+      }
+    }
+    try (TableReader reader = new TableReader(createTable(100), file)) {
+      long sum = reader.scan(() -> new long[1], (acc, record) -> acc[0] += record.getInt("ID"),
+          (left, right) -> new long[] {left[0] + right[0]})[0];
+      assertEquals(sum, 5050);
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  public void testCarriageReturnDelimiters() throws Exception {
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= 200; i++) {
+      data.append(i).append(",\"a,b\",").append(i / 4.0).append(i % 3 == 0 ? "\r\n" : "\r");
+    }
+    File file = Files.createTempFile("delimited-parser-cr", ".csv").toFile();
+    Files.write(file.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+    try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(file, 0, -1, 200)) {
+      for (int chunkSize : new int[] {1, 5, 13, 64, 1 << 20}) {
+        DelimitedTableParser parser =
+            new DelimitedTableParser(accessor, ',', false, chunkSize, 3, executor);
+        List<String[]> records = new ArrayList<>();
+        List<List<String[]>> wave;
+        while ((wave = parser.nextWave(200)) != null) {
+          wave.forEach(records::addAll);
+        }
+        assertEquals(records.size(), 200, "chunk size " + chunkSize);
+        for (int i = 0; i < records.size(); i++) {
+          assertEquals(records.get(i), new String[] {Integer.toString(i + 1), "a,b",
+              Double.toString((i + 1) / 4.0)}, "chunk size " + chunkSize);
+        }
+      }
+    } finally {
+      file.delete();
+    }
+  }
+}
@@ -0,0 +1,83 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import java.math.BigInteger;
+import java.util.List;
+import gov.nasa.arc.pds.xml.generated.FieldDelimited;
+import gov.nasa.arc.pds.xml.generated.Offset;
+import gov.nasa.arc.pds.xml.generated.RecordDelimited;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+import gov.nasa.pds.objectAccess.table.DelimiterType;
+
+/**
+ * Implements utilities for testing with delimited tables.
+ */
+public class DelimitedTableUtils {
+
+  /**
+   * Creates the label of a comma-separated table at the start of its data file, with CR/LF record
+   * delimiters.
+   *
+   * @param records the number of records
+   * @param fields the fields of a record, in order
+   * @return the table
+   */
+  static TableDelimited createTable(long records, FieldDelimited... fields) {
+    RecordDelimited rec = new RecordDelimited();
+    rec.getFieldDelimitedsAndGroupFieldDelimiteds().addAll(List.of(fields));
+
+    Offset offset = new Offset();
+    offset.setValue(BigInteger.ZERO);
+    TableDelimited table = new TableDelimited();
+    table.setFieldDelimiter(DelimiterType.COMMA.getXmlType());
+    table.setRecordDelimiter(DelimiterType.CARRIAGE_RETURN_LINE_FEED.getXmlType());
+    table.setRecordDelimited(rec);
+    table.setRecords(BigInteger.valueOf(records));
+    table.setOffset(offset);
+    return table;
+  }
+
+  /**
+   * Creates a field of a delimited table.
+   *
+   * @param name the field name
+   * @param type the field type
+   * @return the field
+   */
+  static FieldDelimited createField(String name, FieldType type) {
+    FieldDelimited field = new FieldDelimited();
+    field.setName(name);
+    field.setDataType(type.getXMLType());
+    return field;
+  }
+}
@@ -0,0 +1,132 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static gov.nasa.pds.objectAccess.DelimitedTableUtils.createField;
+import static org.testng.Assert.assertEquals;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+
+public class LineCounterTest {
+
+  @Test
+  public void testLineEndings() throws Exception {
+    String[] texts = {"", "a", "\n", "\r", "\r\n", "\n\r", "a\r\nb", "a\r\rb\n\n", "\r\n\r\n",
+        "abc\r", "a\nb\rc\r\nd"};
+    for (String text : texts) {
+      for (int segmentSize = 1; segmentSize <= 4; segmentSize++) {
+        assertEquals(count(text, 0, segmentSize), readLines(text), "'" + text + "'");
+      }
+    }
+  }
+
+  @Test
+  public void testRandomText() throws Exception {
+    Random random = new Random(11);
+    char[] chars = {'a', 'b', ',', '\r', '\n'};
+    for (int round = 0; round < 20; round++) {
+      StringBuilder text = new StringBuilder();
+      int length = random.nextInt(3000);
+      for (int i = 0; i < length; i++) {
+        text.append(chars[random.nextInt(chars.length)]);
+      }
+      int offset = length > 0 ? random.nextInt(length) : 0;
+      for (int segmentSize : new int[] {1, 2, 7, 64, 1000, 1 << 20}) {
+        assertEquals(count(text.toString(), offset, segmentSize),
+            readLines(text.substring(offset)));
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadSegmentSize() throws Exception {
+    count("a", 0, 0);
+  }
+
+  @Test
+  public void testRecordSize() throws Exception {
+    StringBuilder data = new StringBuilder("header\r\n");
+    for (int i = 1; i <= 1000; i++) {
+      data.append(i).append(",text ").append(i).append(i % 2 == 0 ? "\r\n" : "\n");
+    }
+    data.append("1001,last");
+    File dataFile = Files.createTempFile("line-count", ".csv").toFile();
+    try {
+      Files.write(dataFile.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+      try (TableReader reader = new TableReader(createTable(8), dataFile)) {
+        assertEquals(reader.getRecordSize(dataFile.toURI().toURL(), createTable(8)), 1001);
+        assertEquals(reader.getRecordSize(dataFile.toURI().toURL(), createTable(0)), 1002);
+      }
+    } finally {
+      dataFile.delete();
+    }
+  }
+
+  private static long count(String text, int offset, int segmentSize) throws Exception {
+    File file = Files.createTempFile("line-count", ".txt").toFile();
+    try {
+      Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+      try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+        long serial = LineCounter.countLines(channel, offset, channel.size(), segmentSize, null);
+        long parallel = LineCounter.countLines(channel, offset, channel.size(), segmentSize,
+            ForkJoinPool.commonPool());
+        assertEquals(parallel, serial);
+        return serial;
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static long readLines(String text) throws Exception {
+    try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+      return reader.lines().count();
+    }
+  }
+
+  private TableDelimited createTable(long offsetValue) {
+    TableDelimited table = DelimitedTableUtils.createTable(1001,
+        createField("ID", FieldType.ASCII_INTEGER), createField("TEXT", FieldType.ASCII_STRING));
+    table.getOffset().setValue(BigInteger.valueOf(offsetValue));
+    return table;
+  }
+}
@@ -0,0 +1,219 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static gov.nasa.pds.objectAccess.BinaryTableUtils.createField;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.TableBinary;
+import gov.nasa.pds.label.Label;
+import gov.nasa.pds.label.object.TableObject;
+import gov.nasa.pds.label.object.TableRecord;
+
+public class ParallelTableScanTest {
+  private static final int RECORDS = 10000;
+
+  private File dataFile;
+  private TableBinary table;
+
+  @BeforeClass
+  public void createTable() throws Exception {
+    dataFile = Files.createTempFile("parallel-scan", ".dat").toFile();
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(dataFile))) {
+      for (int i = 1; i <= RECORDS; i++) {
+        out.writeInt(i);
+        out.writeDouble(i / 4.0);
+      }
+    }
+
+    table = BinaryTableUtils.createTable(RECORDS, 12, createField("ID", "SignedMSB4", 1, 4, 1),
+        createField("VALUE", "IEEE754MSBDouble", 5, 8, 2));
+  }
+
+  @AfterClass
+  public void deleteTable() {
+    dataFile.delete();
+  }
+
+  @Test
+  public void testReduceKeepsRecordOrder() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      List<Integer> ids = reader.scan(pool, ArrayList::new,
+          (list, record) -> list.add(record.getInt(1)), (left, right) -> {
+            left.addAll(right);
+            return left;
+          });
+      assertEquals(ids.size(), RECORDS);
+      for (int i = 0; i < RECORDS; i++) {
+        assertEquals(ids.get(i).intValue(), i + 1);
+      }
+      assertEquals(reader.getCurrentRow(), 0);
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testReduceInCommonPool() throws Exception {
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      double[] sum = reader.scan(() -> new double[1], (acc, record) -> acc[0] += record.getDouble(2),
+          (left, right) -> new double[] {left[0] + right[0]});
+      assertEquals(sum[0], (double) RECORDS * (RECORDS + 1) / 8);
+    }
+  }
+
+  @Test
+  public void testPartitions() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      List<long[]> partitions = reader.scanPartitions(4, executor, () -> new long[] {0, 0, 0},
+          (acc, record) -> {
+            if (acc[0]++ == 0) {
+              acc[1] = record.getInt("ID");
+            }
+            acc[2] = record.getInt("ID");
+          });
+      assertEquals(partitions.size(), 4);
+      long next = 1;
+      for (long[] partition : partitions) {
+        assertEquals(partition[0], RECORDS / 4);
+        assertEquals(partition[1], next);
+        next = partition[2] + 1;
+      }
+      assertEquals(next, RECORDS + 1);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testStreamingMode() throws Exception {
+    MappingMode mode = ByteWiseFileAccessor.getDefaultMappingMode();
+    ByteWiseFileAccessor.setDefaultMappingMode(MappingMode.STREAMING);
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      assertEquals(reader.getAccessor().getMappingMode(), MappingMode.STREAMING);
+      long[] count = reader.scan(() -> new long[1], (acc, record) -> acc[0] += record.getInt(1),
+          (left, right) -> new long[] {left[0] + right[0]});
+      assertEquals(count[0], (long) RECORDS * (RECORDS + 1) / 2);
+    } finally {
+      ByteWiseFileAccessor.setDefaultMappingMode(mode);
+    }
+  }
+
+  @Test
+  public void testAccumulatorFailure() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      reader.scanPartitions(2, executor, Object::new, (acc, record) -> {
+        if (record.getInt(1) == RECORDS) {
+          throw new IllegalStateException("last record");
+        }
+      });
+      fail("The failure of a partition should be rethrown");
+    } catch (IllegalStateException ex) {
+      assertEquals(ex.getMessage(), "last record");
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testParallelStream() throws Exception {
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      int[] ids = reader.stream().parallel().mapToInt(record -> record.getInt("ID")).toArray();
+      assertEquals(ids.length, RECORDS);
+      for (int i = 0; i < RECORDS; i++) {
+        assertEquals(ids[i], i + 1);
+      }
+      double sum = reader.stream().parallel().mapToDouble(record -> record.getDouble(2)).sum();
+      assertEquals(sum, (double) RECORDS * (RECORDS + 1) / 8);
+    }
+  }
+
+  @Test
+  public void testStreamSplitsByRecordRange() throws Exception {
+    try (TableReader reader = new TableReader(table, dataFile)) {
+      for (int i = 0; i < 10; i++) {
+        reader.readNext();
+      }
+      Spliterator<TableRecord> suffix = reader.stream().spliterator();
+      assertEquals(suffix.estimateSize(), RECORDS - 10);
+      Spliterator<TableRecord> prefix = suffix.trySplit();
+      assertEquals(prefix.estimateSize() + suffix.estimateSize(), RECORDS - 10);
+      int[] first = new int[2];
+      prefix.tryAdvance(record -> first[0] = record.getInt(1));
+      suffix.tryAdvance(record -> first[1] = record.getInt(1));
+      assertEquals(first[0], 11);
+      assertEquals(first[1], 11 + prefix.estimateSize() + 1);
+      assertEquals(reader.getCurrentRow(), 10);
+    }
+  }
+
+  @Test
+  public void testDelimitedRecords() throws Exception {
+    Label label = Label.open(new File("src/test/resources/pds368/maven_events_20140801.xml"));
+    TableObject object = label.getObjects(TableObject.class).get(0);
+    try (Stream<TableRecord> records = object.records()) {
+      assertEquals(records.parallel().map(record -> record.getString(1)).count(), 7162);
+    } finally {
+      label.close();
+    }
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testDelimitedPartitions() throws Exception {
+    Label label = Label.open(new File("src/test/resources/pds368/maven_events_20140801.xml"));
+    TableObject object = label.getObjects(TableObject.class).get(0);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (TableReader reader = object.getTableReader()) {
+      reader.scanPartitions(2, executor, Object::new, (acc, record) -> {
+      });
+    } finally {
+      executor.shutdown();
+      label.close();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static gov.nasa.pds.objectAccess.DelimitedTableUtils.createField;
+import static org.testng.Assert.assertEquals;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+import gov.nasa.pds.label.object.TableRecord;
+
+public class RecordOffsetIndexTest {
+
+  @Test
+  public void testCheckpoints() {
+    RecordOffsetIndex index = new RecordOffsetIndex(10);
+    assertEquals(index.size(), 1);
+    assertEquals(index.checkpointFor(25), 0);
+    for (int row = 1; row <= 25; row++) {
+      index.add(row, row * 100L);
+    }
+    // Adding a row again is ignored.
+    index.add(11, 5);
+    assertEquals(index.size(), 3);
+    assertEquals(index.getOffset(0), 0);
+    assertEquals(index.getOffset(1), 1100);
+    assertEquals(index.getOffset(2), 2100);
+    assertEquals(index.checkpointFor(10), 0);
+    assertEquals(index.checkpointFor(11), 1);
+    assertEquals(index.checkpointFor(500), 2);
+    assertEquals(index.getRowsBefore(2), 20);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadInterval() {
+    new RecordOffsetIndex(0);
+  }
+
+  @Test
+  public void testRandomAccess() throws Exception {
+    int records = 500;
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= records; i++) {
+      data.append(i).append(',');
+      data.append(i % 3 == 0 ? "\"multi\r\nline " + i + "\"" : "text " + i).append("\r\n");
+    }
+    File dataFile = Files.createTempFile("record-index", ".csv").toFile();
+    Files.write(dataFile.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+    int interval = TableReader.getRecordIndexInterval();
+    TableReader.setRecordIndexInterval(7);
+    try (TableReader reader = new TableReader(createTable(records), dataFile)) {
+      Random random = new Random(42);
+      for (int i = 0; i < 300; i++) {
+        int row = 1 + random.nextInt(records);
+        TableRecord record = reader.getRecord(row);
+        assertEquals(record.getInt(1), row);
+        assertEquals(record.getString(2),
+            row % 3 == 0 ? "multi\nline " + row : "text " + row);
+      }
+      reader.getRecord(records - 2);
+      assertEquals(reader.readNext().getInt(1), records - 1);
+      reader.setCurrentRow(100);
+      assertEquals(reader.readNext().getInt(1), 101);
+    } finally {
+      TableReader.setRecordIndexInterval(interval);
+      dataFile.delete();
+    }
+  }
+
+  private TableDelimited createTable(long records) {
+    return DelimitedTableUtils.createTable(records, createField("ID", FieldType.ASCII_INTEGER),
+        createField("TEXT", FieldType.ASCII_STRING));
+  }
+}
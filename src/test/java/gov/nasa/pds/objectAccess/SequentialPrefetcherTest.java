@@ -0,0 +1,137 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.testng.annotations.Test;
+import gov.nasa.pds.objectAccess.storage.StorageObject;
+
+public class SequentialPrefetcherTest {
+
+  private static final int SIZE = 1000;
+
+  @Test(timeOut = 10000)
+  public void testRetryAfterReadError() throws Exception {
+    FailingStorage storage = new FailingStorage(100);
+    SequentialPrefetcher prefetcher = new SequentialPrefetcher(storage, 0, SIZE, 64, 2);
+    byte[] buf = new byte[10];
+    prefetcher.read(0, buf, 0, 10);
+    assertEquals(buf[5], (byte) 5);
+    try {
+      prefetcher.read(120, buf, 0, 10);
+      fail("Expected the injected read error");
+    } catch (IOException ex) {
+      // expected
+    }
+    // The storage fails only once, so retrying goes through a new worker.
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Byte> retry = executor.submit(() -> {
+        byte[] dst = new byte[10];
+        prefetcher.read(130, dst, 0, 10);
+        return dst[0];
+      });
+      assertEquals((byte) retry.get(3, TimeUnit.SECONDS), (byte) 130);
+      prefetcher.read(990, buf, 0, 10);
+      assertEquals(buf[9], (byte) 999);
+    } finally {
+      executor.shutdownNow();
+      prefetcher.stop();
+    }
+  }
+
+  @Test(timeOut = 10000)
+  public void testReadsAfterError() throws Exception {
+    FailingStorage storage = new FailingStorage(0);
+    SequentialPrefetcher prefetcher = new SequentialPrefetcher(storage, 0, SIZE, 64, 2);
+    byte[] buf = new byte[200];
+    try {
+      prefetcher.read(0, buf, 0, 200);
+      fail("Expected the injected read error");
+    } catch (IOException ex) {
+      // expected
+    }
+    // Every buffer is handed out once only, so consecutive reads see the right bytes.
+    for (int pos = 0; pos + 200 <= SIZE; pos += 100) {
+      prefetcher.read(pos, buf, 0, 200);
+      for (int i = 0; i < 200; i++) {
+        assertEquals(buf[i], (byte) (pos + i));
+      }
+    }
+    prefetcher.stop();
+  }
+
+  /**
+   * A storage object of bytes holding their position, whose first read at or past a given
+   * position fails.
+   */
+  private static final class FailingStorage implements StorageObject {
+    private final long failAt;
+    private boolean failed = false;
+
+    FailingStorage(long failAt) {
+      this.failAt = failAt;
+    }
+
+    @Override
+    public long size() {
+      return SIZE;
+    }
+
+    @Override
+    public synchronized int read(long position, ByteBuffer dst) throws IOException {
+      if (position >= SIZE) {
+        return -1;
+      }
+      int n = (int) Math.min(dst.remaining(), SIZE - position);
+      if (!failed && position + n > failAt) {
+        failed = true;
+        throw new IOException("Injected failure at byte " + position);
+      }
+      for (int i = 0; i < n; i++) {
+        dst.put((byte) (position + i));
+      }
+      return n;
+    }
+
+    @Override
+    public void close() {
+      // nothing to release
+    }
+  }
+}
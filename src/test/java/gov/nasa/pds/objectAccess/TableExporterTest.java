@@ -103,6 +103,31 @@ public class TableExporterTest {
     exportToCSV(label, outputFile, list.get(0), 5, 10, dataObject, false);
   }
 
+  @Test
+  public void testExportSelectedFields() throws Exception {
+    String fileName = "Product_Table_Character.xml";
+    ObjectProvider objectAccess = new ObjectAccess(new File("./src/test/resources/1000/"));
+    ProductObservational product = objectAccess.getObservationalProduct(fileName);
+    FileAreaObservational fileArea = product.getFileAreaObservationals().get(0);
+    List<TableCharacter> list = objectAccess.getTableCharacters(fileArea);
+    File label = new File(FileUtils.toFile(objectAccess.getRoot()), fileName);
+    File outputFile = new File(FileUtils.toFile(objectAccess.getRoot()), "char_table_fields.csv");
+    TableExporter exporter = ExporterFactory.getTableExporter(label, 0);
+    exporter.setFields("lmst", "1");
+    try (FileOutputStream os = new FileOutputStream(outputFile)) {
+      exporter.convert(list.get(0), os);
+    }
+
+    try (CSVReader reader = new CSVReader(new BufferedReader(new FileReader(outputFile)))) {
+      for (int i = 0; i < 5; i++) {
+        String[] line = reader.readNext();
+        assertEquals(line, new String[] {dataObject[i][2], dataObject[i][0]});
+      }
+    } finally {
+      outputFile.delete();
+    }
+  }
+
   // @Test
   @Test(expectedExceptions = InvalidTableException.class)
   public void testExportGoupedFieldCharacterTableToCSV() throws Exception, InvalidTableException {
@@ -0,0 +1,318 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.TableBinary;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+import gov.nasa.pds.label.object.TableRecord;
+
+public class TableFilterTest {
+  private static final int RECORDS = 2000;
+
+  private File binaryFile;
+  private File delimitedFile;
+
+  @BeforeClass
+  public void createDataFiles() throws Exception {
+    binaryFile = Files.createTempFile("filter", ".dat").toFile();
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(binaryFile))) {
+      for (int i = 1; i <= RECORDS; i++) {
+        out.writeInt(i);
+        out.writeDouble(i / 4.0);
+        out.writeBytes(String.format("%-6s", "M" + (i % 3)));
+      }
+    }
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= RECORDS; i++) {
+      data.append(i).append(',').append(time(i)).append(',')
+          .append(i % 10 == 0 ? "" : Double.toString(i / 4.0)).append(',')
+          .append(i % 5 == 0 ? "\"MODE, " + (i % 3) + "\"" : " MODE" + (i % 3) + " ")
+          .append("\r\n");
+    }
+    delimitedFile = Files.createTempFile("filter", ".csv").toFile();
+    Files.write(delimitedFile.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+  }
+
+  private static String time(int i) {
+    return String.format("2014-08-01T%02d:%02d:00", i / 60 % 24, i % 60);
+  }
+
+  @AfterClass
+  public void deleteDataFiles() {
+    binaryFile.delete();
+    delimitedFile.delete();
+  }
+
+  @Test
+  public void testFixedWidthFilter() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      TableFilter filter = new TableFilter().range("VALUE", 100.0, 200.0).equalTo("MODE", "M1");
+      List<Integer> ids = new ArrayList<>();
+      TableRecord record;
+      while ((record = reader.readNext(filter)) != null) {
+        ids.add(record.getInt(1));
+        assertEquals(reader.getCurrentRow(), record.getInt(1));
+      }
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 400; i <= 800; i++) {
+        if (i % 3 == 1) {
+          expected.add(i);
+        }
+      }
+      assertEquals(ids, expected);
+      assertNull(reader.readNext(filter));
+      assertNull(reader.readNext());
+    }
+  }
+
+  @Test
+  public void testConditionAddedAfterUse() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      TableFilter filter = new TableFilter().range("VALUE", 100.0, 200.0);
+      assertEquals(reader.readNext(filter).getInt(1), 400);
+      filter.equalTo("MODE", "M2");
+      assertEquals(reader.readNext(filter).getInt(1), 401);
+      assertEquals(reader.readNext(filter).getInt(1), 404);
+    }
+    try (TableReader reader = new TableReader(createDelimitedTable(), delimitedFile)) {
+      TableFilter filter = new TableFilter().prefix("MODE", "MODE");
+      assertEquals(reader.readNext(filter).getInt(1), 1);
+      filter.range("UTC", "2014-08-01T00:10", null);
+      assertEquals(reader.readNext(filter).getInt(1), 10);
+    }
+  }
+
+  @Test
+  public void testFixedWidthProjection() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      reader.setProjection("ID");
+      List<Integer> ids = reader.stream(new TableFilter().prefix("MODE", "M2").range("VALUE", 0, 3))
+          .map(r -> r.getInt(1)).collect(Collectors.toList());
+      assertEquals(ids, List.of(2, 5, 8, 11));
+    }
+  }
+
+  @Test
+  public void testDelimitedFilter() throws Exception {
+    try (TableReader reader = new TableReader(createDelimitedTable(), delimitedFile)) {
+      reader.setProjection("ID");
+      TableFilter filter = new TableFilter().range("UTC", "2014-08-01T01:00", "2014-08-01T01:59:59")
+          .prefix("MODE", "MODE");
+      List<Integer> ids =
+          reader.stream(filter).map(r -> r.getInt(1)).collect(Collectors.toList());
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 1; i <= RECORDS; i++) {
+        if (time(i).startsWith("2014-08-01T01:")) {
+          expected.add(i);
+        }
+      }
+      assertEquals(ids, expected);
+
+      // Quoted values are compared without their quotes, and empty values have no number.
+      reader.setCurrentRow(0);
+      ids = reader.stream(new TableFilter().equalTo("MODE", "MODE, 2").range("VALUE", 0, 50))
+          .map(r -> r.getInt(1)).collect(Collectors.toList());
+      assertEquals(ids, List.of(5, 35, 65, 95, 125, 155, 185));
+    }
+  }
+
+  @Test
+  public void testDelimitedTextRange() throws Exception {
+    try (TableReader reader = new TableReader(createDelimitedTable(), delimitedFile)) {
+      reader.getRecord(1990);
+      TableFilter filter = new TableFilter().range("UTC", "2014-08-01T09:00", null);
+      // The records after 1990 are at 09:11 to 09:20.
+      assertEquals(reader.stream(filter).count(), 10);
+      reader.setCurrentRow(0);
+      List<Integer> ids = reader.stream(new TableFilter().range("UTC", null, "2014-08-01T00:01:00"))
+          .map(r -> r.getInt(1)).collect(Collectors.toList());
+      assertEquals(ids, List.of(1, 1440, 1441));
+    }
+  }
+
+  @Test
+  public void testZoneMapBlocks() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      ZoneMap zones = reader.buildZoneMap(100, "VALUE", "MODE");
+      assertEquals(reader.getCurrentRow(), 0);
+      assertEquals(zones.getBlockCount(), RECORDS / 100);
+      assertEquals(zones.getMin(4, 2), 401 / 4.0);
+      assertEquals(zones.getMax(4, 2), 500 / 4.0);
+      assertEquals(zones.getTextMin(4, 3), "M0");
+      assertEquals(zones.getTextMax(4, 3), "M2");
+      assertFalse(zones.contains(1));
+
+      Map<String, Integer> fieldMap = Map.of("ID", 1, "VALUE", 2, "MODE", 3);
+      TableFilter.Bound bound =
+          new TableFilter().range("VALUE", 110.0, 130.0).bind(reader.getFields(), fieldMap);
+      assertFalse(bound.mightMatch(zones, 3));
+      assertTrue(bound.mightMatch(zones, 4));
+      assertTrue(bound.mightMatch(zones, 5));
+      assertFalse(bound.mightMatch(zones, 6));
+      assertFalse(new TableFilter().prefix("MODE", "M3").bind(reader.getFields(), fieldMap)
+          .mightMatch(zones, 0));
+      assertTrue(new TableFilter().prefix("MODE", "M").bind(reader.getFields(), fieldMap)
+          .mightMatch(zones, 0));
+      assertFalse(new TableFilter().equalTo("MODE", "M").bind(reader.getFields(), fieldMap)
+          .mightMatch(zones, 0));
+      // No zone for the field, so the block cannot be excluded.
+      assertTrue(new TableFilter().range("ID", -2, -1).bind(reader.getFields(), fieldMap)
+          .mightMatch(zones, 0));
+    }
+  }
+
+  @Test
+  public void testFixedWidthZoneMap() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      reader.buildZoneMap(64, "VALUE", "MODE");
+      reader.getRecord(420);
+      TableFilter filter = new TableFilter().range("VALUE", 100.0, 200.0).equalTo("MODE", "M1");
+      List<Integer> ids = reader.stream(filter).map(r -> r.getInt(1)).collect(Collectors.toList());
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 421; i <= 800; i++) {
+        if (i % 3 == 1) {
+          expected.add(i);
+        }
+      }
+      assertEquals(ids, expected);
+      assertNull(reader.readNext(new TableFilter().prefix("MODE", "X")));
+      assertEquals(reader.getCurrentRow(), RECORDS + 1);
+    }
+  }
+
+  @Test
+  public void testDelimitedZoneMap() throws Exception {
+    ZoneMap zones;
+    try (TableReader reader = new TableReader(createDelimitedTable(), delimitedFile)) {
+      zones = reader.buildZoneMap(50, "UTC", "VALUE");
+    }
+    try (TableReader reader = new TableReader(createDelimitedTable(), delimitedFile)) {
+      reader.setZoneMap(zones);
+      reader.setProjection("ID");
+      TableFilter filter = new TableFilter().range("UTC", null, "2014-08-01T00:01:00");
+      assertEquals(reader.stream(filter).map(r -> r.getInt(1)).collect(Collectors.toList()),
+          List.of(1, 1440, 1441));
+      reader.setCurrentRow(0);
+      filter = new TableFilter().range("VALUE", 300.0, 302.0).prefix("UTC", "2014-08-01T20");
+      assertEquals(reader.stream(filter).map(r -> r.getInt(1)).collect(Collectors.toList()),
+          List.of(1201, 1202, 1203, 1204, 1205, 1206, 1207, 1208));
+      assertEquals(reader.getRecord(1999).getInt(1), 1999);
+    }
+  }
+
+  @Test
+  public void testDelimitedRadix() throws Exception {
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= RECORDS; i++) {
+      String hex = Integer.toHexString(i).toUpperCase();
+      data.append(i).append(',').append(i % 2 == 0 ? "\"" + hex + "\"" : hex).append(',')
+          .append(Integer.toBinaryString(i)).append("\r\n");
+    }
+    File file = Files.createTempFile("radix", ".csv").toFile();
+    try {
+      Files.write(file.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+      TableDelimited table = DelimitedTableUtils.createTable(RECORDS,
+          DelimitedTableUtils.createField("ID", FieldType.ASCII_INTEGER),
+          DelimitedTableUtils.createField("HEX", FieldType.ASCII_NUMERIC_BASE16),
+          DelimitedTableUtils.createField("BITS", FieldType.ASCII_NUMERIC_BASE2));
+      TableIndexFile.getIndexFile(file, 0).delete();
+      try (TableReader reader = new TableReader(table, file)) {
+        reader.setProjection("ID");
+        // Quoted and unquoted values are parsed in the radix of the field.
+        TableFilter filter = new TableFilter().range("HEX", 0xFE, 0x101).range("BITS", 0, 256);
+        assertEquals(reader.stream(filter).map(r -> r.getInt(1)).collect(Collectors.toList()),
+            List.of(254, 255, 256));
+
+        ZoneMap zones = reader.buildZoneMap(100, "HEX", "BITS");
+        assertEquals(zones.getMin(2, 2), 201.0);
+        assertEquals(zones.getMax(2, 2), 300.0);
+        assertEquals(zones.getMax(2, 3), 300.0);
+        assertFalse(new TableFilter().range("HEX", 10, 20)
+            .bind(reader.getFields(), Map.of("ID", 1, "HEX", 2, "BITS", 3)).mightMatch(zones, 2));
+
+        TableIndexFile index = reader.buildIndex();
+        assertEquals(index.getBlockMin(0, 2), 1.0);
+        assertEquals(index.getBlockMax(0, 3),
+            (double) Math.min(TableReader.getRecordIndexInterval(), RECORDS));
+      } finally {
+        TableIndexFile.getIndexFile(file, 0).delete();
+      }
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testZoneMapRecordCount() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      reader.setZoneMap(new ZoneMap.Builder(reader.getFields(), new int[] {1}, 10, 5).build());
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadFieldName() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      reader.readNext(new TableFilter().equalTo("NO_SUCH_FIELD", "x"));
+    }
+  }
+
+  private TableBinary createBinaryTable() {
+    return BinaryTableUtils.createTable(RECORDS, 18,
+        BinaryTableUtils.createField("ID", "SignedMSB4", 1, 4, 1),
+        BinaryTableUtils.createField("VALUE", "IEEE754MSBDouble", 5, 8, 2),
+        BinaryTableUtils.createField("MODE", "ASCII_String", 13, 6, 3));
+  }
+
+  private TableDelimited createDelimitedTable() {
+    return DelimitedTableUtils.createTable(RECORDS,
+        DelimitedTableUtils.createField("ID", FieldType.ASCII_INTEGER),
+        DelimitedTableUtils.createField("UTC", FieldType.ASCII_DATE_TIME_YMD),
+        DelimitedTableUtils.createField("VALUE", FieldType.ASCII_REAL),
+        DelimitedTableUtils.createField("MODE", FieldType.ASCII_STRING));
+  }
+}
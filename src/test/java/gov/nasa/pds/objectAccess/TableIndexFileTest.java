@@ -0,0 +1,241 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static gov.nasa.pds.objectAccess.DelimitedTableUtils.createField;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.RandomAccessFile;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.FieldBinary;
+import gov.nasa.arc.pds.xml.generated.FieldLength;
+import gov.nasa.arc.pds.xml.generated.FieldLocation;
+import gov.nasa.arc.pds.xml.generated.Offset;
+import gov.nasa.arc.pds.xml.generated.RecordBinary;
+import gov.nasa.arc.pds.xml.generated.RecordLength;
+import gov.nasa.arc.pds.xml.generated.TableBinary;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+
+public class TableIndexFileTest {
+  private static final int RECORDS = 500;
+
+  private File dataFile;
+  private int interval;
+
+  @BeforeMethod
+  public void createDataFile() throws Exception {
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= RECORDS; i++) {
+      data.append(i).append(',').append(i % 5 == 0 ? "" : Double.toString(i / 2.0)).append(',')
+          .append(i % 3 == 0 ? "\"two\r\nlines\"" : "text").append("\r\n");
+    }
+    dataFile = Files.createTempFile("table-index", ".csv").toFile();
+    Files.write(dataFile.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+    interval = TableReader.getRecordIndexInterval();
+    TableReader.setRecordIndexInterval(16);
+  }
+
+  @AfterMethod
+  public void cleanUp() {
+    TableReader.setRecordIndexInterval(interval);
+    TableIndexFile.getIndexFile(dataFile, 0).delete();
+    dataFile.delete();
+  }
+
+  @Test
+  public void testBuildAndLoad() throws Exception {
+    long[] offsets;
+    try (TableReader reader = new TableReader(createTable(), dataFile)) {
+      assertNull(reader.getIndex());
+      TableIndexFile index = reader.buildIndex();
+      assertTrue(TableIndexFile.getIndexFile(dataFile, 0).isFile());
+      assertEquals(index.getBlockCount(), (RECORDS + 15) / 16);
+      offsets = index.getRecordOffsets();
+      assertEquals(offsets.length, index.getBlockCount());
+      assertEquals(reader.getCurrentRow(), 0);
+    }
+
+    // A new index interval does not apply to an existing index.
+    TableReader.setRecordIndexInterval(1000);
+    try (TableReader reader = new TableReader(createTable(), dataFile)) {
+      TableIndexFile index = reader.getIndex();
+      assertNotNull(index);
+      assertEquals(index.getInterval(), 16);
+      assertEquals(index.getRecordOffsets(), offsets);
+      for (int block = 0; block < index.getBlockCount(); block++) {
+        int first = block * 16 + 1;
+        int last = Math.min(first + 15, RECORDS);
+        assertEquals(index.getBlockMin(block, 1), (double) first);
+        assertEquals(index.getBlockMax(block, 1), (double) last);
+        // Every fifth value is empty, and does not count.
+        assertEquals(index.getBlockMin(block, 2), (first % 5 == 0 ? first + 1 : first) / 2.0);
+        assertEquals(index.getBlockMax(block, 2), (last % 5 == 0 ? last - 1 : last) / 2.0);
+        assertTrue(Double.isNaN(index.getBlockMin(block, 3)));
+      }
+      // The numeric ranges serve as the zone map of filtered reads.
+      ZoneMap zones = reader.getZoneMap();
+      assertEquals(zones.getBlockSize(), 16);
+      assertTrue(zones.isNumeric(1));
+      assertFalse(zones.contains(3));
+      assertEquals(reader.readNext(new TableFilter().range("ID", 100, 100)).getInt(1), 100);
+      Random random = new Random(7);
+      for (int i = 0; i < 100; i++) {
+        int row = 1 + random.nextInt(RECORDS);
+        assertEquals(reader.getRecord(row).getInt(1), row);
+      }
+    }
+  }
+
+  @Test
+  public void testStaleIndex() throws Exception {
+    try (TableReader reader = new TableReader(createTable(), dataFile)) {
+      reader.buildIndex();
+    }
+    assertNotNull(TableIndexFile.load(dataFile, 0, RECORDS, 3));
+    assertNull(TableIndexFile.load(dataFile, 0, RECORDS - 1, 3));
+    assertNull(TableIndexFile.load(dataFile, 10, RECORDS, 3));
+
+    // Change a byte without changing the size or the modification time.
+    long modified = dataFile.lastModified();
+    try (RandomAccessFile raf = new RandomAccessFile(dataFile, "rw")) {
+      raf.seek(raf.length() - 3);
+      raf.write('x');
+    }
+    dataFile.setLastModified(modified);
+    assertNull(TableIndexFile.load(dataFile, 0, RECORDS, 3));
+    try (TableReader reader = new TableReader(createTable(), dataFile)) {
+      assertNull(reader.getIndex());
+    }
+  }
+
+  @Test
+  public void testCorruptIndex() throws Exception {
+    try (TableReader reader = new TableReader(createTable(), dataFile)) {
+      reader.buildIndex();
+    }
+    File indexFile = TableIndexFile.getIndexFile(dataFile, 0);
+    try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+      raf.seek(60);
+      raf.write(raf.read() ^ 1);
+    }
+    assertNull(TableIndexFile.load(dataFile, 0, RECORDS, 3));
+    try (RandomAccessFile raf = new RandomAccessFile(indexFile, "rw")) {
+      raf.setLength(40);
+    }
+    assertNull(TableIndexFile.load(dataFile, 0, RECORDS, 3));
+  }
+
+  @Test
+  public void testIndexDirectory() throws Exception {
+    File directory = Files.createTempDirectory("table-index").toFile();
+    TableIndexFile.setIndexDirectory(directory);
+    try {
+      File indexFile = TableIndexFile.getIndexFile(dataFile, 0);
+      assertEquals(indexFile.getParentFile(), directory);
+      try (TableReader reader = new TableReader(createTable(), dataFile)) {
+        reader.buildIndex();
+      }
+      assertTrue(indexFile.isFile());
+      try (TableReader reader = new TableReader(createTable(), dataFile)) {
+        assertNotNull(reader.getIndex());
+      }
+      indexFile.delete();
+    } finally {
+      TableIndexFile.setIndexDirectory(null);
+      directory.delete();
+    }
+  }
+
+  @Test
+  public void testBinaryTable() throws Exception {
+    File binaryFile = Files.createTempFile("table-index", ".dat").toFile();
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(binaryFile))) {
+      for (int i = 1; i <= RECORDS; i++) {
+        out.writeInt(RECORDS - i);
+      }
+    }
+    RecordBinary record = new RecordBinary();
+    RecordLength recLength = new RecordLength();
+    recLength.setValue(BigInteger.valueOf(4));
+    record.setRecordLength(recLength);
+    record.setFields(BigInteger.ONE);
+    record.setGroups(BigInteger.ZERO);
+    FieldBinary field = new FieldBinary();
+    field.setName("ID");
+    field.setDataType("SignedMSB4");
+    FieldLocation loc = new FieldLocation();
+    loc.setValue(BigInteger.ONE);
+    field.setFieldLocation(loc);
+    FieldLength len = new FieldLength();
+    len.setValue(BigInteger.valueOf(4));
+    field.setFieldLength(len);
+    field.setFieldNumber(BigInteger.ONE);
+    record.getFieldBinariesAndGroupFieldBinaries().add(field);
+    Offset offset = new Offset();
+    offset.setValue(BigInteger.ZERO);
+    TableBinary table = new TableBinary();
+    table.setRecordBinary(record);
+    table.setRecords(BigInteger.valueOf(RECORDS));
+    table.setOffset(offset);
+    try {
+      try (TableReader reader = new TableReader(table, binaryFile)) {
+        reader.buildIndex();
+      }
+      try (TableReader reader = new TableReader(table, binaryFile)) {
+        TableIndexFile index = reader.getIndex();
+        assertEquals(index.getRecordOffsets().length, 0);
+        assertEquals(index.getBlockMax(0, 1), RECORDS - 1.0);
+        assertEquals(index.getBlockMin(index.getBlockCount() - 1, 1), 0.0);
+      }
+    } finally {
+      TableIndexFile.getIndexFile(binaryFile, 0).delete();
+      binaryFile.delete();
+    }
+  }
+
+  private TableDelimited createTable() {
+    return DelimitedTableUtils.createTable(RECORDS, createField("ID", FieldType.ASCII_INTEGER),
+        createField("VALUE", FieldType.ASCII_REAL), createField("TEXT", FieldType.ASCII_STRING));
+  }
+}
@@ -0,0 +1,243 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.fail;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import gov.nasa.arc.pds.xml.generated.TableBinary;
+import gov.nasa.arc.pds.xml.generated.TableDelimited;
+import gov.nasa.pds.label.object.FieldType;
+import gov.nasa.pds.label.object.TableRecord;
+
+public class TableProjectionTest {
+  private static final int RECORDS = 3000;
+
+  private File binaryFile;
+  private File delimitedFile;
+
+  @BeforeClass
+  public void createDataFiles() throws Exception {
+    binaryFile = Files.createTempFile("projection", ".dat").toFile();
+    try (DataOutputStream out = new DataOutputStream(new FileOutputStream(binaryFile))) {
+      for (int i = 1; i <= RECORDS; i++) {
+        out.writeInt(i);
+        out.writeDouble(i / 4.0);
+        out.writeShort(-i);
+      }
+    }
+    StringBuilder data = new StringBuilder();
+    for (int i = 1; i <= RECORDS; i++) {
+      data.append(i).append(",").append(i % 7 == 0 ? "\"quoted, text\"" : "text").append(",")
+          .append(i / 4.0).append(",").append(-i).append("\r\n");
+    }
+    delimitedFile = Files.createTempFile("projection", ".csv").toFile();
+    Files.write(delimitedFile.toPath(), data.toString().getBytes(StandardCharsets.US_ASCII));
+  }
+
+  @AfterClass
+  public void deleteDataFiles() {
+    binaryFile.delete();
+    delimitedFile.delete();
+  }
+
+  @Test
+  public void testFixedWidthRecords() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      assertNull(reader.getProjection());
+      reader.setProjection("VALUE");
+      assertEquals(reader.getProjection(), new int[] {2});
+      TableRecord record;
+      int count = 0;
+      while ((record = reader.readNext()) != null) {
+        count++;
+        assertEquals(record.getDouble("VALUE"), count / 4.0);
+      }
+      assertEquals(count, RECORDS);
+      assertNotProjected(reader.getRecord(5), 1);
+      assertNotProjected(reader.readRecordAt(5), 3);
+      assertEquals(reader.readRecordAt(5).getDouble(2), 1.25);
+
+      long sum = reader.scan(() -> new long[1], (acc, r) -> acc[0] += (long) r.getDouble(2),
+          (left, right) -> {
+            left[0] += right[0];
+            return left;
+          })[0];
+      long expected = 0;
+      for (int i = 1; i <= RECORDS; i++) {
+        expected += (long) (i / 4.0);
+      }
+      assertEquals(sum, expected);
+
+      reader.setCurrentRow(0);
+      reader.setProjection(3, 1);
+      assertEquals(reader.stream().parallel().mapToLong(r -> r.getInt(1) + r.getShort(3)).sum(),
+          0);
+      reader.setProjection((int[]) null);
+      assertNull(reader.getProjection());
+      assertEquals(reader.getRecord(2).getInt(1), 2);
+    }
+  }
+
+  @Test
+  public void testFixedWidthRanges() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      FieldProjection adjacent = new FieldProjection(reader.getFields(), new int[] {2, 1});
+      assertEquals(adjacent.getRangeCount(), 1);
+      assertEquals(adjacent.getRangeBytes(), 12);
+      FieldProjection apart = new FieldProjection(reader.getFields(), new int[] {3, 1});
+      assertEquals(apart.getRangeCount(), 2);
+      assertEquals(apart.getRangeBytes(), 6);
+
+      // The bytes of the field between the projected fields are not read.
+      byte[] bytes = new byte[28];
+      Arrays.fill(bytes, (byte) -1);
+      try (ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(binaryFile, 0, 14, RECORDS)) {
+        apart.readRecordBytes(accessor, 7, bytes, 14, false);
+      }
+      assertEquals(Arrays.copyOfRange(bytes, 14, 18), new byte[] {0, 0, 0, 7});
+      byte[] skipped = new byte[8];
+      Arrays.fill(skipped, (byte) -1);
+      assertEquals(Arrays.copyOfRange(bytes, 18, 26), skipped);
+      assertEquals(Arrays.copyOfRange(bytes, 26, 28), new byte[] {-1, -7});
+
+      reader.setProjection(3, 1);
+      assertEquals(reader.getRecord(7).getInt(1), 7);
+      assertEquals(reader.getRecord(7).getShort(3), -7);
+      ColumnBatch batch = reader.readBatch(10);
+      assertEquals(batch.getInts(1)[9], 17);
+      assertEquals(batch.getInts(3)[9], -17);
+    }
+  }
+
+  @Test
+  public void testFixedWidthBatch() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      reader.setProjection(3);
+      ColumnBatch batch = reader.readBatch(100);
+      assertEquals(batch.getRowCount(), 100);
+      assertEquals(batch.getInts(3)[99], -100);
+      try {
+        batch.getInts(1);
+        fail("A column outside the projection should not be readable");
+      } catch (IllegalArgumentException ex) {
+        assertEquals(ex.getMessage(), "Field ID is not in the projection");
+      }
+    }
+  }
+
+  @Test
+  public void testDelimitedRecords() throws Exception {
+    try (TableReader reader = new TableReader(createDelimitedTable(), delimitedFile)) {
+      reader.setProjection("TEXT", "ID");
+      TableRecord record;
+      int count = 0;
+      while ((record = reader.readNext()) != null) {
+        count++;
+        assertEquals(record.getInt(1), count);
+        assertEquals(record.getString(2), count % 7 == 0 ? "quoted, text" : "text");
+      }
+      assertEquals(count, RECORDS);
+      assertNotProjected(reader.getRecord(14), 3);
+      assertNotProjected(reader.getRecord(15), 4);
+
+      reader.setCurrentRow(0);
+      ColumnBatch batch = reader.readBatch(50);
+      assertEquals(batch.getLongs(1)[49], 50);
+      assertEquals(batch.getStrings(2)[6], "quoted, text");
+    }
+  }
+
+  @Test
+  public void testDelimitedFieldCount() throws Exception {
+    File badFile = Files.createTempFile("projection-bad", ".csv").toFile();
+    Files.write(badFile.toPath(),
+        "1,a,0.5,-1\r\n2,b,1.5\r\n".getBytes(StandardCharsets.US_ASCII));
+    try (TableReader reader = new TableReader(createDelimitedTable(), badFile)) {
+      reader.setProjection(1);
+      reader.readNext();
+      reader.readNext();
+      fail("A record with a missing field should be reported");
+    } catch (IOException ex) {
+      assertEquals(ex.getMessage(), "Record 2 has wrong number of fields (expected 4, got 3)");
+    } finally {
+      badFile.delete();
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadFieldName() throws Exception {
+    try (TableReader reader = new TableReader(createDelimitedTable(), delimitedFile)) {
+      reader.setProjection("NO_SUCH_FIELD");
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testBadFieldIndex() throws Exception {
+    try (TableReader reader = new TableReader(createBinaryTable(), binaryFile)) {
+      reader.setProjection(4);
+    }
+  }
+
+  private void assertNotProjected(TableRecord record, int index) {
+    try {
+      record.getString(index);
+      fail("Field " + index + " should not be readable");
+    } catch (IllegalArgumentException ex) {
+      assertEquals(ex.getMessage(), "Field " + index + " is not in the projection");
+    }
+  }
+
+  private TableBinary createBinaryTable() {
+    return BinaryTableUtils.createTable(RECORDS, 14,
+        BinaryTableUtils.createField("ID", "SignedMSB4", 1, 4, 1),
+        BinaryTableUtils.createField("VALUE", "IEEE754MSBDouble", 5, 8, 2),
+        BinaryTableUtils.createField("NEGATIVE", "SignedMSB2", 13, 2, 3));
+  }
+
+  private TableDelimited createDelimitedTable() {
+    return DelimitedTableUtils.createTable(RECORDS,
+        DelimitedTableUtils.createField("ID", FieldType.ASCII_INTEGER),
+        DelimitedTableUtils.createField("TEXT", FieldType.ASCII_STRING),
+        DelimitedTableUtils.createField("VALUE", FieldType.ASCII_REAL),
+        DelimitedTableUtils.createField("NEGATIVE", FieldType.ASCII_INTEGER));
+  }
+}
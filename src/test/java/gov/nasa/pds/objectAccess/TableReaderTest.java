@@ -206,6 +206,14 @@ public class TableReaderTest {
       }
     }
 
+    // Positional reads return independent records and leave the current row alone.
+    long currentRow = reader.getCurrentRow();
+    TableRecord second = reader.readRecordAt(2);
+    TableRecord first = reader.readRecordAt(1);
+    assertEquals(second.getString(1).trim(), binData[1][0][2]);
+    assertEquals(first.getString(1).trim(), binData[0][0][2]);
+    assertEquals(reader.getCurrentRow(), currentRow);
+
     dataFile.deleteOnExit();
     new File(FileUtils.toFile(oa.getRoot()), label).deleteOnExit();
     reader.close();
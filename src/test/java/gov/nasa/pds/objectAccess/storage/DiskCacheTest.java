@@ -0,0 +1,131 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import java.io.File;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DiskCacheTest {
+  private File dir;
+
+  @BeforeMethod
+  public void createDirectory() throws Exception {
+    dir = Files.createTempDirectory("pds4-cache").toFile();
+  }
+
+  @AfterMethod
+  public void deleteDirectory() throws Exception {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Test
+  public void testKey() {
+    String key = DiskCache.key("https://example.invalid/a.dat", "\"v1\"", 100, 1024);
+    assertEquals(key, DiskCache.key("https://example.invalid/a.dat", "\"v1\"", 100, 1024));
+    assertNotEquals(key, DiskCache.key("https://example.invalid/a.dat", "\"v2\"", 100, 1024));
+    assertNotEquals(key, DiskCache.key("https://example.invalid/a.dat", "\"v1\"", 100, 2048));
+    assertNotEquals(DiskCache.key("https://example.invalid/a.dat", null, 100, 1024),
+        DiskCache.key("https://example.invalid/a.dat", null, 101, 1024));
+  }
+
+  @Test
+  public void testLeastRecentlyUsedEviction() throws Exception {
+    DiskCache cache = new DiskCache(dir, 3000);
+    String key = DiskCache.key("https://example.invalid/a.dat", null, 4000, 1000);
+    cache.put(key, 0, new byte[1000]);
+    cache.put(key, 1, new byte[1000]);
+    cache.put(key, 2, new byte[1000]);
+    // Make block 0 the most recently used; modification times have a coarse resolution.
+    new File(dir, key + "/1.blk").setLastModified(System.currentTimeMillis() - 20000);
+    new File(dir, key + "/2.blk").setLastModified(System.currentTimeMillis() - 10000);
+    assertNotNull(cache.get(key, 0));
+
+    cache.put(key, 3, new byte[1000]);
+    assertNull(cache.get(key, 1));
+    assertNull(cache.get(key, 2));
+    assertNotNull(cache.get(key, 0));
+    assertEquals(cache.get(key, 3).length, 1000);
+
+    // A new instance over the same directory sees the remaining blocks.
+    assertNotNull(new DiskCache(dir, 3000).get(key, 0));
+  }
+
+  @Test
+  public void testReplaceCountsOnce() throws Exception {
+    DiskCache cache = new DiskCache(dir, 3000);
+    String key = DiskCache.key("https://example.invalid/a.dat", null, 3000, 1000);
+    for (int i = 0; i < 4; i++) {
+      cache.put(key, 0, new byte[1000]);
+    }
+    assertTrue(cache.contains(key, 0));
+    assertFalse(cache.contains(key, 1));
+    cache.put(key, 1, new byte[1000]);
+    cache.put(key, 2, new byte[1000]);
+    // Three distinct blocks fit, so nothing is evicted.
+    assertTrue(cache.contains(key, 0));
+    assertTrue(cache.contains(key, 1));
+    assertTrue(cache.contains(key, 2));
+  }
+
+  @Test
+  public void testWrongBlockLengthIsMiss() throws Exception {
+    byte[] content = new byte[3000];
+    for (int i = 0; i < content.length; i++) {
+      content[i] = (byte) i;
+    }
+    URL url = new URL("http://example.invalid/b.dat");
+    InMemoryStorageProvider provider = new InMemoryStorageProvider();
+    provider.put(url, content);
+    DiskCache cache = new DiskCache(dir, 1 << 20);
+    String key = DiskCache.key(url.toString(), null, content.length, 1000);
+    // A block left by a reader using another block size under the same key.
+    cache.put(key, 1, new byte[500]);
+    ByteBuffer buf = ByteBuffer.allocate(content.length);
+    try (StorageObject cached =
+        new DiskCachingStorageObject(provider.open(url), cache, key, 1000)) {
+      cached.readFully(0, buf);
+    }
+    assertEquals(buf.array(), content);
+    assertEquals(cache.get(key, 1).length, 1000);
+  }
+}
@@ -0,0 +1,330 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.storage;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import gov.nasa.pds.objectAccess.ByteWiseFileAccessor;
+import gov.nasa.pds.objectAccess.MappingMode;
+
+public class StorageProviderTest {
+  private static final String BIN_DATA_FILE =
+      "./src/test/resources/dph_example_products/product_table_binary/2d234493326edratf3d2537n0m1.dat";
+  private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+  private byte[] content;
+  private HttpServer server;
+  private URL httpUrl;
+  private URL noRangeUrl;
+  private URL noHeadUrl;
+  private URL changedUrl;
+  private URL replacedUrl;
+  private volatile String lastIfRange;
+  private int noRangeRequests;
+
+  @BeforeClass
+  public void startServer() throws IOException {
+    content = Files.readAllBytes(new File(BIN_DATA_FILE).toPath());
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/data.dat", this::serve);
+    server.createContext("/norange.dat", this::serveWithoutRanges);
+    server.createContext("/nohead.dat", this::serveWithoutHead);
+    server.createContext("/changed.dat", exchange -> serveChanged(exchange, 200));
+    server.createContext("/replaced.dat", exchange -> serveChanged(exchange, 412));
+    server.start();
+    httpUrl = new URL("http", "localhost", server.getAddress().getPort(), "/data.dat");
+    noRangeUrl = new URL("http", "localhost", server.getAddress().getPort(), "/norange.dat");
+    noHeadUrl = new URL("http", "localhost", server.getAddress().getPort(), "/nohead.dat");
+    changedUrl = new URL("http", "localhost", server.getAddress().getPort(), "/changed.dat");
+    replacedUrl = new URL("http", "localhost", server.getAddress().getPort(), "/replaced.dat");
+  }
+
+  @AfterClass
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  // A minimal server that honors single byte ranges.
+  private void serve(HttpExchange exchange) throws IOException {
+    exchange.getResponseHeaders().add("ETag", "\"v1\"");
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().add("Content-Length", Integer.toString(content.length));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    Matcher m = range == null ? null : RANGE.matcher(range);
+    int first = 0;
+    int last = content.length - 1;
+    int status = 200;
+    if (m != null && m.matches()) {
+      first = Integer.parseInt(m.group(1));
+      last = Math.min(Integer.parseInt(m.group(2)), content.length - 1);
+      status = 206;
+      exchange.getResponseHeaders().add("Content-Range",
+          "bytes " + first + "-" + last + "/" + content.length);
+    }
+    exchange.sendResponseHeaders(status, last - first + 1);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(content, first, last - first + 1);
+    }
+  }
+
+  // A server that ignores ranges and always sends the whole file.
+  private void serveWithoutRanges(HttpExchange exchange) throws IOException {
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().add("Content-Length", Integer.toString(content.length));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+    synchronized (this) {
+      noRangeRequests++;
+    }
+    exchange.sendResponseHeaders(200, content.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(content);
+    }
+  }
+
+  // A server that rejects HEAD requests, like presigned URLs do.
+  private void serveWithoutHead(HttpExchange exchange) throws IOException {
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.sendResponseHeaders(405, -1);
+      exchange.close();
+      return;
+    }
+    serve(exchange);
+  }
+
+  @Test
+  public void testHeadRejected() throws IOException {
+    HttpRangeStorageProvider provider = new HttpRangeStorageProvider(false);
+    try (HttpRangeStorageObject storage = provider.open(noHeadUrl)) {
+      assertEquals(storage.size(), content.length);
+      assertEquals(storage.getETag(), "\"v1\"");
+      ByteBuffer buf = ByteBuffer.allocate(100);
+      assertEquals(storage.read(1000, buf), 100);
+      assertEquals(buf.array(), Arrays.copyOfRange(content, 1000, 1100));
+    }
+  }
+
+  // A server whose file changes after HEAD. It answers a range request for the old version with
+  // the whole new file, as If-Range asks, or with a failed precondition.
+  private void serveChanged(HttpExchange exchange, int status) throws IOException {
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.getResponseHeaders().add("ETag", "\"v1\"");
+      exchange.getResponseHeaders().add("Content-Length", Integer.toString(content.length));
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+    lastIfRange = exchange.getRequestHeaders().getFirst("If-Range");
+    exchange.getResponseHeaders().add("ETag", "\"v2\"");
+    if (status != 200) {
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+      return;
+    }
+    exchange.sendResponseHeaders(200, content.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(content);
+    }
+  }
+
+  @Test
+  public void testChangedFile() throws IOException {
+    HttpRangeStorageProvider provider = new HttpRangeStorageProvider(false);
+    for (URL url : new URL[] {changedUrl, replacedUrl}) {
+      try (HttpRangeStorageObject storage = provider.open(url)) {
+        storage.read(0, ByteBuffer.allocate(100));
+        fail("A changed file should not be read");
+      } catch (IOException ex) {
+        assertTrue(ex.getMessage().contains("has changed"), ex.getMessage());
+      }
+      assertEquals(lastIfRange, "\"v1\"");
+    }
+  }
+
+  @Test
+  public void testRangesIgnored() throws IOException {
+    HttpRangeStorageProvider provider = new HttpRangeStorageProvider(false);
+    int before = noRangeRequests;
+    try (StorageObject cached = new BlockCachingStorageObject(provider.open(noRangeUrl), 1024,
+        16)) {
+      byte[] scanned = new byte[content.length];
+      cached.readFully(0, ByteBuffer.wrap(scanned, 0, 5000));
+      cached.readFully(5000, ByteBuffer.wrap(scanned, 5000, content.length - 5000));
+      assertEquals(scanned, content);
+    }
+    // The whole file is downloaded once, not once per block.
+    assertEquals(noRangeRequests - before, 1);
+  }
+
+  @Test
+  public void testHttpRangeReads() throws IOException {
+    HttpRangeStorageProvider provider = new HttpRangeStorageProvider(false);
+    assertTrue(provider.supports(httpUrl));
+    try (HttpRangeStorageObject storage = provider.open(httpUrl)) {
+      assertEquals(storage.size(), content.length);
+      assertEquals(storage.getETag(), "\"v1\"");
+
+      ByteBuffer buf = ByteBuffer.allocate(100);
+      assertEquals(storage.read(1000, buf), 100);
+      assertEquals(buf.array(), Arrays.copyOfRange(content, 1000, 1100));
+      assertEquals(storage.getRequestCount(), 1);
+
+      buf.clear();
+      assertEquals(storage.read(content.length - 10, buf), 10);
+      assertEquals(storage.read(content.length, buf), -1);
+    }
+  }
+
+  @Test
+  public void testInMemoryProvider() throws IOException {
+    InMemoryStorageProvider provider = new InMemoryStorageProvider();
+    URL url = new URL("http://example.invalid/memory.dat");
+    assertFalse(provider.supports(url));
+    provider.put(url, content);
+    try (StorageObject storage = provider.open(url)) {
+      ByteBuffer buf = ByteBuffer.allocate(8);
+      storage.readFully(8, buf);
+      assertEquals(buf.array(), Arrays.copyOfRange(content, 8, 16));
+    }
+  }
+
+  @Test
+  public void testStorageObjectChannel() throws IOException {
+    URL url = new File(BIN_DATA_FILE).toURI().toURL();
+    StorageObject storage = StorageProviderRegistry.INSTANCE.open(url);
+    try (SeekableByteChannel channel = new StorageObjectChannel(storage, 96, 192)) {
+      assertEquals(channel.size(), 192);
+      ByteBuffer buf = ByteBuffer.allocate(200);
+      assertEquals(channel.read(buf), 192);
+      assertEquals(Arrays.copyOf(buf.array(), 192), Arrays.copyOfRange(content, 96, 288));
+      assertEquals(channel.read(buf), -1);
+    }
+  }
+
+  @Test
+  public void testAccessorOverRegisteredProvider() throws Exception {
+    InMemoryStorageProvider provider = new InMemoryStorageProvider();
+    URL url = new URL("http://example.invalid/table.dat");
+    provider.put(url, content);
+    StorageProviderRegistry.INSTANCE.register(provider);
+    try {
+      ByteWiseFileAccessor accessor = new ByteWiseFileAccessor(url, 0, 96, 336);
+      assertEquals(accessor.getMappingMode(), MappingMode.CHANNEL);
+      assertEquals(accessor.readRecordBytes(2, 4, 2), new byte[] {0x04, (byte) 0xE8});
+      accessor.close();
+    } finally {
+      StorageProviderRegistry.INSTANCE.unregister(provider);
+    }
+  }
+
+  @Test
+  public void testBlockCacheReadAhead() throws IOException {
+    HttpRangeStorageObject http = new HttpRangeStorageProvider(false).open(httpUrl);
+    try (StorageObject cached = new BlockCachingStorageObject(http, 1024, 16)) {
+      assertTrue(cached.isRemote());
+      // A sequential scan in small reads doubles the read-ahead on every miss, up to 8 blocks:
+      // requests for blocks 0, 1-2, 3-6, 7-14, 15-22, 23-30 and 31.
+      byte[] scanned = new byte[content.length];
+      ByteBuffer buf = ByteBuffer.allocate(100);
+      long pos = 0;
+      int n;
+      while ((n = cached.read(pos, buf)) > 0) {
+        System.arraycopy(buf.array(), 0, scanned, (int) pos, n);
+        pos += n;
+        buf.clear();
+      }
+      assertEquals(scanned, content);
+      assertEquals(http.getRequestCount(), 7);
+
+      // Cached blocks are served without a request; a random miss fetches a single block.
+      buf.clear();
+      cached.read(30 * 1024, buf);
+      assertEquals(http.getRequestCount(), 7);
+      buf.clear();
+      cached.read(2 * 1024, buf);
+      assertEquals(buf.array(), Arrays.copyOfRange(content, 2048, 2148));
+      assertEquals(http.getRequestCount(), 8);
+    }
+  }
+
+  @Test
+  public void testDiskCacheAvoidsRepeatRequests() throws IOException {
+    Path dir = Files.createTempDirectory("pds4-cache");
+    DiskCache cache = new DiskCache(dir.toFile(), 1 << 20);
+    HttpRangeStorageProvider provider = new HttpRangeStorageProvider(false);
+
+    HttpRangeStorageObject first = provider.open(httpUrl);
+    String key = DiskCache.key(httpUrl.toString(), first.getETag(), first.size(), 1024);
+    ByteBuffer buf = ByteBuffer.allocate(content.length);
+    try (StorageObject cached = new DiskCachingStorageObject(first, cache, key, 1024)) {
+      cached.readFully(0, buf);
+    }
+    assertEquals(buf.array(), content);
+    assertEquals(first.getRequestCount(), 1);
+
+    // A second open of the same version is served from disk.
+    HttpRangeStorageObject second = provider.open(httpUrl);
+    buf.clear();
+    try (StorageObject cached = new DiskCachingStorageObject(second, cache, key, 1024)) {
+      cached.readFully(0, buf);
+    }
+    assertEquals(buf.array(), content);
+    assertEquals(second.getRequestCount(), 0);
+    FileUtils.deleteDirectory(dir.toFile());
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import static org.testng.Assert.assertEquals;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class AsciiIntegerParserTest {
+
+  @Test(dataProvider = "GoodValues")
+  public void testGoodValues(String text, int radix, long expected) {
+    assertEquals(parse("xx" + text + "yy", 2, text.length(), radix), expected);
+  }
+
+  @SuppressWarnings("unused")
+  @DataProvider(name = "GoodValues")
+  private Object[][] getGoodValues() {
+    return new Object[][] {
+        // text, radix, value
+        {"0", 10, 0}, {"  123 ", 10, 123}, {"\t-42\r\n", 10, -42}, {"+7", 10, 7},
+        {"0000000000000000000000012", 10, 12}, {"101", 2, 5}, {"-777", 8, -511},
+        {"7fFf", 16, 0x7fff}, {"9223372036854775807", 10, Long.MAX_VALUE},
+        {"-9223372036854775807", 10, -Long.MAX_VALUE},
+        {"7FFFFFFFFFFFFFFF", 16, Long.MAX_VALUE}};
+  }
+
+  @Test(dataProvider = "NotParsed")
+  public void testNotParsed(String text, int radix) {
+    assertEquals(parse(text, 0, text.length(), radix), AsciiIntegerParser.NOT_PARSED);
+  }
+
+  @SuppressWarnings("unused")
+  @DataProvider(name = "NotParsed")
+  private Object[][] getNotParsed() {
+    return new Object[][] {
+        // text, radix
+        {"", 10}, {"   ", 10}, {"-", 10}, {"+ 1", 10}, {"1 2", 10}, {"1.0", 10}, {"12", 2},
+        {"1a", 10}, {"0x1F", 16}, {"--1", 10}, {"9223372036854775808", 10},
+        {"-9223372036854775809", 10}, {"18446744073709551616", 10},
+        {"10000000000000000", 16}, {"é", 10}};
+  }
+
+  @Test
+  public void testMatchesBigInteger() {
+    Random random = new Random(5);
+    for (int radix : new int[] {2, 8, 10, 16}) {
+      for (int i = 0; i < 2000; i++) {
+        BigInteger value = new BigInteger(1 + random.nextInt(70), random);
+        if (random.nextBoolean()) {
+          value = value.negate();
+        }
+        String text = value.toString(radix);
+        if (random.nextBoolean()) {
+          text = text.toUpperCase();
+        }
+        long parsed = parse(" " + text + " ", 0, text.length() + 2, radix);
+        if (value.bitLength() < 64) {
+          assertEquals(parsed, value.longValue(), text);
+        } else if (!value.equals(BigInteger.valueOf(Long.MIN_VALUE))) {
+          assertEquals(parsed, AsciiIntegerParser.NOT_PARSED, text);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAdapterFallback() {
+    FieldAdapter adapter = new NumericTextFieldAdapter(16);
+    byte[] b = " -8000000000000000 ".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(adapter.getLong(b, 0, b.length, 0, 0), Long.MIN_VALUE);
+    // A value larger than 64 bits keeps its low-order bits, as with BigInteger.
+    b = "1FFFFFFFFFFFFFFFF".getBytes(StandardCharsets.US_ASCII);
+    assertEquals(adapter.getLong(b, 0, b.length, 0, 0), -1L);
+    assertEquals(adapter.getInt(b, 0, b.length, 0, 0), -1);
+  }
+
+  private static long parse(String text, int offset, int length, int radix) {
+    byte[] b = text.getBytes(StandardCharsets.UTF_8);
+    return AsciiIntegerParser.parse(b, offset, length, radix);
+  }
+}
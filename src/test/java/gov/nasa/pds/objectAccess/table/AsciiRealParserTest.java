@@ -0,0 +1,108 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class AsciiRealParserTest {
+
+  @Test(dataProvider = "Texts")
+  public void testMatchesJdk(String text) {
+    checkSame(text);
+  }
+
+  @SuppressWarnings("unused")
+  @DataProvider(name = "Texts")
+  private Object[][] getTexts() {
+    return new Object[][] {
+        // text
+        {"0"}, {"-0.0"}, {"+0e5"}, {" 1.5 "}, {"\t-273.15\r\n"}, {".5"}, {"5."}, {"1e22"},
+        {"1e23"}, {"-1E-22"}, {"1.7976931348623157E308"}, {"4.9E-324"}, {"123456789012345"},
+        {"1234567890123456"}, {"9007199254740993"}, {"9007199254740992e10"}, {"0.1"},
+        {"3.4028235E38"}, {"1.4E-45"}, {"0.000000000000000000000000000001"},
+        {"100000000000000000000000000000"}, {"1e-400"}, {"1e400"}, {"16777217"}, {"1.0d"},
+        {"2.5F"}, {"NaN"}, {"-Infinity"}, {"0x1.8p1"}, {"1e+05"}, {"00012.3400"}};
+  }
+
+  @Test(dataProvider = "BadTexts")
+  public void testBadText(String text) {
+    byte[] b = text.getBytes(StandardCharsets.US_ASCII);
+    assertThrows(NumberFormatException.class,
+        () -> AsciiRealParser.parseDouble(b, 0, b.length));
+    assertThrows(NumberFormatException.class, () -> AsciiRealParser.parseFloat(b, 0, b.length));
+  }
+
+  @SuppressWarnings("unused")
+  @DataProvider(name = "BadTexts")
+  private Object[][] getBadTexts() {
+    return new Object[][] {
+        // text
+        {""}, {"  "}, {"-"}, {"."}, {"1e"}, {"1e+"}, {"e5"}, {"1.2.3"}, {"1 2"}, {"--1"},
+        {"12abc"}};
+  }
+
+  @Test
+  public void testRandomValues() {
+    Random random = new Random(23);
+    for (int i = 0; i < 20000; i++) {
+      double value = Double.longBitsToDouble(random.nextLong());
+      if (Double.isNaN(value)) {
+        continue;
+      }
+      checkSame(Double.toString(value));
+      checkSame(String.format(Locale.US, "%." + random.nextInt(17) + "E", value));
+      double scaled = random.nextDouble() * Math.pow(10, random.nextInt(40) - 20);
+      checkSame(String.format(Locale.US, "%." + random.nextInt(16) + "f", scaled));
+      checkSame(Float.toString((float) scaled));
+      StringBuilder digits = new StringBuilder();
+      int length = 1 + random.nextInt(18);
+      for (int d = 0; d < length; d++) {
+        digits.append((char) ('0' + random.nextInt(10)));
+      }
+      digits.insert(random.nextInt(length + 1), '.');
+      checkSame(digits + "e" + (random.nextInt(80) - 40));
+    }
+  }
+
+  private static void checkSame(String text) {
+    byte[] b = ("##" + text + "##").getBytes(StandardCharsets.US_ASCII);
+    assertEquals(Double.doubleToRawLongBits(AsciiRealParser.parseDouble(b, 2, b.length - 4)),
+        Double.doubleToRawLongBits(Double.parseDouble(text)), text);
+    assertEquals(Float.floatToRawIntBits(AsciiRealParser.parseFloat(b, 2, b.length - 4)),
+        Float.floatToRawIntBits(Float.parseFloat(text)), text);
+  }
+}
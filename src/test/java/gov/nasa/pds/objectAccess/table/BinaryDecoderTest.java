@@ -0,0 +1,139 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Random;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import gov.nasa.pds.label.object.FieldType;
+
+public class BinaryDecoderTest {
+
+  private static final int RECORD_LENGTH = 13;
+  private static final int OFFSET = 3;
+  private static final int RECORDS = 500;
+
+  @Test(dataProvider = "BinaryTypes")
+  public void testMatchesByteBuffer(FieldType type, int length, boolean bigEndian) {
+    BinaryDecoder decoder = BinaryDecoder.of(type);
+    assertEquals(decoder.getLength(), length);
+    byte[] records = new byte[RECORDS * RECORD_LENGTH];
+    new Random(type.ordinal()).nextBytes(records);
+    ByteBuffer buffer =
+        ByteBuffer.wrap(records).order(bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+    boolean real = type.getXMLType().startsWith("IEEE754");
+    boolean signed = type.getXMLType().startsWith("Signed");
+
+    long[] longs = new long[RECORDS + 1];
+    double[] doubles = new double[RECORDS + 1];
+    decoder.decode(records, OFFSET, RECORD_LENGTH, RECORDS, longs, 1);
+    decoder.decode(records, OFFSET, RECORD_LENGTH, RECORDS, doubles, 1);
+    for (int i = 0; i < RECORDS; i++) {
+      int position = i * RECORD_LENGTH + OFFSET;
+      double expected;
+      if (real) {
+        expected = length == 4 ? buffer.getFloat(position) : buffer.getDouble(position);
+      } else {
+        long value = integer(buffer, position, length, signed);
+        assertEquals(decoder.getLong(records, position), value);
+        assertEquals(longs[i + 1], value);
+        // The field adapter decodes the same value.
+        assertEquals(type.getAdapter().getLong(records, position, length, 0, 0), value);
+        expected = value;
+      }
+      assertEquals(Double.doubleToRawLongBits(decoder.getDouble(records, position)),
+          Double.doubleToRawLongBits(expected));
+      assertEquals(Double.doubleToRawLongBits(doubles[i + 1]),
+          Double.doubleToRawLongBits(expected));
+      assertEquals(
+          Double.doubleToRawLongBits(type.getAdapter().getDouble(records, position, length, 0, 0)),
+          Double.doubleToRawLongBits(expected));
+    }
+  }
+
+  @SuppressWarnings("unused")
+  @DataProvider(name = "BinaryTypes")
+  private Object[][] getBinaryTypes() {
+    return new Object[][] {
+        // type, length, big endian
+        {FieldType.SIGNEDBYTE, 1, true}, {FieldType.UNSIGNEDBYTE, 1, true},
+        {FieldType.SIGNEDLSB2, 2, false}, {FieldType.SIGNEDMSB2, 2, true},
+        {FieldType.UNSIGNEDLSB2, 2, false}, {FieldType.UNSIGNEDMSB2, 2, true},
+        {FieldType.SIGNEDLSB4, 4, false}, {FieldType.SIGNEDMSB4, 4, true},
+        {FieldType.UNSIGNEDLSB4, 4, false}, {FieldType.UNSIGNEDMSB4, 4, true},
+        {FieldType.SIGNEDLSB8, 8, false}, {FieldType.SIGNEDMSB8, 8, true},
+        {FieldType.UNSIGNEDLSB8, 8, false}, {FieldType.UNSIGNEDMSB8, 8, true},
+        {FieldType.IEEE754LSBSINGLE, 4, false}, {FieldType.IEEE754MSBSINGLE, 4, true},
+        {FieldType.IEEE754LSBDOUBLE, 8, false}, {FieldType.IEEE754MSBDOUBLE, 8, true}};
+  }
+
+  @Test
+  public void testIntColumns() {
+    byte[] records = {1, -2, 3, 0x7F, -1, -1};
+    int[] values = new int[3];
+    BinaryDecoder.of(FieldType.SIGNEDMSB2).decode(records, 0, 2, 3, values, 0);
+    assertEquals(values, new int[] {0x01FE, 0x037F, -1});
+    BinaryDecoder.of(FieldType.UNSIGNEDLSB2).decode(records, 0, 2, 3, values, 0);
+    assertEquals(values, new int[] {0xFE01, 0x7F03, 0xFFFF});
+    BinaryDecoder.of(FieldType.UNSIGNEDBYTE).decode(records, 1, 2, 3, values, 0);
+    assertEquals(values, new int[] {0xFE, 0x7F, 0xFF});
+  }
+
+  @Test(expectedExceptions = NumberFormatException.class)
+  public void testIntOutOfRange() {
+    byte[] records = {-1, -1, -1, -1};
+    BinaryDecoder.of(FieldType.UNSIGNEDMSB4).decode(records, 0, 4, 1, new int[1], 0);
+  }
+
+  @Test
+  public void testNotBinary() {
+    assertNull(BinaryDecoder.of(FieldType.ASCII_REAL));
+    assertNull(BinaryDecoder.of(FieldType.SIGNEDBITSTRING));
+    assertNull(BinaryDecoder.forInteger(3, true, true));
+  }
+
+  private static long integer(ByteBuffer buffer, int position, int length, boolean signed) {
+    switch (length) {
+      case 1:
+        return signed ? buffer.get(position) : buffer.get(position) & 0xFF;
+      case 2:
+        return signed ? buffer.getShort(position) : buffer.getShort(position) & 0xFFFF;
+      case 4:
+        return signed ? buffer.getInt(position) : buffer.getInt(position) & 0xFFFFFFFFL;
+      default:
+        return buffer.getLong(position);
+    }
+  }
+}
@@ -123,6 +123,23 @@ public class NumericTextFieldAdapterTest {
     assertEquals(adapter.getDouble(b, 0, b.length, 0, 0), Double.parseDouble(s), 0.000000000000001);
   }
 
+  @Test
+  public void testGetDoubleRadix() {
+    byte[] b = " FF ".getBytes(US_ASCII);
+    assertEquals(new NumericTextFieldAdapter(16).getDouble(b, 0, b.length, 0, 0), 255.0);
+    assertEquals(new NumericTextFieldAdapter(16).getFloat(b, 0, b.length, 0, 0), 255.0f);
+    b = "10".getBytes(US_ASCII);
+    assertEquals(new NumericTextFieldAdapter(2).getDouble(b, 0, b.length, 0, 0), 2.0);
+    b = "10000000000000000".getBytes(US_ASCII); // 2^64, beyond a long
+    assertEquals(new NumericTextFieldAdapter(16).getDouble(b, 0, b.length, 0, 0), 0x1p64);
+  }
+
+  @Test(expectedExceptions = {NumberFormatException.class})
+  public void testGetDoubleBadDigit() {
+    byte[] b = "12".getBytes(US_ASCII);
+    new NumericTextFieldAdapter(2).getDouble(b, 0, b.length, 0, 0);
+  }
+
   @Test
   public void testSetGoodInt() {
     int value = 123;
@@ -0,0 +1,131 @@
+// Copyright 2019, California Institute of Technology ("Caltech").
+// U.S. Government sponsorship acknowledged.
+//
+// All rights reserved.
+//
+// Redistribution and use in source and binary forms, with or without
+// modification, are permitted provided that the following conditions are met:
+//
+// * Redistributions of source code must retain the above copyright notice,
+// this list of conditions and the following disclaimer.
+// * Redistributions must reproduce the above copyright notice, this list of
+// conditions and the following disclaimer in the documentation and/or other
+// materials provided with the distribution.
+// * Neither the name of Caltech nor its operating division, the Jet Propulsion
+// Laboratory, nor the names of its contributors may be used to endorse or
+// promote products derived from this software without specific prior written
+// permission.
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+// AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+// IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+// ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE
+// LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+// CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+// SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+// INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+// CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+// POSSIBILITY OF SUCH DAMAGE.
+
+package gov.nasa.pds.objectAccess.table;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import java.util.Random;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import gov.nasa.pds.label.object.FieldDescription;
+import gov.nasa.pds.label.object.FieldType;
+
+public class PackedBitFieldExtractorTest {
+
+  private static final int RECORD_LENGTH = 15;
+  private static final int OFFSET = 2;
+  private static final int RECORDS = 300;
+
+  @Test(dataProvider = "Layouts")
+  public void testMatchesBitByBit(int length, int[] bits) {
+    FieldDescription[] fields = new FieldDescription[bits.length / 2];
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = createField(i % 2 == 0, length, bits[2 * i], bits[2 * i + 1]);
+    }
+    PackedBitFieldExtractor extractor = new PackedBitFieldExtractor(fields);
+    assertEquals(extractor.getOffset(), OFFSET);
+    assertEquals(extractor.getLength(), length);
+    assertEquals(extractor.getFieldCount(), fields.length);
+
+    byte[] records = new byte[RECORDS * RECORD_LENGTH];
+    new Random(length).nextBytes(records);
+    long[][] columns = new long[fields.length][RECORDS + 1];
+    extractor.extract(records, 0, RECORD_LENGTH, RECORDS, columns, 1);
+    long[] values = new long[fields.length];
+    for (int n = 0; n < RECORDS; n++) {
+      extractor.extract(records, n * RECORD_LENGTH, values);
+      for (int i = 0; i < fields.length; i++) {
+        long expected = expectedValue(records, n * RECORD_LENGTH + OFFSET, fields[i]);
+        assertEquals(columns[i][n + 1], expected);
+        assertEquals(values[i], expected);
+        assertEquals(new BitFieldAdapter(i % 2 == 0).getLong(records, n * RECORD_LENGTH + OFFSET,
+            length, fields[i].getStartBit(), fields[i].getStopBit()), expected);
+      }
+    }
+  }
+
+  @DataProvider(name = "Layouts")
+  private Object[][] getLayouts() {
+    return new Object[][] {
+        // packed field length, start and stop bits of each bit field
+        {1, new int[] {0, 0, 1, 3, 4, 7}},
+        {2, new int[] {0, 4, 5, 5, 6, 15}},
+        {3, new int[] {0, 11, 12, 23}},
+        {4, new int[] {0, 2, 3, 15, 16, 31, 7, 9}},
+        {8, new int[] {0, 63, 1, 62, 60, 63}},
+        {12, new int[] {0, 15, 16, 79, 80, 95, 3, 5}},
+        {13, new int[] {8, 71, 71, 103, 0, 0}},};
+  }
+
+  @Test
+  public void testSupports() {
+    assertTrue(PackedBitFieldExtractor.supports(8, 0, 63));
+    assertTrue(PackedBitFieldExtractor.supports(9, 7, 63));
+    assertFalse(PackedBitFieldExtractor.supports(9, 7, 70));
+    assertFalse(PackedBitFieldExtractor.supports(2, -1, 3));
+    assertFalse(PackedBitFieldExtractor.supports(2, 4, 16));
+    assertFalse(PackedBitFieldExtractor.supports(2, 4, 3));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testDifferentPackedFields() {
+    FieldDescription other = createField(false, 2, 0, 3);
+    other.setOffset(OFFSET + 2);
+    new PackedBitFieldExtractor(createField(false, 2, 4, 7), other);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testUnsupportedBitField() {
+    new PackedBitFieldExtractor(createField(true, 9, 1, 65));
+  }
+
+  private static FieldDescription createField(boolean signed, int length, int startBit,
+      int stopBit) {
+    FieldDescription field = new FieldDescription();
+    field.setName("BITS_" + startBit + "_" + stopBit);
+    field.setType(signed ? FieldType.SIGNEDBITSTRING : FieldType.UNSIGNEDBITSTRING);
+    field.setOffset(OFFSET);
+    field.setLength(length);
+    field.setStartBit(startBit);
+    field.setStopBit(stopBit);
+    return field;
+  }
+
+  private static long expectedValue(byte[] buf, int offset, FieldDescription field) {
+    int nBits = field.getStopBit() - field.getStartBit() + 1;
+    long value = BitFieldAdapter.getBytesAsLong(buf, offset + field.getStartBit() / Byte.SIZE,
+        field.getStartBit() % Byte.SIZE, nBits);
+    return BitFieldAdapter.rightmostBits(value, nBits,
+        field.getType() == FieldType.SIGNEDBITSTRING);
+  }
+
+}